@@ -0,0 +1,131 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript;
+
+import ch.njol.skript.lang.Literal;
+import ch.njol.skript.lang.SkriptEvent;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.Trigger;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of dispatching asynchronous chat-like events from many threads, with and without triggers being reloaded
+ * at the same time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SkriptEventHandlerBenchmark {
+
+    private static final int TRIGGERS = 10;
+
+    @SuppressWarnings("unchecked")
+    private static final Class<? extends Event>[] events = new Class[]{AsyncChatEvent.class};
+
+    private final List<Trigger> triggers = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < TRIGGERS; i++)
+            triggers.add(new Trigger(null, "chat " + i, new ChatEvent(), Collections.emptyList()));
+        reload();
+    }
+
+    @TearDown
+    public void tearDown() {
+        SkriptEventHandler.removeAllTriggers();
+    }
+
+    private final void reload() {
+        SkriptEventHandler.removeAllTriggers();
+        for (final Trigger t : triggers)
+            SkriptEventHandler.addTrigger(events, t);
+        SkriptEventHandler.publish();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void dispatch() {
+        SkriptEventHandler.check(new AsyncChatEvent());
+    }
+
+    @Benchmark
+    @Group("reloading")
+    @GroupThreads(7)
+    public void dispatchWhileReloading() {
+        SkriptEventHandler.check(new AsyncChatEvent());
+    }
+
+    @Benchmark
+    @Group("reloading")
+    @GroupThreads(1)
+    public void reloadWhileDispatching() {
+        reload();
+    }
+
+    private static final class AsyncChatEvent extends Event {
+        private static final HandlerList handlers = new HandlerList();
+
+        AsyncChatEvent() {
+            super(true);
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+    }
+
+    private static final class ChatEvent extends SkriptEvent {
+        @Override
+        public boolean init(final Literal<?>[] args, final int matchedPattern, final ParseResult parseResult) {
+            return true;
+        }
+
+        @Override
+        public boolean check(final Event e) {
+            return false;
+        }
+
+        @Override
+        public String toString(@Nullable final Event e, final boolean debug) {
+            return "chat";
+        }
+    }
+
+}
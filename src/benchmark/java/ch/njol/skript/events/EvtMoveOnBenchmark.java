@@ -0,0 +1,115 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.events;
+
+import ch.njol.skript.lang.Trigger;
+import ch.njol.skript.lang.TriggerItem;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.easymock.EasyMock.*;
+
+/**
+ * The cost of a move with 'on walk on' triggers, using a mocked world whose ground is made of stone. A player walks
+ * in steps of a tenth of a block, so most moves stay on the same block.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@SuppressWarnings("deprecation")
+public class EvtMoveOnBenchmark {
+
+    private static final int STONE = 1, DIRT = 3, GROUND = 63;
+    private static final int BLOCKS = 10_000, STEPS_PER_BLOCK = 10;
+
+    private World world;
+    private Player player;
+    private Location from;
+    private int step;
+
+    @Setup
+    public void setUp() {
+        EvtMoveOn.itemTypeTriggers.put(EvtMoveOn.pack(STONE, 0), new ArrayList<>(Collections.singletonList(trigger())));
+        EvtMoveOn.itemTypeTriggers.put(EvtMoveOn.pack(DIRT, 0), new ArrayList<>(Collections.singletonList(trigger())));
+        EvtMoveOn.updateItemTypeTriggerIds();
+
+        final Block block = mock(Block.class);
+        expect(block.getData()).andReturn((byte) 0).anyTimes();
+        replay(block);
+        world = mock(World.class);
+        expect(world.getBlockTypeIdAt(anyInt(), anyInt(), anyInt())).andAnswer(() -> (int) getCurrentArguments()[1] == GROUND ? STONE : 0).anyTimes();
+        expect(world.getBlockAt(anyInt(), anyInt(), anyInt())).andReturn(block).anyTimes();
+        replay(world);
+
+        player = mock(Player.class);
+        replay(player);
+        from = new Location(world, 0.5, GROUND + 1, 0.5);
+    }
+
+    @TearDown
+    public void tearDown() {
+        EvtMoveOn.itemTypeTriggers.clear();
+        EvtMoveOn.updateItemTypeTriggerIds();
+    }
+
+    private static final Trigger trigger() {
+        final TriggerItem item = new TriggerItem() {
+            @Override
+            protected boolean run(final Event e) {
+                return true;
+            }
+
+            @Override
+            public String toString(@Nullable final Event e, final boolean debug) {
+                return "nothing";
+            }
+        };
+        final List<TriggerItem> items = new ArrayList<>();
+        items.add(item);
+        return new Trigger(null, "walk on stone", new EvtMoveOn(), items);
+    }
+
+    @Benchmark
+    public Location move() throws EventException {
+        step = step % (BLOCKS * STEPS_PER_BLOCK) + 1;
+        final Location to = new Location(world, 0.5 + (double) step / STEPS_PER_BLOCK, GROUND + 1, 0.5);
+        EvtMoveOn.executor.execute(null, new PlayerMoveEvent(player, from, to));
+        return from = to;
+    }
+
+}
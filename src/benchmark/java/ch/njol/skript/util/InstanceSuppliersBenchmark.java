@@ -0,0 +1,65 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.util;
+
+import ch.njol.skript.Skript.InstanceSupplier;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creating syntax element instances with a generated supplier compared to reflection, as used by the parser before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InstanceSuppliersBenchmark {
+
+    private InstanceSupplier<Element> supplier;
+    private Constructor<Element> constructor;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        supplier = InstanceSuppliers.create(Element.class);
+        constructor = Element.class.getConstructor();
+    }
+
+    @Benchmark
+    public Element generated() throws ReflectiveOperationException {
+        return supplier.newInstance();
+    }
+
+    @Benchmark
+    public Element reflection() throws ReflectiveOperationException {
+        return constructor.newInstance();
+    }
+
+    public static final class Element {
+        int value = 1;
+    }
+
+}
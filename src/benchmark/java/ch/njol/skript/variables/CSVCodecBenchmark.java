@@ -0,0 +1,111 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load and save throughput of a generated variables.csv file with 5 million lines, as read by
+ * {@link FlatFileStorage#load_i} and written by {@link FlatFileStorage#saveVariables(boolean)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2G")
+public class CSVCodecBenchmark {
+
+    private static final String[] TYPES = {"long", "double", "string", "object", "location"};
+
+    @Param({"5000000"})
+    public int lines;
+
+    private final byte[][] values = new byte[TYPES.length][];
+    private File file, out;
+
+    @Setup
+    public void setUp() throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new byte[4 + i * 12];
+            for (int j = 0; j < values[i].length; j++)
+                values[i][j] = (byte) (i * 31 + j * 37);
+        }
+        file = File.createTempFile("variables", ".csv");
+        out = File.createTempFile("variables", ".csv");
+        save(file);
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+        out.delete();
+    }
+
+    private final void save(final File f) throws IOException {
+        try (final PrintWriter pw = new PrintWriter(f, "UTF-8")) {
+            pw.println("# === Skript's variable storage ===");
+            pw.println("# version: 2.2");
+            pw.println();
+            for (int i = 0; i < lines; i++) {
+                final int t = i % TYPES.length;
+                // Every tenth name has to be quoted
+                final String name = i % 10 == 0 ? "player::" + i + "::home, \"spawn\"" : "player::" + i + "::balance";
+                CSVCodec.write(pw, name, TYPES[t], values[t]);
+            }
+        }
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        save(out);
+    }
+
+    @Benchmark
+    public int load(final Blackhole bh) throws IOException {
+        int read = 0;
+        try (final CSVCodec.Reader r = new CSVCodec.Reader(new FileInputStream(file))) {
+            while (r.nextLine()) {
+                if (r.isEmpty() || r.firstByte() == '#')
+                    continue;
+                if (r.split() != 3)
+                    throw new IOException("Invalid line " + r.line());
+                bh.consume(r.field(0));
+                bh.consume(r.field(1));
+                bh.consume(r.hex(2));
+                read++;
+            }
+        }
+        if (read != lines)
+            throw new IOException("Read " + read + " of " + lines + " lines");
+        return read;
+    }
+
+}
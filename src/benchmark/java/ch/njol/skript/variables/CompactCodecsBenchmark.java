@@ -0,0 +1,120 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import ch.njol.yggdrasil.Yggdrasil;
+import ch.njol.yggdrasil.YggdrasilInputStream;
+import ch.njol.yggdrasil.YggdrasilOutputStream;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding typical variable values with the compact encodings compared to Yggdrasil. Uses numbers,
+ * booleans and texts only, as Yggdrasil needs registered classes for the other types.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(CompactCodecsBenchmark.VALUES)
+public class CompactCodecsBenchmark {
+
+    static final int VALUES = 10_000;
+
+    private final Yggdrasil yggdrasil = new Yggdrasil();
+
+    private final Object[] values = new Object[VALUES];
+    private final String[] types = new String[VALUES];
+    @SuppressWarnings("unchecked")
+    private final CompactCodecs.Codec<Object>[] codecs = new CompactCodecs.Codec[VALUES];
+    private final byte[][] compact = new byte[VALUES][], yggdrasilData = new byte[VALUES][];
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException {
+        final Random random = new Random(42);
+        for (int i = 0; i < VALUES; i++) {
+            final int kind = random.nextInt(19);
+            if (kind < 8) // counters, balances, levels
+                values[i] = (long) random.nextInt(kind < 6 ? 1000 : 10_000_000);
+            else if (kind < 12)
+                values[i] = Math.round(random.nextDouble() * 100_000) / 100.;
+            else if (kind < 14)
+                values[i] = random.nextBoolean();
+            else // names, ranks, messages
+                values[i] = "Player" + random.nextInt(100_000);
+            final Object o = values[i];
+            types[i] = CompactCodecs.PREFIX + (o instanceof Long ? "long" : o instanceof Double ? "double" : o instanceof Boolean ? "boolean" : "string");
+            codecs[i] = (CompactCodecs.Codec<Object>) CompactCodecs.get(types[i]);
+        }
+        for (int i = 0; i < VALUES; i++) {
+            compact[i] = codecs[i].encode(values[i]);
+            yggdrasilData[i] = yggdrasilEncode(values[i]);
+        }
+    }
+
+    private final byte[] yggdrasilEncode(final Object o) throws IOException {
+        final ByteArrayOutputStream bout = new ByteArrayOutputStream(4096); // same as Classes.serialize
+        try (final YggdrasilOutputStream out = yggdrasil.newOutputStream(bout)) {
+            out.writeObject(o);
+            out.flush();
+        }
+        return bout.toByteArray();
+    }
+
+    @Benchmark
+    public void compactEncode(final Blackhole bh) {
+        for (int i = 0; i < VALUES; i++)
+            bh.consume(codecs[i].encode(values[i]));
+    }
+
+    @Benchmark
+    public void yggdrasilEncode(final Blackhole bh) throws IOException {
+        for (int i = 0; i < VALUES; i++)
+            bh.consume(yggdrasilEncode(values[i]));
+    }
+
+    @Benchmark
+    public void compactDecode(final Blackhole bh) {
+        for (int i = 0; i < VALUES; i++)
+            bh.consume(CompactCodecs.deserialize(types[i], compact[i]));
+    }
+
+    @Benchmark
+    public void yggdrasilDecode(final Blackhole bh) throws IOException {
+        for (int i = 0; i < VALUES; i++) {
+            try (final YggdrasilInputStream in = yggdrasil.newInputStream(new ByteArrayInputStream(yggdrasilData[i]))) {
+                bh.consume(in.readObject());
+            }
+        }
+    }
+
+}
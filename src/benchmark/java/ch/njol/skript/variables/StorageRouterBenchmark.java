@@ -0,0 +1,85 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Finding the storage of a variable out of 5 storages with the {@link StorageRouter} compared to matching the pattern of
+ * each storage, as before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageRouterBenchmark {
+
+    private static final List<String> STORAGES = Arrays.asList("mysql", "sqlite", "kills", "temp", "csv");
+    private static final List<String> PATTERNS = Arrays.asList("synced_.*", "(?i)db_.*", "kills::.*", "(?!(?i)temp_).*", ".*");
+
+    private static final String[] NAMES = {"synced_money::", "db_homes::", "DB_warps::", "kills::", "temp_cooldown::", "money::", "home::", "warp", "synced", "Kills::", "temp::"};
+
+    private final String[] names = new String[1024];
+    private Pattern[] patterns;
+    private StorageRouter<String> router;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42L);
+        for (int i = 0; i < names.length; i++)
+            names[i] = NAMES[random.nextInt(NAMES.length)] + Long.toHexString(random.nextLong());
+        patterns = new Pattern[PATTERNS.size()];
+        for (int i = 0; i < patterns.length; i++)
+            patterns[i] = Pattern.compile(PATTERNS.get(i));
+        router = new StorageRouter<>(STORAGES, PATTERNS);
+    }
+
+    private final String nextName() {
+        return names[next++ & names.length - 1];
+    }
+
+    @Benchmark
+    public String regex() {
+        final String name = nextName();
+        for (int i = 0; i < patterns.length; i++) {
+            if (patterns[i].matcher(name).matches())
+                return STORAGES.get(i);
+        }
+        return null;
+    }
+
+    @Benchmark
+    public String router() {
+        return router.route(nextName());
+    }
+
+}
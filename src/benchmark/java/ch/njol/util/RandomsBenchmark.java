@@ -0,0 +1,87 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drawing random numbers from several threads with one shared {@link Random}, as before, compared to {@link Randoms},
+ * and choosing a few random elements out of a list with {@link Randoms#sample(Object[], int)} compared to shuffling
+ * a copy of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RandomsBenchmark {
+
+    private final Random shared = new Random();
+
+    @Param({"1000"})
+    public int elements;
+    @Param({"5"})
+    public int chosen;
+
+    private Integer[] array;
+
+    @Setup
+    public void setUp() {
+        array = new Integer[elements];
+        for (int i = 0; i < elements; i++)
+            array[i] = i;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int sharedRandom() {
+        return shared.nextInt(100);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int randoms() {
+        return Randoms.nextInt(100);
+    }
+
+    @Benchmark
+    public List<Integer> shuffledCopy() {
+        final List<Integer> copy = new ArrayList<>(Arrays.asList(array));
+        Collections.shuffle(copy, shared);
+        return copy.subList(0, chosen);
+    }
+
+    @Benchmark
+    public Integer[] sample() {
+        return Randoms.sample(array, chosen);
+    }
+
+}
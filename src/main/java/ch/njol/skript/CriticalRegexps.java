@@ -36,8 +36,12 @@ import java.util.regex.Pattern;
 public final class CriticalRegexps {
 
     /**
-     * Affects variable/database load time. Used in {@link ch.njol.skript.variables.FlatFileStorage}
+     * The format of a line in variables.csv. No longer used, variables.csv is parsed without regular expressions now,
+     * with the same results as this pattern.
+     *
+     * @deprecated Kept for addons
      */
+    @Deprecated
     public static final Pattern CSV = Pattern.compile("(?<=^|,)\\s*?([^\",]*?|\"([^\"]|\"\")*?\")\\s*?(?:,|$)");
     /**
      * Affects config/script load time. Used in {@link ch.njol.skript.config.SectionNode}
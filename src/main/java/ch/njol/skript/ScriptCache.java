@@ -0,0 +1,498 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript;
+
+import ch.njol.skript.classes.ClassInfo;
+import ch.njol.skript.command.Argument;
+import ch.njol.skript.command.Commands;
+import ch.njol.skript.lang.Expression;
+import ch.njol.skript.lang.Loop;
+import ch.njol.skript.lang.ParseContext;
+import ch.njol.skript.lang.SkriptEventInfo;
+import ch.njol.skript.lang.SyntaxElementInfo;
+import ch.njol.skript.lang.TriggerSection;
+import ch.njol.skript.lang.function.Function;
+import ch.njol.skript.lang.function.Functions;
+import ch.njol.skript.localization.Language;
+import ch.njol.skript.util.FileUtils;
+import ch.njol.skript.variables.TypeHints;
+import org.bukkit.event.Event;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Caches the syntax element and pattern that matched each parsed string of a script,
+ * so that the next load of an unchanged script can try the resolved pattern directly
+ * instead of matching the string against every registered pattern.
+ * <p>
+ * A cache file is only used when the script content, the Skript version, the language,
+ * the configuration and aliases files and the set of registered syntax elements are the same as when
+ * the cache was written. A hint that does not parse is simply ignored and the parser falls
+ * back to a full parse.
+ * <p>
+ * A hint that does parse skips the elements before it, so it is only correct as long as those elements
+ * would still fail to parse the string. Hints are therefore only used if the string is parsed in the same state as when
+ * the hint was recorded: the {@link #key(String, ParseContext, int, String) key} contains everything the parse result depends on,
+ * so a string parsed in any other state is simply not found and parsed in full.
+ * <p>
+ * Not thread safe, like the {@link ScriptLoader} and {@link ch.njol.skript.lang.SkriptParser} themselves.
+ *
+ * @see SkriptConfig#enableScriptCaching
+ */
+public final class ScriptCache {
+
+    private static final int MAGIC = 0x534B4348; // "SKCH"
+    private static final int FORMAT_VERSION = 2;
+
+    private static final String CACHE_FOLDER = "cache";
+    private static final String CACHE_EXTENSION = "c";
+
+    private static final Pattern FUNCTION_CALL = Pattern.compile("(" + Functions.functionNamePattern + ")\\(");
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Marks a key which resolved to different elements in different places of the same script.
+     */
+    private static final Hint AMBIGUOUS = new Hint("", -1, -1, 0);
+
+    /**
+     * States of the scripts currently being loaded, a script can load other scripts
+     * before itself with the "load after" configuration option.
+     */
+    private static final Deque<State> states = new ArrayDeque<>();
+
+    @Nullable
+    private static String fingerprint;
+
+    @Nullable
+    private static State current;
+
+    private static int cachedScripts;
+    private static int hits;
+    private static int misses;
+
+    private ScriptCache() {
+        throw new UnsupportedOperationException("Static class");
+    }
+
+    public static final boolean isEnabled() {
+        return SkriptConfig.enableScriptCaching.value();
+    }
+
+    /**
+     * @return Whatever a script is currently being loaded with caching enabled.
+     */
+    public static final boolean isActive() {
+        return current != null;
+    }
+
+    /**
+     * Called by the {@link ScriptLoader} before a script is parsed.
+     * Must be followed by a call to {@link #end(boolean)}.
+     *
+     * @param script The script file that is about to be parsed
+     */
+    static final void begin(final File script) {
+        states.push(current == null ? State.NONE : current);
+        current = null;
+
+        if (!isEnabled())
+            return;
+
+        try {
+            final String contentHash = hash(Files.readAllBytes(script.toPath()));
+            final File cacheFile = getCacheFile(script);
+
+            Map<String, Hint> loadedHints = null;
+            if (cacheFile.exists()) {
+                loadedHints = read(cacheFile, getFingerprint(), contentHash);
+                if (loadedHints == null) {
+                    //noinspection ResultOfMethodCallIgnored
+                    cacheFile.delete(); // Outdated or corrupt, will be re-written after parsing
+                }
+            }
+
+            current = new State(cacheFile, contentHash, loadedHints);
+        } catch (final IOException e) {
+            if (Skript.testing() || Skript.debug())
+                Skript.exception(e, "Can't read the cache of the script " + script.getName());
+        }
+    }
+
+    /**
+     * Called by the {@link ScriptLoader} after a script is parsed.
+     *
+     * @param success Whatever the script was parsed without any errors. Scripts with errors are never cached.
+     */
+    static final void end(final boolean success) {
+        final State state = current;
+        final State previous = states.poll();
+
+        current = previous == State.NONE ? null : previous;
+
+        if (state == null)
+            return;
+
+        if (state.loadedHints != null && !state.hadMiss)
+            cachedScripts++;
+
+        if (!success) {
+            //noinspection ResultOfMethodCallIgnored
+            state.cacheFile.delete();
+            return;
+        }
+
+        if (state.recordedHints.equals(state.loadedHints))
+            return; // Cache file is up-to-date
+
+        try {
+            write(state.cacheFile, getFingerprint(), state.contentHash, state.recordedHints);
+        } catch (final IOException e) {
+            Skript.warning("Cannot cache " + state.cacheFile.getName() + ": " + e.getLocalizedMessage());
+            //noinspection ResultOfMethodCallIgnored
+            state.cacheFile.delete();
+        }
+    }
+
+    /**
+     * Forgets the {@link #getFingerprint() fingerprint}, must be called whenever the configuration or aliases are reloaded.
+     */
+    static final void reload() {
+        fingerprint = null;
+    }
+
+    /**
+     * Resets the statistics, should be called before loading a set of scripts.
+     */
+    static final void resetStatistics() {
+        cachedScripts = 0;
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * @return The number of scripts that were parsed using their cache since the last {@link #resetStatistics()}.
+     */
+    public static final int getCachedScripts() {
+        return cachedScripts;
+    }
+
+    public static final int getHits() {
+        return hits;
+    }
+
+    public static final int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Creates the key of a parse, which includes all state of the parser and the script loader that can change
+     * the result of parsing the same string in the same script: the current events, script version, sections, loops,
+     * command arguments and function, the type hints of local variables and the signatures of the functions the string may call.
+     */
+    public static final String key(final String kind, final ParseContext context, final int flags, final String expr) {
+        final StringBuilder b = new StringBuilder(128 + expr.length());
+        b.append(kind).append(':').append(context.ordinal()).append(':').append(flags).append(':').append(ScriptLoader.hasDelayBefore.ordinal()).append(':');
+        final String eventName = ScriptLoader.getCurrentEventName();
+        if (eventName != null)
+            b.append(eventName);
+        b.append(':');
+        final Class<? extends Event>[] events = ScriptLoader.getCurrentEvents();
+        if (events != null) {
+            for (final Class<? extends Event> e : events)
+                b.append(e.getName()).append(',');
+        }
+        b.append(':').append(ScriptLoader.getCurrentScriptVersion()).append(':');
+        for (final TriggerSection section : ScriptLoader.currentSections)
+            b.append(section.getClass().getName()).append(',');
+        b.append(':');
+        for (final Loop loop : ScriptLoader.currentLoops) {
+            final Expression<?> looped = loop.getLoopedExpression();
+            b.append(looped.getClass().getName()).append(' ').append(looped.getReturnType().getName()).append(',');
+        }
+        b.append(':');
+        final List<Argument<?>> arguments = Commands.currentArguments;
+        if (arguments != null) {
+            for (final Argument<?> argument : arguments)
+                b.append(argument).append(',');
+        }
+        b.append(':');
+        final Function<?> function = Functions.currentFunction;
+        if (function != null) {
+            final ClassInfo<?> returnType = function.getReturnType();
+            b.append(function.getName()).append(Arrays.toString(function.getParameters())).append(returnType == null ? "" : returnType.getCodeName()).append(function.isSingle());
+        }
+        b.append(':');
+        TypeHints.appendTo(b);
+        b.append(':');
+        if (expr.indexOf('(') != -1) {
+            // Calls are only resolved if the function exists and its signature fits, and are parsed as something else otherwise
+            final Matcher m = FUNCTION_CALL.matcher(expr);
+            while (m.find()) {
+                final String signature = Functions.getSignature(m.group(1));
+                b.append(signature == null ? m.group(1) + '-' : signature).append(',');
+            }
+        }
+        return b.append(':').append(expr).toString();
+    }
+
+    /**
+     * @param key A key created with {@link #key(String, ParseContext, int, String)}
+     * @return The hint for the given key, or null if there is no usable hint.
+     */
+    @Nullable
+    public static final Hint getHint(final String key) {
+        final State state = current;
+        if (state == null || state.loadedHints == null)
+            return null;
+        final Hint hint = state.loadedHints.get(key);
+        return hint == AMBIGUOUS ? null : hint;
+    }
+
+    /**
+     * Records the element that the parser resolved for the given key.
+     */
+    public static final void record(final String key, final SyntaxElementInfo<?> info, final int pattern, final int ordinal, final int prefixHash) {
+        final State state = current;
+        if (state == null)
+            return;
+        final Hint hint = new Hint(info.c.getName(), pattern, ordinal, prefixHash);
+        final Hint old = state.recordedHints.put(key, hint);
+        if (old != null && !old.equals(hint))
+            state.recordedHints.put(key, AMBIGUOUS);
+    }
+
+    public static final void hit() {
+        hits++;
+    }
+
+    public static final void miss() {
+        misses++;
+        final State state = current;
+        if (state != null)
+            state.hadMiss = true;
+    }
+
+    /**
+     * Updates the hash of the elements that come before an element in a source iterator.
+     */
+    public static final int prefixHash(final int prefixHash, final SyntaxElementInfo<?> info) {
+        return 31 * prefixHash + info.c.getName().hashCode();
+    }
+
+    private static final File getCacheFile(final File script) {
+        final String scriptsFolder = ScriptLoader.getScriptsFolder().getAbsolutePath();
+        String path = script.getAbsolutePath();
+        if (path.startsWith(scriptsFolder))
+            path = path.substring(scriptsFolder.length());
+        return new File(new File(Skript.getInstance().getDataFolder(), CACHE_FOLDER), path + CACHE_EXTENSION);
+    }
+
+    /**
+     * The fingerprint of everything outside of a script that can change how it is parsed.
+     * Computed once per {@link #reload()}, since syntax elements can only be registered before scripts are loaded.
+     */
+    private static final String getFingerprint() throws IOException {
+        final String cached = fingerprint;
+        if (cached != null)
+            return cached;
+
+        final StringBuilder b = new StringBuilder(64 << 10);
+        b.append(Skript.getVersion()).append('\n');
+        b.append(Language.getName()).append('\n');
+        for (final SkriptAddon addon : Skript.getAddons())
+            b.append(addon.getName()).append(' ').append(addon.plugin.getDescription().getVersion()).append('\n');
+        for (final SyntaxElementInfo<?> info : Skript.getStatements())
+            appendInfo(b, info);
+        for (final Iterator<? extends SyntaxElementInfo<?>> it = Skript.getExpressions(); it.hasNext(); )
+            appendInfo(b, it.next());
+        for (final SkriptEventInfo<?> info : Skript.getEvents())
+            appendInfo(b, info);
+
+        final File[] files = Skript.getInstance().getDataFolder().listFiles(f -> f.isFile() && ("config.sk".equals(f.getName()) || f.getName().startsWith("aliases-") && f.getName().endsWith(".sk")));
+        if (files != null) {
+            Arrays.sort(files);
+            for (final File f : files)
+                b.append(f.getName()).append(' ').append(hash(Files.readAllBytes(f.toPath()))).append('\n');
+        }
+
+        return fingerprint = hash(b.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final void appendInfo(final StringBuilder b, final SyntaxElementInfo<?> info) {
+        b.append(info.c.getName());
+        for (final String pattern : info.patterns)
+            b.append('\0').append(pattern);
+        b.append('\n');
+    }
+
+    private static final String hash(final byte[] data) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final byte[] hash = digest.digest(data);
+        final char[] chars = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(hash[i] & 0xF0) >>> 4];
+            chars[i * 2 + 1] = HEX_DIGITS[hash[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    @Nullable
+    private static final Map<String, Hint> read(final File cacheFile, final String fingerprint, final String contentHash) throws IOException {
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION)
+                return null;
+            if (!fingerprint.equals(in.readUTF()) || !contentHash.equals(in.readUTF()))
+                return null;
+            final int size = in.readInt();
+            if (size < 0)
+                return null;
+            final Map<String, Hint> hints = new HashMap<>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; i++) {
+                final String key = in.readUTF();
+                final String className = in.readUTF();
+                final int pattern = in.readInt();
+                final int ordinal = in.readInt();
+                final int prefixHash = in.readInt();
+                hints.put(key, pattern < 0 ? AMBIGUOUS : new Hint(className, pattern, ordinal, prefixHash));
+            }
+            return hints;
+        } catch (final EOFException e) {
+            return null; // Truncated file
+        }
+    }
+
+    private static final void write(final File cacheFile, final String fingerprint, final String contentHash, final Map<String, Hint> hints) throws IOException {
+        final File folder = cacheFile.getParentFile();
+        if (!folder.isDirectory() && !folder.mkdirs())
+            throw new IOException("Cannot create the cache folder");
+        final File temp = new File(folder, cacheFile.getName() + ".temp");
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(fingerprint);
+            out.writeUTF(contentHash);
+            out.writeInt(hints.size());
+            for (final Map.Entry<String, Hint> e : hints.entrySet()) {
+                final Hint hint = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeUTF(hint.className);
+                out.writeInt(hint.pattern);
+                out.writeInt(hint.ordinal);
+                out.writeInt(hint.prefixHash);
+            }
+        }
+        FileUtils.move(temp, cacheFile, true);
+    }
+
+    private static final class State {
+
+        /**
+         * Placeholder for "no state" in the {@link #states} stack, which does not permit nulls.
+         */
+        static final State NONE = new State(new File(""), "", null);
+
+        final File cacheFile;
+        final String contentHash;
+
+        /**
+         * Hints read from the cache file of the script, or null if there is no valid cache file.
+         */
+        @Nullable
+        final Map<String, Hint> loadedHints;
+        /**
+         * Hints recorded while parsing the script.
+         */
+        final Map<String, Hint> recordedHints = new HashMap<>(256);
+
+        boolean hadMiss;
+
+        State(final File cacheFile, final String contentHash, @Nullable final Map<String, Hint> loadedHints) {
+            this.cacheFile = cacheFile;
+            this.contentHash = contentHash;
+            this.loadedHints = loadedHints;
+        }
+
+    }
+
+    /**
+     * The element that matched a string: its class, the index of the matched pattern, the position of
+     * the element in the source it was parsed from and a hash of the elements before it in that source.
+     */
+    public static final class Hint {
+
+        public final String className;
+        public final int pattern;
+        public final int ordinal;
+        public final int prefixHash;
+
+        Hint(final String className, final int pattern, final int ordinal, final int prefixHash) {
+            this.className = className;
+            this.pattern = pattern;
+            this.ordinal = ordinal;
+            this.prefixHash = prefixHash;
+        }
+
+        /**
+         * @return Whatever this hint points to the given element, which is at the given position of its source.
+         */
+        public final boolean matches(final SyntaxElementInfo<?> info, final int ordinal, final int prefixHash) {
+            return this.ordinal == ordinal && this.prefixHash == prefixHash && pattern < info.patterns.length && className.equals(info.c.getName());
+        }
+
+        @Override
+        public final boolean equals(@Nullable final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Hint)) return false;
+
+            final Hint hint = (Hint) o;
+
+            return pattern == hint.pattern && ordinal == hint.ordinal && prefixHash == hint.prefixHash && className.equals(hint.className);
+        }
+
+        @Override
+        public final int hashCode() {
+            int result = className.hashCode();
+            result = 31 * result + pattern;
+            result = 31 * result + ordinal;
+            result = 31 * result + prefixHash;
+            return result;
+        }
+
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript;
+
+import ch.njol.skript.lang.VariableString;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Tracks what each loaded script defines and uses from other scripts: functions it defines and calls,
+ * and variable names it uses.
+ * <p>
+ * Used by {@link ScriptLoader#reloadScript(File)} to only re-parse the scripts that
+ * depend on a changed script, instead of reloading all scripts.
+ * <p>
+ * Like the {@link ScriptLoader}, this must only be used from the main thread.
+ */
+public final class ScriptDependencies {
+
+    private static final Map<File, Set<String>> definedFunctions = new HashMap<>(100);
+    private static final Map<File, Set<String>> calledFunctions = new HashMap<>(100);
+    private static final Map<File, Set<String>> variableNames = new HashMap<>(100);
+
+    private ScriptDependencies() {
+        throw new UnsupportedOperationException("Static class");
+    }
+
+    private static final void add(final Map<File, Set<String>> map, @Nullable final File script, final String name) {
+        if (script == null)
+            return;
+        map.computeIfAbsent(script, k -> new HashSet<>()).add(name);
+    }
+
+    private static final Set<String> get(final Map<File, Set<String>> map, final File script) {
+        final Set<String> names = map.get(script);
+        return names == null ? Collections.emptySet() : Collections.unmodifiableSet(names);
+    }
+
+    static final void functionDefined(final File script, final String function) {
+        add(definedFunctions, script, function);
+    }
+
+    /**
+     * Called when a function call is parsed.
+     *
+     * @param script   The script that calls the function, may be null if the call is not in a script
+     * @param function The name of the called function
+     */
+    public static final void functionCalled(@Nullable final File script, final String function) {
+        add(calledFunctions, script, function);
+    }
+
+    /**
+     * Called when a variable name is parsed.
+     *
+     * @param script The script that uses the variable name, may be null if the name is not in a script
+     * @param name   The (unparsed) name of the variable, e.g. <tt>data::%player%::*</tt>
+     */
+    public static final void variableNameUsed(@Nullable final File script, final String name) {
+        add(variableNames, script, name);
+    }
+
+    public static final Set<String> getDefinedFunctions(final File script) {
+        return get(definedFunctions, script);
+    }
+
+    /**
+     * @param functions Names of functions
+     * @return All scripts that call at least one of the given functions.
+     */
+    public static final Set<File> getCallers(final Collection<String> functions) {
+        final Set<File> callers = new LinkedHashSet<>();
+        if (functions.isEmpty())
+            return callers;
+        for (final Map.Entry<File, Set<String>> e : calledFunctions.entrySet()) {
+            for (final String function : functions) {
+                if (e.getValue().contains(function)) {
+                    callers.add(e.getKey());
+                    break;
+                }
+            }
+        }
+        return callers;
+    }
+
+    /**
+     * Removes everything tracked for the given script. Variable names that are not used by
+     * any other script anymore are removed from {@link VariableString#variableNames} too, so
+     * that they don't cause false variable name conflict warnings after the script is reloaded.
+     *
+     * @param script The script that is unloaded
+     */
+    static final void remove(final File script) {
+        definedFunctions.remove(script);
+        calledFunctions.remove(script);
+
+        final Set<String> names = variableNames.remove(script);
+        if (names == null)
+            return;
+        nameLoop:
+        for (final String name : names) {
+            for (final Set<String> others : variableNames.values()) {
+                if (others.contains(name))
+                    continue nameLoop;
+            }
+            VariableString.variableNames.remove(name);
+        }
+    }
+
+    static final void clear() {
+        definedFunctions.clear();
+        calledFunctions.clear();
+        variableNames.clear();
+    }
+
+}
@@ -264,13 +264,6 @@ public final class ScriptLoader {
         hasDelayBefore = Kleenean.FALSE;
     }
 
-//	private static final class SerializedScript {
-//		public SerializedScript() {}
-//
-//		public final List<Trigger> triggers = new ArrayList<Trigger>();
-//		public final List<ScriptCommand> commands = new ArrayList<ScriptCommand>();
-//	}
-
     public static final void deleteCurrentEvent() {
         currentEventName = null;
         currentEvents = null;
@@ -296,6 +289,9 @@ public final class ScriptLoader {
 
         final Date start = new Date();
 
+        ScriptCache.reload(); // The config or aliases files may have been changed
+        ScriptCache.resetStatistics();
+
         final ScriptInfo i;
 
         final ErrorDescLogHandler h = SkriptLogger.startLogHandler(new ErrorDescLogHandler(null, null, m_no_errors.toString()));
@@ -318,6 +314,8 @@ public final class ScriptLoader {
             Skript.warning(m_no_scripts.toString());
         if (Skript.logNormal() && i.files > 0)
             Skript.info(m_scripts_loaded.toString(i.files, i.triggers, i.commands, start.difference(new Date())));
+        if (Skript.logNormal() && ScriptCache.isEnabled() && i.files > 0)
+            Skript.info(ScriptCache.getCachedScripts() + " of " + i.files + " scripts were loaded from the script cache (" + ScriptCache.getHits() + " cached parses, " + ScriptCache.getMisses() + " outdated)");
 
         SkriptEventHandler.registerBukkitEvents();
         Functions.postCheck(); // Check that all functions which are called exist.
@@ -418,68 +416,15 @@ public final class ScriptLoader {
 
         assert currentScript == null : "Current script should be null for script \"" + f.getName() + "\" (" + currentScript + ')';
 
-//		File cache = null;
-//		if (SkriptConfig.enableScriptCaching.value()) {
-//			cache = new File(f.getParentFile(), "cache" + File.separator + f.getName() + "c");
-//			if (cache.exists()) {
-//				final RetainingLogHandler log = SkriptLogger.startRetainingLog();
-//				ObjectInputStream in = null;
-//				try {
-//					in = new ObjectInputStream(new FileInputStream(cache));
-//					final long lastModified = in.readLong();
-//					if (lastModified == f.lastModified()) {
-//						final SerializedScript script = (SerializedScript) in.readObject();
-//						triggersLoop: for (final Trigger t : script.triggers) {
-//							if (t.getEvent() instanceof SelfRegisteringSkriptEvent) {
-//								((SelfRegisteringSkriptEvent) t.getEvent()).register(t);
-//								SkriptEventHandler.addSelfRegisteringTrigger(t);
-//							} else {
-//								for (final SkriptEventInfo<?> e : Skript.getEvents()) {
-//									if (e.c == t.getEvent().getClass()) {
-//										SkriptEventHandler.addTrigger(e.events, t);
-//										continue triggersLoop;
-//									}
-//								}
-//								throw new EmptyStackException();
-//							}
-//						}
-//						for (final ScriptCommand c : script.commands) {
-//							Commands.registerCommand(c);
-//						}
-//						log.printLog();
-//						return new ScriptInfo(1, script.triggers.size(), script.commands.size());
-//					} else {
-//						cache.delete();
-//					}
-//				} catch (final Exception e) {
-//					if (Skript.testing()) {
-//						System.err.println("[debug] Error loading cached script '" + f.getName() + "':");
-//						e.printStackTrace();
-//					}
-//					unloadScript(f);
-//					if (in != null) {
-//						try {
-//							in.close();
-//						} catch (final IOException e1) {}
-//					}
-//					cache.delete();
-//				} finally {
-//					log.stop();
-//					if (in != null) {
-//						try {
-//							in.close();
-//						} catch (final IOException e) {}
-//					}
-//				}
-//			}
-//		}
-
         @Nullable
         Date startDate = null;
 
         if (Skript.logHigh())
             startDate = new Date();
 
+        boolean cacheable = false;
+        ScriptCache.begin(f);
+
         try {
 
             final Config config;
@@ -500,8 +445,6 @@ public final class ScriptLoader {
 
             currentScript = config;
 
-//			final SerializedScript script = new SerializedScript();
-
             final CountingLogHandler numErrors = SkriptLogger.startLogHandler(new CountingLogHandler(SkriptLogger.SEVERE));
 
             int numFunctions = 0;
@@ -652,6 +595,7 @@ public final class ScriptLoader {
                         continue;
                     }
                     if ("variables".equalsIgnoreCase(event)) {
+                        Variables.awaitLoad(); // Default values are only set if there's no saved value
                         node.convertToEntries(0, "=");
                         for (final Node n : node) {
                             if (!(n instanceof EntryNode)) {
@@ -730,10 +674,8 @@ public final class ScriptLoader {
                         setCurrentEvent("command", CommandEvent.class);
 
                         final ScriptCommand c = Commands.loadCommand(node);
-                        if (c != null) {
+                        if (c != null)
                             numCommands++;
-//							script.commands.add(c);
-                        }
 
                         deleteCurrentEvent();
 
@@ -757,6 +699,7 @@ public final class ScriptLoader {
                         final Function<?> func = Functions.loadFunction(node);
                         if (func != null) {
                             numFunctions++;
+                            ScriptDependencies.functionDefined(f, func.getName());
                         }
 
                         deleteCurrentEvent();
@@ -798,8 +741,6 @@ public final class ScriptLoader {
                         SkriptEventHandler.addTrigger(parsedEvent.getFirst().events, trigger);
                     }
 
-//					script.triggers.add(trigger);
-
                     numTriggers++;
                 }
 
@@ -827,30 +768,7 @@ public final class ScriptLoader {
                 numErrors.stop();
             }
 
-//			if (SkriptConfig.enableScriptCaching.value() && cache != null) {
-//				if (numErrors.getCount() > 0) {
-//					ObjectOutputStream out = null;
-//					try {
-//						cache.getParentFile().mkdirs();
-//						out = new ObjectOutputStream(new FileOutputStream(cache));
-//						out.writeLong(f.lastModified());
-//						out.writeObject(script);
-//					} catch (final NotSerializableException e) {
-//						Skript.exception(e, "Cannot cache " + f.getName());
-//						if (out != null)
-//							out.close();
-//						cache.delete();
-//					} catch (final IOException e) {
-//						Skript.warning("Cannot cache " + f.getName() + ": " + e.getLocalizedMessage());
-//						if (out != null)
-//							out.close();
-//						cache.delete();
-//					} finally {
-//						if (out != null)
-//							out.close();
-//					}
-//				}
-//			}
+            cacheable = numErrors.getCount() == 0;
 
             loadedFiles.remove(f);
             loadedFiles.add(f);
@@ -864,6 +782,7 @@ public final class ScriptLoader {
         } catch (final Throwable tw) {
             Skript.exception(tw, "Could not load " + f.getName());
         } finally {
+            ScriptCache.end(cacheable);
             SkriptLogger.setNode(null);
         }
         if (Skript.testing() || Skript.debug())
@@ -880,6 +799,7 @@ public final class ScriptLoader {
      */
     static final ScriptInfo unloadScripts(final File folder) {
         final ScriptInfo r = unloadScripts_(folder);
+        SkriptEventHandler.publish();
         Functions.validateFunctions();
         return r;
     }
@@ -906,6 +826,7 @@ public final class ScriptLoader {
      */
     static final ScriptInfo unloadScript(final File script) {
         final ScriptInfo r = unloadScript_(script);
+        SkriptEventHandler.publish();
         Functions.validateFunctions();
         return r;
     }
@@ -917,6 +838,42 @@ public final class ScriptLoader {
         }
         loadedFiles.remove(script);
         loadedScriptFiles.remove(script.getName());
+        ScriptDependencies.remove(script);
+        return info;
+    }
+
+    /**
+     * Reloads the specified script, and only the scripts that depend on it: scripts that call a function
+     * of the script whose signature was changed, added or removed by the reload are re-parsed too,
+     * calls in all other scripts are just re-linked to the new functions.
+     *
+     * @param script The script file to reload
+     * @return Info on the reloaded script, not including the re-parsed dependent scripts
+     * @see ScriptDependencies
+     */
+    static final ScriptInfo reloadScript(final File script) {
+        final Map<String, String> oldSignatures = new HashMap<>();
+        for (final String function : ScriptDependencies.getDefinedFunctions(script))
+            oldSignatures.put(function, Functions.getSignature(function));
+
+        unloadScript_(script);
+        final ScriptInfo info = loadScripts(new File[]{script});
+
+        final Set<String> changed = new HashSet<>(oldSignatures.keySet());
+        changed.addAll(ScriptDependencies.getDefinedFunctions(script));
+        changed.removeIf(function -> Objects.equals(oldSignatures.get(function), Functions.getSignature(function)));
+
+        final Set<File> dependents = ScriptDependencies.getCallers(changed);
+        dependents.remove(script);
+        if (!dependents.isEmpty()) {
+            for (final File dependent : dependents)
+                unloadScript_(dependent);
+            loadScripts(dependents.toArray(new File[0]));
+            if (Skript.logNormal())
+                Skript.info("Reloaded " + dependents.size() + " script" + (dependents.size() == 1 ? "" : "s") + " that use" + (dependents.size() == 1 ? "s" : "") + " changed functions of " + script.getName());
+        }
+
+        Functions.validateFunctions(); // Re-link calls to unchanged functions
         return info;
     }
 
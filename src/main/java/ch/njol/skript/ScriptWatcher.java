@@ -0,0 +1,184 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript;
+
+import org.bukkit.Bukkit;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the scripts folder and reloads changed scripts automatically, using
+ * {@link ScriptLoader#reloadScript(File)} so only the changed scripts and the scripts
+ * that depend on them are re-parsed.
+ * <p>
+ * Enabled with the <tt>watch scripts</tt> option in the config.
+ */
+public final class ScriptWatcher {
+
+    /**
+     * Editors often write a file multiple times in a short time, so changes are
+     * only applied after no new change was seen for this many milliseconds.
+     */
+    private static final long DEBOUNCE_MILLIS = 500L;
+
+    @Nullable
+    private static WatchService watchService;
+    @Nullable
+    private static Thread thread;
+
+    private ScriptWatcher() {
+        throw new UnsupportedOperationException("Static class");
+    }
+
+    public static final boolean isRunning() {
+        return thread != null;
+    }
+
+    /**
+     * Starts watching the scripts folder. Does nothing if already started.
+     */
+    static final void start() {
+        if (thread != null)
+            return;
+        final Path folder = ScriptLoader.getScriptsFolder().toPath();
+        final WatchService ws;
+        try {
+            ws = folder.getFileSystem().newWatchService();
+            register(ws, folder);
+        } catch (final IOException e) {
+            Skript.exception(e, "Can't watch the scripts folder for changes");
+            return;
+        }
+        watchService = ws;
+        final Thread t = Skript.newThread(() -> run(ws), "Skript script watcher thread");
+        t.setDaemon(true);
+        t.start();
+        thread = t;
+    }
+
+    /**
+     * Stops watching the scripts folder. Does nothing if not started.
+     */
+    static final void stop() {
+        final Thread t = thread;
+        final WatchService ws = watchService;
+        thread = null;
+        watchService = null;
+        if (t == null || ws == null)
+            return;
+        try {
+            ws.close();
+        } catch (final IOException e) {
+            if (Skript.debug())
+                Skript.exception(e);
+        }
+        t.interrupt();
+    }
+
+    private static final void register(final WatchService ws, final Path folder) throws IOException {
+        if (!SkriptConfig.allowScriptsFromSubFolders.value()) {
+            folder.register(ws, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            return;
+        }
+        Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+                dir.register(ws, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static final void run(final WatchService ws) {
+        final Set<File> changed = new LinkedHashSet<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                final WatchKey key = changed.isEmpty() ? ws.take() : ws.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                if (key == null) { // Nothing changed since the last change, apply the changes
+                    final File[] files = changed.toArray(new File[0]);
+                    changed.clear();
+                    Bukkit.getScheduler().scheduleSyncDelayedTask(Skript.getInstance(), () -> apply(files));
+                    continue;
+                }
+                final Path dir = (Path) key.watchable();
+                for (final WatchEvent<?> e : key.pollEvents()) {
+                    if (e.kind() == OVERFLOW)
+                        continue;
+                    final Path path = dir.resolve((Path) e.context());
+                    if (e.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                        if (SkriptConfig.allowScriptsFromSubFolders.value())
+                            register(ws, path);
+                        continue;
+                    }
+                    if (path.getFileName().toString().endsWith(".sk"))
+                        changed.add(path.toFile());
+                }
+                key.reset();
+            }
+        } catch (final InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        } catch (final IOException e) {
+            Skript.exception(e, "Error while watching the scripts folder for changes");
+        }
+    }
+
+    /**
+     * Applies the changes to the given script files, must be called from the main thread.
+     */
+    private static final void apply(final File[] files) {
+        if (!isRunning())
+            return;
+        final Collection<File> loaded = ScriptLoader.getLoadedFiles();
+        final List<File> added = new ArrayList<>();
+        for (final File f : files) {
+            final boolean enabled = f.isFile() && !f.getName().startsWith("-");
+            if (loaded.contains(f)) {
+                if (enabled) {
+                    if (Skript.logNormal())
+                        Skript.info("Reloading changed script " + f.getName());
+                    ScriptLoader.reloadScript(f);
+                } else {
+                    if (Skript.logNormal())
+                        Skript.info("Unloading removed script " + f.getName());
+                    ScriptLoader.unloadScript(f);
+                }
+            } else if (enabled) {
+                added.add(f);
+            }
+        }
+        if (!added.isEmpty()) {
+            if (Skript.logNormal())
+                Skript.info("Loading " + added.size() + " new script" + (added.size() == 1 ? "" : "s"));
+            ScriptLoader.loadScripts(added.toArray(new File[0]));
+        }
+    }
+
+}
@@ -101,6 +101,7 @@ import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -1129,6 +1130,7 @@ public final class Skript extends JavaPlugin implements Listener, Updatable, Non
      */
     static final void disableScripts() {
         VariableString.variableNames.clear();
+        ScriptDependencies.clear();
         SkriptEventHandler.removeAllTriggers();
 
         Commands.clearCommands();
@@ -1175,6 +1177,7 @@ public final class Skript extends JavaPlugin implements Listener, Updatable, Non
      */
     static final void reloadMainConfig() {
         SkriptConfig.load();
+        ScriptCache.reload();
     }
 
     /**
@@ -1183,6 +1186,7 @@ public final class Skript extends JavaPlugin implements Listener, Updatable, Non
     static final void reloadAliases() {
         Aliases.clear();
         Aliases.load();
+        ScriptCache.reload();
     }
 
     // ================ ADDONS ================
@@ -1373,8 +1377,10 @@ public final class Skript extends JavaPlugin implements Listener, Updatable, Non
         final SyntaxElementInfo<E> info = new SyntaxElementInfo<>(patterns, condition);
         conditions.add(info);
         statements.add(info);
-        if (instanceSupplier != null)
+        if (instanceSupplier != null) {
+            info.setInstanceSupplier(instanceSupplier);
             registerInstanceSupplier(condition, instanceSupplier);
+        }
     }
 
     /**
@@ -1402,8 +1408,10 @@ public final class Skript extends JavaPlugin implements Listener, Updatable, Non
         final SyntaxElementInfo<E> info = new SyntaxElementInfo<>(patterns, effect);
         effects.add(info);
         statements.add(info);
-        if (instanceSupplier != null)
+        if (instanceSupplier != null) {
+            info.setInstanceSupplier(instanceSupplier);
             registerInstanceSupplier(effect, instanceSupplier);
+        }
     }
 
     public static final Collection<SyntaxElementInfo<? extends Statement>> getStatements() {
@@ -1460,8 +1468,10 @@ public final class Skript extends JavaPlugin implements Listener, Updatable, Non
             expressionTypesStartIndices[i]++;
         }
         expressions.add(expressionTypesStartIndices[type.ordinal()], info);
-        if (instanceSupplier != null)
+        if (instanceSupplier != null) {
+            info.setInstanceSupplier(instanceSupplier);
             registerInstanceSupplier(expression, instanceSupplier);
+        }
     }
 
     @SuppressWarnings("null")
@@ -1533,8 +1543,10 @@ public final class Skript extends JavaPlugin implements Listener, Updatable, Non
             checkDuplicatePatterns(c, "event", patterns);
         final SkriptEventInfo<E> r = new SkriptEventInfo<>(name, patterns, c, events);
         Skript.events.add(r);
-        if (instanceSupplier != null)
+        if (instanceSupplier != null) {
+            r.setInstanceSupplier(instanceSupplier);
             registerInstanceSupplier(c, instanceSupplier);
+        }
         return r;
     }
 
@@ -1887,6 +1899,67 @@ public final class Skript extends JavaPlugin implements Listener, Updatable, Non
         }
     }
 
+    /**
+     * Loads the variables and logs errors properly, may be called from any thread.
+     *
+     * @return Whatever the variables were loaded successfully
+     */
+    static final boolean loadVariables() {
+        final long vls = System.currentTimeMillis();
+
+        final LogHandler h = SkriptLogger.startLogHandler(new ErrorDescLogHandler() {
+//                private final List<LogEntry> log = new ArrayList<LogEntry>();
+
+            @Override
+            public final LogResult log(final LogEntry entry) {
+                super.log(entry);
+                if (entry.level.intValue() >= Level.SEVERE.intValue()) {
+                    logEx(entry.message); // no [Skript] prefix
+                    return LogResult.DO_NOT_LOG;
+                }
+                //        log.add(entry);
+//                        return LogResult.CACHED;
+                return LogResult.LOG;
+            }
+
+            @Override
+            protected final void beforeErrors() {
+                logEx();
+                logEx("===!!!=== Skript variable load error ===!!!===");
+                logEx("Unable to load variables:");
+            }
+
+            @Override
+            protected final void afterErrors() {
+                logEx();
+                logEx("Skript will work properly, but old variables might not be available at all and new ones may or may not be saved until Skript is able to create a backup of the old file and/or is able to connect to the database (which requires a restart of Skript)!");
+                logEx();
+            }
+
+//            @Override
+//            protected final void onStop() {
+//                super.onStop();
+//                    SkriptLogger.logAll(log);
+//            }
+        });
+
+        final CountingLogHandler c2 = SkriptLogger.startLogHandler(new CountingLogHandler(SkriptLogger.SEVERE));
+        final boolean successful;
+        try {
+            successful = Variables.load();
+            if (!successful && c2.getCount() == 0)
+                error("(no information available)");
+        } finally {
+            c2.stop();
+            h.stop();
+        }
+
+        final long vld = System.currentTimeMillis() - vls;
+        if (logNormal())
+            info("Loaded " + Variables.numVariables() + " variables in " + vld / 100 / 10. + " seconds");
+        return successful;
+    }
+
     static final void logEx() {
         SkriptLogger.LOGGER.severe(EXCEPTION_PREFIX);
     }
@@ -3078,30 +3151,27 @@ public final class Skript extends JavaPlugin implements Listener, Updatable, Non
 
                 // load hooks
                 try {
-                    try (final JarFile jar = new JarFile(getPluginFile(), false)) {
-                        for (final JarEntry e : new EnumerationIterable<>(jar.entries())) {
-                            if (e.getName().startsWith("ch/njol/skript/hooks/") && e.getName().endsWith("Hook.class") && StringUtils.count(e.getName(), '/') <= 5) {
-                                final String cl = e.getName().replace('/', '.').substring(0, e.getName().length() - ".class".length());
-                                if (cl.contains("VaultHook") && Bukkit.getPluginManager().getPlugin("Vault") == null)
-                                    continue;
-                                try {
-                                    final Class<?> hook = Class.forName(cl);
-                                    if (hook != null && Hook.class.isAssignableFrom(hook) && !hook.isInterface() && Hook.class != hook) {
-                                        final Constructor<?> constructor = hook.getDeclaredConstructor();
+                    for (final String cl : getAddonInstance().getClassNames()) {
+                        if (cl.startsWith("ch.njol.skript.hooks.") && cl.endsWith("Hook") && StringUtils.count(cl, '.') <= 5) {
+                            if (cl.contains("VaultHook") && Bukkit.getPluginManager().getPlugin("Vault") == null)
+                                continue;
+                            try {
+                                final Class<?> hook = Class.forName(cl);
+                                if (hook != null && Hook.class.isAssignableFrom(hook) && !hook.isInterface() && Hook.class != hook) {
+                                    final Constructor<?> constructor = hook.getDeclaredConstructor();
 
-                                        constructor.setAccessible(true);
-                                        constructor.newInstance();
-                                    }
-                                } catch (final NoClassDefFoundError ncdffe) {
-                                    Skript.exception(ncdffe, "Cannot load class " + cl + " because it missing some dependencies");
-                                } catch (final ClassNotFoundException ex) {
-                                    Skript.exception(ex, "Cannot load class " + cl);
-                                } catch (final ExceptionInInitializerError err) {
-                                    Skript.exception(err.getCause(), "Class " + cl + " generated an exception while loading");
-                                } catch (final Throwable tw1) {
-                                    if (Skript.testing() || Skript.debug())
-                                        Skript.exception(tw1, "Cannot load class " + cl);
+                                    constructor.setAccessible(true);
+                                    constructor.newInstance();
                                 }
+                            } catch (final NoClassDefFoundError ncdffe) {
+                                Skript.exception(ncdffe, "Cannot load class " + cl + " because it missing some dependencies");
+                            } catch (final ClassNotFoundException ex) {
+                                Skript.exception(ex, "Cannot load class " + cl);
+                            } catch (final ExceptionInInitializerError err) {
+                                Skript.exception(err.getCause(), "Class " + cl + " generated an exception while loading");
+                            } catch (final Throwable tw1) {
+                                if (Skript.testing() || Skript.debug())
+                                    Skript.exception(tw1, "Cannot load class " + cl);
                             }
                         }
                     }
@@ -3141,66 +3211,45 @@ public final class Skript extends JavaPlugin implements Listener, Updatable, Non
                 if (logNormal())
                     info("Loading variables...");
 
-                final long vls = System.currentTimeMillis();
-
-                final LogHandler h = SkriptLogger.startLogHandler(new ErrorDescLogHandler() {
-//                        private final List<LogEntry> log = new ArrayList<LogEntry>();
-
-                    @Override
-                    public final LogResult log(final LogEntry entry) {
-                        super.log(entry);
-                        if (entry.level.intValue() >= Level.SEVERE.intValue()) {
-                            logEx(entry.message); // no [Skript] prefix
-                            return LogResult.DO_NOT_LOG;
+                // Variables are loaded in the background while scripts are parsed, anything that needs them waits with Variables.awaitLoad()
+                final long startupStart = System.nanoTime();
+                final AtomicLong variablesEnd = new AtomicLong();
+                final boolean background = SkriptConfig.loadVariablesInBackground.value();
+                if (background) {
+                    Variables.loadInBackground(() -> {
+                        try {
+                            return loadVariables();
+                        } finally {
+                            variablesEnd.set(System.nanoTime());
                         }
-                        //                                log.add(entry);
-//                                return LogResult.CACHED;
-                        return LogResult.LOG;
-                    }
-
-                    @Override
-                    protected final void beforeErrors() {
-                        logEx();
-                        logEx("===!!!=== Skript variable load error ===!!!===");
-                        logEx("Unable to load variables:");
-                    }
-
-                    @Override
-                    protected final void afterErrors() {
-                        logEx();
-                        logEx("Skript will work properly, but old variables might not be available at all and new ones may or may not be saved until Skript is able to create a backup of the old file and/or is able to connect to the database (which requires a restart of Skript)!");
-                        logEx();
-                    }
-
-//                    @Override
-//                    protected final void onStop() {
-//                        super.onStop();
-//                            SkriptLogger.logAll(log);
-//                    }
-                });
-
-                final CountingLogHandler c2 = SkriptLogger.startLogHandler(new CountingLogHandler(SkriptLogger.SEVERE));
-                try {
-                    if (!Variables.load() && c2.getCount() == 0)
-                        error("(no information available)");
-                } finally {
-                    c2.stop();
-                    h.stop();
+                    });
+                } else {
+                    loadVariables();
                 }
 
-                final long vld = System.currentTimeMillis() - vls;
-                if (logNormal())
-                    info("Loaded " + Variables.numVariables() + " variables in " + vld / 100 / 10. + " seconds");
-
                 // Speed up enclosing class
                 Classes.getEnclosingClass(this.getClass());
                 Classes.enclosingClassCache.clear();
 
                 // Load scripts
+                final long scriptsStart = System.nanoTime();
                 {
                     ScriptLoader.loadScripts();
                 }
 
+                // Scripts are only started after the variables are loaded
+                Variables.awaitLoad();
+                final long startupEnd = System.nanoTime();
+
+                if (background && logNormal()) {
+                    final long variablesTime = variablesEnd.get() - startupStart, scriptsTime = startupEnd - scriptsStart, totalTime = startupEnd - startupStart;
+                    info("Loaded variables (" + variablesTime / 100_000_000L / 10. + " seconds) and scripts (" + scriptsTime / 100_000_000L / 10. + " seconds) in parallel in " + totalTime / 100_000_000L / 10. + " seconds");
+                }
+
+                // Reload changed scripts automatically
+                if (SkriptConfig.watchScripts.value())
+                    ScriptWatcher.start();
+
                 // Free memory
                 Classes.enclosingClassCache.clear();
                 PatternCache.clear();
@@ -3577,6 +3626,8 @@ public final class Skript extends JavaPlugin implements Listener, Updatable, Non
                 info("Triggering on server stop events - if server freezes here, consider removing such events from skript code.");
             EvtSkript.onSkriptStop();
 
+            ScriptWatcher.stop();
+
             if (Skript.logHigh())
                 info("Disabling scripts...");
             disableScripts();
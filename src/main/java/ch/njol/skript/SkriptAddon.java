@@ -34,6 +34,10 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
@@ -58,6 +62,11 @@ public final class SkriptAddon {
 
     private final AtomicInteger loadedClasses = new AtomicInteger();
     private final AtomicInteger unloadableClasses = new AtomicInteger();
+    /**
+     * Binary names of all classes of the plugin, read when first needed
+     */
+    @Nullable
+    private List<String> classNames;
     @Nullable
     private String languageFileDirectory;
     @Nullable
@@ -112,6 +121,8 @@ public final class SkriptAddon {
 
     /**
      * Loads classes of the plugin by package. Useful for registering many syntax elements like Skript does it.
+     * <p>
+     * The classes are taken from the {@link #setClassIndex(Collection) set index} if there is one, otherwise all classes of the plugin's jar file are used in the order of the jar.
      *
      * @param basePackage The base package to add to all sub packages, e.g. <tt>"ch.njol.skript"</tt>.
      * @param subPackages Which subpackages of the base package should be loaded, e.g. <tt>"expressions", "conditions", "effects"</tt>. Subpackages of these packages will be loaded
@@ -119,61 +130,61 @@ public final class SkriptAddon {
      * @return This SkriptAddon
      * @throws IOException If some error occurred attempting to read the plugin's jar file.
      */
-    public final SkriptAddon loadClasses(String basePackage, final String... subPackages) throws IOException {
+    public final SkriptAddon loadClasses(final String basePackage, final String... subPackages) throws IOException {
         assert subPackages != null;
-        //noinspection AssertWithSideEffects
-        assert getFile() != null;
-        try (final JarFile jar = new JarFile(getFile(), false)) {
-            for (int i = 0; i < subPackages.length; i++)
-                subPackages[i] = subPackages[i].replace('.', '/') + '/';
-            basePackage = basePackage.replace('.', '/') + '/';
-            for (final JarEntry e : new EnumerationIterable<>(jar.entries())) {
-                if (e.getName().startsWith(basePackage) && e.getName().endsWith(".class")) {
-                    boolean load = subPackages.length == 0;
-                    for (final String sub : subPackages) {
-                        if (e.getName().startsWith(sub, basePackage.length())) {
-                            load = true;
-                            break;
-                        }
+        final String base = basePackage + '.';
+        final String[] subs = new String[subPackages.length];
+        for (int i = 0; i < subPackages.length; i++)
+            subs[i] = subPackages[i] + '.';
+        for (final String c : getClassNames()) {
+            if (c.startsWith(base)) {
+                boolean load = subs.length == 0;
+                for (final String sub : subs) {
+                    if (c.startsWith(sub, base.length())) {
+                        load = true;
+                        break;
+                    }
+                }
+                if (load) {
+                    if ((c.toLowerCase(Locale.ENGLISH).contains("guardian") || c.toLowerCase(Locale.ENGLISH).contains("rabbit")) && !Skript.isRunningMinecraft(1, 8)) {
+                        // Ooh, we're on 1.7! Skip those classes. We already ignore exceptions when not on the very high verbosity, but anyway.
+                        continue;
                     }
-                    if (load) {
-                        final String c = e.getName().replace('/', '.').substring(0, e.getName().length() - ".class".length());
-                        if ((c.toLowerCase(Locale.ENGLISH).contains("guardian") || c.toLowerCase(Locale.ENGLISH).contains("rabbit")) && !Skript.isRunningMinecraft(1, 8)) {
-                            // Ooh, we're on 1.7! Skip those classes. We already ignore exceptions when not on the very high verbosity, but anyway.
-                            continue;
+                    try {
+                        {
+                            Class.forName(c, true, plugin.getClass().getClassLoader());
                         }
-                        try {
-                            {
-                                Class.forName(c, true, plugin.getClass().getClassLoader());
-                            }
-                            loadedClasses.getAndIncrement(); // successfully loaded
-                        } catch (final NoClassDefFoundError ncdfe) {
-                            // not supported or not available on this version, skip it.
-                            if (Skript.logHigh()) {
-                                if (!(plugin instanceof Skript)) { // if it is not a Skript class (e.g from an addon)
+                        loadedClasses.getAndIncrement(); // successfully loaded
+                    } catch (final NoClassDefFoundError ncdfe) {
+                        // not supported or not available on this version, skip it.
+                        if (Skript.logHigh()) {
+                            if (!(plugin instanceof Skript)) { // if it is not a Skript class (e.g from an addon)
+                                Skript.exception(ncdfe, "Cannot load class " + c + " from " + this);
+                            } else {
+                                // Probably Skript is running ona unsupported or half supported server version,
+                                // if user is not debugging or testing then just ignore that class.
+                                if (Skript.testing() || Skript.debug()) {
                                     Skript.exception(ncdfe, "Cannot load class " + c + " from " + this);
-                                } else {
-                                    // Probably Skript is running ona unsupported or half supported server version,
-                                    // if user is not debugging or testing then just ignore that class.
-                                    if (Skript.testing() || Skript.debug()) {
-                                        Skript.exception(ncdfe, "Cannot load class " + c + " from " + this);
-                                    }
                                 }
                             }
-                            unloadableClasses.getAndIncrement();
-                        } catch (final ExceptionInInitializerError err) {
-                            Skript.exception(err.getCause(), this + "'s class " + c + " generated an exception while loading");
-                            unloadableClasses.getAndIncrement();
-                        } catch (final LinkageError le) {
-                            if (plugin instanceof Skript || Skript.testing() || Skript.debug()) {
-                                Skript.exception(le, "Cannot load class " + c + " from " + this);
-                            }
-                            unloadableClasses.getAndIncrement();
-                        } catch (final Throwable ex) {
-                            // Catch any other exceptions.
-                            Skript.exception(ex, "Cannot load class " + c + " from " + this);
-                            unloadableClasses.getAndIncrement();
                         }
+                        unloadableClasses.getAndIncrement();
+                    } catch (final ExceptionInInitializerError err) {
+                        Skript.exception(err.getCause(), this + "'s class " + c + " generated an exception while loading");
+                        unloadableClasses.getAndIncrement();
+                    } catch (final LinkageError le) {
+                        if (plugin instanceof Skript || Skript.testing() || Skript.debug()) {
+                            Skript.exception(le, "Cannot load class " + c + " from " + this);
+                        }
+                        unloadableClasses.getAndIncrement();
+                    } catch (final ClassNotFoundException ex) {
+                        // Only possible with an outdated set index
+                        Skript.exception(ex, "Cannot load class " + c + " from " + this + " (is the class index outdated?)");
+                        unloadableClasses.getAndIncrement();
+                    } catch (final Throwable ex) {
+                        // Catch any other exceptions.
+                        Skript.exception(ex, "Cannot load class " + c + " from " + this);
+                        unloadableClasses.getAndIncrement();
                     }
                 }
             }
@@ -184,6 +195,50 @@ public final class SkriptAddon {
         return this;
     }
 
+    /**
+     * Sets the classes of this addon, e.g. from an index generated by the addon's own build,
+     * so that {@link #loadClasses(String, String...)} doesn't have to read the jar file.
+     *
+     * @param classNames Binary names of all classes of this addon, in the order they should be loaded in.
+     * @return This SkriptAddon
+     */
+    public final SkriptAddon setClassIndex(final Collection<String> classNames) {
+        this.classNames = Collections.unmodifiableList(new ArrayList<>(classNames));
+        return this;
+    }
+
+    /**
+     * @return Binary names of all classes of this addon, from the {@link #setClassIndex(Collection) set index}
+     * or by scanning the jar once if there is none.
+     * @throws IOException If some error occurred attempting to read the plugin's jar file.
+     */
+    public final List<String> getClassNames() throws IOException {
+        List<String> classNames = this.classNames;
+        if (classNames == null) {
+            final File file = getFile();
+            if (file == null)
+                throw new IOException("Can't find the jar file of " + this);
+            this.classNames = classNames = Collections.unmodifiableList(readClassNames(file));
+        }
+        return classNames;
+    }
+
+    /**
+     * Lists the classes in the order of the jar's entries, as the order classes are loaded in decides the order syntax elements are registered in,
+     * and thereby their parse priority. Reading the jar's entries doesn't read their contents.
+     */
+    static final List<String> readClassNames(final File file) throws IOException {
+        final List<String> classNames = new ArrayList<>();
+        try (final JarFile jar = new JarFile(file, false)) {
+            for (final JarEntry e : new EnumerationIterable<>(jar.entries())) {
+                final String name = e.getName();
+                if (name.endsWith(".class"))
+                    classNames.add(name.replace('/', '.').substring(0, name.length() - ".class".length()));
+            }
+        }
+        return classNames;
+    }
+
     @Nullable
     public final String getLanguageFileDirectory() {
         return languageFileDirectory;
@@ -38,6 +38,7 @@ import ch.njol.skript.util.Color;
 import ch.njol.skript.util.EmptyArrays;
 import ch.njol.skript.util.ExceptionUtils;
 import ch.njol.skript.util.FileUtils;
+import ch.njol.skript.variables.Variables;
 import ch.njol.util.StringUtils;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.bukkit.Bukkit;
@@ -62,7 +63,7 @@ public final class SkriptCommand implements CommandExecutor {
     private static final String NODE = "skript command";
     // TODO /skript scripts show/list - lists all enabled and/or disabled scripts in the scripts folder and/or subfolders (maybe add a pattern [using * and **])
     // TODO document this command on the website
-    private static final CommandHelp skriptCommandHelp = new CommandHelp("<gray>/<gold>skript", Color.LIGHT_CYAN, NODE + ".help").add(new CommandHelp("reload", Color.DARK_RED).add("all").add("config").add("aliases").add("scripts").add("<script>")).add(new CommandHelp("enable", Color.DARK_RED).add("all").add("<script>")).add(new CommandHelp("disable", Color.DARK_RED).add("all").add("<script>")).add(new CommandHelp("update", Color.DARK_RED).add("check").add("changes").add("download")).add(new CommandHelp("track", Color.DARK_RED).add("delays").add("variables").add("loops")).add(new CommandHelp("untrack", Color.DARK_RED).add("delays").add("variables").add("loops")
+    private static final CommandHelp skriptCommandHelp = new CommandHelp("<gray>/<gold>skript", Color.LIGHT_CYAN, NODE + ".help").add(new CommandHelp("reload", Color.DARK_RED).add("all").add("config").add("aliases").add("scripts").add("<script>")).add(new CommandHelp("enable", Color.DARK_RED).add("all").add("<script>")).add(new CommandHelp("disable", Color.DARK_RED).add("all").add("<script>")).add(new CommandHelp("update", Color.DARK_RED).add("check").add("changes").add("download")).add(new CommandHelp("track", Color.DARK_RED).add("delays").add("variables").add("loops")).add(new CommandHelp("untrack", Color.DARK_RED).add("delays").add("variables").add("loops")).add(new CommandHelp("variables", Color.DARK_RED).add("stats")
             //          .add(new CommandHelp("variable", "Commands for modifying variables", ChatColor.DARK_RED)
 //                  .add("set", "Creates a new variable or changes an existing one")
 //                  .add("delete", "Deletes a variable")
@@ -220,8 +221,7 @@ public final class SkriptCommand implements CommandExecutor {
                             return true;
                         }
                         reloading(sender, "script", f.getName());
-                        ScriptLoader.unloadScript(f);
-                        ScriptLoader.loadScripts(new File[]{f});
+                        ScriptLoader.reloadScript(f);
                         reloaded(sender, r, "script", f.getName());
                     } else {
                         reloading(sender, "scripts in folder", f.getName());
@@ -459,6 +459,11 @@ public final class SkriptCommand implements CommandExecutor {
                             sender.sendMessage(ChatColor.DARK_RED + "You don't have an active loop tracker!");
                     }
                 }
+            } else if ("variables".equalsIgnoreCase(args[0])) {
+                if ("stats".equalsIgnoreCase(args[1])) {
+                    for (final String line : Variables.getMetrics().report(15))
+                        sender.sendMessage(line.startsWith(" ") ? line : ChatColor.GOLD + line);
+                }
             } else if ("version".equalsIgnoreCase(args[0])) {
                 Skript.info(sender, "This server is running Skript version " + Skript.getVersionWithSuffix());
             } else if ("help".equalsIgnoreCase(args[0])) {
@@ -117,6 +117,12 @@ public final class SkriptConfig {
     public static final Option<Boolean> disableDeprecationWarnings = new Option<>("disable deprecation warnings", false);
     public static final Option<Boolean> namespacedCommands = new Option<>("namespaced commands", true);
     public static final Option<Boolean> enableScriptCaching = new Option<>("enable script caching", false).optional(true);
+    public static final Option<Boolean> watchScripts = new Option<>("watch scripts", false).optional(true);
+    public static final Option<Boolean> loadVariablesInBackground = new Option<>("load variables in background", true).optional(true);
+    public static final Option<Boolean> lazyVariableLoading = new Option<>("lazy variable loading", false).optional(true);
+    public static final Option<Integer> variablesHeapBudget = new Option<>("variables heap budget", 0).optional(true);
+    public static final Option<Boolean> compactVariableEncoding = new Option<>("compact variable encoding", false).optional(true);
+    public static final Option<Timespan> variableStatsDumpInterval = new Option<>("variable stats dump interval", new Timespan(0L)).optional(true);
     public static final Option<Boolean> keepConfigsLoaded = new Option<>("keep configs loaded", false).optional(true);
     public static final Option<Boolean> addonSafetyChecks = new Option<>("addon safety checks", true)
             .optional(true);
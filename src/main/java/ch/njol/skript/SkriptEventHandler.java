@@ -27,7 +27,9 @@ import ch.njol.skript.command.Commands;
 import ch.njol.skript.lang.SelfRegisteringSkriptEvent;
 import ch.njol.skript.lang.Trigger;
 import ch.njol.skript.lang.function.Functions;
+import ch.njol.skript.log.Tracing;
 import ch.njol.skript.timings.SkriptTimings;
+import ch.njol.skript.variables.Variables;
 import org.bukkit.Bukkit;
 import org.bukkit.event.Cancellable;
 import org.bukkit.event.Event;
@@ -44,6 +46,7 @@ import org.eclipse.jdt.annotation.Nullable;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Peter Güttinger
@@ -52,17 +55,40 @@ public final class SkriptEventHandler {
 
     public static final long moveEventCooldown = Long.getLong("skript.moveEventCooldown", /*100L*/0L);
     public static final EventExecutor ee = new SkriptEventExecutor();
+    /**
+     * All triggers, only modified from the main thread. Events are dispatched using the {@link #table} instead,
+     * which is a copy of this that is {@link #publish() published} once a batch of modifications is complete.
+     */
     static final Map<Class<? extends Event>, List<Trigger>> triggers = new HashMap<>(100);
     static final long eventCooldown = Long.getLong("skript.eventCooldown", /*100L*/0L);
     private static final Listener listener = new EmptyListener();
     private static final List<Trigger> selfRegisteredTriggers = new ArrayList<>(100);
+    /**
+     * The triggers used for dispatching events, replaced when triggers are added or removed.
+     * Never modified after it has been published, so it can be used from asynchronous events without locking.
+     */
+    private static volatile TriggerTable table = new TriggerTable(Collections.emptyMap());
     /**
      * Stores which events are currently registered with Bukkit
      */
     private static final Set<Class<? extends Event>> registeredEvents = new HashSet<>(100);
+    /**
+     * The last event received by each thread; an event is received multiple times if multiple superclasses of it are registered
+     */
+    private static final ThreadLocal<Event> lastEvent = new ThreadLocal<>();
+    /**
+     * The last event received by any thread.
+     *
+     * @deprecated Duplicate events are now detected per thread, so setting this has no effect. Use {@link #resetLastEvent()}
+     * to allow an event to be received again.
+     */
+    @Deprecated
     @Nullable
     public static Event last;
     static long startTrigger;
+    /**
+     * The last time a synchronous event was received, only used from the main thread
+     */
     static long lastCall;
     private static long startEvent;
 
@@ -70,7 +96,7 @@ public final class SkriptEventHandler {
         throw new UnsupportedOperationException();
     }
 
-    private static final Iterator<Trigger> getTriggers(final Class<? extends Event> event) {
+    private static final Iterator<Trigger> getTriggers(final TriggerTable table, final Class<? extends Event> event) {
         return new Iterator<Trigger>() {
             @Nullable
             private Class<?> e = event;
@@ -85,7 +111,7 @@ public final class SkriptEventHandler {
                 while (current == null || !current.hasNext()) {
                     if (e == null || !Event.class.isAssignableFrom(e))
                         return false;
-                    @SuppressWarnings("unlikely-arg-type") final List<Trigger> l = triggers.get(e);
+                    @SuppressWarnings("unlikely-arg-type") final List<Trigger> l = table.triggers.get(e);
                     this.current = current = l == null ? null : l.iterator();
                     this.e = e = e.getSuperclass();
                 }
@@ -109,26 +135,64 @@ public final class SkriptEventHandler {
         };
     }
 
+    private static final TriggerIndex getIndex(final Class<? extends Event> event) {
+        final TriggerTable table = SkriptEventHandler.table;
+        final TriggerIndex index = table.indices.get(event);
+        if (index != null)
+            return index;
+        final Iterator<Trigger> ts = getTriggers(table, event);
+        if (!ts.hasNext()) {
+            table.indices.put(event, TriggerIndex.EMPTY);
+            return TriggerIndex.EMPTY;
+        }
+        final List<Trigger> l = new ArrayList<>();
+        ts.forEachRemaining(l::add);
+        final TriggerIndex i = new TriggerIndex(l);
+        table.indices.put(event, i);
+        return i;
+    }
+
+    /**
+     * Publishes the current {@link #triggers} to be used for dispatching events.
+     * Triggers added or removed since the last call are not used until this is called,
+     * this is done once after loading or unloading scripts instead of after every trigger.
+     */
+    static final void publish() {
+        table = new TriggerTable(triggers);
+    }
+
+    /**
+     * Forgets the last event received by the current thread, so that an event that is re-fired
+     * from within its own handling is not suppressed as a duplicate.
+     */
+    public static final void resetLastEvent() {
+        lastEvent.remove();
+        last = null;
+    }
+
     static final void check(final Event e) {
-        Iterator<Trigger> ts = getTriggers(e.getClass());
-        if (!ts.hasNext())
+        final TriggerIndex index = getIndex(e.getClass());
+        if (index.isEmpty())
+            return;
+        final int[] candidates = index.getCandidates(e);
+        if (candidates.length == 0)
             return;
+        final Trigger[] ts = index.getTriggers();
 
-        final boolean logVeryHigh = Skript.logVeryHigh();
+        // Constant folded by the JIT compiler, so the tracing code below costs nothing while it is disabled
+        final boolean logVeryHigh = Tracing.veryHigh();
+        final boolean timings = Tracing.timings();
 
         if (logVeryHigh) {
             boolean hasTrigger = false;
-            while (ts.hasNext()) {
-                if (ts.next().getEvent().check(e)) {
+            for (final int i : candidates) {
+                if (ts[i].getEvent().check(e)) {
                     hasTrigger = true;
                     break;
                 }
             }
             if (!hasTrigger)
                 return;
-            final Class<? extends Event> c = e.getClass();
-            assert c != null;
-            ts = getTriggers(c);
 
             logEventStart(e);
         }
@@ -149,13 +213,17 @@ public final class SkriptEventHandler {
             return;
         }
 
-        while (ts.hasNext()) {
-            final Trigger t = ts.next();
+        for (final int i : candidates) {
+            final Trigger t = ts[i];
             if (!t.getEvent().check(e))
                 continue;
+            if (!logVeryHigh && !timings) {
+                t.execute(e);
+                continue;
+            }
             if (logVeryHigh)
                 logTriggerStart(t);
-            final Object timing = SkriptTimings.start(t.getDebugLabel());
+            final Object timing = timings ? SkriptTimings.start(t.getDebugLabel()) : null;
             t.execute(e);
             if (timing != null)
                 SkriptTimings.stop(timing);
@@ -248,6 +316,7 @@ public final class SkriptEventHandler {
 
     static final void removeAllTriggers() {
         triggers.clear();
+        publish();
         for (final Trigger t : selfRegisteredTriggers)
             ((SelfRegisteringSkriptEvent) t.getEvent()).unregisterAll();
         selfRegisteredTriggers.clear();
@@ -256,6 +325,9 @@ public final class SkriptEventHandler {
 
     @SuppressWarnings({"unchecked", "rawtypes"})
     static final void registerBukkitEvents() {
+        // Triggers can run as soon as their event is registered (asynchronous events don't wait for the main thread)
+        Variables.awaitLoad();
+        publish();
         for (final Class<? extends Event> e : triggers.keySet()) {
             assert e != null;
             if (!containsSuperclass(registeredEvents, e)) { // I just love Java's generics
@@ -282,6 +354,21 @@ public final class SkriptEventHandler {
         return false;
     }
 
+    /**
+     * An immutable snapshot of the triggers, with the indices of the event classes that were fired lazily added.
+     */
+    private static final class TriggerTable {
+        final Map<Class<? extends Event>, List<Trigger>> triggers;
+        final Map<Class<? extends Event>, TriggerIndex> indices = new ConcurrentHashMap<>(100);
+
+        TriggerTable(final Map<Class<? extends Event>, List<Trigger>> triggers) {
+            final Map<Class<? extends Event>, List<Trigger>> copy = new HashMap<>(triggers.size() * 2);
+            for (final Map.Entry<Class<? extends Event>, List<Trigger>> e : triggers.entrySet())
+                copy.put(e.getKey(), Collections.unmodifiableList(new ArrayList<>(e.getValue())));
+            this.triggers = Collections.unmodifiableMap(copy);
+        }
+    }
+
     private static final class EmptyListener implements Listener {
         EmptyListener() {
             /* implicit super call */
@@ -298,9 +385,10 @@ public final class SkriptEventHandler {
             if (e == null)
                 return;
 
-            if (last == e) // an event is received multiple times if multiple superclasses of it are registered
+            if (lastEvent.get() == e) // an event is received multiple times if multiple superclasses of it are registered
                 return;
 
+            lastEvent.set(e);
             last = e;
 
             // Event is asynchronous, but it ran from main thread
@@ -311,13 +399,15 @@ public final class SkriptEventHandler {
 
             // Skip the event if it's a frequently called event
             // Note: Making anti-cheats with Skript is already a bad idea, I'm not responsible if it breaks them
-            if (e instanceof PlayerMoveEvent && System.currentTimeMillis() - lastCall < moveEventCooldown)
-                return;
+            if (!e.isAsynchronous()) {
+                if (e instanceof PlayerMoveEvent && System.currentTimeMillis() - lastCall < moveEventCooldown)
+                    return;
 
-            if ((e instanceof BlockPhysicsEvent || e instanceof InventoryMoveItemEvent) && System.currentTimeMillis() - lastCall < eventCooldown)
-                return;
+                if ((e instanceof BlockPhysicsEvent || e instanceof InventoryMoveItemEvent) && System.currentTimeMillis() - lastCall < eventCooldown)
+                    return;
 
-            lastCall = System.currentTimeMillis();
+                lastCall = System.currentTimeMillis();
+            }
 
             check(e);
         }
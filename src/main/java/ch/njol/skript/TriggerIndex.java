@@ -0,0 +1,176 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript;
+
+import ch.njol.skript.lang.SkriptEvent;
+import ch.njol.skript.lang.Trigger;
+import org.bukkit.event.Event;
+
+import java.util.*;
+
+/**
+ * All triggers of an event class, indexed by the {@link SkriptEvent#getFilterKeys() filter keys} of their events,
+ * so that only the triggers whose filter can match a fired event are {@link SkriptEvent#check(Event) checked}.
+ * <p>
+ * Triggers are always returned in the order they were registered in.
+ * <p>
+ * Also used by {@link ch.njol.skript.lang.SelfRegisteringSkriptEvent}s that dispatch their own triggers.
+ */
+public final class TriggerIndex {
+
+    public static final TriggerIndex EMPTY = new TriggerIndex(Collections.emptyList());
+
+    private static final int[] NO_POSITIONS = new int[0];
+
+    private final Trigger[] triggers;
+
+    /**
+     * Positions of the triggers that can apply to any event
+     */
+    private final int[] unfiltered;
+
+    private final Group[] groups;
+
+    public TriggerIndex(final List<Trigger> triggers) {
+        this.triggers = triggers.toArray(new Trigger[0]);
+
+        final List<Integer> unfiltered = new ArrayList<>();
+        final Map<Class<? extends SkriptEvent>, GroupBuilder> groups = new LinkedHashMap<>();
+        for (int i = 0; i < this.triggers.length; i++) {
+            final SkriptEvent event = this.triggers[i].getEvent();
+            final Object[] keys = event.getFilterKeys();
+            if (keys == null) {
+                unfiltered.add(i);
+                continue;
+            }
+            final GroupBuilder g = groups.computeIfAbsent(event.getClass(), k -> new GroupBuilder(event));
+            g.all.add(i);
+            for (final Object key : keys)
+                g.positions.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+
+        this.unfiltered = toArray(unfiltered);
+        this.groups = new Group[groups.size()];
+        int i = 0;
+        for (final GroupBuilder g : groups.values())
+            this.groups[i++] = g.build();
+    }
+
+    static final int[] toArray(final List<Integer> list) {
+        final int[] r = new int[list.size()];
+        for (int i = 0; i < r.length; i++)
+            r[i] = list.get(i);
+        return r;
+    }
+
+    /**
+     * Merges two sorted arrays of distinct positions.
+     */
+    private static final int[] merge(final int[] a, final int[] b) {
+        if (a.length == 0)
+            return b;
+        if (b.length == 0)
+            return a;
+        final int[] r = new int[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length)
+            r[k++] = a[i] < b[j] ? a[i++] : b[j++];
+        while (i < a.length)
+            r[k++] = a[i++];
+        while (j < b.length)
+            r[k++] = b[j++];
+        return r;
+    }
+
+    public final boolean isEmpty() {
+        return triggers.length == 0;
+    }
+
+    /**
+     * @return All triggers of this index, in the order they were registered in. Must not be modified.
+     */
+    public final Trigger[] getTriggers() {
+        return triggers;
+    }
+
+    /**
+     * @param e The fired event
+     * @return The positions of all triggers in {@link #getTriggers()} that may apply to the event, in ascending order.
+     */
+    public final int[] getCandidates(final Event e) {
+        int[] r = unfiltered;
+        for (final Group g : groups)
+            r = merge(r, g.getCandidates(e));
+        return r;
+    }
+
+    private static final class Group {
+
+        /**
+         * Any event of the group, used to get the filter keys of fired events
+         */
+        private final SkriptEvent event;
+        private final int[] all;
+        private final Map<Object, int[]> positions;
+
+        Group(final SkriptEvent event, final int[] all, final Map<Object, int[]> positions) {
+            this.event = event;
+            this.all = all;
+            this.positions = positions;
+        }
+
+        final int[] getCandidates(final Event e) {
+            final Object key = event.getFilterKey(e);
+            if (key == null)
+                return all;
+            final int[] r = positions.get(key);
+            return r == null ? NO_POSITIONS : r;
+        }
+
+    }
+
+    private static final class GroupBuilder {
+
+        final SkriptEvent event;
+        final List<Integer> all = new ArrayList<>();
+        final Map<Object, List<Integer>> positions = new HashMap<>();
+
+        GroupBuilder(final SkriptEvent event) {
+            this.event = event;
+        }
+
+        final Group build() {
+            final Map<Object, int[]> positions = new HashMap<>(this.positions.size() * 2);
+            for (final Map.Entry<Object, List<Integer>> e : this.positions.entrySet())
+                positions.put(e.getKey(), toArray(e.getValue()));
+            return new Group(event, toArray(all), positions);
+        }
+
+    }
+
+    @Override
+    public String toString() {
+        return "TriggerIndex{" + triggers.length + " triggers, " + unfiltered.length + " unfiltered, " + groups.length + " groups}";
+    }
+
+}
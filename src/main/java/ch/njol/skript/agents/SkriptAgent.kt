@@ -24,6 +24,7 @@
 package ch.njol.skript.agents
 
 import ch.njol.skript.SkriptAddon
+import ch.njol.skript.log.Tracing
 import org.eclipse.jdt.annotation.Nullable
 
 import java.util.*
@@ -62,6 +63,7 @@ fun registerAgent(addon: SkriptAddon,
 
     val agent = SkriptAgent(addon, handler, *events)
     agents.add(agent)
+    Tracing.setAgents(true)
 
     return agent
 }
@@ -93,6 +95,7 @@ fun unregisterAgent(agent: SkriptAgent?) {
 
     agent!!.listeners.clear()
     agents.remove(agent)
+    Tracing.setAgents(agents.isNotEmpty())
 }
 
 /**
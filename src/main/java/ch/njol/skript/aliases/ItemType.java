@@ -31,6 +31,7 @@ import ch.njol.skript.util.Container;
 import ch.njol.skript.util.Container.ContainerType;
 import ch.njol.skript.util.EnchantmentType;
 import ch.njol.skript.util.Utils;
+import ch.njol.util.Randoms;
 import ch.njol.util.coll.iterator.EmptyIterable;
 import ch.njol.util.coll.iterator.SingleItemIterable;
 import ch.njol.yggdrasil.Fields;
@@ -59,7 +60,6 @@ public final class ItemType implements Unit, Iterable<ItemData>, Container<ItemS
     // 1.4.5
     public static final boolean itemMetaSupported = Skript.classExists("org.bukkit.inventory.meta.ItemMeta");
     private static final Message m_named = new Message("aliases.named");
-    private static final Random random = new Random();
     @SuppressWarnings("RegExpEmptyAlternationBranch")
     private static final Matcher ITEMTYPE_SEPARATOR = Pattern.compile("||", Pattern.LITERAL).matcher("");
     private static final Pattern ITEMTYPE_SPLITTER = Pattern.compile("(?!<\\|)\\|(?!\\|)");
@@ -86,6 +86,11 @@ public final class ItemType implements Unit, Iterable<ItemData>, Container<ItemS
      */
     @Nullable
     private ItemType item, block;
+    /**
+     * Compiled form of {@link #types}, created when first needed if there are enough types and discarded in {@link #modified()}.
+     */
+    @Nullable
+    private transient TypeMatcher matcher;
 
     public ItemType() {
     }
@@ -232,6 +237,14 @@ public final class ItemType implements Unit, Iterable<ItemData>, Container<ItemS
      */
     public void modified() {
         item = block = null;
+        matcher = null;
+    }
+
+    private final TypeMatcher getMatcher() {
+        TypeMatcher m = matcher;
+        if (m == null)
+            matcher = m = new TypeMatcher(types);
+        return m;
     }
 
     /**
@@ -331,11 +344,14 @@ public final class ItemType implements Unit, Iterable<ItemData>, Container<ItemS
     }
 
     public boolean isOfType(final int id, final short data) {
-        for (final ItemData type : types) {
-            if (type.isOfType(id, data))
-                return true;
+        if (types.size() < TypeMatcher.MIN_TYPES) { // Cheaper than building a matcher, e.g. for short-lived types created while parsing
+            for (final ItemData d : types) {
+                if (d.isOfType(id, data))
+                    return true;
+            }
+            return false;
         }
-        return false;
+        return getMatcher().matches(id, data);
     }
 
     public boolean isSupertypeOf(final ItemType other) {
@@ -359,6 +375,11 @@ public final class ItemType implements Unit, Iterable<ItemData>, Container<ItemS
         outer:
         for (final ItemData o : other.types) {
             assert o != null;
+            if (o.typeid != -1 && o.dataMin != -1 && o.dataMin == o.dataMax) { // A single item is a subtype if it is of this type
+                if (isOfType(o.typeid, o.dataMin))
+                    continue;
+                return false;
+            }
             for (final ItemData t : types) {
                 if (t.isSupertypeOf(o))
                     continue outer;
@@ -647,7 +668,7 @@ public final class ItemType implements Unit, Iterable<ItemData>, Container<ItemS
     public ItemStack getRandom() {
         if (numItems == 0)
             return null;
-        int item = random.nextInt(numItems);
+        int item = Randoms.nextInt(numItems);
         int i = -1;
         while (item >= 0)
             item -= types.get(++i).numItems();
@@ -1114,6 +1135,60 @@ public final class ItemType implements Unit, Iterable<ItemData>, Container<ItemS
         }
     }
 
+    /**
+     * Matches items against a list of item datas in constant time for most aliases. Item datas of a single id with all or
+     * block data values (0-15) are stored in bitsets, only wildcard ids and larger data values (e.g. durability) are checked one by one.
+     */
+    private static final class TypeMatcher {
+        /**
+         * Types with fewer item datas are checked one by one instead
+         */
+        static final int MIN_TYPES = 8;
+        private static final int MAX_ID = Integer.MAX_VALUE >>> 4;
+
+        /**
+         * Ids that match with any data value
+         */
+        private final BitSet anyData = new BitSet();
+        /**
+         * <tt>id &lt;&lt; 4 | data</tt> of all matching items with a data value below 16
+         */
+        private final BitSet packed = new BitSet();
+        /**
+         * Item datas that can't be put into the bitsets
+         */
+        private final ItemData[] others;
+
+        TypeMatcher(final List<ItemData> types) {
+            final List<ItemData> others = new ArrayList<>();
+            for (final ItemData d : types) {
+                if (d.typeid < 0 || d.typeid > MAX_ID)
+                    others.add(d);
+                else if (d.dataMin == -1 && d.dataMax == -1)
+                    anyData.set(d.typeid);
+                else if (d.dataMin >= 0 && d.dataMin <= d.dataMax && d.dataMax < 16)
+                    packed.set(d.typeid << 4 | d.dataMin, (d.typeid << 4 | d.dataMax) + 1);
+                else
+                    others.add(d);
+            }
+            this.others = others.toArray(new ItemData[0]);
+        }
+
+        final boolean matches(final int id, final short data) {
+            if (id >= 0 && id <= MAX_ID) {
+                if (anyData.get(id))
+                    return true;
+                if (data >= 0 && data < 16 && packed.get(id << 4 | data))
+                    return true;
+            }
+            for (final ItemData d : others) {
+                if (d.isOfType(id, data))
+                    return true;
+            }
+            return false;
+        }
+    }
+
     private static final class ItemDataIterator implements Iterator<ItemData> {
         private final ItemType itemType;
         private final List<ItemData> types;
@@ -204,7 +204,7 @@ public final class Commands {
             if (!SkriptConfig.throwOnCommandOnlyForPluginCommands.value()) {
                 try {
                     // We cancelled the current event, execute this one instead.
-                    SkriptEventHandler.last = null;
+                    SkriptEventHandler.resetLastEvent();
                     SkriptEventHandler.ee.execute(null, new PlayerCommandPreprocessEvent(e.getPlayer(), e.getMessage()));
                 } catch (final EventException ex) {
                     exception(ex, "Error when handling player command \"" + e.getMessage() + '"');
@@ -237,7 +237,7 @@ public final class Commands {
         if (!SkriptConfig.throwOnCommandOnlyForPluginCommands.value()) {
             try {
                 // We cancelled the current event, execute this one instead.
-                SkriptEventHandler.last = null;
+                SkriptEventHandler.resetLastEvent();
                 SkriptEventHandler.ee.execute(null, new ServerCommandEvent(e.getSender(), command));
             } catch (final EventException ex) {
                 exception(ex, "Error when handling player command \"" + command + '"');
@@ -31,6 +31,7 @@ import ch.njol.skript.lang.Condition;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.util.Kleenean;
+import ch.njol.util.Randoms;
 import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
 
@@ -63,7 +64,7 @@ public final class CondChance extends Condition {
         final Number n = chance.getSingle(e);
         if (n == null)
             return false;
-        return Math.random() < (percent ? n.doubleValue() / 100 : n.doubleValue());
+        return Randoms.chance(percent ? n.doubleValue() / 100 : n.doubleValue());
     }
 
     @Override
@@ -0,0 +1,98 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.effects;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.doc.Description;
+import ch.njol.skript.doc.Examples;
+import ch.njol.skript.doc.Name;
+import ch.njol.skript.doc.Since;
+import ch.njol.skript.lang.Effect;
+import ch.njol.skript.lang.Expression;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.Variable;
+import ch.njol.skript.util.Timespan;
+import ch.njol.skript.variables.Variables;
+import ch.njol.util.Kleenean;
+import org.bukkit.event.Event;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.util.Locale;
+
+@Name("Expire Variable")
+@Description({"Makes a global variable delete itself after the given time, e.g. for temporary bans, cooldowns or cached values, instead of checking timestamps in a periodical event.",
+        "The expiry is saved with the variables, so the variable is also deleted if the server was offline at that time. Changing the variable doesn't change when it expires, expiring it again does.",
+        "List variables expire as a whole."})
+@Examples({"set {cooldown::%player's uuid%} to true", "expire {cooldown::%player's uuid%} in 10 minutes",
+        "", "cancel the expiry of {bans::%player's uuid%::*}"})
+@Since("2.2.18")
+public final class EffExpire extends Effect {
+    static {
+        Skript.registerEffect(EffExpire.class, "(make|let) %objects% expire (in|after) %timespan%", "expire %objects% (in|after) %timespan%", "(cancel|stop) [the] expir(y|ation) of %objects%");
+    }
+
+    @SuppressWarnings("null")
+    private Variable<?> variable;
+    @Nullable
+    private Expression<Timespan> time;
+
+    @SuppressWarnings({"unchecked", "null"})
+    @Override
+    public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+        if (!(exprs[0] instanceof Variable)) {
+            Skript.error("Only variables can expire, but " + exprs[0] + " is not a variable");
+            return false;
+        }
+        variable = (Variable<?>) exprs[0];
+        if (variable.isLocal()) {
+            Skript.error("Local variables can't expire, only global variables can");
+            return false;
+        }
+        if (matchedPattern < 2)
+            time = (Expression<Timespan>) exprs[1];
+        return true;
+    }
+
+    @Override
+    protected void execute(final Event e) {
+        final String name = variable.name.toString(e).toLowerCase(Locale.ENGLISH);
+        final Expression<Timespan> time = this.time;
+        if (time == null) {
+            Variables.getVariableExpiry().cancel(name);
+            return;
+        }
+        final Timespan t = time.getSingle(e);
+        if (t == null)
+            return;
+        Variables.getVariableExpiry().set(name, System.currentTimeMillis() + t.getMilliSeconds());
+    }
+
+    @Override
+    public String toString(@Nullable final Event e, final boolean debug) {
+        final Expression<Timespan> time = this.time;
+        if (time == null)
+            return "cancel the expiry of " + variable.toString(e, debug);
+        return "expire " + variable.toString(e, debug) + " in " + time.toString(e, debug);
+    }
+
+}
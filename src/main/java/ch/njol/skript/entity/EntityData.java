@@ -72,6 +72,10 @@ public abstract class EntityData<E extends Entity> implements SyntaxElement, Ygg
 
     // must be here to be initialized before 'new SimpleLiteral' is called in the register block below
     private static final List<EntityDataInfo<?>> infos = new ArrayList<>(100);
+    /**
+     * The infos whose entity class is a supertype of a class, most specific first. Replaced when an info is registered.
+     */
+    private static volatile ClassValue<EntityDataInfo<?>[]> candidates = newCandidates();
 
     public static final Serializer<EntityData> serializer = new Serializer<EntityData>() {
         @Override
@@ -100,7 +104,7 @@ public abstract class EntityData<E extends Entity> implements SyntaxElement, Ygg
             if (info == null)
                 throw new StreamCorruptedException("Invalid EntityData code name " + codeName);
             try {
-                final EntityData<?> d = Skript.newInstance(info.c);
+                final EntityData<?> d = info.newInstance();
                 d.deserialize(fields);
                 return d;
             } catch (final InvocationTargetException | NoSuchMethodException | InstantiationException | IllegalAccessException e) {
@@ -123,7 +127,7 @@ public abstract class EntityData<E extends Entity> implements SyntaxElement, Ygg
                 return null;
             final EntityData<?> d;
             try {
-                d = Skript.newInstance(i.c);
+                d = i.newInstance();
             } catch (final InvocationTargetException | NoSuchMethodException | InstantiationException | IllegalAccessException e) {
                 Skript.exception(e, "Can't create an instance of " + i.c.getCanonicalName());
                 return null;
@@ -186,13 +190,31 @@ public abstract class EntityData<E extends Entity> implements SyntaxElement, Ygg
 
     public static final <E extends Entity, T extends EntityData<E>> void register(final Class<T> dataClass, final String name, final Class<E> entityClass, final int defaultName, final String... codeNames) throws IllegalArgumentException {
         final EntityDataInfo<T> info = new EntityDataInfo<>(dataClass, name, codeNames, defaultName, entityClass);
+        boolean added = false;
         for (int i = 0; i < infos.size(); i++) {
             if (infos.get(i).entityClass.isAssignableFrom(entityClass)) {
                 infos.add(i, info);
-                return;
+                added = true;
+                break;
             }
         }
-        infos.add(info);
+        if (!added)
+            infos.add(info);
+        candidates = newCandidates();
+    }
+
+    private static final ClassValue<EntityDataInfo<?>[]> newCandidates() {
+        return new ClassValue<EntityDataInfo<?>[]>() {
+            @Override
+            protected EntityDataInfo<?>[] computeValue(final Class<?> type) {
+                final List<EntityDataInfo<?>> r = new ArrayList<>();
+                for (final EntityDataInfo<?> info : infos) {
+                    if (info.entityClass != Entity.class && info.entityClass.isAssignableFrom(type))
+                        r.add(info);
+                }
+                return r.toArray(new EntityDataInfo<?>[0]);
+            }
+        };
     }
 
     public static final EntityDataInfo<?> getInfo(final Class<? extends EntityData<?>> c) {
@@ -281,15 +303,13 @@ public abstract class EntityData<E extends Entity> implements SyntaxElement, Ygg
     private static final <E extends Entity> EntityData<? super E> getData(@Nullable final Class<E> c, @Nullable final E e) {
         assert c == null ^ e == null;
         assert c == null || c.isInterface();
-        for (final EntityDataInfo<?> info : infos) {
-            if (info.entityClass != Entity.class && (e == null ? info.entityClass.isAssignableFrom(c) : info.entityClass.isInstance(e))) {
-                try {
-                    @SuppressWarnings("unchecked") final EntityData<E> d = (EntityData<E>) Skript.newInstance(info.c);
-                    if (d.init(c, e))
-                        return d;
-                } catch (final InvocationTargetException | NoSuchMethodException | InstantiationException | IllegalAccessException ex) {
-                    throw Skript.exception(ex);
-                }
+        for (final EntityDataInfo<?> info : candidates.get(e == null ? c : e.getClass())) {
+            try {
+                @SuppressWarnings("unchecked") final EntityData<E> d = (EntityData<E>) info.newInstance();
+                if (d.init(c, e))
+                    return d;
+            } catch (final InvocationTargetException | NoSuchMethodException | InstantiationException | IllegalAccessException ex) {
+                throw Skript.exception(ex);
             }
         }
         if (e != null) {
@@ -108,6 +108,21 @@ public final class SimpleEntityData extends EntityData<Entity> {
         EntityData.register(SimpleEntityData.class, "simple", Entity.class, 0, codeNames);
     }
 
+    /**
+     * The position of the first info in {@link #types} whose class is a supertype of a class, or -1 if there is none.
+     * The types are only added when this class is initialized, so this never changes.
+     */
+    private static final ClassValue<Integer> firstType = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(final Class<?> type) {
+            for (int i = 0; i < types.size(); i++) {
+                if (types.get(i).c.isAssignableFrom(type))
+                    return i;
+            }
+            return -1;
+        }
+    };
+
     @SuppressWarnings("hiding")
     private transient SimpleEntityDataInfo info;
 
@@ -123,29 +138,19 @@ public final class SimpleEntityData extends EntityData<Entity> {
 
     public SimpleEntityData(final Class<? extends Entity> c) {
         assert c != null && c.isInterface() : c;
-        int i = 0;
-        for (final SimpleEntityDataInfo info : types) {
-            if (info.c.isAssignableFrom(c)) {
-                this.info = info;
-                matchedPattern = i;
-                return;
-            }
-            i++;
-        }
-        throw new IllegalStateException();
+        final int i = firstType.get(c);
+        if (i == -1)
+            throw new IllegalStateException();
+        info = types.get(i);
+        matchedPattern = i;
     }
 
     public SimpleEntityData(final Entity e) {
-        int i = 0;
-        for (final SimpleEntityDataInfo info : types) {
-            if (info.c.isInstance(e)) {
-                this.info = info;
-                matchedPattern = i;
-                return;
-            }
-            i++;
-        }
-        throw new IllegalStateException();
+        final int i = firstType.get(e.getClass());
+        if (i == -1)
+            throw new IllegalStateException();
+        info = types.get(i);
+        matchedPattern = i;
     }
 
     @SuppressWarnings("null")
@@ -171,12 +176,9 @@ public final class SimpleEntityData extends EntityData<Entity> {
     public boolean match(final Entity e) {
         if (info.isSupertype)
             return info.c.isInstance(e);
-        for (final SimpleEntityDataInfo info : types) {
-            if (info.c.isInstance(e))
-                return this.info.c == info.c;
-        }
-        assert false;
-        return false;
+        final int i = firstType.get(e.getClass());
+        assert i != -1;
+        return i != -1 && info.c == types.get(i).c;
     }
 
     @Override
@@ -109,6 +109,30 @@ public final class EvtBlock extends SkriptEvent {
         return types.check(e, t -> t != null && t.isOfType(id, durability));
     }
 
+    @Override
+    @Nullable
+    public Object[] getFilterKeys() {
+        final Literal<ItemType> types = this.types;
+        return types == null ? null : getTypeIdKeys(types.getAll());
+    }
+
+    @SuppressWarnings("null")
+    @Override
+    @Nullable
+    public Object getFilterKey(final Event e) {
+        if (e instanceof BlockFormEvent)
+            return ((BlockFormEvent) e).getNewState().getTypeId();
+        if (e instanceof BlockEvent)
+            return ((BlockEvent) e).getBlock().getTypeId();
+        if (e instanceof PlayerBucketFillEvent)
+            return ((PlayerBucketEvent) e).getBlockClicked().getRelative(((PlayerBucketEvent) e).getBlockFace()).getTypeId();
+        if (e instanceof PlayerBucketEmptyEvent)
+            return (((PlayerBucketEmptyEvent) e).getBucket() == Material.WATER_BUCKET ? Material.STATIONARY_WATER : Material.STATIONARY_LAVA).getId();
+        if (e instanceof PaintingEvent && !(Skript.isRunningMinecraft(1, 4, 3) && e instanceof HangingEvent))
+            return Material.PAINTING.getId();
+        return null; // Hanging entities are compared to the item types
+    }
+
     @Override
     public String toString(@Nullable final Event e, final boolean debug) {
         return "break/place/burn/fade/form of " + Classes.toString(types);
@@ -134,6 +134,29 @@ public final class EvtClick extends SkriptEvent {
         return true;
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    @Nullable
+    public Object[] getFilterKeys() {
+        final Literal<?> types = this.types;
+        if (types == null)
+            return null;
+        if (ItemType.class.isAssignableFrom(types.getReturnType()))
+            return getTypeIdKeys(((Literal<ItemType>) types).getAll());
+        if (EntityData.class.isAssignableFrom(types.getReturnType()))
+            return new Object[0]; // Never applies to a click on a block
+        return null;
+    }
+
+    @Override
+    @Nullable
+    public Object getFilterKey(final Event e) {
+        if (!(e instanceof PlayerInteractEvent))
+            return null; // Entities are compared to item types too, so clicks on entities are not filtered
+        final Block block = ((PlayerInteractEvent) e).getClickedBlock();
+        return block == null ? 0 : block.getTypeId();
+    }
+
     @Override
     public String toString(@Nullable final Event e, final boolean debug) {
         return (click == LEFT ? "left" : click == RIGHT ? "right" : "") + "click" + (types != null ? " on " + types.toString(e, debug) : "") + (tools != null ? " holding " + tools.toString(e, debug) : "");
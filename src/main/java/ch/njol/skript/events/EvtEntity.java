@@ -93,4 +93,18 @@ public final class EvtEntity extends SkriptEvent {
         return "death/spawn" + (types != null ? " of " + Classes.toString(types, false) : "");
     }
 
+    @Override
+    @Nullable
+    public Object[] getFilterKeys() {
+        final EntityData<?>[] types = this.types;
+        return types == null ? null : getEntityTypeKeys(types);
+    }
+
+    @SuppressWarnings("null")
+    @Override
+    @Nullable
+    public Object getFilterKey(final Event e) {
+        return getEntityTypeKey(e instanceof EntityDeathEvent ? ((EntityDeathEvent) e).getEntity() : ((CreatureSpawnEvent) e).getEntity());
+    }
+
 }
@@ -97,6 +97,36 @@ public final class EvtItem extends SkriptEvent {
         return types.check(e, t -> t.isOfType(is));
     }
 
+    @Override
+    @Nullable
+    public Object[] getFilterKeys() {
+        final Literal<ItemType> types = this.types;
+        return types == null ? null : getTypeIdKeys(types.getAll());
+    }
+
+    @SuppressWarnings("null")
+    @Override
+    @Nullable
+    public Object getFilterKey(final Event e) {
+        final ItemStack is;
+        if (e instanceof BlockDispenseEvent) {
+            is = ((BlockDispenseEvent) e).getItem();
+        } else if (e instanceof ItemSpawnEvent) {
+            is = ((ItemSpawnEvent) e).getEntity().getItemStack();
+        } else if (e instanceof PlayerDropItemEvent) {
+            is = ((PlayerDropItemEvent) e).getItemDrop().getItemStack();
+        } else if (e instanceof CraftItemEvent) {
+            is = ((CraftItemEvent) e).getRecipe().getResult();
+        } else if (e instanceof PlayerPickupItemEvent) {
+            is = ((PlayerPickupItemEvent) e).getItem().getItemStack();
+        } else if (hasConsumeEvent && e instanceof PlayerItemConsumeEvent) {
+            is = ((PlayerItemConsumeEvent) e).getItem();
+        } else {
+            return null;
+        }
+        return is == null ? 0 : is.getTypeId();
+    }
+
     @Override
     public String toString(@Nullable final Event e, final boolean debug) {
         return "dispense/spawn/drop/craft/pickup/consume/break" + (types == null ? "" : " of " + types);
@@ -20,6 +20,7 @@
  *
  */
 
+
 package ch.njol.skript.events;
 
 import ch.njol.skript.Skript;
@@ -31,22 +32,23 @@ import ch.njol.skript.lang.Literal;
 import ch.njol.skript.lang.SelfRegisteringSkriptEvent;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.skript.lang.Trigger;
+import ch.njol.skript.log.Tracing;
 import ch.njol.skript.registrations.Classes;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
 import org.bukkit.event.Event;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.plugin.EventExecutor;
 import org.eclipse.jdt.annotation.Nullable;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map.Entry;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * @author Peter Güttinger
@@ -54,94 +56,176 @@ import java.util.Map.Entry;
 @SuppressWarnings("deprecation")
 public final class EvtMoveOn extends SelfRegisteringSkriptEvent { // TODO on jump
 
-    //	private static final HashMap<BlockLocation, List<Trigger>> blockTriggers = new HashMap<BlockLocation, List<Trigger>>();
-    private static final HashMap<Integer, List<Trigger>> itemTypeTriggers = new HashMap<>();
-
-    //	private static final class BlockLocation {
-//		final World world;
-//		final int x, y, z;
-//
-//		BlockLocation(final World world, final int x, final int y, final int z) {
-//			this.world = world;
-//			this.x = x;
-//			this.y = y;
-//			this.z = z;
-//		}
-//
-//		@Override
-//		public boolean equals(final Object obj) {
-//			if (obj == this)
-//				return true;
-//			if (!(obj instanceof BlockLocation))
-//				return false;
-//			final BlockLocation other = (BlockLocation) obj;
-//			return world == other.world && x == other.x && y == other.y && z == other.z;
-//		}
-//
-//		@Override
-//		public int hashCode() {
-//			return world.hashCode() + 29 * (x + 17 * (y + 31 * z));
-//		}
-//	}
+    private static final Matcher BLOCK_LOCATION_PATTERN_MATCHER = Pattern.compile("(.+):(-?\\d+),(-?\\d+),(-?\\d+)").matcher("");
+
+    private static final HashMap<BlockLocation, List<Trigger>> blockTriggers = new HashMap<>();
+    /**
+     * Triggers keyed by the {@link #pack(int, int) packed} id and data value of the blocks they are called for
+     */
+    static final HashMap<Integer, List<Trigger>> itemTypeTriggers = new HashMap<>();
+    /**
+     * Whatever there are item type triggers for a block id, to not read the data value of other blocks
+     */
+    private static final boolean[] itemTypeTriggerIds = new boolean[Skript.MAXBLOCKID + 1];
+    /**
+     * The block each player was on after the last move, so it does not have to be looked up again on the next move
+     */
+    private static final Map<Player, OnBlock> onBlocks = new WeakHashMap<>();
+
+    static final class BlockLocation {
+        final World world;
+        final int x, y, z;
+
+        BlockLocation(final World world, final int x, final int y, final int z) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        @Override
+        public boolean equals(@Nullable final Object obj) {
+            if (obj == this)
+                return true;
+            if (!(obj instanceof BlockLocation))
+                return false;
+            final BlockLocation other = (BlockLocation) obj;
+            return world.equals(other.world) && x == other.x && y == other.y && z == other.z;
+        }
+
+        @Override
+        public int hashCode() {
+            return world.hashCode() + 29 * (x + 17 * (y + 31 * z));
+        }
+
+        @Override
+        public String toString() {
+            return world.getName() + ':' + x + ',' + y + ',' + z;
+        }
+    }
+
+    /**
+     * The block a player is on and its id
+     */
+    static final class OnBlock {
+        final BlockLocation block;
+        final int id;
+
+        OnBlock(final BlockLocation block, final int id) {
+            this.block = block;
+            this.id = id;
+        }
+
+        /**
+         * @return Whatever a player at the given location is on this block, if the block did not change since
+         */
+        final boolean isAt(final Location l) {
+            return block.x == l.getBlockX() && block.z == l.getBlockZ() && block.y == getBlockY(l.getY(), id) && block.world.equals(l.getWorld());
+        }
+
+        final boolean is(final World world, final int x, final int y, final int z, final int id) {
+            return this.id == id && block.x == x && block.y == y && block.z == z && block.world.equals(world);
+        }
+    }
+
     private static long lastCall;
-    private static final EventExecutor executor = (@Nullable final Listener l, @Nullable final Event event) -> {
+    static final EventExecutor executor = (@Nullable final Listener l, @Nullable final Event event) -> {
         if (event == null)
             return;
         final PlayerMoveEvent e = (PlayerMoveEvent) event;
-        final Location from = e.getFrom(), to = e.getTo();
         if (System.currentTimeMillis() - lastCall < SkriptEventHandler.moveEventCooldown)
             return; // Prevent too many move events firing
         lastCall = System.currentTimeMillis();
-//			if (!blockTriggers.isEmpty()) {
-//				final List<Trigger> ts = blockTriggers.get(new BlockLocation(to.getWorld(), to.getBlockX(), to.getBlockY(), to.getBlockZ()));
-//				if (ts != null) {
-//					for (final Trigger t : ts) {
-//						SkriptEventHandler.logTriggerStart(t);
-//						t.start(e);
-//						SkriptEventHandler.logTriggerEnd(t);
-//					}
-//				}
-//			}
-        if (!itemTypeTriggers.isEmpty()) {
-            @SuppressWarnings("null") final int id = getOnBlock(to);
-            if (id == 0)
-                return;
-            final List<Trigger> ts = itemTypeTriggers.get(id);
-            if (ts == null)
-                return;
-            final int y = getBlockY(to.getY(), id);
-            if (to.getWorld().equals(from.getWorld()) && to.getBlockX() == from.getBlockX() && to.getBlockZ() == from.getBlockZ() && y == getBlockY(from.getY(), getOnBlock(from)) && getOnBlock(from) == id)
+        if (itemTypeTriggers.isEmpty() && blockTriggers.isEmpty())
+            return;
+        final Location from = e.getFrom(), to = e.getTo();
+        final Player p = e.getPlayer();
+        final World world = to.getWorld();
+        final int x = to.getBlockX(), z = to.getBlockZ();
+        @SuppressWarnings("null") final int id = getOnBlock(to);
+        final int y = getBlockY(to.getY(), id);
+
+        // The cached block can only be used if the player didn't move since, e.g. the last move was cancelled by another plugin
+        OnBlock previous = onBlocks.get(p);
+        if (previous != null && !previous.isAt(from))
+            previous = null;
+        if (previous == null) {
+            @SuppressWarnings("null") final int fromId = getOnBlock(from);
+            final int fromY = getBlockY(from.getY(), fromId);
+            if (fromId == id && fromY == y && from.getBlockX() == x && from.getBlockZ() == z && world.equals(from.getWorld())) {
+                onBlocks.put(p, new OnBlock(new BlockLocation(world, x, y, z), id));
                 return;
-            SkriptEventHandler.logEventStart(e);
-            final byte data = to.getWorld().getBlockAt(to.getBlockX(), y, to.getBlockZ()).getData();
-            triggersLoop:
-            for (final Trigger t : ts) {
-                final EvtMoveOn se = (EvtMoveOn) t.getEvent();
-                for (final ItemType i : se.types) {
-                    if (i.isOfType(id, data)) {
-                        SkriptEventHandler.logTriggerStart(t);
-                        t.execute(e);
-                        SkriptEventHandler.logTriggerEnd(t);
-                        continue triggersLoop;
-                    }
-                }
             }
+        } else if (previous.is(world, x, y, z, id)) {
+            return; // Still on the same block, e.g. only turned the head, and it wasn't replaced in the meantime
+        }
+
+        final OnBlock current = new OnBlock(new BlockLocation(world, x, y, z), id);
+        onBlocks.put(p, current);
+        if (id == 0)
+            return;
+
+        final List<Trigger> blockTs = blockTriggers.isEmpty() ? null : blockTriggers.get(current.block);
+        final boolean hasItemTypeTriggers = id <= Skript.MAXBLOCKID && itemTypeTriggerIds[id];
+        if (blockTs == null && !hasItemTypeTriggers)
+            return;
+
+        final List<Trigger> itemTypeTs;
+        if (hasItemTypeTriggers) {
+            final byte data = world.getBlockAt(x, y, z).getData();
+            itemTypeTs = itemTypeTriggers.get(pack(id, data));
+        } else {
+            itemTypeTs = null;
+        }
+        if (blockTs == null && itemTypeTs == null)
+            return;
+
+        final boolean logVeryHigh = Tracing.veryHigh();
+        if (logVeryHigh)
+            SkriptEventHandler.logEventStart(e);
+        if (blockTs != null)
+            execute(blockTs, e, logVeryHigh);
+        if (itemTypeTs != null)
+            execute(itemTypeTs, e, logVeryHigh);
+        if (logVeryHigh)
             SkriptEventHandler.logEventEnd();
+
+        if (e.isCancelled()) { // The player stays on the previous block
+            if (previous != null)
+                onBlocks.put(p, previous);
+            else
+                onBlocks.remove(p);
         }
     };
     private static boolean registeredExecutor;
-//	private World world;
-//	private int x, y, z;
 
     static {
-//		Skript.registerEvent(EvtMoveOn.class, PlayerMoveEvent.class, "(step|walk) on <.+>");
-        Skript.registerEvent("Move On", EvtMoveOn.class, PlayerMoveEvent.class, EvtMoveOn::new, "(step|walk)[ing] (on|over) %*itemtypes%").description("Called when a player moves onto a certain type of block. Please note that using this event can cause lag if there are many players online.").examples("on walking on dirt or grass", "on stepping on stone").since("2.0");
+        Skript.registerEvent("Move On", EvtMoveOn.class, PlayerMoveEvent.class, EvtMoveOn::new, "(step|walk)[ing] (on|over) %*itemtypes%", "(step|walk)[ing] (on|over) [the] block at <.+>").description("Called when a player moves onto a certain type of block, or onto the block at a certain location, given as <code>world:x,y,z</code>. Please note that using this event can cause lag if there are many players online.").examples("on walking on dirt or grass", "on stepping on stone", "on walking on block at world:100,64,-20").since("2.0");
     }
 
-    @SuppressWarnings("null")
+    @Nullable
     private ItemType[] types;
+    @Nullable
+    private BlockLocation location;
+
+    /**
+     * @return The id and data value of a block packed into one key, see {@link #itemTypeTriggers}.
+     */
+    static final int pack(final int id, final int data) {
+        return id << 4 | data & 0xF;
+    }
 
-    private static final int getOnBlock(final Location l) {
+    private static final void execute(final List<Trigger> ts, final PlayerMoveEvent e, final boolean logVeryHigh) {
+        for (final Trigger t : ts) {
+            if (logVeryHigh)
+                SkriptEventHandler.logTriggerStart(t);
+            t.execute(e);
+            if (logVeryHigh)
+                SkriptEventHandler.logTriggerEnd(t);
+        }
+    }
+
+    static final int getOnBlock(final Location l) {
         int id = l.getWorld().getBlockTypeIdAt(l.getBlockX(), (int) Math.ceil(l.getY()) - 1, l.getBlockZ());
         if (id == 0 && Math.abs(l.getY() - l.getBlockY() - 0.5) < Skript.EPSILON) { // fences
             id = l.getWorld().getBlockTypeIdAt(l.getBlockX(), l.getBlockY() - 1, l.getBlockZ());
@@ -151,7 +235,7 @@ public final class EvtMoveOn extends SelfRegisteringSkriptEvent { // TODO on jum
         return id;
     }
 
-    private static final int getBlockY(final double y, final int id) {
+    static final int getBlockY(final double y, final int id) {
         if ((id == Material.FENCE.getId() || id == 107 || id == 113) && Math.abs(y - Math.floor(y) - 0.5) < Skript.EPSILON) // fence gate // nether fence
             return (int) Math.floor(y) - 1;
         return (int) Math.ceil(y) - 1;
@@ -162,24 +246,52 @@ public final class EvtMoveOn extends SelfRegisteringSkriptEvent { // TODO on jum
         return e.getTo().subtract(0, 0.5, 0).getBlock();
     }
 
+    static final void updateItemTypeTriggerIds() {
+        Arrays.fill(itemTypeTriggerIds, false);
+        for (final Integer key : itemTypeTriggers.keySet())
+            itemTypeTriggerIds[key >>> 4] = true;
+    }
+
+    private static final void add(final List<Trigger> ts, final Trigger t) {
+        if (!ts.contains(t)) // A trigger may match the same block through multiple item types
+            ts.add(t);
+    }
+
+    private static final <K> void remove(final Map<K, List<Trigger>> triggers, final Trigger t) {
+        final Iterator<List<Trigger>> i = triggers.values().iterator();
+        while (i.hasNext()) {
+            final List<Trigger> ts = i.next();
+            ts.remove(t);
+            if (ts.isEmpty())
+                i.remove();
+        }
+    }
+
     @Override
     public final boolean init(final Literal<?>[] args, final int matchedPattern, final ParseResult parser) {
-//		if (parser.regexes.get(0).group().equalsIgnoreCase("<block>")/* && isValidatingInput*/)
-//			return true;
-//		final Matcher m = Pattern.compile("<block:(.+)>").matcher(parser.regexes.get(0).group());
-//		if (m.matches()) {
-//			final Block b = (Block) Skript.deserialize("block", m.group(1));
-//			if (b == null)
-//				return false;
-//			world = b.getWorld();
-//			x = b.getX();
-//			y = b.getY();
-//			z = b.getZ();
-//		} else {
-        @SuppressWarnings("unchecked") final Literal<ItemType> l = (Literal<ItemType>) args[0];//SkriptParser.parseLiteral(parser.regexes.get(0).group(), ItemType.class, ParseContext.EVENT);
+        if (matchedPattern == 1) {
+            final Matcher m = BLOCK_LOCATION_PATTERN_MATCHER.reset(parser.regexes.get(0).group().trim());
+            if (!m.matches()) {
+                Skript.error("The location of the block to walk on must be given as world:x,y,z, e.g. 'on walk on block at world:100,64,-20'");
+                return false;
+            }
+            final World world = Bukkit.getWorld(m.group(1));
+            if (world == null) {
+                Skript.error("The world '" + m.group(1) + "' does not exist");
+                return false;
+            }
+            try {
+                location = new BlockLocation(world, Integer.parseInt(m.group(2)), Integer.parseInt(m.group(3)), Integer.parseInt(m.group(4)));
+            } catch (final NumberFormatException e) {
+                Skript.error("The location of the block to walk on is too big");
+                return false;
+            }
+            return true;
+        }
+        @SuppressWarnings("unchecked") final Literal<ItemType> l = (Literal<ItemType>) args[0];
         if (l == null)
             return false;
-        types = l.getAll();
+        final ItemType[] types = l.getAll();
         for (final ItemType t : types) {
             boolean hasBlock = false;
             for (final ItemData d : t) {
@@ -195,34 +307,35 @@ public final class EvtMoveOn extends SelfRegisteringSkriptEvent { // TODO on jum
                 return false;
             }
         }
-//		}
+        this.types = types;
         return true;
     }
 
     @Override
     public final String toString(@Nullable final Event e, final boolean debug) {
-        return "walk on " + Classes.toString(types, false);
-//		return "walk on " + (types != null ? Skript.toString(types, false) : "<block:" + world.getName() + ":" + x + "," + y + "," + z + ">");
+        final ItemType[] types = this.types;
+        return "walk on " + (types != null ? Classes.toString(types, false) : "block at " + location);
     }
 
     @Override
     public final void register(final Trigger trigger) {
-//		if (types == null) {
-//			final BlockLocation l = new BlockLocation(world, x, y, z);
-//			List<Trigger> ts = blockTriggers.get(l);
-//			if (ts == null)
-//				blockTriggers.put(l, ts = new ArrayList<Trigger>());
-//			ts.add(trigger);
-//		} else {
-        for (final ItemType t : types) {
-            for (final ItemData d : t) {
-                if (d.getId() > Skript.MAXBLOCKID)
-                    continue;
-                final List<Trigger> ts = itemTypeTriggers.computeIfAbsent(d.getId(), k -> new ArrayList<>());
-                ts.add(trigger);
+        final ItemType[] types = this.types;
+        final BlockLocation location = this.location;
+        if (types == null) {
+            assert location != null;
+            add(blockTriggers.computeIfAbsent(location, k -> new ArrayList<>()), trigger);
+        } else {
+            for (final ItemType t : types) {
+                for (final ItemData d : t) {
+                    if (d.getId() > Skript.MAXBLOCKID)
+                        continue;
+                    final int min = d.dataMin == -1 ? 0 : Math.max(d.dataMin, 0), max = d.dataMax == -1 ? 15 : Math.min(d.dataMax, 15);
+                    for (int data = min; data <= max; data++)
+                        add(itemTypeTriggers.computeIfAbsent(pack(d.getId(), data), k -> new ArrayList<>()), trigger);
+                }
             }
+            updateItemTypeTriggerIds();
         }
-//		}
         if (!registeredExecutor) {
             Bukkit.getPluginManager().registerEvent(PlayerMoveEvent.class, new EmptyListener(), SkriptConfig.defaultEventPriority.value(), executor, Skript.getInstance(), true);
             registeredExecutor = true;
@@ -231,26 +344,16 @@ public final class EvtMoveOn extends SelfRegisteringSkriptEvent { // TODO on jum
 
     @Override
     public final void unregister(final Trigger t) {
-//		final Iterator<Entry<BlockLocation, List<Trigger>>> i = blockTriggers.entrySet().iterator();
-//		while (i.hasNext()) {
-//			final List<Trigger> ts = i.next().getValue();
-//			ts.remove(t);
-//			if (ts.isEmpty())
-//				i.remove();
-//		}
-        final Iterator<Entry<Integer, List<Trigger>>> i2 = itemTypeTriggers.entrySet().iterator();
-        while (i2.hasNext()) {
-            final List<Trigger> ts = i2.next().getValue();
-            ts.remove(t);
-            if (ts.isEmpty())
-                i2.remove();
-        }
+        remove(blockTriggers, t);
+        remove(itemTypeTriggers, t);
+        updateItemTypeTriggerIds();
     }
 
     @Override
     public final void unregisterAll() {
-//		blockTriggers.clear();
+        blockTriggers.clear();
         itemTypeTriggers.clear();
+        updateItemTypeTriggerIds();
     }
 
     private static final class EmptyListener implements Listener {
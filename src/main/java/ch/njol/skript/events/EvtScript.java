@@ -28,6 +28,7 @@ import ch.njol.skript.lang.Literal;
 import ch.njol.skript.lang.SelfRegisteringSkriptEvent;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.skript.lang.Trigger;
+import ch.njol.skript.variables.Variables;
 import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
 
@@ -52,8 +53,10 @@ public final class EvtScript extends SelfRegisteringSkriptEvent {
     @Override
     public void register(final Trigger t) {
         this.t = t;
-        if (load)
+        if (load) {
+            Variables.awaitLoad();
             t.execute(new ScriptEvent());
+        }
     }
 
     @Override
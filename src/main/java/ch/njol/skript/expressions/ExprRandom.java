@@ -34,6 +34,7 @@ import ch.njol.skript.lang.Literal;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.util.Kleenean;
+import ch.njol.util.Randoms;
 import ch.njol.util.coll.CollectionUtils;
 import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
@@ -44,21 +45,25 @@ import java.lang.reflect.Array;
  * @author Peter Güttinger
  */
 @Name("Random")
-@Description("Gets a random item out of a set, e.g. a random player out of all players online.")
-@Examples({"give a diamond to a random player out of all players", "give a random item out of all items to the player"})
+@Description({"Gets a random item out of a set, e.g. a random player out of all players online.", "Multiple random items can be chosen at once, which are always distinct items out of the set."})
+@Examples({"give a diamond to a random player out of all players", "give a random item out of all items to the player", "teleport 3 random players out of all players to {arena}"})
 @Since("1.4.9")
 public final class ExprRandom extends SimpleExpression<Object> {
     static {
-        Skript.registerExpression(ExprRandom.class, Object.class, ExpressionType.COMBINED, "[a] random %*classinfo% [out] of %objects%");
+        Skript.registerExpression(ExprRandom.class, Object.class, ExpressionType.COMBINED, "[a] random %*classinfo% [out] of %objects%", "%number% random %*classinfo% [out] of %objects%");
     }
 
     @SuppressWarnings("null")
     private Expression<?> expr;
+    @Nullable
+    private Expression<Number> amount;
 
     @SuppressWarnings("unchecked")
     @Override
     public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
-        final Expression<?> expr = exprs[1].getConvertedExpression(((Literal<ClassInfo<?>>) exprs[0]).getSingle().getC());
+        if (matchedPattern == 1)
+            amount = (Expression<Number>) exprs[0];
+        final Expression<?> expr = exprs[matchedPattern + 1].getConvertedExpression(((Literal<ClassInfo<?>>) exprs[matchedPattern]).getSingle().getC());
         if (expr == null)
             return false;
         this.expr = expr;
@@ -68,6 +73,11 @@ public final class ExprRandom extends SimpleExpression<Object> {
     @Override
     protected Object[] get(final Event e) {
         final Object[] set = expr.getAll(e);
+        final Expression<Number> amount = this.amount;
+        if (amount != null) {
+            final Number n = amount.getSingle(e);
+            return Randoms.sample(set, n == null ? 0 : n.intValue());
+        }
         if (set.length <= 1)
             return set;
         final Object[] one = (Object[]) Array.newInstance(set.getClass().getComponentType(), 1);
@@ -82,12 +92,15 @@ public final class ExprRandom extends SimpleExpression<Object> {
 
     @Override
     public String toString(@Nullable final Event e, final boolean debug) {
+        final Expression<Number> amount = this.amount;
+        if (amount != null)
+            return amount.toString(e, debug) + " random elements out of " + expr.toString(e, debug);
         return "a random element out of " + expr.toString(e, debug);
     }
 
     @Override
     public boolean isSingle() {
-        return true;
+        return amount == null;
     }
 
 }
@@ -33,6 +33,7 @@ import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.util.Kleenean;
 import ch.njol.util.Math2;
+import ch.njol.util.Randoms;
 import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
 
@@ -46,8 +47,6 @@ import java.util.Random;
 @Examples({"set the player's health to a random number between 5 and 10", "send \"You rolled a %random integer from 1 to 6%!\" to the player"})
 @Since("1.4")
 public final class ExprRandomNumber extends SimpleExpression<Number> {
-    private static final Random rand = new Random();
-
     static {
         Skript.registerExpression(ExprRandomNumber.class, Number.class, ExpressionType.COMBINED, "[a] random (1¦integer|2¦number) (from|between) %number% (to|and) %number%");
     }
@@ -74,6 +73,7 @@ public final class ExprRandomNumber extends SimpleExpression<Number> {
             return null;
         final double ll = Math.min(l.doubleValue(), u.doubleValue());
         final double uu = Math.max(l.doubleValue(), u.doubleValue());
+        final Random rand = Randoms.current();
         if (integer) {
             return new Long[]{Math2.ceil(ll) + Math2.mod(rand.nextLong(), Math2.floor(uu) - Math2.ceil(ll) + 1)};
         }
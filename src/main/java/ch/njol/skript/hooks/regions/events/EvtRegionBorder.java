@@ -24,6 +24,7 @@ package ch.njol.skript.hooks.regions.events;
 
 import ch.njol.skript.Skript;
 import ch.njol.skript.SkriptConfig;
+import ch.njol.skript.TriggerIndex;
 import ch.njol.skript.doc.RequiredPlugins;
 import ch.njol.skript.hooks.regions.RegionsPlugin;
 import ch.njol.skript.hooks.regions.classes.Region;
@@ -45,17 +46,23 @@ import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.plugin.EventExecutor;
 import org.eclipse.jdt.annotation.Nullable;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Objects;
-import java.util.Set;
+import java.util.*;
 
 /**
  * @author Peter Güttinger
  */
 @RequiredPlugins("A region plugin")
 public final class EvtRegionBorder extends SelfRegisteringSkriptEvent {
-    private static final Collection<Trigger> triggers = new ArrayList<>();
+    private static final List<Trigger> triggers = new ArrayList<>();
+    /**
+     * The {@link #triggers} indexed by region, replaced when a trigger is registered or unregistered
+     */
+    private static volatile TriggerIndex index = TriggerIndex.EMPTY;
+    /**
+     * The block each player was last seen in and the regions at that block, so that regions are only
+     * looked up again when a player moves to another block.
+     */
+    private static final Map<Player, PlayerRegions> playerRegions = new WeakHashMap<>();
     // even WorldGuard doesn't have events, and this way all region plugins are supported for sure.
     private static final EventExecutor ee = new EventExecutor() {
         @Nullable
@@ -69,9 +76,15 @@ public final class EvtRegionBorder extends SelfRegisteringSkriptEvent {
             last = event;
             final PlayerMoveEvent e = (PlayerMoveEvent) event;
             final Location to = e.getTo(), from = e.getFrom();
-            if (Objects.equals(to, from))
+            if (to == null || isSameBlock(to, from)) // Regions are made of blocks, turning the head or moving within a block doesn't change them
+                return;
+            final Player p = e.getPlayer();
+            final PlayerRegions cached = playerRegions.get(p);
+            // The cache is only valid if the player didn't move since, e.g. the last move was cancelled by another plugin
+            final Set<? extends Region> oldRs = cached != null && isSameBlock(cached.location, from) ? cached.regions : RegionsPlugin.getRegionsAt(from), newRs = RegionsPlugin.getRegionsAt(to);
+            playerRegions.put(p, new PlayerRegions(to, newRs));
+            if (index.isEmpty() || oldRs.equals(newRs))
                 return;
-            final Set<? extends Region> oldRs = RegionsPlugin.getRegionsAt(from), newRs = RegionsPlugin.getRegionsAt(to);
             for (final Region r : oldRs) {
                 if (!newRs.contains(r))
                     callEvent(r, e, false);
@@ -80,6 +93,8 @@ public final class EvtRegionBorder extends SelfRegisteringSkriptEvent {
                 if (!oldRs.contains(r))
                     callEvent(r, e, true);
             }
+            if (e.isCancelled()) // The player stays where they were
+                playerRegions.put(p, new PlayerRegions(from, oldRs));
         }
     };
     private static boolean registered;
@@ -109,13 +124,24 @@ public final class EvtRegionBorder extends SelfRegisteringSkriptEvent {
         assert p != null;
         final RegionBorderEvent e = new RegionBorderEvent(!Bukkit.isPrimaryThread(), r, p, enter);
         e.setCancelled(me.isCancelled());
-        for (final Trigger t : triggers) {
+        final TriggerIndex index = EvtRegionBorder.index;
+        final Trigger[] ts = index.getTriggers();
+        for (final int i : index.getCandidates(e)) {
+            final Trigger t = ts[i];
             if (((EvtRegionBorder) t.getEvent()).applies(e))
                 t.execute(e);
         }
         me.setCancelled(e.isCancelled());
     }
 
+    static final boolean isSameBlock(final Location l1, final Location l2) {
+        return l1.getBlockX() == l2.getBlockX() && l1.getBlockY() == l2.getBlockY() && l1.getBlockZ() == l2.getBlockZ() && Objects.equals(l1.getWorld(), l2.getWorld());
+    }
+
+    private static final void updateIndex() {
+        index = new TriggerIndex(triggers);
+    }
+
     private static final void register() {
         if (registered)
             return;
@@ -148,17 +174,42 @@ public final class EvtRegionBorder extends SelfRegisteringSkriptEvent {
     @Override
     public void register(final Trigger t) {
         triggers.add(t);
+        updateIndex();
         register();
     }
 
     @Override
     public void unregister(final Trigger t) {
         triggers.remove(t);
+        updateIndex();
     }
 
     @Override
     public void unregisterAll() {
         triggers.clear();
+        updateIndex();
+    }
+
+    @Override
+    @Nullable
+    public Object[] getFilterKeys() {
+        final Literal<Region> r = regions;
+        return r == null ? null : r.getAll();
+    }
+
+    @Override
+    public Object getFilterKey(final Event e) {
+        return ((RegionBorderEvent) e).getRegion();
+    }
+
+    private static final class PlayerRegions {
+        final Location location;
+        final Set<? extends Region> regions;
+
+        PlayerRegions(final Location location, final Set<? extends Region> regions) {
+            this.location = location;
+            this.regions = regions;
+        }
     }
 
     private final boolean applies(final Event e) {
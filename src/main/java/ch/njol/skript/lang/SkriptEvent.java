@@ -22,9 +22,18 @@
 
 package ch.njol.skript.lang;
 
+import ch.njol.skript.aliases.ItemData;
+import ch.njol.skript.aliases.ItemType;
+import ch.njol.skript.entity.EntityData;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.util.Kleenean;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
 import org.bukkit.event.Event;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * A SkriptEvent is like a condition. It is called when any of the registered events occurs.
@@ -60,6 +69,81 @@ public abstract class SkriptEvent implements SyntaxElement, Debuggable {
      */
     public abstract boolean check(final Event e);
 
+    /**
+     * Returns the filter keys of this event, used to only {@link #check(Event) check} triggers whose filter can match a fired event:
+     * {@link #check(Event)} must return false for every event whose {@link #getFilterKey(Event) filter key} is not one of these keys.
+     * <p>
+     * An empty array means that this event does not apply to any event with a filter key.
+     *
+     * @return The filter keys of this event, or null if this event can apply to any event (the default).
+     */
+    @Nullable
+    public Object[] getFilterKeys() {
+        return null;
+    }
+
+    /**
+     * Returns the filter key of the given event, e.g. the material of the broken block. This must only depend on the given event,
+     * not on the state of this SkriptEvent, as it is only called once per event for all triggers of the same SkriptEvent class.
+     *
+     * @param e The fired event
+     * @return The filter key of the event, or null if the event can't be filtered by key (the default).
+     * @see #getFilterKeys()
+     */
+    @Nullable
+    public Object getFilterKey(final Event e) {
+        return null;
+    }
+
+    /**
+     * @param types The item types of an event filter
+     * @return The type ids of the given item types as filter keys, or null if any of them matches all types.
+     */
+    @Nullable
+    protected static final Object[] getTypeIdKeys(final ItemType[] types) {
+        final Set<Integer> keys = new LinkedHashSet<>();
+        for (final ItemType t : types) {
+            for (final ItemData d : t.getTypes()) {
+                if (d.getId() == -1)
+                    return null;
+                keys.add(d.getId());
+            }
+        }
+        return keys.toArray();
+    }
+
+    /**
+     * @param types The entity datas of an event filter
+     * @return The {@link EntityType}s that can be an instance of any of the given entity datas as filter keys.
+     * @see #getEntityTypeKey(Entity)
+     */
+    protected static final Object[] getEntityTypeKeys(final EntityData<?>[] types) {
+        final Set<EntityType> keys = new LinkedHashSet<>();
+        for (final EntityType et : EntityType.values()) {
+            final Class<? extends Entity> c = et.getEntityClass();
+            if (c == null)
+                continue;
+            for (final EntityData<?> d : types) {
+                if (d.getType().isAssignableFrom(c)) {
+                    keys.add(et);
+                    break;
+                }
+            }
+        }
+        return keys.toArray();
+    }
+
+    /**
+     * @param entity An entity of a fired event
+     * @return The type of the entity as filter key, or null if the type is unknown (e.g. entities of mods).
+     * @see #getEntityTypeKeys(EntityData[])
+     */
+    @Nullable
+    protected static final Object getEntityTypeKey(final Entity entity) {
+        final EntityType et = entity.getType();
+        return et == null || et == EntityType.UNKNOWN || et.getEntityClass() == null ? null : et;
+    }
+
     @Override
     public final String toString() {
         return toString(null, false);
@@ -22,6 +22,7 @@
 
 package ch.njol.skript.lang;
 
+import ch.njol.skript.ScriptCache;
 import ch.njol.skript.ScriptLoader;
 import ch.njol.skript.Skript;
 import ch.njol.skript.SkriptAPIException;
@@ -48,6 +49,7 @@ import ch.njol.util.Kleenean;
 import ch.njol.util.NonNullPair;
 import ch.njol.util.StringUtils;
 import ch.njol.util.coll.CollectionUtils;
+import com.google.common.collect.Iterators;
 import com.google.common.primitives.Booleans;
 import org.bukkit.inventory.ItemStack;
 import org.eclipse.jdt.annotation.Nullable;
@@ -856,7 +858,7 @@ public final class SkriptParser {
                                 return r;
                             }
                         }
-                        log.printError(e.toString(null, false) + ' ' + Language.get("is") + ' ' + notOfType(types), ErrorQuality.NOT_AN_EXPRESSION);
+                        log.printError(() -> e.toString(null, false) + ' ' + Language.get("is") + ' ' + notOfType(types), ErrorQuality.NOT_AN_EXPRESSION);
                         return null;
                     }
                     log.clear();
@@ -1071,7 +1073,7 @@ public final class SkriptParser {
                         }
 
                         // Print errors, if we couldn't get the correct type
-                        log.printError(e.toString(null, false) + ' ' + Language.get("is") + ' ' + notOfType(types), ErrorQuality.NOT_AN_EXPRESSION);
+                        log.printError(() -> e.toString(null, false) + ' ' + Language.get("is") + ' ' + notOfType(types), ErrorQuality.NOT_AN_EXPRESSION);
                         return null;
                     }
                     log.clear();
@@ -1145,7 +1147,8 @@ public final class SkriptParser {
                     }
                     if (i != parser.expr.length()) {
                         assert i == -1 && parser.context != ParseContext.COMMAND : i + "; " + parser.expr;
-                        log.printError("Invalid brackets/variables/text in '" + parser.expr + '\'', ErrorQuality.NOT_AN_EXPRESSION);
+                        final String expr = parser.expr;
+                        log.printError(() -> "Invalid brackets/variables/text in '" + expr + '\'', ErrorQuality.NOT_AN_EXPRESSION);
                         return null;
                     }
                 }
@@ -1321,7 +1324,8 @@ public final class SkriptParser {
                     }
                     if (i != parser.expr.length()) {
                         assert i == -1 && parser.context != ParseContext.COMMAND : i + "; " + parser.expr;
-                        log.printError("Invalid brackets/variables/text in '" + parser.expr + '\'', ErrorQuality.NOT_AN_EXPRESSION);
+                        final String expr = parser.expr;
+                        log.printError(() -> "Invalid brackets/variables/text in '" + expr + '\'', ErrorQuality.NOT_AN_EXPRESSION);
                         return null;
                     }
                 }
@@ -1715,81 +1719,134 @@ public final class SkriptParser {
     }
 
     @Nullable
-    private final <T extends SyntaxElement> T parse(final Iterator<? extends SyntaxElementInfo<? extends T>> source) {
+    private final <T extends SyntaxElement> T parse(Iterator<? extends SyntaxElementInfo<? extends T>> source) {
         final ParseLogHandler log = SkriptLogger.startParseLogHandler();
         try {
+            final String hintKey = ScriptCache.isActive() ? ScriptCache.key("element", context, flags, expr) : null;
+            if (hintKey != null) {
+                final ScriptCache.Hint hint = ScriptCache.getHint(hintKey);
+                if (hint != null) {
+                    // Skip to the element that matched this string the last time this script was loaded
+                    final List<SyntaxElementInfo<? extends T>> skipped = new ArrayList<>(hint.ordinal + 1);
+                    int prefixHash = 0;
+                    while (skipped.size() < hint.ordinal && source.hasNext()) {
+                        final SyntaxElementInfo<? extends T> info = source.next();
+                        prefixHash = ScriptCache.prefixHash(prefixHash, info);
+                        skipped.add(info);
+                    }
+                    if (skipped.size() == hint.ordinal && source.hasNext()) {
+                        final SyntaxElementInfo<? extends T> info = source.next();
+                        skipped.add(info);
+                        if (hint.matches(info, skipped.size() - 1, prefixHash)) {
+                            log.clear();
+                            final T t = parse(info, hint.pattern);
+                            if (t != null) {
+                                ScriptCache.hit();
+                                ScriptCache.record(hintKey, info, hint.pattern, hint.ordinal, hint.prefixHash);
+                                log.printLog();
+                                return t;
+                            }
+                        }
+                    }
+                    // Outdated hint, fall back to a full parse
+                    ScriptCache.miss();
+                    source = Iterators.concat(skipped.iterator(), source);
+                }
+            }
+            int ordinal = 0;
+            int prefixHash = 0;
             while (source.hasNext()) {
                 final SyntaxElementInfo<? extends T> info = source.next();
-                patternsLoop:
                 for (int i = 0; i < info.patterns.length; ++i) {
                     log.clear();
-                    try {
-                        final String pattern = info.patterns[i];
-                        assert pattern != null;
-                        final ParseResult res = parse_i(pattern, 0, 0);
-                        if (res != null) {
-                            int x = -1;
-                            for (int j = 0; (x = nextUnescaped(pattern, '%', x + 1)) != -1; ++j) {
-                                final int x2 = nextUnescaped(pattern, '%', x + 1);
-                                if (res.exprs[j] == null) {
-                                    final String name = pattern.substring(x + 1, x2);
-                                    if (!(!name.isEmpty() && name.charAt(0) == '-')) {
-                                        final ExprInfo vi = getExprInfo(name);
-                                        final DefaultExpression<?> expression = vi.classes[0].getDefaultExpression();
-                                        if (expression == null)
-                                            throw new SkriptAPIException("The class '" + vi.classes[0].getCodeName() + "' does not provide a default expression. Either allow null (with %-" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + ']');
-                                        if (!(expression instanceof Literal) && (vi.flagMask & PARSE_EXPRESSIONS) == 0)
-                                            throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is not a literal. Either allow null (with %-*" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + ']');
-                                        if (expression instanceof Literal && (vi.flagMask & PARSE_LITERALS) == 0)
-                                            throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is a literal. Either allow null (with %-~" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + ']');
-                                        if (!vi.isPlural[0] && !expression.isSingle())
-                                            throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is not a single-element expression. Change your pattern to allow multiple elements or make the expression mandatory [pattern: " + info.patterns[i] + ']');
-                                        if (vi.time != 0 && !expression.setTime(vi.time))
-                                            throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' does not have distinct time states. [pattern: " + info.patterns[i] + ']');
-                                        if (!expression.init())
-                                            continue patternsLoop;
-                                        res.exprs[j] = expression;
-                                    }
-                                }
-                                x = x2;
-                            }
-                            final Class<? extends T> clazz = info.c;
-                            if (!clazz.getPackage().getName().startsWith("ch.njol")) { // If it's not a native Skript expression
-                                final Config config = ScriptLoader.currentScript;
-                                final Node node = SkriptLogger.getNode();
+                    final T t = parse(info, i);
+                    if (t != null) {
+                        if (hintKey != null)
+                            ScriptCache.record(hintKey, info, i, ordinal, prefixHash);
+                        log.printLog();
+                        return t;
+                    }
+                }
+                if (hintKey != null) {
+                    ordinal++;
+                    prefixHash = ScriptCache.prefixHash(prefixHash, info);
+                }
+            }
+            log.printError();
+            return null;
+        } finally {
+            log.stop();
+        }
+    }
+
+    /**
+     * Tries to parse this parser's string as the given pattern of the given element.
+     *
+     * @param info The element to parse
+     * @param i    The index of the pattern to try
+     * @return The initialized element, or null if the pattern does not match or the element could not be initialized
+     */
+    @Nullable
+    private final <T extends SyntaxElement> T parse(final SyntaxElementInfo<? extends T> info, final int i) {
+        try {
+            final String pattern = info.patterns[i];
+            assert pattern != null;
+            final ParseResult res = parse_i(pattern, 0, 0);
+            if (res != null) {
+                int x = -1;
+                for (int j = 0; (x = nextUnescaped(pattern, '%', x + 1)) != -1; ++j) {
+                    final int x2 = nextUnescaped(pattern, '%', x + 1);
+                    if (res.exprs[j] == null) {
+                        final String name = pattern.substring(x + 1, x2);
+                        if (!(!name.isEmpty() && name.charAt(0) == '-')) {
+                            final ExprInfo vi = getExprInfo(name);
+                            final DefaultExpression<?> expression = vi.classes[0].getDefaultExpression();
+                            if (expression == null)
+                                throw new SkriptAPIException("The class '" + vi.classes[0].getCodeName() + "' does not provide a default expression. Either allow null (with %-" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + ']');
+                            if (!(expression instanceof Literal) && (vi.flagMask & PARSE_EXPRESSIONS) == 0)
+                                throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is not a literal. Either allow null (with %-*" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + ']');
+                            if (expression instanceof Literal && (vi.flagMask & PARSE_LITERALS) == 0)
+                                throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is a literal. Either allow null (with %-~" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + ']');
+                            if (!vi.isPlural[0] && !expression.isSingle())
+                                throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is not a single-element expression. Change your pattern to allow multiple elements or make the expression mandatory [pattern: " + info.patterns[i] + ']');
+                            if (vi.time != 0 && !expression.setTime(vi.time))
+                                throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' does not have distinct time states. [pattern: " + info.patterns[i] + ']');
+                            if (!expression.init())
+                                return null;
+                            res.exprs[j] = expression;
+                        }
+                    }
+                    x = x2;
+                }
+                final Class<? extends T> clazz = info.c;
+                if (!clazz.getPackage().getName().startsWith("ch.njol")) { // If it's not a native Skript expression
+                    final Config config = ScriptLoader.currentScript;
+                    final Node node = SkriptLogger.getNode();
 
-                                if (config != null && node != null) {
-                                    final String script = config.getFileName();
-                                    final int line = node.getLine();
+                    if (config != null && node != null) {
+                        final String script = config.getFileName();
+                        final int line = node.getLine();
 
-                                    final String name = clazz.getCanonicalName();
+                        final String name = clazz.getCanonicalName();
 
-                                    if (Skript.logSpam()) // Don't print unless we explicitly want it
-                                        Skript.info("Using expression " + name + " (" + script + ", line " + line + ')'); // Conditions etc. are also expressions
+                        if (Skript.logSpam()) // Don't print unless we explicitly want it
+                            Skript.info("Using expression " + name + " (" + script + ", line " + line + ')'); // Conditions etc. are also expressions
 
-                                    // Those are un required and laggy expressions that hangs the parser
-                                    // TODO Refuse to register those conditions in future
-                                    if (!SkriptConfig.disableDeprecationWarnings.value() && "com.w00tmast3r.skquery.elements.conditions.CondBoolean".equalsIgnoreCase(name) || "com.pie.tlatoani.Miscellaneous.CondBoolean".equalsIgnoreCase(name)) {
-                                        Skript.warning("Using this condition is deprecated. Please add 'is true' at the end of this condition to use Skript's native condition instead." + " (" + script + ", line " + line + ')');
-                                    }
-                                }
-                            }
-                            final T t = Skript.newInstance(clazz);
-                            if (t.init(res.exprs, i, ScriptLoader.hasDelayBefore, res)) {
-                                log.printLog();
-                                return t;
-                            }
+                        // Those are un required and laggy expressions that hangs the parser
+                        // TODO Refuse to register those conditions in future
+                        if (!SkriptConfig.disableDeprecationWarnings.value() && "com.w00tmast3r.skquery.elements.conditions.CondBoolean".equalsIgnoreCase(name) || "com.pie.tlatoani.Miscellaneous.CondBoolean".equalsIgnoreCase(name)) {
+                            Skript.warning("Using this condition is deprecated. Please add 'is true' at the end of this condition to use Skript's native condition instead." + " (" + script + ", line " + line + ')');
                         }
-                    } catch (final InvocationTargetException | NoSuchMethodException | InstantiationException | IllegalAccessException e) {
-                        throw Skript.exception(e);
                     }
                 }
+                final T t = info.newInstance();
+                if (t.init(res.exprs, i, ScriptLoader.hasDelayBefore, res))
+                    return t;
             }
-            log.printError();
-            return null;
-        } finally {
-            log.stop();
+        } catch (final InvocationTargetException | NoSuchMethodException | InstantiationException | IllegalAccessException e) {
+            throw Skript.exception(e);
         }
+        return null;
     }
 
     private final SkriptParser suppressMissingAndOrWarnings() {
@@ -1917,32 +1974,67 @@ public final class SkriptParser {
         assert flags == PARSE_LITERALS;
         final ParseLogHandler log = SkriptLogger.startParseLogHandler();
         try {
+            final String hintKey = ScriptCache.isActive() ? ScriptCache.key("event", context, flags, expr) : null;
+            if (hintKey != null) {
+                final ScriptCache.Hint hint = ScriptCache.getHint(hintKey);
+                if (hint != null) {
+                    // Try the event that matched this string the last time this script was loaded
+                    final Iterator<SkriptEventInfo<?>> it = Skript.getEvents().iterator();
+                    int prefixHash = 0;
+                    for (int ordinal = 0; ordinal < hint.ordinal && it.hasNext(); ordinal++)
+                        prefixHash = ScriptCache.prefixHash(prefixHash, it.next());
+                    if (it.hasNext()) {
+                        final SkriptEventInfo<?> info = it.next();
+                        if (hint.matches(info, hint.ordinal, prefixHash)) {
+                            final ParseResult res = parse_i(info.patterns[hint.pattern], 0, 0);
+                            if (res != null) {
+                                final SkriptEvent e = info.newInstance();
+                                if (e.init(Arrays.copyOf(res.exprs, res.exprs.length, Literal[].class), hint.pattern, res)) {
+                                    ScriptCache.hit();
+                                    ScriptCache.record(hintKey, info, hint.pattern, hint.ordinal, hint.prefixHash);
+                                    log.printLog();
+                                    return new NonNullPair<>(info, e);
+                                }
+                            }
+                        }
+                    }
+                    // Outdated hint, fall back to a full parse
+                    ScriptCache.miss();
+                    log.clear();
+                }
+            }
+            int ordinal = 0;
+            int prefixHash = 0;
             for (final SkriptEventInfo<?> info : Skript.getEvents()) {
                 for (int i = 0; i < info.patterns.length; ++i) {
                     log.clear();
-                    try {
-                        final String pattern = info.patterns[i];
-                        assert pattern != null;
-                        final ParseResult res = parse_i(pattern, 0, 0);
-                        if (res != null) {
-                            if (Skript.logSpam() && !info.c.getPackage().getName().startsWith("ch.njol")) // Log spam is true, and it's not a native Skript event
-                                Skript.info("Using event " + info.c.getCanonicalName());
-                            final SkriptEvent e = Skript.newInstance(info.c);
-                            final Literal<?>[] ls = Arrays.copyOf(res.exprs, res.exprs.length, Literal[].class);
-                            if (!e.init(ls, i, res)) {
-                                log.printError();
-                                return null;
-                            }
-                            log.printLog();
-                            return new NonNullPair<>(info, e);
+                    final String pattern = info.patterns[i];
+                    assert pattern != null;
+                    final ParseResult res = parse_i(pattern, 0, 0);
+                    if (res != null) {
+                        if (Skript.logSpam() && !info.c.getPackage().getName().startsWith("ch.njol")) // Log spam is true, and it's not a native Skript event
+                            Skript.info("Using event " + info.c.getCanonicalName());
+                        final SkriptEvent e = info.newInstance();
+                        final Literal<?>[] ls = Arrays.copyOf(res.exprs, res.exprs.length, Literal[].class);
+                        if (!e.init(ls, i, res)) {
+                            log.printError();
+                            return null;
                         }
-                    } catch (final InvocationTargetException | NoSuchMethodException | InstantiationException | IllegalAccessException e) {
-                        throw Skript.exception(e);
+                        if (hintKey != null)
+                            ScriptCache.record(hintKey, info, i, ordinal, prefixHash);
+                        log.printLog();
+                        return new NonNullPair<>(info, e);
                     }
                 }
+                if (hintKey != null) {
+                    ordinal++;
+                    prefixHash = ScriptCache.prefixHash(prefixHash, info);
+                }
             }
             log.printError(null);
             return null;
+        } catch (final InvocationTargetException | NoSuchMethodException | InstantiationException | IllegalAccessException e) {
+            throw Skript.exception(e);
         } finally {
             log.stop();
         }
@@ -23,6 +23,10 @@
 package ch.njol.skript.lang;
 
 import ch.njol.skript.Skript;
+import ch.njol.skript.Skript.InstanceSupplier;
+import ch.njol.skript.util.InstanceSuppliers;
+
+import java.lang.reflect.InvocationTargetException;
 
 /**
  * @param <E> the syntax element this info is for
@@ -32,12 +36,16 @@ public class SyntaxElementInfo<E extends SyntaxElement> {
 
     public final Class<E> c;
     public final String[] patterns;
+    /**
+     * Creates the instances used by the parser, generated when the element is registered
+     */
+    private InstanceSupplier<E> instanceSupplier;
 
     public SyntaxElementInfo(final String[] patterns, final Class<E> c) throws IllegalArgumentException {
         this.patterns = patterns;
         this.c = c;
         try {
-            Skript.getConstructor(c);
+            instanceSupplier = InstanceSuppliers.create(c);
 //			if (!c.getDeclaredConstructor().isAccessible())
 //				throw new IllegalArgumentException("The nullary constructor of class "+c.getName()+" is not public");
         } catch (final NoSuchMethodException e) {
@@ -48,4 +56,25 @@ public class SyntaxElementInfo<E extends SyntaxElement> {
         }
     }
 
+    /**
+     * Replaces the generated instance supplier, e.g. with one given when registering the element.
+     *
+     * @param instanceSupplier The supplier to create new instances with
+     */
+    public final void setInstanceSupplier(final InstanceSupplier<E> instanceSupplier) {
+        this.instanceSupplier = instanceSupplier;
+    }
+
+    /**
+     * @return A new instance of this element, not yet initialized
+     */
+    public final E newInstance() throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        Skript.currentlyConstructing = c;
+        try {
+            return instanceSupplier.newInstance();
+        } finally {
+            Skript.currentlyConstructing = null;
+        }
+    }
+
 }
@@ -295,7 +295,10 @@ public final class Variable<T> implements Expression<T> {
         final String name = StringUtils.substring(this.name.toString(e), 0, -1).toLowerCase(Locale.ENGLISH);
         for (final Entry<String, ?> v : ((Map<String, ?>) val).entrySet()) {
             if (v.getKey() != null && v.getValue() != null) {
-                l.add(convertIfOldPlayer(name + v.getKey(), e, local, v.getValue() instanceof Map ? ((Map<String, ?>) v.getValue()).get(null) : v.getValue()));
+                final Object value = Variables.getValue(v.getValue());
+                final Object o = Variables.getValue(value instanceof Map ? ((Map<String, ?>) value).get(null) : value);
+                if (o != null)
+                    l.add(convertIfOldPlayer(name + v.getKey(), e, local, o));
             }
         }
         return l.toArray();
@@ -408,7 +411,10 @@ public final class Variable<T> implements Expression<T> {
                 final Object x = getRaw(e);
                 if (x == null)
                     return;
-                for (final Object o : x instanceof Map ? ((Map<?, ?>) x).values() : Collections.singletonList(x)) {
+                for (final Object v : x instanceof Map ? ((Map<?, ?>) x).values() : Collections.singletonList(x)) {
+                    final Object o = Variables.getValue(v);
+                    if (o == null)
+                        continue;
                     final Class<?> c = o.getClass();
                     assert c != null;
                     final ClassInfo<?> ci = Classes.getSuperClassInfo(c);
@@ -432,7 +438,7 @@ public final class Variable<T> implements Expression<T> {
                         final Collection<String> rem = new ArrayList<>(); // prevents CMEs
                         for (final Object d : delta) {
                             for (final Entry<String, Object> i : o.entrySet()) {
-                                if (Relation.EQUAL.is(Comparators.compare(i.getValue(), d))) {
+                                if (Relation.EQUAL.is(Comparators.compare(Variables.getValue(i.getValue()), d))) {
                                     final String key = i.getKey();
                                     if (key == null)
                                         continue; // This is NOT a part of list variable
@@ -453,7 +459,7 @@ public final class Variable<T> implements Expression<T> {
                         final Collection<String> rem = new ArrayList<>(); // prevents CMEs
                         for (final Entry<String, Object> i : o.entrySet()) {
                             for (final Object d : delta) {
-                                if (Relation.EQUAL.is(Comparators.compare(i.getValue(), d)))
+                                if (Relation.EQUAL.is(Comparators.compare(Variables.getValue(i.getValue()), d)))
                                     rem.add(i.getKey());
                             }
                         }
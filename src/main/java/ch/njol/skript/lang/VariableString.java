@@ -22,6 +22,7 @@
 
 package ch.njol.skript.lang;
 
+import ch.njol.skript.ScriptDependencies;
 import ch.njol.skript.ScriptLoader;
 import ch.njol.skript.Skript;
 import ch.njol.skript.SkriptConfig;
@@ -237,6 +238,9 @@ public final class VariableString implements Expression<String> {
 
         checkVariableConflicts(s, mode, string);
 
+        if (mode == StringMode.MESSAGE)
+            compileMessage(string);
+
         if (string.size() == 1 && string.get(0) instanceof String)
             return new VariableString(String.valueOf(string.get(0)));
         final Object[] sa = string.toArray();
@@ -250,9 +254,66 @@ public final class VariableString implements Expression<String> {
         return new VariableString(orig, sa, mode);
     }
 
+    /**
+     * Resolves the plural flag and colour of the expressions in a message where they only depend on the text
+     * before them, so {@link #toString(Event)} doesn't have to look at the already built string.
+     */
+    private static final void compileMessage(final List<Object> string) {
+        boolean first = true;
+        for (int i = 0; i < string.size(); i++) {
+            final Object o = string.get(i);
+            if (!(o instanceof ExpressionInfo))
+                continue;
+            final ExpressionInfo info = (ExpressionInfo) o;
+            final String before = i > 0 && string.get(i - 1) instanceof String ? (String) string.get(i - 1) : null;
+            if (before == null || before.isEmpty()) {
+                // An expression at the start of the message never gets the plural flag or a colour from the text before it
+                info.pluralKnown = first;
+                info.colorKnown = first;
+            } else {
+                final ChatColor c = getLastColor(before);
+                info.colorKnown = first || c != null;
+                info.color = c;
+                if (first || numberBeforeIsKnown(before)) {
+                    info.pluralKnown = true;
+                    if ((info.flags & Language.F_PLURAL) == 0 && Math.abs(StringUtils.numberBefore(before, before.length() - 1)) != 1)
+                        info.flags |= Language.F_PLURAL;
+                }
+            }
+            first = false;
+        }
+    }
+
+    /**
+     * @return Whatever {@link StringUtils#numberBefore(CharSequence, int)} at the end of the text stops within the text,
+     * but not at its first character, i.e. it doesn't depend on what is before the text
+     */
+    private static final boolean numberBeforeIsKnown(final String s) {
+        int i = s.length() - 1;
+        while (i >= 0 && Character.isWhitespace(s.charAt(i)))
+            i--;
+        boolean hasDot = false;
+        for (; i >= 0; i--) {
+            final char c = s.charAt(i);
+            if (c == '.') {
+                if (hasDot)
+                    return i > 0;
+                hasDot = true;
+            } else if (c < '0' || c > '9') { // Includes whitespace before the number
+                return i > 0;
+            }
+        }
+        return false;
+    }
+
     @SuppressWarnings("null")
     private static final void checkVariableConflicts(final String name, final StringMode mode, @Nullable final Iterable<Object> string) {
-        if (mode != StringMode.VARIABLE_NAME || variableNames.containsKey(name))
+        if (mode != StringMode.VARIABLE_NAME)
+            return;
+        final Config currentScript = ScriptLoader.currentScript;
+        if (currentScript != null)
+            ScriptDependencies.variableNameUsed(currentScript.getFile(), name);
+        if (variableNames.containsKey(name))
             return;
         if (!name.isEmpty() && name.charAt(0) == '%') { // inside the if to only print this message once per variable
             final Config script = ScriptLoader.currentScript;
@@ -397,7 +458,9 @@ public final class VariableString implements Expression<String> {
 
         final Object[] string = this.string;
         assert string != null;
-        final StringBuilder b = new StringBuilder(4096);
+        final StringBuilder b = new StringBuilder(orig.length() + 64);
+        // The last colour up to the end of the last expression, see compileMessage
+        ChatColor last = null;
         for (final Object o : string) {
             if (o instanceof Expression<?>) {
                 assert mode != StringMode.MESSAGE;
@@ -406,15 +469,17 @@ public final class VariableString implements Expression<String> {
                 assert mode == StringMode.MESSAGE;
                 final ExpressionInfo info = (ExpressionInfo) o;
                 int flags = info.flags;
-                if ((flags & Language.F_PLURAL) == 0 && b.length() > 0 && Math.abs(StringUtils.numberBefore(b, b.length() - 1)) != 1)
+                if (!info.pluralKnown && (flags & Language.F_PLURAL) == 0 && b.length() > 0 && Math.abs(StringUtils.numberBefore(b, b.length() - 1)) != 1)
                     flags |= Language.F_PLURAL;
+                final ChatColor color = info.colorKnown ? info.color : last;
+                String s = Classes.toString(info.expr.getArray(e), flags, color);
                 if (info.toChatStyle) {
-                    final String s = Classes.toString(info.expr.getArray(e), flags, getLastColor(b));
                     final String style = Utils.getChatStyle(s);
-                    b.append(style == null ? '<' + s + '>' : style);
-                } else {
-                    b.append(Classes.toString(info.expr.getArray(e), flags, getLastColor(b)));
+                    s = style == null ? '<' + s + '>' : style;
                 }
+                b.append(s);
+                final ChatColor c = getLastColor(s);
+                last = c != null ? c : color;
             } else {
                 b.append(o);
             }
@@ -598,6 +663,16 @@ public final class VariableString implements Expression<String> {
         final Expression<?> expr;
         int flags;
         boolean toChatStyle;
+        /**
+         * Whatever the plural flag only depends on the text before this expression and is already in {@link #flags}
+         */
+        boolean pluralKnown;
+        /**
+         * Whatever the text before this expression determines the last colour, which is then {@link #color}
+         */
+        boolean colorKnown;
+        @Nullable
+        ChatColor color;
 
         ExpressionInfo(final Expression<?> expr) {
             this.expr = expr;
@@ -27,6 +27,7 @@ import ch.njol.skript.agents.SkriptAgentKt;
 import ch.njol.skript.agents.events.end.FunctionEndEvent;
 import ch.njol.skript.agents.events.start.FunctionStartEvent;
 import ch.njol.skript.classes.ClassInfo;
+import ch.njol.skript.log.Tracing;
 import ch.njol.util.coll.CollectionUtils;
 import org.bukkit.Bukkit;
 import org.eclipse.jdt.annotation.Nullable;
@@ -115,15 +116,18 @@ public abstract class Function<T> {
                 return null;
             ps[i] = val;
         }
-        final boolean trackingEnabled = SkriptAgentKt.isTrackingEnabled();
-        if (trackingEnabled)
+        final T[] r;
+        if (Tracing.agents() && SkriptAgentKt.isTrackingEnabled()) {
             SkriptAgentKt.throwEvent(new FunctionStartEvent(this, params));
-        final long startTime = System.nanoTime();
-        final T[] r = execute(e, ps);
-        resetReturnValue();
-        final long endTime = System.nanoTime();
-        if (trackingEnabled)
+            final long startTime = System.nanoTime();
+            r = execute(e, ps);
+            resetReturnValue();
+            final long endTime = System.nanoTime();
             SkriptAgentKt.throwEvent(new FunctionEndEvent(this, params, startTime, endTime));
+        } else {
+            r = execute(e, ps);
+            resetReturnValue();
+        }
         assert returnType == null ? r == null : r == null || (r.length <= 1 || !single) && !CollectionUtils.contains(r, null) && returnType.getC().isAssignableFrom(r.getClass().getComponentType()) : this + "; " + Arrays.toString(r);
         return r == null || r.length > 0 || this instanceof ScriptFunction && ((ScriptFunction<T>) this).ignoreEmptyReturn ? r : null;
     }
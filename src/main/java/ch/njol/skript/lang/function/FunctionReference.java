@@ -22,6 +22,7 @@
 
 package ch.njol.skript.lang.function;
 
+import ch.njol.skript.ScriptDependencies;
 import ch.njol.skript.Skript;
 import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.config.Node;
@@ -63,6 +64,7 @@ public final class FunctionReference<T> {
         this.script = script;
         this.returnTypes = returnTypes;
         parameters = params;
+        ScriptDependencies.functionCalled(script, functionName);
     }
 
     @SuppressWarnings({"unchecked", "unused", "null"})
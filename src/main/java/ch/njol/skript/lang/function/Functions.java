@@ -254,9 +254,35 @@ public final class Functions {
                 }
             }
         }
+        // Calls from the unloaded script don't need to be validated anymore
+        toValidate.removeIf(c -> script.equals(c.script));
         return r;
     }
 
+    /**
+     * Gets the signature of a function, i.e. everything that calls of the function are validated against.
+     *
+     * @param name The name of the function
+     * @return The signature of the function, or null if the function does not exist.
+     */
+    @Nullable
+    public static final String getSignature(final String name) {
+        final Function<?> function = getFunction(name);
+        if (function == null)
+            return null;
+        final StringBuilder b = new StringBuilder(name).append('(');
+        for (final Parameter<?> p : function.parameters) {
+            b.append(p.type.getCodeName()).append(p.single ? "" : "s");
+            if (p.def != null || p.isNone)
+                b.append('?');
+            b.append(',');
+        }
+        b.append(')');
+        if (function.returnType != null)
+            b.append(function.returnType.getCodeName()).append(function.single ? "" : "s");
+        return b.toString();
+    }
+
     public static final void validateFunctions() {
         for (final FunctionReference<?> c : toValidate)
             c.validateFunction(false);
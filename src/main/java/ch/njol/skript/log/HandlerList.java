@@ -24,15 +24,16 @@ package ch.njol.skript.log;
 
 import org.eclipse.jdt.annotation.Nullable;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
-import java.util.LinkedList;
 
 /**
  * @author Peter Güttinger
  */
 public class HandlerList implements Iterable<LogHandler> {
 
-    private final LinkedList<LogHandler> list = new LinkedList<>();
+    private final Deque<LogHandler> list = new ArrayDeque<>();
 
     public final void add(final LogHandler h) {
         list.addFirst(h);
@@ -43,17 +44,22 @@ public class HandlerList implements Iterable<LogHandler> {
         return list.pop();
     }
 
+    /**
+     * @return The innermost handler, or null if there is none
+     */
+    @Nullable
+    public final LogHandler peek() {
+        return list.peekFirst();
+    }
+
     @SuppressWarnings("null")
     @Override
     public final Iterator<LogHandler> iterator() {
         return list.iterator();
     }
 
-    @SuppressWarnings("ListIndexOfReplaceableByContains")
     public final boolean contains(final LogHandler h) {
-        {
-            return list.indexOf(h) != -1;
-        }
+        return list.contains(h);
     }
 
 }
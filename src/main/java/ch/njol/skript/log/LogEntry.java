@@ -27,6 +27,7 @@ import ch.njol.skript.config.Config;
 import ch.njol.skript.config.Node;
 import org.eclipse.jdt.annotation.Nullable;
 
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 /**
@@ -78,7 +79,7 @@ public final class LogEntry {
         this.message = message;
         this.node = node;
         this.tracked = tracked;
-        from = tracked || Skript.debug() ? findCaller(this) : "";
+        from = tracked || Tracing.debug() ? findCaller(this) : "";
     }
 
     /**
@@ -133,6 +134,14 @@ public final class LogEntry {
             SkriptLogger.LOGGER.warning(() -> " # LogEntry '" + message + '\'' + from + " discarded" + findCaller(this) + "; " + new Throwable().getStackTrace()[1] + "; " + info); // Thread.currentThread().getStackTrace() is more memory friendly, but slower
     }
 
+    /**
+     * Same as {@link #discarded(String)}, but only creates the info if this entry is tracked.
+     */
+    void discarded(final Supplier<String> info) {
+        if (tracked)
+            discarded(info.get());
+    }
+
     void logged() {
         if (tracked)
             SkriptLogger.LOGGER.warning(() -> " # LogEntry '" + message + '\'' + from + " logged" + findCaller(this));
@@ -26,36 +26,67 @@ import ch.njol.skript.Skript;
 import org.eclipse.jdt.annotation.Nullable;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 /**
+ * Keeps only the best error and all other messages.
+ * <p>
+ * Log handlers are shared by all threads, so other threads may log messages while this handler is started. Messages and the
+ * error are therefore only changed while holding this handler's lock, and the error and print state can be read without it.
+ *
  * @author Peter Güttinger
  */
 public class ParseLogHandler extends LogHandler {
 
-    private final Collection<LogEntry> log = new ArrayList<>();
-    boolean printedErrorOrLog;
+    /**
+     * Only created when needed, as most parse attempts log nothing but errors
+     */
+    @Nullable
+    private List<LogEntry> log;
+    volatile boolean printedErrorOrLog;
     @Nullable
-    private LogEntry error;
+    private volatile LogEntry error;
 
     @Override
     public final LogResult log(final LogEntry entry) {
         if (entry.getLevel().intValue() >= Level.SEVERE.intValue()) {
-            final LogEntry e = error;
-            if (e == null || entry.getQuality() > e.getQuality()) {
+            final LogEntry e;
+            synchronized (this) {
+                e = error;
+                if (e != null && entry.getQuality() <= e.getQuality())
+                    return LogResult.CACHED;
                 error = entry;
-                if (e != null)
-                    e.discarded("overridden by '" + entry.getMessage() + "' (" + ErrorQuality.get(entry.getQuality()) + " > " + ErrorQuality.get(e.getQuality()) + ')');
             }
+            if (e != null)
+                e.discarded(() -> "overridden by '" + entry.getMessage() + "' (" + ErrorQuality.get(entry.getQuality()) + " > " + ErrorQuality.get(e.getQuality()) + ')');
         } else {
-            synchronized (log) {
+            synchronized (this) {
+                List<LogEntry> log = this.log;
+                if (log == null)
+                    this.log = log = new ArrayList<>(4);
                 log.add(entry);
             }
         }
         return LogResult.CACHED;
     }
 
+    /**
+     * @param quality The quality of an error
+     * @return Whatever an error of the given quality would replace the current error of this handler
+     */
+    public final boolean isBetterError(final int quality) {
+        final LogEntry e = error;
+        return e == null || quality > e.getQuality();
+    }
+
+    private final List<LogEntry> getLog() {
+        final List<LogEntry> log = this.log;
+        return log == null ? Collections.emptyList() : log;
+    }
+
     @Override
     public void onStop() {
         if (!printedErrorOrLog && Skript.testing() && Skript.logVeryHigh())
@@ -66,20 +97,25 @@ public class ParseLogHandler extends LogHandler {
         log(new LogEntry(SkriptLogger.SEVERE, quality, error));
     }
 
+    /**
+     * Same as {@link #error(String, ErrorQuality)}, but only creates the message if the error is
+     * {@link #isBetterError(int) better} than the current error.
+     */
+    public final void error(final Supplier<String> error, final ErrorQuality quality) {
+        if (isBetterError(quality.quality()))
+            log(new LogEntry(SkriptLogger.SEVERE, quality, error.get()));
+    }
+
     /**
      * Clears all log messages except for the error
      */
-    public final void clear() {
-        synchronized (log) {
-            if (!log.isEmpty()) {
-                for (final LogEntry e : log) {
-                    e.discarded("cleared");
-                }
-            }
-            {
-                log.clear();
-            }
-        }
+    public final synchronized void clear() {
+        final List<LogEntry> log = this.log;
+        if (log == null || log.isEmpty())
+            return;
+        for (final LogEntry e : log)
+            e.discarded("cleared");
+        log.clear();
     }
 
     /**
@@ -88,9 +124,10 @@ public class ParseLogHandler extends LogHandler {
     public final void printLog() {
         printedErrorOrLog = true;
         stop();
-        synchronized (log) {
-            SkriptLogger.logAll((Iterable<LogEntry>) log); // Cast is required to not use deprecated method
+        synchronized (this) {
+            SkriptLogger.logAll((Iterable<LogEntry>) getLog()); // Cast is required to not use deprecated method
         }
+        final LogEntry error = this.error;
         if (error != null)
             error.discarded("not printed");
     }
@@ -99,14 +136,9 @@ public class ParseLogHandler extends LogHandler {
         printError(null);
     }
 
-    private final void notPrinted() {
-        synchronized (log) {
-            if (!log.isEmpty()) {
-                for (final LogEntry e : log) {
-                    e.discarded("not printed");
-                }
-            }
-        }
+    private final synchronized void notPrinted() {
+        for (final LogEntry e : getLog())
+            e.discarded("not printed");
     }
 
     /**
@@ -136,6 +168,21 @@ public class ParseLogHandler extends LogHandler {
         notPrinted();
     }
 
+    /**
+     * Same as {@link #printError(String, ErrorQuality)}, but the given error is only created if it is not discarded right
+     * away by the next log handler, see {@link SkriptLogger#error(ErrorQuality, Supplier)}.
+     */
+    public final void printError(final Supplier<String> def, final ErrorQuality quality) {
+        printedErrorOrLog = true;
+        stop();
+        final LogEntry error = this.error;
+        if (error != null && error.quality >= quality.quality())
+            SkriptLogger.log(error);
+        else
+            SkriptLogger.error(quality, def);
+        notPrinted();
+    }
+
     public int getNumErrors() {
         return error == null ? 0 : 1;
     }
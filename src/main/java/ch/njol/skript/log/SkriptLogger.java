@@ -33,6 +33,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -49,11 +51,16 @@ public final class SkriptLogger {
     public static final Level DEBUG = Level.INFO;
     @SuppressWarnings("null")
     public static final Logger LOGGER = Bukkit.getServer() != null ? Bukkit.getLogger() : Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); // cannot use Bukkit in tests
-    private static final HandlerList handlers = new HandlerList();
+    /**
+     * The log handlers and the current node, shared by all threads except those that {@link #startOwnLogContext() use their own}
+     */
+    private static final LogContext global = new LogContext();
+    /**
+     * Set for threads that use their own log handlers and node, e.g. the thread that loads variables while scripts are parsed
+     */
+    private static final ThreadLocal<LogContext> own = new ThreadLocal<>();
     private static final List<LogEntry> suppressed = Collections.synchronizedList(new ArrayList<>());
     static boolean debug;
-    @Nullable
-    private static Node node;
     private static Verbosity verbosity = Verbosity.NORMAL;
     private static volatile boolean suppressing;
     private static volatile boolean suppressWarnings;
@@ -106,13 +113,18 @@ public final class SkriptLogger {
      * @see RedirectingLogHandler
      */
     public static final <T extends LogHandler> T startLogHandler(final T h) {
+        final HandlerList handlers = context().handlers;
         synchronized (handlers) {
             handlers.add(h);
         }
         return h;
     }
 
+    /**
+     * Must be called from the thread that started the handler if it {@link #startOwnLogContext() uses its own log handlers}.
+     */
     static final void removeHandler(final LogHandler h) {
+        final HandlerList handlers = context().handlers;
         synchronized (handlers) {
             if (!handlers.contains(h))
                 return;
@@ -126,11 +138,56 @@ public final class SkriptLogger {
     }
 
     static final boolean isStopped(final LogHandler h) {
+        final HandlerList handlers = context().handlers;
         synchronized (handlers) {
             return !handlers.contains(h);
         }
     }
 
+    private static final LogContext context() {
+        final LogContext c = own.get();
+        return c != null ? c : global;
+    }
+
+    /**
+     * Makes the current thread use its own log handlers and node until {@link #stopOwnLogContext()} is called,
+     * so that it can log messages while another thread, e.g. the main thread parsing scripts, has log handlers started.
+     * <p>
+     * All other threads share the same log handlers, i.e. log handlers started by the main thread also receive the
+     * messages of e.g. asynchronous events.
+     */
+    public static final void startOwnLogContext() {
+        assert own.get() == null;
+        own.set(new LogContext());
+    }
+
+    /**
+     * Makes the current thread use the shared log handlers and node again, see {@link #startOwnLogContext()}.
+     */
+    public static final void stopOwnLogContext() {
+        own.remove();
+    }
+
+    /**
+     * Wraps a task that is handed to another thread, so that its messages are logged to the log handlers of the current thread.
+     * The current thread should not start or stop log handlers while the task runs.
+     *
+     * @param c The task
+     * @return A task that calls the given task with the log handlers and node of the current thread
+     */
+    public static final <T> Callable<T> withLogContext(final Callable<T> c) {
+        final LogContext context = own.get();
+        return () -> {
+            final LogContext previous = own.get();
+            own.set(context);
+            try {
+                return c.call();
+            } finally {
+                own.set(previous);
+            }
+        };
+    }
+
     /**
      * Finds method caller, excluding the SkriptLogger package
      * and required java methods.
@@ -187,15 +244,16 @@ public final class SkriptLogger {
         verbosity = v;
         if (v.compareTo(Verbosity.DEBUG) >= 0)
             debug = true;
+        Tracing.updateVerbosity();
     }
 
     @Nullable
     public static final Node getNode() {
-        return node;
+        return context().node;
     }
 
     public static final void setNode(@Nullable final Node node) {
-        SkriptLogger.node = node == null || node.getParent() == null ? null : node;
+        context().node = node == null || node.getParent() == null ? null : node;
     }
 
     /**
@@ -217,7 +275,27 @@ public final class SkriptLogger {
      * @see Skript#debug()
      */
     public static final void log(final Level level, final String message) {
-        log(new LogEntry(level, message, node));
+        log(new LogEntry(level, message, context().node));
+    }
+
+    /**
+     * Logs an error whose message is only created if it would not be discarded right away, i.e. if the innermost log
+     * handler is not a {@link ParseLogHandler} that already has a better error.
+     * <p>
+     * Use this for errors that are likely to be discarded, e.g. errors of failed parse attempts.
+     *
+     * @param quality The quality of the error
+     * @param message The message of the error
+     */
+    public static final void error(final ErrorQuality quality, final Supplier<String> message) {
+        final HandlerList handlers = context().handlers;
+        final LogHandler h;
+        synchronized (handlers) {
+            h = handlers.peek();
+        }
+        if (h instanceof ParseLogHandler && !((ParseLogHandler) h).isBetterError(quality.quality()))
+            return;
+        log(new LogEntry(SEVERE, quality, message.get()));
     }
 
     public static final void log(@Nullable final LogEntry entry) {
@@ -225,17 +303,19 @@ public final class SkriptLogger {
             assert false;
             return;
         }
+        final LogContext context = context();
+        final Node node = context.node;
         if (Skript.testing() && node != null && node.debug())
             System.out.print("---> " + entry.level + '/' + ErrorQuality.get(entry.quality) + ": " + entry.getMessage() + " ::" + LogEntry.findCaller(entry, true));
-        synchronized (handlers) {
-            for (final LogHandler h : handlers) {
+        synchronized (context.handlers) {
+            for (final LogHandler h : context.handlers) {
                 final LogResult r = h.log(entry);
 
                 switch (r) {
                     case CACHED:
                         return;
                     case DO_NOT_LOG:
-                        entry.discarded("denied by " + h);
+                        entry.discarded(() -> "denied by " + h);
                         return;
                     case LOG:
                 }
@@ -315,7 +395,7 @@ public final class SkriptLogger {
     }
 
     public static final void logTracked(final Level level, final String message, final ErrorQuality quality) {
-        log(new LogEntry(level, quality.quality(), message, node, true));
+        log(new LogEntry(level, quality.quality(), message, context().node, true));
     }
 
     /**
@@ -332,4 +412,14 @@ public final class SkriptLogger {
         return debug;
     }
 
+    private static final class LogContext {
+        final HandlerList handlers = new HandlerList();
+        @Nullable
+        Node node;
+
+        LogContext() {
+            /* implicit super call */
+        }
+    }
+
 }
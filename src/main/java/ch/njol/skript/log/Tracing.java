@@ -0,0 +1,121 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.log;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MutableCallSite;
+
+/**
+ * Switches for tracing code in hot paths, e.g. logging of triggers, timings and agent events.
+ * <p>
+ * Each switch is a {@link MutableCallSite} that returns a constant, invoked through a <tt>static final</tt> method handle,
+ * so the JIT compiler folds a disabled switch to a constant and removes the guarded code completely. Changing a switch
+ * deoptimizes the code that uses it, so it takes effect immediately without a reload, but should not be done often.
+ */
+public final class Tracing {
+
+    private static final MutableCallSite debugSite = new MutableCallSite(MethodHandles.constant(boolean.class, false));
+    private static final MutableCallSite veryHighSite = new MutableCallSite(MethodHandles.constant(boolean.class, false));
+    private static final MutableCallSite timingsSite = new MutableCallSite(MethodHandles.constant(boolean.class, false));
+    private static final MutableCallSite agentsSite = new MutableCallSite(MethodHandles.constant(boolean.class, false));
+
+    private static final MethodHandle DEBUG = debugSite.dynamicInvoker();
+    private static final MethodHandle VERY_HIGH = veryHighSite.dynamicInvoker();
+    private static final MethodHandle TIMINGS = timingsSite.dynamicInvoker();
+    private static final MethodHandle AGENTS = agentsSite.dynamicInvoker();
+
+    private static final boolean debugProperty = Boolean.getBoolean("skript.debug");
+
+    private static boolean debug, veryHigh, timings, agents;
+
+    static {
+        updateVerbosity();
+    }
+
+    private Tracing() {
+        throw new UnsupportedOperationException("Static class");
+    }
+
+    private static final void set(final MutableCallSite site, final boolean value) {
+        site.setTarget(MethodHandles.constant(boolean.class, value));
+        MutableCallSite.syncAll(new MutableCallSite[]{site});
+    }
+
+    private static final boolean get(final MethodHandle handle) {
+        try {
+            return (boolean) handle.invokeExact();
+        } catch (final Throwable t) {
+            throw new AssertionError(t); // Constant method handles can't throw
+        }
+    }
+
+    /**
+     * @return Whatever debug verbosity is enabled, same as {@link ch.njol.skript.Skript#debug()}.
+     */
+    public static final boolean debug() {
+        return get(DEBUG);
+    }
+
+    /**
+     * @return Whatever very high or debug verbosity is enabled, same as {@link ch.njol.skript.Skript#logVeryHigh()}.
+     */
+    public static final boolean veryHigh() {
+        return get(VERY_HIGH);
+    }
+
+    /**
+     * @return Whatever timings are enabled in the config. The timings mode may still be off or the server may still have
+     * timings turned off, see {@link ch.njol.skript.timings.SkriptTimings#enabled()}.
+     */
+    public static final boolean timings() {
+        return get(TIMINGS);
+    }
+
+    /**
+     * @return Whatever at least one skript agent is registered, same as {@link ch.njol.skript.agents.SkriptAgentKt#isTrackingEnabled()}.
+     */
+    public static final boolean agents() {
+        return get(AGENTS);
+    }
+
+    static final synchronized void updateVerbosity() {
+        final boolean debug = debugProperty || SkriptLogger.debug();
+        final boolean veryHigh = debug || SkriptLogger.log(Verbosity.VERY_HIGH);
+        if (debug != Tracing.debug)
+            set(debugSite, Tracing.debug = debug);
+        if (veryHigh != Tracing.veryHigh)
+            set(veryHighSite, Tracing.veryHigh = veryHigh);
+    }
+
+    public static final synchronized void setTimings(final boolean timings) {
+        if (timings != Tracing.timings)
+            set(timingsSite, Tracing.timings = timings);
+    }
+
+    public static final synchronized void setAgents(final boolean agents) {
+        if (agents != Tracing.agents)
+            set(agentsSite, Tracing.agents = agents);
+    }
+
+}
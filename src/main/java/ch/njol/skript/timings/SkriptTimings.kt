@@ -25,6 +25,7 @@
 package ch.njol.skript.timings
 
 import ch.njol.skript.Skript
+import ch.njol.skript.log.Tracing
 import ch.njol.skript.util.EmptyArrays
 import co.aikar.timings.Timing
 import co.aikar.timings.Timings
@@ -48,6 +49,10 @@ private val startTimingMethod: Method? = if (timings && !startTimingVoid)
 else
     null
 
+/**
+ * Whatever the timings mode is on, i.e. the "timings on" command is used. Checked by [start] on each call,
+ * so it is a plain field that addons can set too.
+ */
 @JvmField
 var timingsEnabled: Boolean = false
 
@@ -90,12 +95,11 @@ fun enabled(): Boolean {
 fun setEnabled(flag: Boolean) {
     if (!flag) {
         enabled = flag
-        return
-    }
-    if (syncMethods || startTimingVoid || startTimingMethod != null)
+    } else if (syncMethods || startTimingVoid || startTimingMethod != null)
         enabled = true
     else {
         Skript.warning("Can't enable timings on an unsupported environment")
         enabled = false // Just to make sure
     }
+    Tracing.setTimings(enabled)
 }
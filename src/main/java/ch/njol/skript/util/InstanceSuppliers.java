@@ -0,0 +1,88 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+package ch.njol.skript.util;
+
+import ch.njol.skript.Skript.InstanceSupplier;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+
+/**
+ * Creates {@link InstanceSupplier}s that call the public nullary constructor of a class.
+ * <p>
+ * The suppliers are generated with {@link LambdaMetafactory}, so they are as fast as a constructor reference
+ * (e.g. <tt>ExprEntity::new</tt>) and don't use reflection. If the class can't be accessed from Skript's class loader,
+ * the constructor is called using reflection instead.
+ */
+public final class InstanceSuppliers {
+
+    private static final MethodType SUPPLIER_FACTORY = MethodType.methodType(InstanceSupplier.class);
+    private static final MethodType NEW_INSTANCE = MethodType.methodType(Object.class);
+    private static final MethodType CONSTRUCTOR = MethodType.methodType(void.class);
+
+    private InstanceSuppliers() {
+        throw new UnsupportedOperationException("Static class");
+    }
+
+    /**
+     * @param c The class to create instances of
+     * @return A supplier that creates new instances of the given class
+     * @throws NoSuchMethodException If the class does not have a public nullary constructor
+     */
+    public static final <T> InstanceSupplier<T> create(final Class<T> c) throws NoSuchMethodException {
+        final Constructor<T> constructor = c.getConstructor();
+        if (isAccessible(c)) {
+            try {
+                final MethodHandles.Lookup lookup = MethodHandles.lookup();
+                final MethodHandle handle = lookup.findConstructor(c, CONSTRUCTOR);
+                final CallSite site = LambdaMetafactory.metafactory(lookup, "newInstance", SUPPLIER_FACTORY, NEW_INSTANCE, handle, MethodType.methodType(c));
+                @SuppressWarnings("unchecked") final InstanceSupplier<T> supplier = (InstanceSupplier<T>) site.getTarget().invoke();
+                return supplier;
+            } catch (final Throwable ignored) {
+                // Use reflection instead
+            }
+        }
+        return constructor::newInstance;
+    }
+
+    /**
+     * The generated supplier is defined by this class' loader, so it can only call the constructor if that loader
+     * finds the same class, and the class and its enclosing classes are public.
+     */
+    private static final boolean isAccessible(final Class<?> c) {
+        for (Class<?> e = c; e != null; e = e.getEnclosingClass()) {
+            if (!Modifier.isPublic(e.getModifiers()))
+                return false;
+        }
+        try {
+            return Class.forName(c.getName(), false, InstanceSuppliers.class.getClassLoader()) == c;
+        } catch (final ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+}
@@ -30,6 +30,7 @@ import ch.njol.skript.localization.Language;
 import ch.njol.skript.registrations.Classes;
 import ch.njol.util.NonNullPair;
 import ch.njol.util.Pair;
+import ch.njol.util.Randoms;
 import ch.njol.util.StringUtils;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Creature;
@@ -50,6 +51,10 @@ import java.util.regex.Pattern;
  */
 public final class Utils {
 
+    /**
+     * @deprecated Shared between all threads, use {@link Randoms} instead.
+     */
+    @Deprecated
     public static final Random random = new Random();
     static final ChatColor[] styles = {ChatColor.BOLD, ChatColor.ITALIC, ChatColor.STRIKETHROUGH, ChatColor.UNDERLINE, ChatColor.MAGIC, ChatColor.RESET};
     static final Map<String, String> chat = new HashMap<>();
@@ -82,9 +87,9 @@ public final class Utils {
     @SuppressWarnings("null")
     private static final Pattern stylePattern = Pattern.compile("<([^<>]+)>");
 
-    // Cached matchers for performance
-    private static final Matcher NONE_PATTERN_MATCHER = Pattern.compile("<<none>>", Pattern.LITERAL).matcher("");
+    private static final String NONE = "<<none>>";
 
+    // Cached matchers for performance
     private static final Matcher NUMBER_PATTERN_MATCHER = Pattern.compile("-?\\d+").matcher("");
     private static final Matcher AMOUNT_PATTERN_ONE_MATCHER = Pattern.compile("\\d+ of .+").matcher("");
 
@@ -392,6 +397,23 @@ public final class Utils {
         return chat.get(s);
     }
 
+    /**
+     * Removes all <tt>&lt;&lt;none&gt;&gt;</tt> from the message without using regular expressions,
+     * as this is also used concurrently at runtime.
+     */
+    private static final String removeNone(final String message) {
+        int i = message.indexOf(NONE);
+        if (i == -1)
+            return message;
+        final StringBuilder b = new StringBuilder(message.length());
+        int start = 0;
+        do {
+            b.append(message, start, i);
+            start = i + NONE.length();
+        } while ((i = message.indexOf(NONE, start)) != -1);
+        return b.append(message, start, message.length()).toString();
+    }
+
     /**
      * Replaces &lt;chat styles&gt; in the message
      *
@@ -400,9 +422,9 @@ public final class Utils {
      */
     @SuppressWarnings("null")
     public static final String replaceChatStyles(final String message) {
-        if (message.isEmpty())
+        if (message.indexOf('<') == -1 && message.indexOf('&') == -1) // Also used at runtime, e.g. in async chat events
             return message;
-        String m = StringUtils.replaceAll(NONE_PATTERN_MATCHER.reset(message).replaceAll(Matcher.quoteReplacement("")), stylePattern/*Matcher*/, m1 -> {
+        String m = StringUtils.replaceAll(removeNone(message), stylePattern/*Matcher*/, m1 -> {
             @SuppressWarnings("null") final Color c = Color.byName(m1.group(1));
             if (c != null)
                 return c.getChat();
@@ -445,12 +467,12 @@ public final class Utils {
      *
      * @param start
      * @param end
-     * @return <tt>start + random.nextInt(end - start)</tt>
+     * @return A random integer from {@link Randoms}
      */
     public static final int random(final int start, final int end) {
         if (end <= start)
             throw new IllegalArgumentException("end (" + end + ") must be > start (" + start + ')');
-        return start + random.nextInt(end - start);
+        return Randoms.nextInt(start, end);
     }
 
     // TODO improve
@@ -0,0 +1,471 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads and writes the lines of a <tt>variables.csv</tt> file without regular expressions.
+ * <p>
+ * Lines are split exactly like the old {@link ch.njol.skript.CriticalRegexps#CSV CSV pattern} did, but directly
+ * on the UTF-8 bytes of the file, so the hex encoded values are decoded without creating strings for them.
+ */
+final class CSVCodec {
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    /**
+     * The values of the ASCII hex digits, -1 for other ASCII characters like {@link Character#digit(char, int)}
+     */
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++)
+            HEX_VALUES['0' + i] = (byte) i;
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUES['a' + i] = (byte) (10 + i);
+            HEX_VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private CSVCodec() {
+        throw new UnsupportedOperationException("Static class");
+    }
+
+    static final String encodeHex(final byte[] data) {
+        final char[] r = new char[data.length << 1];
+        for (int i = 0; i < data.length; i++) {
+            r[2 * i] = HEX_DIGITS[(data[i] & 0xF0) >>> 4];
+            r[2 * i + 1] = HEX_DIGITS[data[i] & 0xF];
+        }
+        return new String(r);
+    }
+
+    private static final int hexValue(final char c) {
+        return c < 128 ? HEX_VALUES[c] : Character.digit(c, 16);
+    }
+
+    static final byte[] decodeHex(final CharSequence hex) {
+        final byte[] r = new byte[hex.length() / 2];
+        for (int i = 0; i < r.length; i++)
+            r[i] = (byte) ((hexValue(hex.charAt(2 * i)) << 4) + hexValue(hex.charAt(2 * i + 1)));
+        return r;
+    }
+
+    /**
+     * @return The decoded bytes, or null if the range contains non-ASCII characters
+     */
+    @Nullable
+    static final byte[] decodeHex(final byte[] hex, final int start, final int end) {
+        final byte[] r = new byte[(end - start) / 2];
+        for (int i = 0, j = start; i < r.length; i++, j += 2) {
+            final byte h = hex[j], l = hex[j + 1];
+            if ((h | l) < 0)
+                return null;
+            r[i] = (byte) ((HEX_VALUES[h] << 4) + HEX_VALUES[l]);
+        }
+        if ((end - start & 1) != 0 && hex[end - 1] < 0)
+            return null; // The last character is ignored, but must not be a part of a multi-byte character
+        return r;
+    }
+
+    /**
+     * Whitespace as in <tt>\s</tt> of regular expressions
+     */
+    private static final boolean isWhitespace(final int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    /**
+     * @return Whatever the value must be quoted, i.e. it contains whitespace, a comma, a quote or a '#'
+     */
+    static final boolean needsQuotes(final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '#' || isWhitespace(c))
+                return true;
+        }
+        return false;
+    }
+
+    private static final void writeValue(final PrintWriter pw, @Nullable final String value) {
+        if (value == null || !needsQuotes(value)) {
+            pw.print(value);
+            return;
+        }
+        pw.print('"');
+        int last = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                pw.write(value, last, i + 1 - last);
+                pw.print('"');
+                last = i + 1;
+            }
+        }
+        pw.write(value, last, value.length() - last);
+        pw.print('"');
+    }
+
+    /**
+     * Writes a line of the file.
+     *
+     * @param type  The type, printed as "null" if it is null
+     * @param value The value, written as hex
+     */
+    static final void write(final PrintWriter pw, final String name, @Nullable final String type, @Nullable final byte[] value) {
+        writeValue(pw, name);
+        pw.print(", ");
+        writeValue(pw, type);
+        pw.print(", ");
+        if (value != null) {
+            final char[] buf = new char[Math.min(value.length, 512) << 1];
+            for (int i = 0; i < value.length; ) {
+                int n = 0;
+                for (; n < buf.length && i < value.length; i++) {
+                    buf[n++] = HEX_DIGITS[(value[i] & 0xF0) >>> 4];
+                    buf[n++] = HEX_DIGITS[value[i] & 0xF];
+                }
+                pw.write(buf, 0, n);
+            }
+        }
+        pw.println();
+    }
+
+    /**
+     * Splits a line, see {@link Reader#split()}.
+     *
+     * @return The values, or null if the line is invalid
+     */
+    @Nullable
+    static final String[] split(final CharSequence line) {
+        final byte[] b = line.toString().getBytes(StandardCharsets.UTF_8);
+        final Splitter s = new Splitter();
+        final int n = s.split(b, 0, b.length);
+        if (n == -1)
+            return null;
+        final String[] r = new String[n];
+        for (int i = 0; i < n; i++)
+            r[i] = s.field(b, i);
+        return r;
+    }
+
+    /**
+     * Splits lines into values. A value is either unquoted and trimmed, or quoted with double quotes, in which case a
+     * double quote is escaped by another one. Values are separated by commas with optional whitespace around them.
+     * <p>
+     * Mirrors how the old pattern was used with {@link java.util.regex.Matcher#find()}, including how <tt>$</tt> also
+     * matches before a line terminator at the end, so invalid lines are still detected the same way.
+     */
+    private static final class Splitter {
+
+        private int[] starts = new int[4], ends = new int[4];
+        private boolean[] escaped = new boolean[4];
+        private int fields;
+
+        private int off, end;
+        private byte[] b = new byte[0];
+
+        /**
+         * Bounds of the value matched by the last call to {@link #matchAt(int)}
+         */
+        private int valueStart, valueEnd;
+        private boolean valueEscaped;
+
+        /**
+         * @return The number of values, or -1 if the line is invalid
+         */
+        final int split(final byte[] b, final int off, final int end) {
+            this.b = b;
+            this.off = off;
+            this.end = end;
+            fields = 0;
+            int lastEnd = off;
+            int from = off;
+            while (from <= end) {
+                int s = from, e = -1;
+                for (; s <= end; s++) {
+                    if ((s == off || b[s - 1] == ',') && (e = matchAt(s)) != -1)
+                        break;
+                }
+                if (e == -1)
+                    break;
+                if (s != lastEnd)
+                    return -1;
+                add();
+                lastEnd = e;
+                from = e == s ? e + 1 : e;
+            }
+            return lastEnd == end ? fields : -1;
+        }
+
+        private void add() {
+            if (fields == starts.length) {
+                starts = Arrays.copyOf(starts, fields * 2);
+                ends = Arrays.copyOf(ends, fields * 2);
+                escaped = Arrays.copyOf(escaped, fields * 2);
+            }
+            starts[fields] = valueStart;
+            ends[fields] = valueEnd;
+            escaped[fields] = valueEscaped;
+            fields++;
+        }
+
+        /**
+         * @return Whatever <tt>$</tt> matches at the position
+         */
+        private boolean isEnd(final int p) {
+            final int rest = end - p;
+            if (rest == 0)
+                return true;
+            if (rest == 1)
+                return b[p] == '\r' || b[p] == '\n' && (p == off || b[p - 1] != '\r');
+            if (rest == 2)
+                return b[p] == '\r' && b[p + 1] == '\n' || b[p] == (byte) 0xC2 && b[p + 1] == (byte) 0x85; // U+0085
+            if (rest == 3)
+                return b[p] == (byte) 0xE2 && b[p + 1] == (byte) 0x80 && (b[p + 2] == (byte) 0xA8 || b[p + 2] == (byte) 0xA9); // U+2028, U+2029
+            return false;
+        }
+
+        /**
+         * Matches a value and the following comma at the given position.
+         *
+         * @return The end of the match, or -1 if there is no match at the position
+         */
+        private int matchAt(final int s) {
+            // Unquoted
+            int p = s;
+            for (; ; p++) {
+                if (isEnd(p)) {
+                    trimmed(s, p);
+                    return p;
+                }
+                final byte c = b[p];
+                if (c == ',') {
+                    trimmed(s, p);
+                    return p + 1;
+                }
+                if (c == '"')
+                    break;
+            }
+
+            // Quoted, only whitespace may be in front of the quote
+            int q = s;
+            while (q < end && isWhitespace(b[q]))
+                q++;
+            if (q != p)
+                return -1;
+            boolean esc = false;
+            for (int i = q + 1; i < end; ) {
+                if (b[i] != '"') {
+                    i++;
+                    continue;
+                }
+                for (int f = i + 1; ; f++) { // Try to close at i
+                    if (f < end && b[f] == ',' || isEnd(f)) {
+                        valueStart = q + 1;
+                        valueEnd = i;
+                        valueEscaped = esc;
+                        return f < end && b[f] == ',' ? f + 1 : f;
+                    }
+                    if (f >= end || !isWhitespace(b[f]))
+                        break;
+                }
+                if (i + 1 < end && b[i + 1] == '"') {
+                    esc = true;
+                    i += 2;
+                } else {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        private void trimmed(int start, int end) {
+            while (start < end && (b[start] & 0xFF) <= ' ')
+                start++;
+            while (start < end && (b[end - 1] & 0xFF) <= ' ')
+                end--;
+            valueStart = start;
+            valueEnd = end;
+            valueEscaped = false;
+        }
+
+        final String field(final byte[] b, final int i) {
+            assert i < fields;
+            final int start = starts[i], end = ends[i];
+            if (!escaped[i])
+                return new String(b, start, end - start, StandardCharsets.UTF_8);
+            final byte[] r = new byte[end - start];
+            int n = 0;
+            for (int j = start; j < end; j++) {
+                r[n++] = b[j];
+                if (b[j] == '"')
+                    j++; // Quotes are always doubled
+            }
+            return new String(r, 0, n, StandardCharsets.UTF_8);
+        }
+
+        final byte[] hex(final byte[] b, final int i) {
+            assert i < fields;
+            if (escaped[i])
+                return decodeHex(field(b, i));
+            final byte[] r = decodeHex(b, starts[i], ends[i]);
+            return r != null ? r : decodeHex(field(b, i));
+        }
+
+    }
+
+    /**
+     * Reads the lines of a file like {@link java.io.BufferedReader#readLine()} followed by {@link String#trim()}.
+     */
+    static final class Reader implements Closeable {
+
+        private final InputStream in;
+        private byte[] buf = new byte[1 << 16];
+        private int pos, limit;
+        private boolean eof, skipLF;
+
+        private final Splitter splitter = new Splitter();
+        private int lineStart, lineEnd;
+
+        Reader(final InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * @return Whatever there was another line
+         */
+        final boolean nextLine() throws IOException {
+            if (skipLF) {
+                if (pos == limit)
+                    fill();
+                if (pos < limit && buf[pos] == '\n')
+                    pos++;
+                skipLF = false;
+            }
+            int scan = pos;
+            while (true) {
+                for (; scan < limit; scan++) {
+                    final byte c = buf[scan];
+                    if (c == '\n' || c == '\r') {
+                        setLine(pos, scan);
+                        pos = scan + 1;
+                        if (c == '\r') {
+                            if (pos < limit) {
+                                if (buf[pos] == '\n')
+                                    pos++;
+                            } else {
+                                skipLF = true;
+                            }
+                        }
+                        return true;
+                    }
+                }
+                if (eof) {
+                    if (pos == limit)
+                        return false;
+                    setLine(pos, limit);
+                    pos = limit;
+                    return true;
+                }
+                scan -= pos;
+                fill();
+                scan += pos;
+            }
+        }
+
+        /**
+         * Reads more bytes, moving the current line to the start of the buffer or growing it if needed.
+         */
+        private void fill() throws IOException {
+            if (pos != 0) {
+                System.arraycopy(buf, pos, buf, 0, limit - pos);
+                limit -= pos;
+                pos = 0;
+            }
+            if (limit == buf.length)
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            final int n = in.read(buf, limit, buf.length - limit);
+            if (n == -1)
+                eof = true;
+            else
+                limit += n;
+        }
+
+        private void setLine(int start, int end) {
+            while (start < end && (buf[start] & 0xFF) <= ' ')
+                start++;
+            while (start < end && (buf[end - 1] & 0xFF) <= ' ')
+                end--;
+            lineStart = start;
+            lineEnd = end;
+        }
+
+        final boolean isEmpty() {
+            return lineStart == lineEnd;
+        }
+
+        final byte firstByte() {
+            assert !isEmpty();
+            return buf[lineStart];
+        }
+
+        final String line() {
+            return new String(buf, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Splits the current line into values.
+         *
+         * @return The number of values, or -1 if the line is invalid
+         */
+        final int split() {
+            return splitter.split(buf, lineStart, lineEnd);
+        }
+
+        final String field(final int i) {
+            return splitter.field(buf, i);
+        }
+
+        /**
+         * @return The field decoded as hex
+         */
+        final byte[] hex(final int i) {
+            return splitter.hex(buf, i);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,349 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The versioned change feed of a variables table shared by multiple servers, used by {@link DatabaseStorage}.
+ * <p>
+ * Every row has a <tt>version</tt>, taken from a counter table when the rows written since the last transaction are
+ * {@link #commit(Connection) committed}. All rows of a flush share one version, and as the counter row
+ * stays locked until the commit, versions become visible in ascending order. Other servers can thus fetch all changes
+ * made since the last fetch with one indexed query, in pages of at most {@link #FETCH_SIZE} rows.
+ * <p>
+ * Deleted variables are kept as rows without a value (tombstones) if {@link #isTombstones() enabled}, so the other
+ * servers see the deletion, until they are {@link #deleteTombstones(long) cleaned up}.
+ * <p>
+ * Only uses plain JDBC and SQL that works in both MySQL and SQLite. Not thread safe, the caller has to synchronize.
+ */
+final class ChangeFeed {
+
+    /**
+     * The maximum number of rows returned by {@link #fetch()}
+     */
+    static final int FETCH_SIZE = 1000;
+    /**
+     * The number of rows above which the feed is {@link #isFull() full}
+     */
+    static final int MAX_PENDING = 10 * WriteBehindBuffer.MAX_BATCH_SIZE;
+
+    private final String table, versionTable, guid;
+    private final boolean tombstones;
+
+    /**
+     * Rows written since the last flush, by name. Later writes of the same variable replace earlier ones.
+     */
+    private final Map<String, Row> pending = new LinkedHashMap<>();
+
+    /**
+     * The position after the last fetched row: all rows with a smaller version, or the same version and a name
+     * smaller than or equal to {@link #cursorName}, were already fetched. A null name means all rows of the version.
+     */
+    private long cursorVersion;
+    @Nullable
+    private String cursorName;
+
+    @Nullable
+    private PreparedStatement writeQuery, deleteQuery, incrementQuery, counterQuery, fetchQuery, cleanUpQuery;
+
+    /**
+     * @param table      The variables table, with the columns <tt>name</tt>, <tt>type</tt>, <tt>value</tt> and <tt>update_guid</tt>
+     * @param guid       Identifies the rows written by this server, which are not fetched
+     * @param tombstones Whatever to keep deleted variables as rows without a value, so other servers see the deletion
+     */
+    ChangeFeed(final String table, final String guid, final boolean tombstones) {
+        this.table = table;
+        this.versionTable = table + "_version";
+        this.guid = guid;
+        this.tombstones = tombstones;
+    }
+
+    final boolean isTombstones() {
+        return tombstones;
+    }
+
+    /**
+     * Adds the version column and its index to the variables table if it doesn't have them yet, and creates the
+     * counter table. Commits the connection.
+     */
+    final void install(final Connection con) throws SQLException {
+        try (final Statement s = con.createStatement()) {
+            boolean hasVersion;
+            try {
+                s.executeQuery("SELECT version FROM " + table + " LIMIT 1").close();
+                hasVersion = true;
+            } catch (final SQLException e) {
+                hasVersion = false;
+                con.rollback();
+            }
+            if (!hasVersion) {
+                s.executeUpdate("ALTER TABLE " + table + " ADD COLUMN version BIGINT NOT NULL DEFAULT 0");
+                s.executeUpdate("CREATE INDEX " + table + "_version_index ON " + table + " (version)");
+            }
+            s.executeUpdate("CREATE TABLE IF NOT EXISTS " + versionTable + " (id INT NOT NULL PRIMARY KEY, version BIGINT NOT NULL)");
+            boolean hasCounter;
+            try (final ResultSet r = s.executeQuery("SELECT version FROM " + versionTable + " WHERE id = 0")) {
+                hasCounter = r.next();
+            }
+            if (!hasCounter) {
+                try {
+                    s.executeUpdate("INSERT INTO " + versionTable + " (id, version) SELECT 0, COALESCE(MAX(version), 0) FROM " + table);
+                } catch (final SQLException e) { // another server created it in the meantime
+                    con.rollback();
+                    try (final ResultSet r = s.executeQuery("SELECT version FROM " + versionTable + " WHERE id = 0")) {
+                        if (!r.next())
+                            throw e;
+                    }
+                }
+            }
+        }
+        con.commit();
+    }
+
+    /**
+     * (Re)creates the prepared statements, as they get closed as well when closing the connection.
+     */
+    final void prepare(final Connection con) throws SQLException {
+        closeQueries();
+        writeQuery = con.prepareStatement("REPLACE INTO " + table + " (name, type, value, update_guid, version) VALUES (?, ?, ?, ?, ?)");
+        deleteQuery = con.prepareStatement("DELETE FROM " + table + " WHERE name = ?");
+        incrementQuery = con.prepareStatement("UPDATE " + versionTable + " SET version = version + 1 WHERE id = 0");
+        counterQuery = con.prepareStatement("SELECT version FROM " + versionTable + " WHERE id = 0");
+        fetchQuery = con.prepareStatement("SELECT name, type, value, version FROM " + table + " WHERE (version > ? OR (version = ? AND name > ?)) AND update_guid != ? ORDER BY version, name LIMIT " + FETCH_SIZE);
+        cleanUpQuery = con.prepareStatement("DELETE FROM " + table + " WHERE value IS NULL AND version < ?");
+    }
+
+    final void closeQueries() {
+        for (final PreparedStatement q : new PreparedStatement[]{writeQuery, deleteQuery, incrementQuery, counterQuery, fetchQuery, cleanUpQuery}) {
+            try {
+                if (q != null)
+                    q.close();
+            } catch (final SQLException ignored) {
+                /* ignored */
+            }
+        }
+    }
+
+    /**
+     * Queues a write until the next {@link #commit(Connection)}.
+     *
+     * @param type  The type of the value, or null to delete the variable
+     * @param value The serialized value, or null to delete the variable
+     */
+    final void write(final String name, @Nullable final String type, @Nullable final byte[] value) {
+        pending.remove(name); // keeps the order of writes
+        pending.put(name, new Row(name, type, value, 0));
+    }
+
+    final int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * @return Whatever at least {@link #MAX_PENDING} rows are queued, e.g. as commits fail while the database is
+     * unreachable. No more rows should be written until the next successful commit.
+     */
+    final boolean isFull() {
+        return pending.size() >= MAX_PENDING;
+    }
+
+    /**
+     * Writes the queued rows in the format of the variables file, e.g. if they can't be committed.
+     */
+    final void dump(final PrintWriter pw) {
+        for (final Row row : pending.values()) {
+            final String name = row.name;
+            assert name != null;
+            CSVCodec.write(pw, name, row.type, row.value);
+        }
+    }
+
+    /**
+     * Writes all queued rows with a new version and commits the transaction. If this fails, the transaction is rolled
+     * back and the rows stay queued, so they are written by the next commit.
+     *
+     * @return The version of the written rows, or -1 if nothing was queued
+     */
+    final long commit(final Connection con) throws SQLException {
+        try {
+            final long version = flush();
+            con.commit();
+            pending.clear();
+            return version;
+        } catch (final SQLException | RuntimeException e) {
+            try {
+                con.rollback();
+            } catch (final SQLException ex) {
+                e.addSuppressed(ex);
+            }
+            for (final PreparedStatement q : new PreparedStatement[]{writeQuery, deleteQuery}) {
+                try {
+                    if (q != null)
+                        q.clearBatch();
+                } catch (final SQLException ignored) {
+                    /* ignored */
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Writes all queued rows with a new version. Locks the counter row until the transaction is committed.
+     */
+    private final long flush() throws SQLException {
+        if (pending.isEmpty())
+            return -1;
+        final List<Row> rows = new ArrayList<>(pending.values());
+
+        final PreparedStatement incrementQuery = this.incrementQuery, counterQuery = this.counterQuery,
+                writeQuery = this.writeQuery, deleteQuery = this.deleteQuery;
+        assert incrementQuery != null && counterQuery != null && writeQuery != null && deleteQuery != null;
+
+        incrementQuery.executeUpdate();
+        final long version;
+        try (final ResultSet r = counterQuery.executeQuery()) {
+            if (!r.next())
+                throw new SQLException("The version counter is missing from the table " + versionTable);
+            version = r.getLong(1);
+        }
+
+        boolean writes = false, deletes = false;
+        for (final Row row : rows) {
+            if (row.type == null && !tombstones) {
+                deleteQuery.setString(1, row.name);
+                deleteQuery.addBatch();
+                deletes = true;
+            } else {
+                int i = 1;
+                writeQuery.setString(i++, row.name);
+                writeQuery.setString(i++, row.type);
+                writeQuery.setBytes(i++, row.value); // SQLite doesn't support setBlob
+                writeQuery.setString(i++, guid);
+                writeQuery.setLong(i, version);
+                writeQuery.addBatch();
+                writes = true;
+            }
+        }
+        if (writes)
+            writeQuery.executeBatch();
+        if (deletes)
+            deleteQuery.executeBatch();
+        return version;
+    }
+
+    /**
+     * Marks all rows up to and including the given version as fetched, e.g. after loading the whole table.
+     */
+    final void seen(final long version) {
+        if (version > cursorVersion || version == cursorVersion && cursorName != null) {
+            cursorVersion = version;
+            cursorName = null;
+        }
+    }
+
+    final long getCursor() {
+        return cursorVersion;
+    }
+
+    /**
+     * Fetches the next rows changed by other servers, in ascending order of their version, and advances the cursor
+     * past them. Fetch again while a full page of {@link #FETCH_SIZE} rows is returned.
+     */
+    final List<Row> fetch() throws SQLException {
+        final PreparedStatement fetchQuery = this.fetchQuery;
+        assert fetchQuery != null;
+        fetchQuery.setLong(1, cursorVersion);
+        fetchQuery.setLong(2, cursorVersion);
+        if (cursorName == null)
+            fetchQuery.setNull(3, Types.VARCHAR);
+        else
+            fetchQuery.setString(3, cursorName);
+        fetchQuery.setString(4, guid);
+
+        final List<Row> rows = new ArrayList<>();
+        try (final ResultSet r = fetchQuery.executeQuery()) {
+            while (r.next()) {
+                final String name = r.getString(1);
+                final long version = r.getLong(4);
+                cursorVersion = version;
+                cursorName = name;
+                rows.add(new Row(name, r.getString(2), r.getBytes(3), version)); // Blob not supported by SQLite
+            }
+        }
+        if (rows.size() < FETCH_SIZE)
+            cursorName = null; // all rows of the last version were fetched
+        return rows;
+    }
+
+    /**
+     * Deletes the tombstones of variables deleted before the given version.
+     *
+     * @return How many tombstones were deleted
+     */
+    final int deleteTombstones(final long version) throws SQLException {
+        final PreparedStatement cleanUpQuery = this.cleanUpQuery;
+        assert cleanUpQuery != null;
+        cleanUpQuery.setLong(1, version);
+        return cleanUpQuery.executeUpdate();
+    }
+
+    /**
+     * A row of the variables table. The value is null if the variable was deleted.
+     */
+    static final class Row {
+        @Nullable
+        final String name;
+        @Nullable
+        final String type;
+        @Nullable
+        final byte[] value;
+        final long version;
+
+        Row(@Nullable final String name, @Nullable final String type, @Nullable final byte[] value, final long version) {
+            this.name = name;
+            this.type = type;
+            this.value = value;
+            this.version = version;
+        }
+
+        @Override
+        public String toString() {
+            return name + " = " + type + " (version " + version + ')';
+        }
+    }
+
+}
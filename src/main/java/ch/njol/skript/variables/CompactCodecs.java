@@ -0,0 +1,370 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import ch.njol.skript.classes.ClassInfo;
+import ch.njol.skript.classes.Serializer;
+import ch.njol.skript.registrations.Classes;
+import ch.njol.skript.util.Date;
+import ch.njol.skript.util.Timespan;
+import ch.njol.skript.variables.SerializedVariable.Value;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact binary encodings for the most common types of variable values, which are saved without going through
+ * Yggdrasil: numbers, booleans, texts, UUIDs, timespans, dates and locations.
+ * <p>
+ * Integral numbers, timespans and dates are saved as variable length integers, other numbers and UUIDs with a fixed width,
+ * texts as plain UTF-8 and locations as their coordinates followed by the name of their world.
+ * <p>
+ * Values encoded this way are saved with their class's code name prefixed by {@link #PREFIX} as their type,
+ * e.g. <tt>~long</tt>. Code names can't contain this character, so values saved by Yggdrasil are still loaded
+ * as they were, and all other types are still saved by Yggdrasil.
+ */
+final class CompactCodecs {
+
+    static final char PREFIX = '~';
+
+    private static final Map<Class<?>, Codec<?>> byClass = new HashMap<>();
+    private static final Map<String, Codec<?>> byType = new HashMap<>();
+
+    static {
+        register(new Codec<Long>(Long.class, "long") {
+            @Override
+            byte[] encode(final Long o) {
+                return writeVarLong(zigZag(o));
+            }
+
+            @Override
+            Long decode(final byte[] d) throws StreamCorruptedException {
+                return unZigZag(readVarLong(d));
+            }
+        });
+        register(new Codec<Integer>(Integer.class, "integer") {
+            @Override
+            byte[] encode(final Integer o) {
+                return writeVarLong(zigZag(o));
+            }
+
+            @Override
+            Integer decode(final byte[] d) throws StreamCorruptedException {
+                return (int) unZigZag(readVarLong(d));
+            }
+        });
+        register(new Codec<Short>(Short.class, "short") {
+            @Override
+            byte[] encode(final Short o) {
+                return writeVarLong(zigZag(o));
+            }
+
+            @Override
+            Short decode(final byte[] d) throws StreamCorruptedException {
+                return (short) unZigZag(readVarLong(d));
+            }
+        });
+        register(new Codec<Byte>(Byte.class, "byte") {
+            @Override
+            byte[] encode(final Byte o) {
+                return new byte[]{o};
+            }
+
+            @Override
+            Byte decode(final byte[] d) throws StreamCorruptedException {
+                checkLength(d, 1);
+                return d[0];
+            }
+        });
+        register(new Codec<Double>(Double.class, "double") {
+            @Override
+            byte[] encode(final Double o) {
+                return ByteBuffer.allocate(8).putDouble(o).array();
+            }
+
+            @Override
+            Double decode(final byte[] d) throws StreamCorruptedException {
+                checkLength(d, 8);
+                return ByteBuffer.wrap(d).getDouble();
+            }
+        });
+        register(new Codec<Float>(Float.class, "float") {
+            @Override
+            byte[] encode(final Float o) {
+                return ByteBuffer.allocate(4).putFloat(o).array();
+            }
+
+            @Override
+            Float decode(final byte[] d) throws StreamCorruptedException {
+                checkLength(d, 4);
+                return ByteBuffer.wrap(d).getFloat();
+            }
+        });
+        register(new Codec<Boolean>(Boolean.class, "boolean") {
+            @Override
+            byte[] encode(final Boolean o) {
+                return new byte[]{(byte) (o ? 1 : 0)};
+            }
+
+            @Override
+            Boolean decode(final byte[] d) throws StreamCorruptedException {
+                checkLength(d, 1);
+                return d[0] != 0;
+            }
+        });
+        register(new Codec<String>(String.class, "string") {
+            @Override
+            byte[] encode(final String o) {
+                return o.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            String decode(final byte[] d) {
+                return new String(d, StandardCharsets.UTF_8);
+            }
+        });
+        register(new Codec<UUID>(UUID.class, "uuid") {
+            @Override
+            byte[] encode(final UUID o) {
+                return ByteBuffer.allocate(16).putLong(o.getMostSignificantBits()).putLong(o.getLeastSignificantBits()).array();
+            }
+
+            @Override
+            UUID decode(final byte[] d) throws StreamCorruptedException {
+                checkLength(d, 16);
+                final ByteBuffer b = ByteBuffer.wrap(d);
+                return new UUID(b.getLong(), b.getLong());
+            }
+        });
+        register(new Codec<Timespan>(Timespan.class, "timespan") {
+            @Override
+            byte[] encode(final Timespan o) {
+                return writeVarLong(o.getMilliSeconds());
+            }
+
+            @Override
+            Timespan decode(final byte[] d) throws StreamCorruptedException {
+                final long millis = readVarLong(d);
+                if (millis < 0)
+                    throw new StreamCorruptedException("Negative timespan: " + millis);
+                return new Timespan(millis);
+            }
+        });
+        register(new Codec<Date>(Date.class, "date") {
+            @Override
+            byte[] encode(final Date o) {
+                return writeVarLong(zigZag(o.getTimestamp()));
+            }
+
+            @Override
+            Date decode(final byte[] d) throws StreamCorruptedException {
+                return new Date(unZigZag(readVarLong(d)));
+            }
+        });
+        register(new Codec<Location>(Location.class, "location") {
+            @Override
+            @Nullable
+            byte[] encode(final Location o) {
+                final World w = o.getWorld();
+                if (w == null)
+                    return null;
+                final byte[] world = w.getName().getBytes(StandardCharsets.UTF_8);
+                return ByteBuffer.allocate(32 + world.length).putDouble(o.getX()).putDouble(o.getY()).putDouble(o.getZ())
+                        .putFloat(o.getYaw()).putFloat(o.getPitch()).put(world).array();
+            }
+
+            @Override
+            @Nullable
+            Location decode(final byte[] d) throws StreamCorruptedException {
+                if (d.length <= 32)
+                    throw new StreamCorruptedException("Invalid length " + d.length);
+                final ByteBuffer b = ByteBuffer.wrap(d);
+                final double x = b.getDouble(), y = b.getDouble(), z = b.getDouble();
+                final float yaw = b.getFloat(), pitch = b.getFloat();
+                final World w = Bukkit.getWorld(new String(d, 32, d.length - 32, StandardCharsets.UTF_8));
+                if (w == null)
+                    return null; // the world doesn't exist (anymore)
+                return new Location(w, x, y, z, yaw, pitch);
+            }
+        });
+    }
+
+    private CompactCodecs() {
+        throw new UnsupportedOperationException("Static class");
+    }
+
+    private static final void register(final Codec<?> codec) {
+        byClass.put(codec.c, codec);
+        byType.put(codec.type, codec);
+    }
+
+    /**
+     * @return Whatever the given type is the type of a value saved by a codec of this class
+     */
+    static final boolean isCompact(final String type) {
+        return !type.isEmpty() && type.charAt(0) == PREFIX;
+    }
+
+    /**
+     * @param type A type starting with {@link #PREFIX}
+     * @return The codec for the given type, or null if there is none
+     */
+    @Nullable
+    static final Codec<?> get(final String type) {
+        return byType.get(type);
+    }
+
+    /**
+     * @return The class info of the given compact type, or null if there is no such type
+     */
+    @Nullable
+    static final ClassInfo<?> getClassInfo(final String type) {
+        final Codec<?> codec = byType.get(type);
+        return codec == null ? null : Classes.getClassInfoNoError(codec.codeName);
+    }
+
+    /**
+     * Serializes a value with its compact codec. Only used if the value's class is registered and serializable,
+     * so values that can't be saved now can't suddenly be saved either.
+     *
+     * @return The serialized value, or null if there is no codec for the value and it has to be serialized with Yggdrasil
+     */
+    @Nullable
+    static final Value serialize(final Object o) {
+        @SuppressWarnings("unchecked")
+        final Codec<Object> codec = (Codec<Object>) byClass.get(o.getClass());
+        if (codec == null)
+            return null;
+        final ClassInfo<?> ci = Classes.getExactClassInfo(o.getClass());
+        if (ci == null || ci.getSerializer() == null || ci.getSerializeAs() != null)
+            return null;
+        final byte[] d = codec.encode(o);
+        return d == null ? null : new Value(codec.type, d);
+    }
+
+    /**
+     * Values whose class's serializer {@link Serializer#mustSyncDeserialization() must deserialize on the main thread}
+     * (i.e. locations, which need their world) are decoded there like the serializer would, waiting for the main thread if this
+     * is called from another thread. Storages loading in the background should defer them with {@link Variables#deserialize(String, byte[])} instead.
+     *
+     * @return The deserialized value, or null if the type is unknown or the value can't be deserialized
+     */
+    @Nullable
+    static final Object deserialize(final String type, final byte[] value) {
+        final Codec<?> codec = byType.get(type);
+        if (codec == null)
+            return null;
+        final ClassInfo<?> ci = Classes.getClassInfoNoError(codec.codeName);
+        final Serializer<?> s;
+        if (ci != null && (s = ci.getSerializer()) != null && s.mustSyncDeserialization() && !Bukkit.isPrimaryThread())
+            return Variables.callSync(() -> decode(codec, value));
+        return decode(codec, value);
+    }
+
+    @Nullable
+    private static final Object decode(final Codec<?> codec, final byte[] value) {
+        try {
+            return codec.decode(value);
+        } catch (final StreamCorruptedException | IllegalArgumentException e) { // i.e. invalid save
+            return null;
+        }
+    }
+
+    static final long zigZag(final long v) {
+        return v << 1 ^ v >> 63;
+    }
+
+    static final long unZigZag(final long v) {
+        return v >>> 1 ^ -(v & 1);
+    }
+
+    /**
+     * Writes an unsigned variable length integer, 7 bits per byte with the highest bit set on all bytes but the last.
+     */
+    static final byte[] writeVarLong(long v) {
+        int length = 1;
+        for (long r = v >>> 7; r != 0; r >>>= 7)
+            length++;
+        final byte[] d = new byte[length];
+        for (int i = 0; i < length - 1; i++) {
+            d[i] = (byte) (v & 0x7F | 0x80);
+            v >>>= 7;
+        }
+        d[length - 1] = (byte) v;
+        return d;
+    }
+
+    static final long readVarLong(final byte[] d) throws StreamCorruptedException {
+        if (d.length == 0 || d.length > 10 || d[d.length - 1] < 0)
+            throw new StreamCorruptedException("Invalid variable length integer");
+        long v = 0;
+        for (int i = 0; i < d.length; i++) {
+            if (i < d.length - 1 && d[i] >= 0)
+                throw new StreamCorruptedException("Invalid variable length integer");
+            v |= (long) (d[i] & 0x7F) << 7 * i;
+        }
+        return v;
+    }
+
+    static final void checkLength(final byte[] d, final int length) throws StreamCorruptedException {
+        if (d.length != length)
+            throw new StreamCorruptedException("Invalid length " + d.length + ", expected " + length);
+    }
+
+    /**
+     * Encodes and decodes the values of exactly one class, values of subclasses are still serialized with Yggdrasil.
+     */
+    abstract static class Codec<T> {
+        final Class<T> c;
+        final String codeName, type;
+
+        Codec(final Class<T> c, final String codeName) {
+            this.c = c;
+            this.codeName = codeName;
+            this.type = PREFIX + codeName;
+        }
+
+        /**
+         * @return The encoded value, or null if it has to be serialized with Yggdrasil
+         */
+        @Nullable
+        abstract byte[] encode(T o);
+
+        @Nullable
+        abstract T decode(byte[] d) throws StreamCorruptedException;
+
+        @Override
+        public String toString() {
+            return type;
+        }
+    }
+
+}
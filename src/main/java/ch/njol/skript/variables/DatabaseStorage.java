@@ -37,12 +37,21 @@ import org.bukkit.plugin.Plugin;
 import org.eclipse.jdt.annotation.Nullable;
 
 import java.io.File;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -61,7 +70,7 @@ public final class DatabaseStorage extends VariablesStorage {
     private static final String TABLE_NAME = "variables21",
             OLD_TABLE_NAME = "variables";
 
-    private static final String SELECT_ORDER = "name, type, value, rowid";
+    private static final String SELECT_ORDER = "name, type, value, version";
     private static final String guid = UUID.randomUUID().toString();
     /**
      * The delay between transactions in milliseconds.
@@ -72,37 +81,17 @@ public final class DatabaseStorage extends VariablesStorage {
     @SuppressWarnings("null")
     final SynchronizedReference<Database> db = new SynchronizedReference<>(null);
     private final Type type;
-    /**
-     * Params: rowID
-     * <p>
-     * Deletes null variables from the database older than the given value
-     */
-    @Nullable
-    PreparedStatement monitorCleanUpQuery;
     private long monitorInterval;
-    private long lastRowID = -1;
     private boolean monitor;
     /**
-     * Params: name, type, value, GUID
-     * <p>
-     * Writes a variable to the database
-     */
-    @Nullable
-    private PreparedStatement writeQuery;
-    /**
-     * Params: name
-     * <p>
-     * Deletes a variable from the database
+     * Writes the variables in batches on each commit, and fetches the variables changed by other servers if monitoring changes
      */
     @Nullable
-    private PreparedStatement deleteQuery;
+    private ChangeFeed feed;
     /**
-     * Params: rowID, GUID
-     * <p>
-     * Selects changed rows. values in order: {@value #SELECT_ORDER}
+     * Set when closing, after which the remaining changes are always written to the {@link #feed}
      */
-    @Nullable
-    private PreparedStatement monitorQuery;
+    private volatile boolean closing;
 
     DatabaseStorage(final String name, final Type type) {
         super(name);
@@ -129,6 +118,7 @@ public final class DatabaseStorage extends VariablesStorage {
                 return false;
             monitor = monitor_changes;
             monitorInterval = monitor_interval.getMilliSeconds();
+            feed = new ChangeFeed(TABLE_NAME, guid, monitor);
 
             final Database db;
             try {
@@ -157,6 +147,15 @@ public final class DatabaseStorage extends VariablesStorage {
                     return false;
                 }
 
+                try {
+                    final ChangeFeed feed = this.feed;
+                    assert feed != null;
+                    feed.install(db.getConnection());
+                } catch (final SQLException e) {
+                    Skript.error("Could not add the version column to the variables table in the database '" + databaseName + "': " + e.getLocalizedMessage());
+                    return false;
+                }
+
                 if (!prepareQueries()) {
                     return false;
                 }
@@ -165,7 +164,7 @@ public final class DatabaseStorage extends VariablesStorage {
                 final boolean hasOldTable = db.isTable(OLD_TABLE_NAME);
                 final boolean hadNewTable = db.isTable(TABLE_NAME);
                 if (hasOldTable) {
-                    try (final ResultSet r1 = db.query("SELECT " + SELECT_ORDER + " FROM " + OLD_TABLE_NAME)) {
+                    try (final ResultSet r1 = db.query("SELECT name, type, value FROM " + OLD_TABLE_NAME)) {
                         assert r1 != null;
                         oldLoadVariables(r1, hadNewTable);
                     }
@@ -203,6 +202,7 @@ public final class DatabaseStorage extends VariablesStorage {
                         } else {
                             boolean error = false;
                             try {
+                                commit(); // writes the transferred variables
                                 disconnect(); // prevents SQLITE_LOCKED error
                                 connect();
                                 db.query("DROP TABLE " + OLD_TABLE_NAME).close();
@@ -248,20 +248,15 @@ public final class DatabaseStorage extends VariablesStorage {
 
     @Override
     protected void allLoaded() {
-        Skript.debug("Database " + databaseName + " loaded. Queue size = " + changesQueue.size());
+        Skript.debug("Database " + databaseName + " loaded. Queue size = " + writeBuffer.getPendingVariables());
 
         // start committing thread. Its first execution will also commit the first batch of changed variables.
         Skript.newThread(() -> {
             while (!closed) {
                 final long lastCommit;
                 synchronized (db) {
-                    final Database db = DatabaseStorage.this.db.get();
-                    try {
-                        if (db != null)
-                            db.getConnection().commit();
-                    } catch (final SQLException e) {
-                        sqlException(e);
-                    }
+                    commit();
+                    db.notifyAll(); // wakes up the write thread if the feed was full
                     lastCommit = System.currentTimeMillis();
                 }
                 try {
@@ -345,7 +340,23 @@ public final class DatabaseStorage extends VariablesStorage {
                 sqlException(e);
                 return false;
             }
-            return true;
+            return first || prepareQueries(); // statements are closed with the connection
+        }
+    }
+
+    /**
+     * Writes the variables saved since the last commit with a new version and commits them. If that fails, they are
+     * written again by the next commit. Must be called while synchronized on {@link #db}.
+     */
+    private final void commit() {
+        final Database db = this.db.get();
+        final ChangeFeed feed = this.feed;
+        if (db == null || feed == null)
+            return;
+        try {
+            feed.commit(db.getConnection());
+        } catch (final SQLException e) {
+            sqlException(e);
         }
     }
 
@@ -357,38 +368,10 @@ public final class DatabaseStorage extends VariablesStorage {
     private final boolean prepareQueries() {
         synchronized (db) {
             final Database db = this.db.get();
-            assert db != null;
+            final ChangeFeed feed = this.feed;
+            assert db != null && feed != null;
             try {
-                try {
-                    if (writeQuery != null)
-                        writeQuery.close();
-                } catch (final SQLException ignored) {
-                    /* ignored */
-                }
-                writeQuery = db.prepare("REPLACE INTO " + TABLE_NAME + " (name, type, value, update_guid) VALUES (?, ?, ?, ?)");
-
-                try {
-                    if (deleteQuery != null)
-                        deleteQuery.close();
-                } catch (final SQLException ignored) {
-                    /* ignored */
-                }
-                deleteQuery = db.prepare("DELETE FROM " + TABLE_NAME + " WHERE name = ?");
-
-                try {
-                    if (monitorQuery != null)
-                        monitorQuery.close();
-                } catch (final SQLException ignored) {
-                    /* ignored */
-                }
-                monitorQuery = db.prepare("SELECT " + SELECT_ORDER + " FROM " + TABLE_NAME + " WHERE rowid > ? AND update_guid != ?");
-                try {
-                    if (monitorCleanUpQuery != null)
-                        monitorCleanUpQuery.close();
-                } catch (final SQLException ignored) {
-                    /* ignored */
-                }
-                monitorCleanUpQuery = db.prepare("DELETE FROM " + TABLE_NAME + " WHERE value IS NULL AND rowid < ?");
+                feed.prepare(db.getConnection());
             } catch (final SQLException e) {
                 Skript.exception(e, "Could not prepare queries for the database '" + databaseName + "': " + e.getLocalizedMessage());
                 return false;
@@ -409,6 +392,26 @@ public final class DatabaseStorage extends VariablesStorage {
         }
     }
 
+    /**
+     * Waits while the {@link #feed} is {@link ChangeFeed#isFull() full}, e.g. while the database is unreachable. The
+     * changes then stay in the {@link #writeBuffer}, which warns if too many of them are waiting to be saved.
+     */
+    @Override
+    protected void save(final List<SerializedVariable> batch) {
+        synchronized (db) {
+            ChangeFeed feed;
+            while (!closing && (feed = this.feed) != null && feed.isFull()) {
+                try {
+                    db.wait(TRANSACTION_DELAY);
+                } catch (final InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            super.save(batch);
+        }
+    }
+
     @Override
     protected boolean save(final String name, @Nullable final String type, @Nullable final byte[] value) {
         synchronized (db) {
@@ -417,27 +420,11 @@ public final class DatabaseStorage extends VariablesStorage {
                 Skript.error("The name of the variable {" + name + "} is too long to be saved in a database (length: " + name.length() + ", maximum allowed: " + MAX_VARIABLE_NAME_LENGTH + ")! It will be truncated and won't bet available under the same name again when loaded.");
             if (value != null && value.length > MAX_VALUE_SIZE)
                 Skript.error("The variable {" + name + "} cannot be saved in the database as its value's size (" + value.length + ") exceeds the maximum allowed size of " + MAX_VALUE_SIZE + "! An attempt to save the variable will be made nonetheless.");
-            try {
-                if (type == null) {
-                    assert value == null;
-                    final PreparedStatement deleteQuery = this.deleteQuery;
-                    assert deleteQuery != null;
-                    deleteQuery.setString(1, name);
-                    deleteQuery.executeUpdate();
-                } else {
-                    final PreparedStatement writeQuery = this.writeQuery;
-                    assert writeQuery != null;
-                    int i = 1;
-                    writeQuery.setString(i++, name);
-                    writeQuery.setString(i++, type);
-                    writeQuery.setBytes(i++, value); // SQLite doesn't support setBlob
-                    writeQuery.setString(i, guid);
-                    writeQuery.executeUpdate();
-                }
-            } catch (final SQLException e) {
-                sqlException(e);
+            assert type != null || value == null;
+            final ChangeFeed feed = this.feed;
+            if (feed == null)
                 return false;
-            }
+            feed.write(name, type, value); // written on the next commit
         }
         return true;
     }
@@ -445,41 +432,66 @@ public final class DatabaseStorage extends VariablesStorage {
     @SuppressWarnings("null")
     @Override
     public void close() {
+        closing = true;
+        synchronized (db) {
+            db.notifyAll();
+        }
+        super.close(); // not synchronized, the write thread needs the lock to save the remaining changes
         synchronized (db) {
-            super.close();
             final Database db = this.db.get();
             if (db != null) {
-                try (final Connection con = db.getConnection()) {
-                    con.commit();
-                } catch (final SQLException e) {
-                    sqlException(e);
-                }
+                commit();
+                final ChangeFeed feed = this.feed;
+                if (feed != null && feed.getPending() > 0 && connect()) // try again once after reconnecting
+                    commit();
+                if (feed != null && feed.getPending() > 0)
+                    saveUncommitted(feed);
+                if (feed != null)
+                    feed.closeQueries();
                 db.close();
                 this.db.set(null);
             }
         }
     }
 
-    @SuppressWarnings({"null", "unused"})
+    /**
+     * Writes the rows that could not be committed when closing to a file in the backups folder, so they aren't lost.
+     * The file has the format of a variables file.
+     */
+    private final void saveUncommitted(final ChangeFeed feed) {
+        final File folder = VariablesBackup.getBackupsFolder();
+        final File file = new File(folder, "uncommitted_" + databaseName + '_' + new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date()) + ".csv");
+        folder.mkdirs();
+        try (final PrintWriter pw = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), FlatFileStorage.UTF_8))) {
+            feed.dump(pw);
+            if (pw.checkError())
+                throw new IOException("Cannot write to " + file.getPath());
+            Skript.error(feed.getPending() + " changed variables could not be saved to the database '" + databaseName + "'. They were written to " + file.getPath() + " instead.");
+        } catch (final IOException e) {
+            Skript.error(feed.getPending() + " changed variables could not be saved to the database '" + databaseName + "' and are lost: " + e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Fetches the variables changed by other servers since the last check page by page, deserializes them on the current
+     * thread where possible and applies each page at once on the main thread.
+     */
     private final void checkDatabase() {
         try {
-            final long lastRowID; // local variable as this is used to clean the database below
-
-            synchronized (db) {
-                if (closed || db.get() == null)
-                    return;
-                lastRowID = this.lastRowID;
-                final PreparedStatement monitorQuery = this.monitorQuery;
-                assert monitorQuery != null;
-                monitorQuery.setLong(1, lastRowID);
-                monitorQuery.setString(2, guid);
-                monitorQuery.execute();
-            }
-
-            try (final ResultSet r = monitorQuery.getResultSet()) {
-                if (!closed)
-                    loadVariables(r);
-            }
+            long cursor; // local variable as this is used to clean the database below
+            List<ChangeFeed.Row> rows;
+            do {
+                synchronized (db) {
+                    final ChangeFeed feed = this.feed;
+                    if (closed || db.get() == null || feed == null)
+                        return;
+                    rows = feed.fetch();
+                    cursor = feed.getCursor();
+                }
+                if (!rows.isEmpty() && !closed)
+                    applyChanges(rows);
+            } while (rows.size() == ChangeFeed.FETCH_SIZE && !closed);
+            final long lastVersion = cursor;
 
             if (!closed) { // Skript may have been disabled in the meantime // TODO not fixed
                 new Task(Skript.getInstance(), true) { // 2 times the interval + 5 seconds
@@ -487,12 +499,10 @@ public final class DatabaseStorage extends VariablesStorage {
                     public final void run() {
                         try {
                             synchronized (db) {
-                                if (closed || db.get() == null)
+                                final ChangeFeed feed = DatabaseStorage.this.feed;
+                                if (closed || db.get() == null || feed == null)
                                     return;
-                                final PreparedStatement monitorCleanUpQuery = DatabaseStorage.this.monitorCleanUpQuery;
-                                assert monitorCleanUpQuery != null;
-                                monitorCleanUpQuery.setLong(1, lastRowID);
-                                monitorCleanUpQuery.executeUpdate();
+                                feed.deleteTombstones(lastVersion);
                             }
                         } catch (final SQLException e) {
                             sqlException(e);
@@ -506,74 +516,123 @@ public final class DatabaseStorage extends VariablesStorage {
     }
 
     /**
-     * Doesn't lock the database - {@link #save(String, String, byte[])} does that // what?
+     * Deserializes the given changed rows and applies them with {@link Variables#variablesLoaded(List, List, VariablesStorage)}.
+     * Values whose serializer {@link Serializer#mustSyncDeserialization() must deserialize on the main thread} are deserialized there,
+     * all others on the current thread.
      */
-    private final void loadVariables(final ResultSet r) throws SQLException {
-//		assert !Thread.holdsLock(db);
-//		synchronized (syncDeserializing) {
+    private final void applyChanges(final List<ChangeFeed.Row> rows) {
+        applyChanges(rows, Task::callSync, (names, values) -> Variables.variablesLoaded(names, values, this));
+    }
 
-        final SQLException e = Task.callSync(() -> {
-            try {
-                while (r.next()) {
-                    int i = 1;
-                    final String name = r.getString(i++);
-                    if (name == null) {
-                        Skript.error("Variable with NULL name found in the database '" + databaseName + "', ignoring it");
+    /**
+     * @param mainThread Calls the given task on the main thread and waits for it
+     * @param apply      Applies the names and values of the changed variables, called on the main thread. Deleted variables have a null value.
+     */
+    final void applyChanges(final List<ChangeFeed.Row> rows, final Consumer<Callable<Void>> mainThread, final BiConsumer<List<String>, List<Object>> apply) {
+        final List<String> names = new ArrayList<>(rows.size());
+        final List<Object> values = new ArrayList<>(rows.size());
+        final List<String> syncTypes = new ArrayList<>(rows.size());
+        boolean sync = false;
+        for (final ChangeFeed.Row row : rows) {
+            final String name = row.name;
+            if (name == null) {
+                Skript.error("Variable with NULL name found in the database '" + databaseName + "', ignoring it");
+                continue;
+            }
+            final byte[] value = row.value;
+            String syncType = null;
+            final Object d;
+            if (value == null) {
+                d = null;
+            } else {
+                final String type = row.type;
+                final ClassInfo<?> c = type == null ? null : Variables.getClassInfo(type);
+                final Serializer<?> s;
+                if (type == null || c == null || (s = c.getSerializer()) == null) {
+                    Skript.error("Cannot load the variable {" + name + "} from the database '" + databaseName + "', because the type '" + row.type + "' cannot be recognised or cannot be stored in variables");
+                    continue;
+                }
+                Variables.getMetrics().sampled(name, value.length);
+                if (s.mustSyncDeserialization()) {
+                    syncType = type;
+                    d = value; // deserialized on the main thread
+                    sync = true;
+                } else if ((d = Variables.deserialize(type, value)) == null) {
+                    Skript.error("Cannot load the variable {" + name + "} from the database '" + databaseName + "', because it cannot be loaded as " + c.getName().withIndefiniteArticle());
+                    continue;
+                }
+            }
+            names.add(name);
+            values.add(d);
+            syncTypes.add(syncType);
+        }
+        if (names.isEmpty())
+            return;
+
+        final boolean deserializeSync = sync;
+        mainThread.accept(() -> {
+            if (deserializeSync) {
+                for (int i = names.size() - 1; i >= 0; i--) {
+                    final String type = syncTypes.get(i);
+                    if (type == null)
                         continue;
-                    }
-                    final String type = r.getString(i++);
-                    final byte[] value = r.getBytes(i++); // Blob not supported by SQLite
-                    lastRowID = r.getLong(i);
-                    if (value == null) {
-                        Variables.variableLoaded(name, null, DatabaseStorage.this);
+                    final Object d = Variables.deserialize(type, (byte[]) values.get(i));
+                    if (d == null) {
+                        final ClassInfo<?> c = Variables.getClassInfo(type);
+                        assert c != null;
+                        Skript.error("Cannot load the variable {" + names.get(i) + "} from the database '" + databaseName + "', because it cannot be loaded as " + c.getName().withIndefiniteArticle());
+                        names.remove(i);
+                        values.remove(i);
                     } else {
-                        final ClassInfo<?> c = Classes.getClassInfoNoError(type);
-                        //@SuppressWarnings("unused") final Serializer<?> s;
-                        if (c == null || c.getSerializer() == null) {
-                            Skript.error("Cannot load the variable {" + name + "} from the database '" + databaseName + "', because the type '" + type + "' cannot be recognised or cannot be stored in variables");
-                            continue;
-                        }
-//					if (s.mustSyncDeserialization()) {
-//						syncDeserializing.add(new VariableInfo(name, value, c));
-//					} else {
-                        final Object d = Classes.deserialize(c, value);
-                        if (d == null) {
-                            Skript.error("Cannot load the variable {" + name + "} from the database '" + databaseName + "', because it cannot be loaded as " + c.getName().withIndefiniteArticle());
-                            continue;
-                        }
-                        Variables.variableLoaded(name, d, DatabaseStorage.this);
-//					}
+                        values.set(i, d);
                     }
                 }
-            } catch (final SQLException e1) {
-                return e1;
             }
+            apply.accept(names, values);
             return null;
         });
-        if (e != null)
-            throw e;
+    }
 
-//			if (!syncDeserializing.isEmpty()) {
-//				Task.callSync(new Callable<Void>() {
-//					@Override
-//					@Nullable
-//					public Void call() throws Exception {
-//						synchronized (syncDeserializing) {
-//							for (final VariableInfo o : syncDeserializing) {
-//								final Object d = Classes.deserialize(o.ci, o.value);
-//								if (d == null) {
-//									Skript.error("Cannot load the variable {" + o.name + "} from the database " + databaseName + ", because it cannot be loaded as a " + o.ci.getName());
-//									continue;
-//								}
-//								Variables.variableLoaded(o.name, d, DatabaseStorage.this);
-//							}
-//							syncDeserializing.clear();
-//							return null;
-//						}
-//					}
-//				});
-//			}
-//		}
+    /**
+     * Loads all variables of the table on the current thread and marks them as fetched. This is only done while the storages are loaded,
+     * so the variables are only stored until all storages are loaded, and values that must be deserialized on the main thread are
+     * {@link Variables#deserialize(String, byte[]) deserialized there} if the variables are loaded in the background.
+     * Doesn't lock the database - {@link #save(String, String, byte[])} does that // what?
+     */
+    private final void loadVariables(final ResultSet r) throws SQLException {
+//		assert !Thread.holdsLock(db);
+//		synchronized (syncDeserializing) {
+        final ChangeFeed feed = this.feed;
+        assert feed != null;
+
+        while (r.next()) {
+            int i = 1;
+            final String name = r.getString(i++);
+            if (name == null) {
+                Skript.error("Variable with NULL name found in the database '" + databaseName + "', ignoring it");
+                continue;
+            }
+            final String type = r.getString(i++);
+            final byte[] value = r.getBytes(i++); // Blob not supported by SQLite
+            feed.seen(r.getLong(i));
+            if (value == null) {
+                Variables.variableLoaded(name, null, this);
+            } else {
+                final ClassInfo<?> c = type == null ? null : Variables.getClassInfo(type);
+                //@SuppressWarnings("unused") final Serializer<?> s;
+                if (type == null || c == null || c.getSerializer() == null) {
+                    Skript.error("Cannot load the variable {" + name + "} from the database '" + databaseName + "', because the type '" + type + "' cannot be recognised or cannot be stored in variables");
+                    continue;
+                }
+                Variables.getMetrics().sampled(name, value.length);
+                final Object d = Variables.deserialize(type, value);
+                if (d == null) {
+                    Skript.error("Cannot load the variable {" + name + "} from the database '" + databaseName + "', because it cannot be loaded as " + c.getName().withIndefiniteArticle());
+                    continue;
+                }
+                Variables.variableLoaded(name, d, this);
+            }
+        }
     }
 
 //	private static final class VariableInfo {
@@ -599,46 +658,37 @@ public final class DatabaseStorage extends VariablesStorage {
 
         final VariablesStorage temp = new OldVariablesStorage(databaseName);
 
-        @SuppressWarnings("null") final SQLException e = Task.callSync(() -> {
-            try {
-                while (r.next()) {
-                    int i = 1;
-                    final String name = r.getString(i++);
-                    if (name == null) {
-                        Skript.error("Variable with The NULL name found in the database, ignoring it");
-                        continue;
-                    }
-                    final String type = r.getString(i++);
-                    final String value = r.getString(i++);
-                    lastRowID = r.getLong(i);
-                    if (type == null || value == null) {
-                        Variables.variableLoaded(name, null, hadNewTable ? temp : DatabaseStorage.this);
-                    } else {
-                        final ClassInfo<?> c = Classes.getClassInfoNoError(type);
-                        final Serializer<?> s;
-                        if (c == null || (s = c.getSerializer()) == null) {
-                            Skript.error("Cannot load the variable {" + name + "} from the database, because the type '" + type + "' cannot be recognised or not stored in variables");
-                            continue;
-                        }
+        while (r.next()) {
+            int i = 1;
+            final String name = r.getString(i++);
+            if (name == null) {
+                Skript.error("Variable with The NULL name found in the database, ignoring it");
+                continue;
+            }
+            final String type = r.getString(i++);
+            final String value = r.getString(i);
+            if (type == null || value == null) {
+                Variables.variableLoaded(name, null, hadNewTable ? temp : this);
+            } else {
+                final ClassInfo<?> c = Classes.getClassInfoNoError(type);
+                final Serializer<?> s;
+                if (c == null || (s = c.getSerializer()) == null) {
+                    Skript.error("Cannot load the variable {" + name + "} from the database, because the type '" + type + "' cannot be recognised or not stored in variables");
+                    continue;
+                }
 //					if (s.mustSyncDeserialization()) {
 //						oldSyncDeserializing.add(new OldVariableInfo(name, value, c));
 //					} else {
-                        @SuppressWarnings("deprecation") final Object d = s.deserialize(value);
-                        if (d == null) {
-                            Skript.error("Cannot load the variable {" + name + "} from the database, because '" + value + "' cannot be parsed as a " + type);
-                            continue;
-                        }
-                        Variables.variableLoaded(name, d, DatabaseStorage.this);
-//					}
-                    }
+                // Deserialized on the main thread even if the variables are loaded in the background
+                @SuppressWarnings("deprecation") final Object d = s.mustSyncDeserialization() ? Variables.callSync(() -> s.deserialize(value)) : s.deserialize(value);
+                if (d == null) {
+                    Skript.error("Cannot load the variable {" + name + "} from the database, because '" + value + "' cannot be parsed as a " + type);
+                    continue;
                 }
-            } catch (final SQLException e1) {
-                return e1;
+                Variables.variableLoaded(name, d, this);
+//					}
             }
-            return null;
-        });
-        if (e != null)
-            throw e;
+        }
 
 //			if (!oldSyncDeserializing.isEmpty()) {
 //				Task.callSync(new Callable<Void>() {
@@ -22,7 +22,6 @@
 
 package ch.njol.skript.variables;
 
-import ch.njol.skript.CriticalRegexps;
 import ch.njol.skript.Skript;
 import ch.njol.skript.SkriptCommand;
 import ch.njol.skript.config.SectionNode;
@@ -34,16 +33,20 @@ import ch.njol.util.NotifyingReference;
 import org.eclipse.jdt.annotation.Nullable;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * TODO use a database (SQLite) instead and only load a limited amount of variables into RAM - e.g. 2 GB (configurable). If more variables are available they will be loaded when
@@ -62,16 +65,6 @@ public final class FlatFileStorage extends VariablesStorage {
     @SuppressWarnings("null")
     public static final Charset UTF_8 = StandardCharsets.UTF_8;
     public static final int REQUIRED_CHANGES_FOR_RESAVE = Integer.getInteger("skript.requiredVariableChangesForSave", 1000);
-    @SuppressWarnings("null")
-    private static final Pattern csv = CriticalRegexps.CSV;
-    private static final Matcher csvMatcher = csv.matcher("");
-    /**
-     * Use with find()
-     */
-    private static final Matcher containsWhitespaceMatcher = Pattern.compile("\\s").matcher("");
-    private static final Matcher SPLIT_PATTERN_MATCHER = Pattern.compile("\"\"", Pattern.LITERAL).matcher("");
-    private static final String splitQuoted = Matcher.quoteReplacement("\"");
-    private static final Matcher SINGLE_QUOTE_MATCHER = Pattern.compile("\"", Pattern.LITERAL).matcher("");
     static boolean savingVariables;
     private static long savedVariables;
     @Nullable
@@ -91,57 +84,16 @@ public final class FlatFileStorage extends VariablesStorage {
     }
 
     private static final String encode(final byte[] data) {
-        final char[] r = new char[data.length << 1];
-        for (int i = 0; i < data.length; i++) {
-            r[2 * i] = Character.toUpperCase(Character.forDigit((data[i] & 0xF0) >>> 4, 16));
-            r[2 * i + 1] = Character.toUpperCase(Character.forDigit(data[i] & 0xF, 16));
-        }
-        return new String(r);
+        return CSVCodec.encodeHex(data);
     }
 
     private static final byte[] decode(final CharSequence hex) {
-        final byte[] r = new byte[hex.length() / 2];
-        for (int i = 0; i < r.length; i++) {
-            r[i] = (byte) ((Character.digit(hex.charAt(2 * i), 16) << 4) + Character.digit(hex.charAt(2 * i + 1), 16));
-        }
-        return r;
+        return CSVCodec.decodeHex(hex);
     }
 
     @Nullable
     private static final String[] splitCSV(final CharSequence line) {
-        final Matcher m = csvMatcher.reset(line);
-        int lastEnd = 0;
-        ArrayList<String> r = null;
-        while (m.find()) {
-            if (lastEnd != m.start())
-                return null;
-            final String v = m.group(1);
-            if (r == null)
-                r = new ArrayList<>();
-            if (!v.isEmpty() && v.charAt(0) == '"')
-                r.add(SPLIT_PATTERN_MATCHER.reset(v.substring(1, v.length() - 1)).replaceAll(splitQuoted));
-            else
-                r.add(v.trim());
-            lastEnd = m.end();
-        }
-        if (lastEnd != line.length())
-            return null;
-        if (r == null)
-            return EmptyArrays.EMPTY_STRING_ARRAY;
-        return r.toArray(EmptyArrays.EMPTY_STRING_ARRAY);
-    }
-
-    private static final void writeCSV(final PrintWriter pw, final String... values) {
-        assert values.length == 3; // name, type, value
-        for (int i = 0; i < values.length; ++i) {
-            if (i != 0)
-                pw.print(", ");
-            String v = values[i];
-            if (v != null && (v.contains(",") || v.contains("\"") || v.contains("#") || containsWhitespaceMatcher.reset(v).find()))
-                v = '"' + SINGLE_QUOTE_MATCHER.reset(v).replaceAll(Matcher.quoteReplacement("\"\"")) + '"';
-            pw.print(v);
-        }
-        pw.println();
+        return CSVCodec.split(line);
     }
 
     /**
@@ -160,14 +112,13 @@ public final class FlatFileStorage extends VariablesStorage {
         final Version v2_1 = new Version(2, 1);
         boolean update2_1 = false;
 
-        try (final BufferedReader r = new BufferedReader(new InputStreamReader(new BufferedInputStream(new FileInputStream(Objects.requireNonNull(file))), StandardCharsets.UTF_8))) {
-            String line;
+        try (final CSVCodec.Reader r = new CSVCodec.Reader(new FileInputStream(Objects.requireNonNull(file)))) {
             int lineNum = 0;
             boolean update2_0_beta3 = false;
-            while ((line = r.readLine()) != null) {
-                line = line.trim();
+            while (r.nextLine()) {
                 ++lineNum;
-                if (line.isEmpty() || line.charAt(0) == '#') {
+                if (r.isEmpty() || r.firstByte() == '#') {
+                    final String line = r.line();
                     if (line.startsWith("# version:")) {
                         try {
                             // will be set later
@@ -181,34 +132,40 @@ public final class FlatFileStorage extends VariablesStorage {
                     }
                     continue;
                 }
-                final String[] split = splitCSV(line);
-                if (split == null || split.length != 3) {
-                    Skript.error("invalid amount of commas in line " + lineNum + " ('" + line + "')");
+                final int fields = r.split();
+                if (fields != 3) {
+                    Skript.error("invalid amount of commas in line " + lineNum + " ('" + r.line() + "')");
                     if (invalid.length() != 0)
                         invalid.append(", ");
-                    invalid.append(split == null ? "<unknown>" : split[0]);
+                    invalid.append(fields == -1 ? "<unknown>" : r.field(0));
                     unsuccessful++;
                     continue;
                 }
-                if ("null".equals(split[1])) {
-                    Variables.variableLoaded(split[0], null, this);
+                final String name = r.field(0), type = r.field(1);
+                if ("null".equals(type)) {
+                    Variables.variableLoaded(name, null, this);
                 } else {
                     Object d;
-                    if (update2_1)
-                        d = Classes.deserialize(split[1], split[2]);
-                    else
-                        d = Classes.deserialize(split[1], decode(split[2]));
+                    if (update2_1) {
+                        final String value = r.field(2);
+                        // Values of files older than 2.1 may need to be deserialized on the main thread, but are only loaded once
+                        d = Variables.isLoaderThread() ? Variables.callSync(() -> Classes.deserialize(type, value)) : Classes.deserialize(type, value);
+                    } else {
+                        final byte[] value = r.hex(2);
+                        Variables.getMetrics().sampled(name, value.length);
+                        d = Variables.deserialize(type, value);
+                    }
                     if (d == null) {
                         if (invalid.length() != 0)
                             invalid.append(", ");
-                        invalid.append(split[0]);
+                        invalid.append(name);
                         unsuccessful++;
                         continue;
                     }
                     if (d instanceof String && update2_0_beta3) {
                         d = Utils.replaceChatStyles((String) d);
                     }
-                    Variables.variableLoaded(split[0], d, this);
+                    Variables.variableLoaded(name, d, this);
                 }
             }
         } catch (final IOException e) {
@@ -295,7 +252,7 @@ public final class FlatFileStorage extends VariablesStorage {
                         return false;
                     }
                 }
-                writeCSV(cw, name, type, value == null ? "" : encode(value));
+                CSVCodec.write(cw, name, type, value);
                 cw.flush();
                 changes.incrementAndGet();
                 return true;
@@ -303,6 +260,37 @@ public final class FlatFileStorage extends VariablesStorage {
         }
     }
 
+    /**
+     * Writes the whole batch before flushing the file once.
+     */
+    @Override
+    protected final void save(final List<SerializedVariable> batch) {
+        synchronized (connectionLock) {
+            synchronized (changesWriter) {
+                PrintWriter cw = null;
+                int n = 0;
+                for (final SerializedVariable var : batch) {
+                    final SerializedVariable.Value value = var.value;
+                    if (!loaded && value == null)
+                        continue; // See save(String, String, byte[])
+                    while (cw == null && (cw = changesWriter.get()) == null) {
+                        try {
+                            changesWriter.wait();
+                        } catch (final InterruptedException ignored) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                    CSVCodec.write(cw, var.name, value == null ? null : value.type, value == null ? null : value.data);
+                    n++;
+                }
+                if (cw != null)
+                    cw.flush();
+                changes.addAndGet(n);
+            }
+        }
+    }
+
     @SuppressWarnings("null")
     @Override
     protected final void disconnect() {
@@ -335,6 +323,33 @@ public final class FlatFileStorage extends VariablesStorage {
         }
     }
 
+    /**
+     * Changes are only appended to the file between full saves, and full saves replace the file instead of writing to it,
+     * so the file up to its current length is a consistent snapshot that can be copied without blocking saves.
+     */
+    @Override
+    protected final void backup(final OutputStream out) throws IOException {
+        final File file = Objects.requireNonNull(this.file);
+        final FileChannel channel;
+        final long length;
+        synchronized (connectionLock) {
+            // Changes are flushed after each write, so the file only contains complete lines here
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            length = channel.size();
+        }
+        try (final InputStream in = Channels.newInputStream(channel)) {
+            final byte[] buffer = new byte[1 << 16];
+            long remaining = length;
+            while (remaining > 0) {
+                final int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0)
+                    throw new EOFException("The file " + file.getName() + " was truncated while creating a backup");
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
     @Override
     public final void close() {
         clearChangesQueue();
@@ -438,6 +453,7 @@ public final class FlatFileStorage extends VariablesStorage {
                         }
 
                         save(pw, "", variables);
+                        saveExpiries(pw);
 
                         savingVariables = false;
 
@@ -481,6 +497,30 @@ public final class FlatFileStorage extends VariablesStorage {
         }
     }
 
+    /**
+     * Saves the expiry times of the variables, which are not in the variables map.
+     */
+    private final void saveExpiries(final PrintWriter pw) {
+        saveExpiries(pw, Variables.getVariableExpiry().getDeadlines(), name -> Variables.getStorage(name) == this, Variables::serialize);
+    }
+
+    /**
+     * @param deadlines  The expiry times, see {@link VariableExpiry#getDeadlines()}
+     * @param saved      Whatever an expiry time is saved in this file, given the name it is saved with
+     * @param serializer Serializes an expiry time
+     */
+    static final void saveExpiries(final PrintWriter pw, final Map<String, Long> deadlines, final Predicate<String> saved,
+                                   final Function<Object, SerializedVariable.Value> serializer) {
+        for (final Entry<String, Long> e : deadlines.entrySet()) {
+            final String name = VariableExpiry.PREFIX + e.getKey();
+            if (saved.test(name)) {
+                final SerializedVariable.Value value = serializer.apply(e.getValue());
+                if (value != null)
+                    CSVCodec.write(pw, name, value.type, value.data);
+            }
+        }
+    }
+
     /**
      * Saves the variables.
      * <p>
@@ -492,25 +532,21 @@ public final class FlatFileStorage extends VariablesStorage {
      */
     @SuppressWarnings({"unchecked", "null"})
     private final void save(final PrintWriter pw, final String parent, final TreeMap<String, Object> map) {
-        outer:
         for (final Entry<String, Object> e : map.entrySet()) {
             final Object val = e.getValue();
             if (val == null)
                 continue;
             if (val instanceof TreeMap) {
                 save(pw, parent + e.getKey() + Variable.SEPARATOR, (TreeMap<String, Object>) val);
+            } else if (val instanceof PagedSubtree) {
+                save(pw, parent + e.getKey() + Variable.SEPARATOR, ((PagedSubtree) val).read());
             } else {
                 final String name = e.getKey() == null ? parent.substring(0, parent.length() - Variable.SEPARATOR.length()) : parent + e.getKey();
-                for (final VariablesStorage s : Variables.storages) {
-                    if (s.accept(name)) {
-                        if (s == this) {
-                            final SerializedVariable.Value value = Classes.serialize(val);
-                            if (value != null) {
-                                writeCSV(pw, name, value.type, encode(value.data));
-                                savedVariables++;
-                            }
-                        }
-                        continue outer;
+                if (Variables.getStorage(name) == this) {
+                    final SerializedVariable.Value value = Variables.serialize(val); // Writes lazily loaded values as they were loaded
+                    if (value != null) {
+                        CSVCodec.write(pw, name, value.type, value.data);
+                        savedVariables++;
                     }
                 }
             }
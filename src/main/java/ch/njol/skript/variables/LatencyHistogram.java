@@ -0,0 +1,109 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations, cheap enough to record every duration of e.g. saving variables.
+ * <p>
+ * Durations are counted in buckets of powers of two microseconds, so percentiles are only accurate to a factor of two,
+ * which is enough to tell a slow disk or database from a fast one.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The last bucket counts all durations of 2^30 microseconds (about 18 minutes) or more
+     */
+    private static final int BUCKETS = 32;
+
+    /**
+     * Bucket 0 counts durations below one microsecond, bucket i durations of 2^(i-1) up to 2^i microseconds
+     */
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++)
+            buckets[i] = new LongAdder();
+    }
+
+    public final void record(final long nanos) {
+        final long micros = nanos / 1000L;
+        buckets[Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1)].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public final long getCount() {
+        return count.sum();
+    }
+
+    public final long getAverageNanos() {
+        final long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / n;
+    }
+
+    public final long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * @param percentile The percentile, between 0 and 100
+     * @return An upper bound of the given percentile of the recorded durations in nanoseconds, at most twice the
+     * actual value
+     */
+    public final long getPercentileNanos(final double percentile) {
+        final long[] counts = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            n += counts[i] = buckets[i].sum();
+        if (n == 0)
+            return 0;
+        final long rank = (long) Math.ceil(n * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] != 0)
+                return Math.min((1L << i) * 1000L, maxNanos.get());
+        }
+        return maxNanos.get();
+    }
+
+    static final String formatNanos(final long nanos) {
+        if (nanos < 1_000_000L)
+            return nanos / 1000L + " µs";
+        return String.format(Locale.ENGLISH, "%.1f ms", nanos / 1_000_000.0);
+    }
+
+    @Override
+    public String toString() {
+        return "p50 " + formatNanos(getPercentileNanos(50)) + ", p90 " + formatNanos(getPercentileNanos(90)) + ", p99 " + formatNanos(getPercentileNanos(99)) + ", max " + formatNanos(getMaxNanos());
+    }
+
+}
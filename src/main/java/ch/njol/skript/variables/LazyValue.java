@@ -0,0 +1,141 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.classes.ClassInfo;
+import ch.njol.skript.classes.Serializer;
+import ch.njol.skript.registrations.Classes;
+import ch.njol.skript.variables.SerializedVariable.Value;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A loaded value of a variable that is kept serialized until it is used, stored in the variables map in place
+ * of the actual value if the <tt>lazy variable loading</tt> option is enabled.
+ * <p>
+ * Only values that can be deserialized on any thread are loaded lazily. If the value is never used, its
+ * serialized form is saved again as it is.
+ * <p>
+ * Values that {@link Serializer#mustSyncDeserialization() must be deserialized on the main thread} are also kept
+ * serialized while they are loaded in the background, and deserialized on the main thread once all storages are loaded.
+ */
+final class LazyValue {
+
+    private static final AtomicInteger created = new AtomicInteger();
+    private static final AtomicInteger deserialized = new AtomicInteger();
+
+    /**
+     * The saved type of the value, see {@link Value#type}
+     */
+    private final String type;
+    private final ClassInfo<?> info;
+    /**
+     * The serialized value, null once the value is deserialized
+     */
+    @Nullable
+    private byte[] data;
+    @Nullable
+    private Object value;
+    private boolean failed;
+
+    LazyValue(final ClassInfo<?> info, final byte[] data) {
+        this(info.getCodeName(), info, data);
+    }
+
+    /**
+     * @param type The saved type of the value, which may be a {@link CompactCodecs compact} type
+     * @param info The class info of the value
+     */
+    LazyValue(final String type, final ClassInfo<?> info, final byte[] data) {
+        assert info.getSerializer() != null : info;
+        this.type = type;
+        this.info = info;
+        this.data = data;
+        if (!mustSync())
+            created.incrementAndGet();
+    }
+
+    /**
+     * @return Whatever the value must be deserialized on the main thread before it is used
+     */
+    final boolean mustSync() {
+        final Serializer<?> s = info.getSerializer();
+        return s != null && s.mustSyncDeserialization();
+    }
+
+    /**
+     * @return How many values were loaded lazily since the server started
+     */
+    static final int getCreated() {
+        return created.get();
+    }
+
+    /**
+     * @return How many of the {@link #getCreated() lazily loaded values} were used and deserialized
+     */
+    static final int getDeserialized() {
+        return deserialized.get();
+    }
+
+    /**
+     * Deserializes the value if this is the first time it is used.
+     *
+     * @return The value, or null if it can't be deserialized. The serialized value is kept in that case so it is not lost.
+     */
+    @Nullable
+    final synchronized Object get() {
+        final byte[] d = data;
+        if (d == null || failed)
+            return value;
+        final Object v = CompactCodecs.isCompact(type) ? CompactCodecs.deserialize(type, d) : Classes.deserialize(info, d);
+        if (v == null) {
+            failed = true;
+            Skript.error("Cannot load a variable, because it cannot be loaded as " + info.getName().withIndefiniteArticle() + ". It will be kept unchanged in its database.");
+            return null;
+        }
+        value = v;
+        data = null;
+        if (!mustSync())
+            deserialized.incrementAndGet();
+        return v;
+    }
+
+    /**
+     * @return The serialized value, without serializing it again if it was not used yet
+     */
+    @Nullable
+    final synchronized Value serialize() {
+        final byte[] d = data;
+        if (d != null)
+            return new Value(type, d);
+        return Classes.serialize(value);
+    }
+
+    @Override
+    public String toString() {
+        return "lazy " + type;
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.util.TreeMap;
+
+/**
+ * A list subtree of the global variables that was moved to the segment file of a {@link VariablePager},
+ * stored in its parent map in place of the subtree itself.
+ * <p>
+ * Reading variables of the subtree loads it into memory again, but only changing one of them puts it
+ * back into the variables map, see {@link VariablesMap#setVariable(String, Object)}.
+ */
+final class PagedSubtree {
+
+    private final VariablePager pager;
+    /**
+     * How many variables are in the subtree
+     */
+    final int size;
+    volatile VariablePager.Page page;
+    /**
+     * The subtree if it was read since the last sweep of the pager
+     */
+    @Nullable
+    private volatile TreeMap<String, Object> resident;
+    /**
+     * Set once the subtree was put back into the variables map or deleted, its page is not kept after that
+     */
+    volatile boolean discarded;
+
+    PagedSubtree(final VariablePager pager, final VariablePager.Page page, final int size) {
+        this.pager = pager;
+        this.page = page;
+        this.size = size;
+    }
+
+    /**
+     * @return The subtree, read from the segment file if it is not in memory. Must not be modified unless
+     * it is put back into the variables map.
+     */
+    final TreeMap<String, Object> get() {
+        final TreeMap<String, Object> r = resident;
+        if (r != null)
+            return r;
+        synchronized (this) {
+            TreeMap<String, Object> t = resident;
+            if (t == null)
+                resident = t = pager.fault(this);
+            return t;
+        }
+    }
+
+    /**
+     * @return The subtree, without keeping it in memory if it was not already, e.g. to save all variables
+     */
+    final TreeMap<String, Object> read() {
+        final TreeMap<String, Object> r = resident;
+        return r != null ? r : pager.read(this);
+    }
+
+    final boolean isResident() {
+        return resident != null;
+    }
+
+    /**
+     * Removes the subtree from memory if it was read, without writing anything.
+     */
+    final void drop() {
+        synchronized (this) {
+            if (resident != null && !discarded)
+                pager.dropped(this);
+            resident = null;
+        }
+    }
+
+    /**
+     * Called when the subtree is put back into the variables map or deleted, must hold the write lock of the variables.
+     * A subtree that was put back stays resident, so references to this object still see the current variables.
+     */
+    final void discard() {
+        synchronized (this) {
+            if (discarded)
+                return;
+            discarded = true;
+            pager.discard(this, resident != null);
+        }
+    }
+
+}
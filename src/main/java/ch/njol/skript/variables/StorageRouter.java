@@ -0,0 +1,325 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import ch.njol.skript.util.PatternCache;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the storage a variable belongs to, i.e. the first storage whose pattern matches the variable's name.
+ * <p>
+ * The patterns are compiled once: The common <tt>prefix.*</tt> and <tt>(?i)prefix.*</tt> patterns are put into a trie,
+ * <tt>(?!prefix).*</tt> and <tt>.*</tt> are checked without regular expressions, and only other patterns are matched as
+ * regular expressions. Routing is thread safe.
+ *
+ * @param <T> The type of the storages
+ */
+public final class StorageRouter<T> {
+
+    private final List<T> storages;
+
+    /**
+     * Case sensitive prefixes
+     */
+    private final TrieNode prefixes = new TrieNode();
+    /**
+     * Case insensitive prefixes, in lower case
+     */
+    private final TrieNode lowerCasePrefixes = new TrieNode();
+
+    /**
+     * Routes that are not in a trie, in the order of their storages
+     */
+    private final Route[] others;
+
+    /**
+     * All patterns as regular expressions, only used for names with line breaks as <tt>.*</tt> doesn't match them
+     */
+    private final Route[] regexes;
+
+    /**
+     * @param storages The storages, in the order they are checked in
+     * @param patterns The pattern of each storage, or null for <tt>.*</tt>
+     */
+    public StorageRouter(final List<T> storages, final List<String> patterns) {
+        assert storages.size() == patterns.size();
+        this.storages = new ArrayList<>(storages);
+        final List<Route> others = new ArrayList<>();
+        regexes = new Route[patterns.size()];
+        for (int i = 0; i < patterns.size(); i++) {
+            final String pattern = patterns.get(i);
+            final Route r = compile(i, pattern);
+            if (r instanceof PrefixRoute && !((PrefixRoute) r).negated)
+                (((PrefixRoute) r).ignoreCase ? lowerCasePrefixes : prefixes).add(((PrefixRoute) r).prefix, i);
+            else
+                others.add(r);
+            regexes[i] = r instanceof RegexRoute ? r : new RegexRoute(i, PatternCache.get(pattern == null ? ".*" : pattern));
+        }
+        this.others = others.toArray(new Route[0]);
+    }
+
+    /**
+     * @param name The name of a variable
+     * @return The first storage whose pattern matches the name, or null if there is none
+     */
+    @Nullable
+    public final T route(final String name) {
+        final int i = routeIndex(name);
+        return i == Integer.MAX_VALUE ? null : storages.get(i);
+    }
+
+    final int routeIndex(final String name) {
+        if (hasLineBreak(name)) { // Rare, so simply use the regular expressions
+            for (final Route r : regexes) {
+                if (r.matches(name))
+                    return r.index;
+            }
+            return Integer.MAX_VALUE;
+        }
+        int best = Math.min(prefixes.find(name, false), lowerCasePrefixes.find(name, true));
+        for (final Route r : others) {
+            if (r.index >= best)
+                break;
+            if (r.matches(name)) {
+                best = r.index;
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return Whatever the string contains a line terminator, which <tt>.</tt> doesn't match
+     */
+    private static final boolean hasLineBreak(final String s) {
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029')
+                return true;
+        }
+        return false;
+    }
+
+    static final Route compile(final int index, @Nullable final String pattern) {
+        if (pattern == null || ".*".equals(pattern) || ".+".equals(pattern))
+            return new AllRoute(index, ".+".equals(pattern));
+        final Route r = compilePrefix(index, pattern);
+        return r != null ? r : new RegexRoute(index, PatternCache.get(pattern));
+    }
+
+    /**
+     * Compiles patterns like <tt>prefix.*</tt>, <tt>(?i)prefix.*</tt> and <tt>(?!(?i)prefix).*</tt>.
+     */
+    @Nullable
+    private static final Route compilePrefix(final int index, String pattern) {
+        if (!pattern.endsWith(".*"))
+            return null;
+        pattern = pattern.substring(0, pattern.length() - 2);
+        boolean ignoreCase = false;
+        if (pattern.startsWith("(?i)")) {
+            ignoreCase = true;
+            pattern = pattern.substring(4);
+        }
+        if (pattern.startsWith("^")) // Patterns always have to match the whole name
+            pattern = pattern.substring(1);
+        boolean negated = false;
+        if (pattern.startsWith("(?!") && pattern.endsWith(")")) {
+            negated = true;
+            pattern = pattern.substring(3, pattern.length() - 1);
+            if (pattern.startsWith("(?i)")) {
+                ignoreCase = true;
+                pattern = pattern.substring(4);
+            }
+        }
+        final String prefix = unescape(pattern);
+        if (prefix == null)
+            return null;
+        if (ignoreCase) {
+            for (int i = 0; i < prefix.length(); i++) {
+                if (prefix.charAt(i) >= 128) // (?i) only ignores the case of ASCII characters
+                    return null;
+            }
+        }
+        return new PrefixRoute(index, ignoreCase ? toLowerCase(prefix) : prefix, ignoreCase, negated);
+    }
+
+    /**
+     * @return The literal text matched by the given regular expression, or null if it's not a literal
+     */
+    @Nullable
+    private static final String unescape(final String regex) {
+        final StringBuilder b = new StringBuilder(regex.length());
+        for (int i = 0; i < regex.length(); i++) {
+            final char c = regex.charAt(i);
+            if (c == '\\') {
+                if (++i == regex.length())
+                    return null;
+                final char e = regex.charAt(i);
+                if (Character.isLetterOrDigit(e)) // Character classes, back references etc.
+                    return null;
+                b.append(e);
+            } else if (".[]{}()*+?^$|".indexOf(c) != -1) {
+                return null;
+            } else {
+                b.append(c);
+            }
+        }
+        return b.toString();
+    }
+
+    static final char toLowerCase(final char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static final String toLowerCase(final String s) {
+        final char[] cs = s.toCharArray();
+        for (int i = 0; i < cs.length; i++)
+            cs[i] = toLowerCase(cs[i]);
+        return new String(cs);
+    }
+
+    abstract static class Route {
+        final int index;
+
+        Route(final int index) {
+            this.index = index;
+        }
+
+        abstract boolean matches(String name);
+    }
+
+    private static final class AllRoute extends Route {
+        final boolean nonEmpty;
+
+        AllRoute(final int index, final boolean nonEmpty) {
+            super(index);
+            this.nonEmpty = nonEmpty;
+        }
+
+        @Override
+        boolean matches(final String name) {
+            return !nonEmpty || !name.isEmpty();
+        }
+    }
+
+    private static final class PrefixRoute extends Route {
+        final String prefix;
+        final boolean ignoreCase, negated;
+
+        PrefixRoute(final int index, final String prefix, final boolean ignoreCase, final boolean negated) {
+            super(index);
+            this.prefix = prefix;
+            this.ignoreCase = ignoreCase;
+            this.negated = negated;
+        }
+
+        @Override
+        boolean matches(final String name) {
+            return startsWith(name) != negated;
+        }
+
+        private final boolean startsWith(final String name) {
+            if (!ignoreCase)
+                return name.startsWith(prefix);
+            if (name.length() < prefix.length())
+                return false;
+            for (int i = 0; i < prefix.length(); i++) {
+                if (toLowerCase(name.charAt(i)) != prefix.charAt(i))
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class RegexRoute extends Route {
+        final Pattern pattern;
+
+        RegexRoute(final int index, final Pattern pattern) {
+            super(index);
+            this.pattern = pattern;
+        }
+
+        @Override
+        boolean matches(final String name) {
+            return pattern.matcher(name).matches(); // A new matcher, as this is used from multiple threads
+        }
+    }
+
+    private static final class TrieNode {
+        char[] keys = new char[0];
+        TrieNode[] children = new TrieNode[0];
+        /**
+         * The index of the first storage with the prefix ending at this node
+         */
+        int index = Integer.MAX_VALUE;
+
+        final void add(final String prefix, final int index) {
+            TrieNode n = this;
+            for (int i = 0; i < prefix.length(); i++)
+                n = n.child(prefix.charAt(i));
+            n.index = Math.min(n.index, index);
+        }
+
+        private final TrieNode child(final char c) {
+            final int i = Arrays.binarySearch(keys, c);
+            if (i >= 0)
+                return children[i];
+            final int p = -i - 1;
+            final TrieNode n = new TrieNode();
+            final char[] keys = new char[this.keys.length + 1];
+            final TrieNode[] children = new TrieNode[keys.length];
+            System.arraycopy(this.keys, 0, keys, 0, p);
+            System.arraycopy(this.children, 0, children, 0, p);
+            keys[p] = c;
+            children[p] = n;
+            System.arraycopy(this.keys, p, keys, p + 1, this.keys.length - p);
+            System.arraycopy(this.children, p, children, p + 1, this.keys.length - p);
+            this.keys = keys;
+            this.children = children;
+            return n;
+        }
+
+        /**
+         * @return The smallest index of all prefixes of the name, or {@link Integer#MAX_VALUE} if there are none
+         */
+        final int find(final String name, final boolean lowerCase) {
+            TrieNode n = this;
+            int best = n.index;
+            for (int i = 0; i < name.length() && n.keys.length != 0; i++) {
+                final char c = name.charAt(i);
+                final int k = Arrays.binarySearch(n.keys, lowerCase ? toLowerCase(c) : c);
+                if (k < 0)
+                    break;
+                n = n.children[k];
+                best = Math.min(best, n.index);
+            }
+            return best;
+        }
+    }
+
+}
@@ -25,6 +25,7 @@ package ch.njol.skript.variables;
 import org.eclipse.jdt.annotation.Nullable;
 
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
@@ -72,6 +73,19 @@ public final class TypeHints {
         return null; // No type hint available
     }
 
+    /**
+     * Appends the hints of all scopes, innermost first, in a stable order, e.g. to a key of the parser state.
+     */
+    public static final void appendTo(final StringBuilder b) {
+        for (final Map<String, Class<?>> hints : typeHints) {
+            final String[] variables = hints.keySet().toArray(new String[0]);
+            Arrays.sort(variables);
+            for (final String variable : variables)
+                b.append(variable).append('=').append(hints.get(variable).getName()).append(',');
+            b.append(';');
+        }
+    }
+
     public static final void enterScope() {
         typeHints.push(new HashMap<>());
     }
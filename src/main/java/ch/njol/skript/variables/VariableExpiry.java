@@ -0,0 +1,296 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.lang.Variable;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deletes global variables automatically when they expire, see {@link #set(String, long)}.
+ * <p>
+ * Expiring variables are kept in a hashed timing wheel: each slot holds the variables that expire in one
+ * {@link #TICK_MILLIS tick}, and a sweeper thread visits one slot per tick. Setting, changing or cancelling an expiry
+ * is O(1) and the sweeper only looks at the slot of the current tick, so no script has to scan lists of timestamps.
+ * Variables that expire more than one rotation of the wheel later stay in their slot until their round has come.
+ * <p>
+ * The expiry time of a variable is saved like a variable named {@link #PREFIX} + the variable's name, in the storage
+ * that pattern routes to, so it survives restarts. Variables that expired while the server was offline are deleted
+ * on the first tick after the variables are loaded.
+ */
+public final class VariableExpiry {
+
+    /**
+     * Prefix of the names the expiry times are saved with. Global variables can't start with the local variable token,
+     * so these never conflict with actual variables.
+     */
+    static final String PREFIX = Variable.LOCAL_VARIABLE_TOKEN + "expiry" + Variable.SEPARATOR;
+
+    static final long TICK_MILLIS = 100L;
+    /**
+     * One rotation takes 51.2 seconds
+     */
+    private static final int WHEEL_SIZE = 512;
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    /**
+     * The current expiry time of each expiring variable. Entries in the wheel that don't match are stale and dropped
+     * when their slot is visited.
+     */
+    private final Map<String, Long> deadlines = new ConcurrentHashMap<>();
+
+    /**
+     * Guarded by this
+     */
+    @SuppressWarnings("unchecked")
+    private final List<Entry>[] wheel = new List[WHEEL_SIZE];
+    /**
+     * The last tick whose slot was visited, guarded by this
+     */
+    private long lastTick = System.currentTimeMillis() / TICK_MILLIS;
+    /**
+     * Entries in the wheel including stale ones, guarded by this
+     */
+    private int scheduled;
+
+    @Nullable
+    private Thread thread;
+    private volatile boolean closed;
+
+    private final LongAdder expired = new LongAdder();
+    private volatile int lastBatch;
+    private volatile long lastBatchNanos;
+
+    VariableExpiry() {
+        // Created by Variables
+    }
+
+    /**
+     * Makes a global variable expire at the given time, replacing its previous expiry time if it had one.
+     * Changing the variable doesn't change when it expires.
+     *
+     * @param name The name of the variable, can be a "list variable::*" to delete the whole list
+     * @param time The time to delete the variable at in milliseconds since the epoch, times in the past delete the
+     *             variable on the next tick
+     */
+    public final synchronized void set(final String name, final long time) {
+        deadlines.put(name, time);
+        schedule(name, time);
+        Variables.saveVariableChange(PREFIX + name, time);
+    }
+
+    /**
+     * @param name The name of a global variable
+     * @return Whatever the variable was going to expire
+     */
+    public final synchronized boolean cancel(final String name) {
+        if (deadlines.remove(name) == null)
+            return false;
+        Variables.saveVariableChange(PREFIX + name, null);
+        return true;
+    }
+
+    /**
+     * @param name The name of a global variable
+     * @return When the variable expires in milliseconds since the epoch, or -1 if it doesn't expire
+     */
+    public final long get(final String name) {
+        final Long time = deadlines.get(name);
+        return time == null ? -1L : time;
+    }
+
+    /**
+     * Called for the saved expiry times while the variables are loaded, or when they were changed by another server.
+     * Doesn't save them again.
+     */
+    final synchronized void loaded(final String name, @Nullable final Object time) {
+        if (time == null) {
+            deadlines.remove(name);
+            return;
+        }
+        if (!(time instanceof Number)) {
+            Skript.warning("Invalid expiry time of the variable {" + name + "}: " + time);
+            return;
+        }
+        final long t = ((Number) time).longValue();
+        deadlines.put(name, t);
+        schedule(name, t);
+    }
+
+    /**
+     * Removes the expiry of a variable that is being deleted because it expired. Must be called while holding the
+     * write lock of the variables.
+     *
+     * @return Whatever the entry is still current, i.e. the expiry time of the variable was not changed or cancelled
+     */
+    final synchronized boolean expire(final Entry entry) {
+        if (!deadlines.remove(entry.name, entry.deadline))
+            return false;
+        Variables.saveVariableChange(PREFIX + entry.name, null);
+        return true;
+    }
+
+    /**
+     * @return The expiry times of all expiring variables, not including the {@link #PREFIX}
+     */
+    final Map<String, Long> getDeadlines() {
+        return Collections.unmodifiableMap(deadlines);
+    }
+
+    private final void schedule(final String name, final long time) {
+        final long tick = Math.max(time / TICK_MILLIS, lastTick + 1);
+        final int slot = (int) (tick & MASK);
+        List<Entry> bucket = wheel[slot];
+        if (bucket == null)
+            wheel[slot] = bucket = new ArrayList<>(4);
+        bucket.add(new Entry(name, time));
+        if (scheduled++ == 0)
+            notifyAll();
+    }
+
+    /**
+     * Visits the slots of all ticks after the last visited one up to the given tick.
+     *
+     * @return The entries that expired
+     */
+    final synchronized List<Entry> advance(final long end) {
+        List<Entry> due = Collections.emptyList();
+        // Visits each slot at most once, even if the clock jumped
+        for (long tick = Math.max(lastTick + 1, end - MASK); tick <= end; tick++) {
+            final List<Entry> bucket = wheel[(int) (tick & MASK)];
+            if (bucket == null || bucket.isEmpty())
+                continue;
+            int kept = 0;
+            for (int i = 0; i < bucket.size(); i++) {
+                final Entry entry = bucket.get(i);
+                final Long time = deadlines.get(entry.name);
+                if (time == null || time != entry.deadline) { // Cancelled or changed
+                    scheduled--;
+                } else if (entry.deadline / TICK_MILLIS <= end) {
+                    if (due.isEmpty())
+                        due = new ArrayList<>();
+                    due.add(entry);
+                    scheduled--;
+                } else { // A later round
+                    bucket.set(kept++, entry);
+                }
+            }
+            bucket.subList(kept, bucket.size()).clear();
+        }
+        lastTick = Math.max(lastTick, end);
+        return due;
+    }
+
+    /**
+     * Starts the sweeper thread, called when the variables are loaded.
+     */
+    final synchronized void start() {
+        if (thread != null || closed)
+            return;
+        final Thread t = Skript.newThread(this::run, "Skript variable expiry thread");
+        t.setDaemon(true);
+        t.start();
+        thread = t;
+    }
+
+    private final void run() {
+        try {
+            while (!closed) {
+                final List<Entry> due;
+                synchronized (this) {
+                    while (scheduled == 0 && !closed)
+                        wait();
+                    final long now = System.currentTimeMillis();
+                    // Only complete ticks, so variables expire up to a tick late but never early
+                    final long end = now / TICK_MILLIS - 1;
+                    if (end <= lastTick) {
+                        wait(TICK_MILLIS - now % TICK_MILLIS);
+                        continue;
+                    }
+                    due = advance(end);
+                }
+                if (!due.isEmpty() && !closed) {
+                    final long start = System.nanoTime();
+                    final int n = Variables.expire(this, due);
+                    lastBatchNanos = System.nanoTime() - start;
+                    lastBatch = n;
+                    expired.add(n);
+                }
+            }
+        } catch (final InterruptedException e) {
+            // Stopped
+        }
+    }
+
+    final synchronized void close() {
+        closed = true;
+        notifyAll();
+        final Thread t = thread;
+        thread = null;
+        if (t != null)
+            t.interrupt();
+    }
+
+    /**
+     * @return The number of variables that will expire
+     */
+    public final int getExpiring() {
+        return deadlines.size();
+    }
+
+    /**
+     * @return The number of variables deleted because they expired since the server started
+     */
+    public final long getExpired() {
+        return expired.sum();
+    }
+
+    /**
+     * @return The number of variables deleted in the last batch of expired variables
+     */
+    public final int getLastBatch() {
+        return lastBatch;
+    }
+
+    public final long getLastBatchNanos() {
+        return lastBatchNanos;
+    }
+
+    static final class Entry {
+        final String name;
+        final long deadline;
+
+        Entry(final String name, final long deadline) {
+            this.name = name;
+            this.deadline = deadline;
+        }
+    }
+
+}
@@ -0,0 +1,278 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import ch.njol.skript.lang.Variable;
+
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the global variables, see {@link Variables#getMetrics()}.
+ * <p>
+ * Variables are grouped by their top-level prefix, i.e. the part of their name before the first
+ * {@link Variable#SEPARATOR}, e.g. <tt>{homes::%player%::1}</tt> belongs to <tt>homes</tt>. All counters are
+ * {@link LongAdder}s, so updating them from many threads is cheap and they can always be enabled.
+ */
+public final class VariableMetrics {
+
+    /**
+     * Prefixes are never removed, and variables without a list separator or lists named e.g. <tt>{%player's uuid%::home}</tt>
+     * can create a prefix for each player, so the number of prefixes is limited. Variables of further prefixes are counted as {@link #OTHER}.
+     */
+    private static final int MAX_PREFIXES = 1000;
+    static final String OTHER = "<other>";
+    /**
+     * The size of {@link #cache}, a power of two
+     */
+    private static final int CACHE_SIZE = 1 << 12;
+
+    private final long started = System.nanoTime();
+
+    private final ConcurrentHashMap<String, Prefix> prefixes = new ConcurrentHashMap<>();
+    private final AtomicInteger prefixCount = new AtomicInteger();
+    /**
+     * The recently used prefixes by the hash of their name, so they can be found without creating their name first.
+     * Entries are immutable, so they can be replaced without any synchronization.
+     */
+    private final CachedPrefix[] cache = new CachedPrefix[CACHE_SIZE];
+    private final ConcurrentHashMap<String, Type> types = new ConcurrentHashMap<>();
+
+    private final LongAdder resident = new LongAdder();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+
+    VariableMetrics() {
+        // Created by Variables
+    }
+
+    private final Prefix prefix(final String name) {
+        final int end = name.indexOf(Variable.SEPARATOR);
+        final int length = end == -1 ? name.length() : end;
+        int hash = end == -1 ? name.hashCode() : 0; // The same as the hash of the prefix
+        for (int i = 0; i < end; i++)
+            hash = 31 * hash + name.charAt(i);
+        final int slot = (hash ^ hash >>> 16) & CACHE_SIZE - 1;
+        final CachedPrefix cached = cache[slot];
+        if (cached != null && cached.name.length() == length && name.startsWith(cached.name))
+            return cached.prefix;
+
+        final String p = end == -1 ? name : name.substring(0, end);
+        Prefix prefix = prefixes.get(p);
+        if (prefix == null) {
+            if (prefixCount.get() >= MAX_PREFIXES) {
+                prefix = prefixes.computeIfAbsent(OTHER, k -> new Prefix());
+            } else {
+                prefix = prefixes.computeIfAbsent(p, k -> {
+                    prefixCount.incrementAndGet();
+                    return new Prefix();
+                });
+            }
+        }
+        cache[slot] = new CachedPrefix(p, prefix);
+        return prefix;
+    }
+
+    /**
+     * Called when a variable was read, including list variables
+     */
+    final void read(final String name) {
+        reads.increment();
+        prefix(name).reads.increment();
+    }
+
+    /**
+     * Called when a variable was set or deleted, including list variables
+     */
+    final void written(final String name, final boolean deleted) {
+        writes.increment();
+        final Prefix p = prefix(name);
+        if (deleted)
+            p.deletes.increment();
+        else
+            p.writes.increment();
+    }
+
+    /**
+     * Called when a variable was added to the variables in memory, i.e. set, loaded or paged in
+     */
+    final void added(final String name) {
+        resident.increment();
+        prefix(name).resident.increment();
+    }
+
+    /**
+     * Called when a variable was removed from the variables in memory, i.e. deleted or paged out
+     */
+    final void removed(final String name) {
+        resident.decrement();
+        prefix(name).resident.decrement();
+    }
+
+    /**
+     * Called with the serialized size of a variable when it is loaded or saved, to estimate the size of the variables
+     * of its prefix.
+     */
+    final void sampled(final String name, final int bytes) {
+        final Prefix p = prefix(name);
+        p.samples.increment();
+        p.sampledBytes.add(bytes);
+    }
+
+    /**
+     * Called when a variable was serialized to be saved
+     */
+    final void serialized(final String type, final long nanos, final int bytes) {
+        Type t = types.get(type);
+        if (t == null)
+            t = types.computeIfAbsent(type, k -> new Type());
+        t.count.increment();
+        t.nanos.add(nanos);
+        t.bytes.add(bytes);
+    }
+
+    /**
+     * @return The number of global variables in memory, without taking any lock
+     */
+    public final long getResidentVariables() {
+        return resident.sum();
+    }
+
+    public final long getReads() {
+        return reads.sum();
+    }
+
+    public final long getWrites() {
+        return writes.sum();
+    }
+
+    /**
+     * Creates a human readable report of all statistics, used by <tt>/skript variables stats</tt> and the
+     * <tt>variable stats dump interval</tt> option.
+     *
+     * @param limit The maximum number of prefixes and types to list, or -1 to list all
+     * @return The lines of the report
+     */
+    public final List<String> report(final int limit) {
+        final List<String> lines = new ArrayList<>();
+        final double seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+
+        final VariablePager pager = Variables.getPager();
+        final VariableExpiry expiry = Variables.getVariableExpiry();
+        lines.add("Variables at " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.ENGLISH).format(new Date()) + ": " + getResidentVariables() + " in memory" + (pager != null ? ", " + pager.getPagedVariables() + " paged out in " + pager.getPagedSubtrees() + " subtrees" : "") + ", " + expiry.getExpiring() + " expiring");
+        lines.add("  " + getReads() + " reads (" + format(getReads() / seconds) + "/s), " + getWrites() + " writes (" + format(getWrites() / seconds) + "/s) on average since the server started");
+
+        // Estimated sizes use the average size of the samples of the same prefix, or of all samples if there are none
+        long samples = 0, sampledBytes = 0;
+        for (final Prefix p : prefixes.values()) {
+            samples += p.samples.sum();
+            sampledBytes += p.sampledBytes.sum();
+        }
+        final double averageBytes = samples == 0 ? 0 : sampledBytes / (double) samples;
+        final List<Map.Entry<String, Long>> sizes = new ArrayList<>(prefixes.size());
+        long totalBytes = 0;
+        for (final Map.Entry<String, Prefix> e : prefixes.entrySet()) {
+            final long size = e.getValue().estimateBytes(averageBytes);
+            totalBytes += size;
+            sizes.add(new AbstractMap.SimpleImmutableEntry<>(e.getKey(), size));
+        }
+        sizes.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+
+        lines.add("Prefixes by estimated serialized size (about " + VariablesBackup.formatSize(totalBytes) + " in total):");
+        for (int i = 0; i < sizes.size() && (limit < 0 || i < limit); i++) {
+            final String name = sizes.get(i).getKey();
+            final Prefix p = prefixes.get(name);
+            if (p == null)
+                continue;
+            lines.add("  " + (OTHER.equals(name) ? name : '{' + name + '}') + ": " + p.resident.sum() + " variables, ~" + VariablesBackup.formatSize(sizes.get(i).getValue()) + ", " + p.reads.sum() + " reads, " + p.writes.sum() + " writes, " + p.deletes.sum() + " deletes");
+        }
+        if (limit >= 0 && sizes.size() > limit)
+            lines.add("  ... and " + (sizes.size() - limit) + " more");
+
+        lines.add("Storages:");
+        for (final VariablesStorage s : Variables.storages) {
+            final WriteBehindBuffer b = s.getWriteBuffer();
+            lines.add("  '" + s.databaseName + "': " + b.getPendingVariables() + " changes waiting to be saved, " + b.getSavedVariables() + " variables (" + VariablesBackup.formatSize(b.getSavedBytes()) + ") saved in " + b.getFlushes() + " batches, " + b.getCoalescedChanges() + " changes coalesced");
+            lines.add("    batch latency: " + b.getFlushLatency());
+            final VariablesBackup backup = s.getBackup();
+            if (backup != null && backup.getBackups() != 0)
+                lines.add("    last backup: " + VariablesBackup.formatSize(backup.getLastSize()) + " of " + VariablesBackup.formatSize(backup.getLastOriginalSize()) + " in " + LatencyHistogram.formatNanos(backup.getLastDurationNanos()));
+        }
+
+        final List<Map.Entry<String, Type>> byTime = new ArrayList<>(types.entrySet());
+        byTime.sort((a, b) -> Long.compare(b.getValue().nanos.sum(), a.getValue().nanos.sum()));
+        lines.add("Serialization by type:");
+        for (int i = 0; i < byTime.size() && (limit < 0 || i < limit); i++) {
+            final Type t = byTime.get(i).getValue();
+            final long n = t.count.sum();
+            lines.add("  " + byTime.get(i).getKey() + ": " + n + " values, " + LatencyHistogram.formatNanos(t.nanos.sum()) + " in total, " + LatencyHistogram.formatNanos(n == 0 ? 0 : t.nanos.sum() / n) + " and " + (n == 0 ? 0 : t.bytes.sum() / n) + " bytes on average");
+        }
+
+        if (LazyValue.getCreated() != 0)
+            lines.add("Lazy loading: " + LazyValue.getDeserialized() + " of " + LazyValue.getCreated() + " lazily loaded variables were used");
+        if (pager != null)
+            lines.add("Paging: " + pager.getEvictions() + " evictions, " + pager.getFaults() + " faults (" + LatencyHistogram.formatNanos(pager.getAverageFaultNanos()) + " on average), segment file " + VariablesBackup.formatSize(pager.getSegmentBytes()) + " (" + VariablesBackup.formatSize(pager.getLiveBytes()) + " live)");
+        if (expiry.getExpired() != 0)
+            lines.add("Expiry: " + expiry.getExpired() + " variables expired, the last " + expiry.getLastBatch() + " in " + LatencyHistogram.formatNanos(expiry.getLastBatchNanos()));
+        return lines;
+    }
+
+    private static final String format(final double d) {
+        return String.format(Locale.ENGLISH, "%.1f", d);
+    }
+
+    private static final class Prefix {
+        final LongAdder resident = new LongAdder();
+        final LongAdder reads = new LongAdder();
+        final LongAdder writes = new LongAdder();
+        final LongAdder deletes = new LongAdder();
+        final LongAdder samples = new LongAdder();
+        final LongAdder sampledBytes = new LongAdder();
+
+        final long estimateBytes(final double averageBytes) {
+            final long n = samples.sum();
+            return (long) (resident.sum() * (n == 0 ? averageBytes : sampledBytes.sum() / (double) n));
+        }
+    }
+
+    private static final class CachedPrefix {
+        final String name;
+        final Prefix prefix;
+
+        CachedPrefix(final String name, final Prefix prefix) {
+            this.name = name;
+            this.prefix = prefix;
+        }
+    }
+
+    private static final class Type {
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+    }
+
+}
@@ -0,0 +1,744 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.classes.ClassInfo;
+import ch.njol.skript.classes.Serializer;
+import ch.njol.skript.lang.Variable;
+import ch.njol.skript.registrations.Classes;
+import ch.njol.skript.variables.SerializedVariable.Value;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Keeps the number of global variables in memory below a budget by moving cold list subtrees, i.e. the
+ * <tt>{list::%key%::*}</tt> lists like <tt>{data::%uuid%::*}</tt>, to a segment file in the data folder.
+ * Enabled with the <tt>variables heap budget</tt> option.
+ * <p>
+ * Subtrees are chosen with the CLOCK algorithm: a background thread regularly sweeps over the subtrees while
+ * more variables than the budget are in memory, and pages out each subtree that was not used since the last time
+ * it was swept over. Using a variable of a paged subtree reads it from the file again (a fault), changing one puts
+ * the subtree back into the variables map. The chosen subtrees are copied while the variables are locked, but written
+ * to the file after the lock is released.
+ * <p>
+ * Only subtrees whose values can all be saved and deserialized on any thread are paged. Variables are still saved by
+ * their storages as usual, the segment file is only a cache and is deleted when the server stops.
+ */
+public final class VariablePager {
+
+    private static final long SWEEP_INTERVAL_MILLIS = 10_000L;
+    /**
+     * How many variables are copied to be paged out per sweep at most
+     */
+    private static final long MAX_SWEEP_VARIABLES = 1L << 20;
+    /**
+     * The bounds of the number of bits used to remember which subtrees were used, see {@link #touched}
+     */
+    private static final int MIN_TOUCHED_BITS = 1 << 16, MAX_TOUCHED_BITS = 1 << 26;
+    /**
+     * The segment file is compacted when more than this many bytes and more than half of it are not used anymore
+     */
+    private static final long MIN_COMPACTION_BYTES = 16L << 20;
+
+    private final VariablesMap variables;
+    private final int budget;
+    private final File folder;
+    private final Thread thread;
+    private volatile boolean closed;
+    private volatile Segment segment;
+    private int generation;
+
+    /**
+     * One bit per hash of the names (<tt>list::key</tt>) of the subtrees that were used since the clock hand passed them.
+     * Its size is fixed, so subtrees whose names share a bit are all considered used until the hand passes one of them.
+     */
+    private final AtomicLongArray touched;
+    /**
+     * One bit per hash of the names of the subtrees that contain values that can't be paged, e.g. entities,
+     * so they are not copied again at each sweep. Cleared when the subtree is used, as its values may have changed.
+     */
+    private final AtomicLongArray unpageable;
+    private final int touchedMask;
+    /**
+     * Set when the clock hand went around once, the bits of names that are not subtrees are cleared at the next sweep
+     */
+    private boolean wrapped;
+    private final Set<PagedSubtree> live = ConcurrentHashMap.newKeySet();
+    /**
+     * The position of the clock hand, only used by the sweeper thread
+     */
+    @Nullable
+    private String handList, handKey;
+
+    private final AtomicLong pagedVariables = new AtomicLong();
+    private final AtomicLong residentPagedVariables = new AtomicLong();
+    private final AtomicLong liveBytes = new AtomicLong();
+    private final AtomicLong deadBytes = new AtomicLong();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder faults = new LongAdder();
+    private final LongAdder faultNanos = new LongAdder();
+    private volatile long lastFaultNanos;
+
+    /**
+     * @param variables The global variables
+     * @param budget    How many variables may be in memory
+     * @param folder    The folder of the segment files
+     */
+    VariablePager(final VariablesMap variables, final int budget, final File folder) throws IOException {
+        this.variables = variables;
+        this.budget = budget;
+        this.folder = folder;
+        final int bits = Math.max(MIN_TOUCHED_BITS, Integer.highestOneBit(Math.min(budget, MAX_TOUCHED_BITS - 1)) << 1);
+        touched = new AtomicLongArray(bits >>> 6);
+        unpageable = new AtomicLongArray(bits >>> 6);
+        touchedMask = bits - 1;
+        segment = new Segment(new File(folder, "variables-" + generation + ".paged"));
+        thread = Skript.newThread(this::run, "Skript variable pager thread");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+    }
+
+    final void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops paging and deletes the segment file. Paged subtrees can't be read anymore after this.
+     */
+    final void close() {
+        closed = true;
+        thread.interrupt();
+        try {
+            thread.join(1000L);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.close();
+    }
+
+    /**
+     * Marks the subtree of the given variable as used.
+     *
+     * @param name The name of any variable, e.g. <tt>data::uuid::coins</tt> or <tt>data::uuid::*</tt>
+     */
+    final void touch(final String name) {
+        final int first = name.indexOf(Variable.SEPARATOR);
+        if (first == -1)
+            return;
+        final int second = name.indexOf(Variable.SEPARATOR, first + Variable.SEPARATOR.length());
+        mark(hash(0, name, second == -1 ? name.length() : second));
+    }
+
+    final void touch(final String list, final String key) {
+        mark(hash(list, key));
+    }
+
+    /**
+     * @return The same as <tt>(list + "::" + key).hashCode()</tt>, without creating the name
+     */
+    private static final int hash(final String list, final String key) {
+        return hash(hash(hash(0, list, list.length()), Variable.SEPARATOR, Variable.SEPARATOR.length()), key, key.length());
+    }
+
+    private static final int hash(final int start, final String s, final int end) {
+        int h = start;
+        for (int i = 0; i < end; i++)
+            h = 31 * h + s.charAt(i);
+        return h;
+    }
+
+    private final int bit(final int hash) {
+        return (hash ^ hash >>> 16) & touchedMask;
+    }
+
+    private final void mark(final int hash) {
+        set(touched, hash);
+    }
+
+    private final boolean isTouched(final int hash) {
+        return isSet(touched, hash);
+    }
+
+    /**
+     * @return Whatever the bit was set
+     */
+    private final boolean clearTouched(final int hash) {
+        return clear(touched, hash);
+    }
+
+    private final void set(final AtomicLongArray table, final int hash) {
+        final int bit = bit(hash);
+        final long mask = 1L << bit;
+        if ((table.get(bit >>> 6) & mask) == 0) // Usually set already, don't write to the shared array then
+            table.getAndAccumulate(bit >>> 6, mask, (a, b) -> a | b);
+    }
+
+    private final boolean isSet(final AtomicLongArray table, final int hash) {
+        final int bit = bit(hash);
+        return (table.get(bit >>> 6) & 1L << bit) != 0;
+    }
+
+    /**
+     * @return Whatever the bit was set
+     */
+    private final boolean clear(final AtomicLongArray table, final int hash) {
+        final int bit = bit(hash);
+        final long mask = 1L << bit;
+        while (true) {
+            final long bits = table.get(bit >>> 6);
+            if ((bits & mask) == 0)
+                return false;
+            if (table.compareAndSet(bit >>> 6, bits, bits & ~mask))
+                return true;
+        }
+    }
+
+    /**
+     * @return Whatever the value can be saved and deserialized on any thread, see {@link Writer#write(TreeMap)}
+     */
+    static final boolean isPageable(final Object o) {
+        if (o instanceof LazyValue)
+            return !((LazyValue) o).mustSync();
+        ClassInfo<?> ci = Classes.getExactClassInfo(o.getClass());
+        if (ci == null && (ci = Classes.getSuperClassInfo(o.getClass())) == null)
+            return false;
+        final Class<?> serializeAs = ci.getSerializeAs();
+        if (serializeAs != null && (ci = Classes.getExactClassInfo(serializeAs)) == null)
+            return false;
+        final Serializer<?> s = ci.getSerializer();
+        return s != null && !s.mustSyncDeserialization();
+    }
+
+    private final void run() {
+        while (!closed) {
+            try {
+                Thread.sleep(SWEEP_INTERVAL_MILLIS);
+                sweep();
+            } catch (final InterruptedException e) {
+                break;
+            } catch (final Throwable tw) {
+                if (!closed)
+                    Skript.exception(tw, "Error while paging out variables");
+            }
+        }
+    }
+
+    /**
+     * Pages out subtrees until the variables in memory are below the budget again.
+     */
+    final void sweep() throws IOException {
+        final Lock readLock = Variables.getReadLock();
+        final Sweep sweep;
+        readLock.lock();
+        try {
+            final long need = variables.hashMap.size() + residentPagedVariables.get() - budget;
+            if (need <= 0)
+                return;
+            if (wrapped) { // Also forgets names that are not subtrees
+                wrapped = false;
+                for (int i = 0; i < touched.length(); i++)
+                    touched.set(i, 0L);
+            }
+            sweep = new Sweep(need + budget / 10); // Don't sweep again immediately
+            sweep.run();
+        } finally {
+            readLock.unlock();
+        }
+
+        // Serialized without the lock, a writer waiting for it would make all later reads wait as well
+        final Segment s = segment;
+        final List<Victim> victims = new ArrayList<>(sweep.victims.size());
+        final List<PagedSubtree> paged = new ArrayList<>(sweep.victims.size());
+        for (final Victim v : sweep.victims) {
+            final Writer w = new Writer();
+            try {
+                if (!w.write(v.copy))
+                    continue;
+            } catch (final UTFDataFormatException e) { // Too long name
+                continue;
+            }
+            final byte[] data = w.toByteArray();
+            victims.add(v);
+            paged.add(new PagedSubtree(this, new Page(s, s.append(data), data.length), w.size));
+        }
+        if (victims.isEmpty())
+            return;
+
+        final Lock writeLock = Variables.variablesLock.writeLock();
+        writeLock.lock();
+        try {
+            for (int i = 0; i < paged.size(); i++) {
+                final Victim v = victims.get(i);
+                final PagedSubtree p = paged.get(i);
+                // Used or changed since it was copied
+                if (isTouched(hash(v.list, v.key)) || !variables.page(v.list, v.key, v.tree, p)) {
+                    deadBytes.addAndGet(p.page.length);
+                    continue;
+                }
+                live.add(p);
+                pagedVariables.addAndGet(p.size);
+                liveBytes.addAndGet(p.page.length);
+                evictions.increment();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+
+        final long dead = deadBytes.get();
+        if (dead > MIN_COMPACTION_BYTES && dead > liveBytes.get())
+            compact();
+    }
+
+    /**
+     * Copies the live pages to a new segment file and deletes the old one.
+     */
+    private final void compact() throws IOException {
+        final Segment old = segment;
+        final Segment s = new Segment(new File(folder, "variables-" + ++generation + ".paged"));
+        final List<PagedSubtree> moved = new ArrayList<>(live.size());
+        final List<Page> pages = new ArrayList<>(live.size());
+        for (final PagedSubtree p : live) {
+            final Page page = p.page;
+            final byte[] data = page.segment.read(page.position, page.length);
+            moved.add(p);
+            pages.add(new Page(s, s.append(data), data.length));
+        }
+
+        final Lock writeLock = Variables.variablesLock.writeLock();
+        writeLock.lock();
+        try {
+            long bytes = 0;
+            for (int i = 0; i < moved.size(); i++) {
+                final PagedSubtree p = moved.get(i);
+                if (p.discarded)
+                    continue;
+                p.page = pages.get(i);
+                bytes += pages.get(i).length;
+            }
+            segment = s;
+            liveBytes.set(bytes);
+            deadBytes.set(s.length() - bytes);
+        } finally {
+            writeLock.unlock();
+        }
+        old.close();
+    }
+
+    /**
+     * Reads a paged subtree and counts it as a fault.
+     */
+    final TreeMap<String, Object> fault(final PagedSubtree p) {
+        final long start = System.nanoTime();
+        final TreeMap<String, Object> tree = read(p);
+        final long took = System.nanoTime() - start;
+        faults.increment();
+        faultNanos.add(took);
+        lastFaultNanos = took;
+        if (!p.discarded)
+            residentPagedVariables.addAndGet(p.size);
+        return tree;
+    }
+
+    final TreeMap<String, Object> read(final PagedSubtree p) {
+        while (true) {
+            final Page page = p.page;
+            try {
+                return decode(page.segment.read(page.position, page.length));
+            } catch (final IOException e) {
+                if (p.page != page)
+                    continue; // Moved while reading
+                if (p.discarded)
+                    return new TreeMap<>(VariablesMap.variableNameComparator); // Deleted, its page may be gone already
+                throw Skript.exception(e, "Cannot read paged variables from " + page.segment.file);
+            }
+        }
+    }
+
+    final void dropped(final PagedSubtree p) {
+        residentPagedVariables.addAndGet(-p.size);
+    }
+
+    final void discard(final PagedSubtree p, final boolean resident) {
+        if (!live.remove(p))
+            return;
+        pagedVariables.addAndGet(-p.size);
+        if (resident)
+            residentPagedVariables.addAndGet(-p.size);
+        liveBytes.addAndGet(-p.page.length);
+        deadBytes.addAndGet(p.page.length);
+    }
+
+    /**
+     * @return How many variables may be in memory
+     */
+    public final int getBudget() {
+        return budget;
+    }
+
+    /**
+     * @return How many variables are paged out, including those that were read since the last sweep
+     */
+    public final long getPagedVariables() {
+        return pagedVariables.get();
+    }
+
+    /**
+     * @return How many variables of paged subtrees were read since the last sweep and are in memory
+     */
+    public final long getResidentPagedVariables() {
+        return residentPagedVariables.get();
+    }
+
+    /**
+     * @return How many subtrees are paged out
+     */
+    public final int getPagedSubtrees() {
+        return live.size();
+    }
+
+    /**
+     * @return How many subtrees were paged out since the server started
+     */
+    public final long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return How many times a paged subtree was read
+     */
+    public final long getFaults() {
+        return faults.sum();
+    }
+
+    public final long getAverageFaultNanos() {
+        final long n = faults.sum();
+        return n == 0 ? 0 : faultNanos.sum() / n;
+    }
+
+    public final long getLastFaultNanos() {
+        return lastFaultNanos;
+    }
+
+    /**
+     * @return The size of the segment file, including the pages of subtrees that are not paged anymore
+     */
+    public final long getSegmentBytes() {
+        return liveBytes.get() + deadBytes.get();
+    }
+
+    public final long getLiveBytes() {
+        return liveBytes.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static final TreeMap<String, Object> decode(final byte[] data) throws IOException {
+        final TreeMap<String, Object> tree = new TreeMap<>(VariablesMap.variableNameComparator);
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        while (in.available() > 0) {
+            final int depth = in.readInt();
+            TreeMap<String, Object> parent = tree;
+            String key = null;
+            for (int i = 0; i < depth; i++) {
+                if (i != 0) {
+                    final Object child = parent.get(key);
+                    if (child instanceof TreeMap) {
+                        parent = (TreeMap<String, Object>) child;
+                    } else {
+                        final TreeMap<String, Object> c = new TreeMap<>(VariablesMap.variableNameComparator);
+                        parent.put(key, c);
+                        parent = c;
+                    }
+                }
+                key = in.readBoolean() ? in.readUTF() : null;
+            }
+            final String type = in.readUTF();
+            final byte[] value = new byte[in.readInt()];
+            in.readFully(value);
+            final ClassInfo<?> ci = Variables.getClassInfo(type);
+            if (ci == null || ci.getSerializer() == null)
+                throw new StreamCorruptedException("Unknown type " + type);
+            if (CompactCodecs.isCompact(type)) { // cheap to deserialize
+                final Object o = CompactCodecs.deserialize(type, value);
+                if (o == null)
+                    throw new StreamCorruptedException("Invalid " + type + " value");
+                parent.put(key, o);
+            } else {
+                parent.put(key, new LazyValue(ci, value));
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * A part of a segment file that contains a subtree.
+     */
+    static final class Page {
+        final Segment segment;
+        final long position;
+        final int length;
+
+        Page(final Segment segment, final long position, final int length) {
+            this.segment = segment;
+            this.position = position;
+            this.length = length;
+        }
+    }
+
+    /**
+     * A file that pages are appended to. Not memory mapped, the operating system's page cache already keeps the
+     * recently read parts in memory, and mapped files can't be unmapped reliably to delete them.
+     */
+    static final class Segment {
+        final File file;
+        private final RandomAccessFile raf;
+        private long length;
+
+        Segment(final File file) throws IOException {
+            this.file = file;
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(0);
+            file.deleteOnExit();
+        }
+
+        final synchronized long append(final byte[] data) throws IOException {
+            final long position = length;
+            raf.seek(position);
+            raf.write(data);
+            length += data.length;
+            return position;
+        }
+
+        final synchronized byte[] read(final long position, final int length) throws IOException {
+            final byte[] data = new byte[length];
+            raf.seek(position);
+            raf.readFully(data);
+            return data;
+        }
+
+        final synchronized long length() {
+            return length;
+        }
+
+        final synchronized void close() {
+            try {
+                raf.close();
+            } catch (final IOException e) {
+                if (Skript.debug())
+                    Skript.exception(e);
+            }
+            if (!file.delete())
+                file.deleteOnExit();
+        }
+    }
+
+    private static final class Victim {
+        final String list, key;
+        /**
+         * The subtree in the variables map, and a copy of it that can be written without the lock
+         */
+        final TreeMap<String, Object> tree, copy;
+
+        Victim(final String list, final String key, final TreeMap<String, Object> tree, final TreeMap<String, Object> copy) {
+            this.list = list;
+            this.key = key;
+            this.tree = tree;
+            this.copy = copy;
+        }
+    }
+
+    /**
+     * One sweep of the clock hand, must hold the read lock of the variables. Only copies the subtrees to page out.
+     */
+    private final class Sweep {
+        final List<Victim> victims = new ArrayList<>();
+        private long need;
+        private long copied;
+
+        Sweep(final long need) {
+            this.need = need;
+        }
+
+        final void run() {
+            final String list = handList, key = handKey;
+            if (list == null || key == null) {
+                if (sweep(variables.treeMap, null, null, null, null))
+                    wrapped = true;
+                return;
+            }
+            if (sweep(variables.treeMap.tailMap(list, true), list, key, null, null)
+                    && sweep(variables.treeMap.headMap(list, true), null, null, list, key))
+                wrapped = true;
+        }
+
+        /**
+         * @return Whatever all subtrees of the lists were swept over
+         */
+        @SuppressWarnings("unchecked")
+        private boolean sweep(final Map<String, Object> lists, @Nullable final String firstList, @Nullable final String after,
+                              @Nullable final String lastList, @Nullable final String until) {
+            for (final Entry<String, Object> l : lists.entrySet()) {
+                if (l.getKey() == null || !(l.getValue() instanceof TreeMap))
+                    continue;
+                TreeMap<String, Object> list = (TreeMap<String, Object>) l.getValue();
+                Map<String, Object> subtrees = list;
+                if (after != null && l.getKey().equals(firstList))
+                    subtrees = list.tailMap(after, false);
+                if (until != null && l.getKey().equals(lastList))
+                    subtrees = ((TreeMap<String, Object>) subtrees).headMap(until, true);
+                for (final Entry<String, Object> s : subtrees.entrySet()) {
+                    if (s.getKey() == null)
+                        continue;
+                    if (need <= 0 || copied >= MAX_SWEEP_VARIABLES)
+                        return false;
+                    handList = l.getKey();
+                    handKey = s.getKey();
+                    visit(l.getKey(), s.getKey(), s.getValue());
+                }
+            }
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void visit(final String list, final String key, final Object value) {
+            final int hash = hash(list, key);
+            final boolean used = clearTouched(hash);
+            if (used)
+                clear(unpageable, hash);
+            if (value instanceof PagedSubtree) {
+                final PagedSubtree p = (PagedSubtree) value;
+                if (!used && p.isResident()) {
+                    p.drop();
+                    need -= p.size;
+                }
+                return;
+            }
+            if (used || !(value instanceof TreeMap) || isSet(unpageable, hash))
+                return;
+            final TreeMap<String, Object> tree = (TreeMap<String, Object>) value;
+            final long[] size = new long[1];
+            final TreeMap<String, Object> copy = copy(tree, size);
+            if (copy == null) {
+                set(unpageable, hash);
+                return;
+            }
+            need -= size[0];
+            copied += size[0];
+            victims.add(new Victim(list, key, tree, copy));
+        }
+
+        /**
+         * Copies the maps of a subtree, but not its values
+         *
+         * @param size Incremented by the number of values of the subtree
+         * @return The copy, or null if the subtree contains a value that can't be {@link #isPageable(Object) paged}
+         */
+        @Nullable
+        @SuppressWarnings("unchecked")
+        private TreeMap<String, Object> copy(final TreeMap<String, Object> tree, final long[] size) {
+            final TreeMap<String, Object> copy = new TreeMap<>(tree);
+            for (final Entry<String, Object> e : copy.entrySet()) {
+                if (e.getValue() instanceof TreeMap) {
+                    final TreeMap<String, Object> c = copy((TreeMap<String, Object>) e.getValue(), size);
+                    if (c == null)
+                        return null;
+                    e.setValue(c);
+                } else if (isPageable(e.getValue())) {
+                    size[0]++;
+                } else {
+                    return null;
+                }
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Writes a subtree as a sequence of its values, each with the keys of its path
+     */
+    private static final class Writer {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final List<String> path = new ArrayList<>();
+        int size;
+
+        /**
+         * @return Whatever the subtree can be paged, i.e. all values can be saved and deserialized on any thread
+         */
+        @SuppressWarnings("unchecked")
+        final boolean write(final TreeMap<String, Object> tree) throws IOException {
+            for (final Entry<String, Object> e : tree.entrySet()) {
+                final Object value = e.getValue();
+                path.add(e.getKey());
+                try {
+                    if (value instanceof TreeMap ? !write((TreeMap<String, Object>) value) : !writeValue(value))
+                        return false;
+                } finally {
+                    path.remove(path.size() - 1);
+                }
+            }
+            return true;
+        }
+
+        private boolean writeValue(final Object o) throws IOException {
+            // The segment file is not kept, so the compact encodings are used even if they are disabled for the storages
+            Value value = o instanceof LazyValue ? ((LazyValue) o).serialize() : CompactCodecs.serialize(o);
+            if (value == null && !(o instanceof LazyValue))
+                value = Classes.serialize(o);
+            if (value == null)
+                return false;
+            final ClassInfo<?> ci = Variables.getClassInfo(value.type);
+            final Serializer<?> s;
+            if (ci == null || (s = ci.getSerializer()) == null || s.mustSyncDeserialization())
+                return false;
+            out.writeInt(path.size());
+            for (final String key : path) {
+                out.writeBoolean(key != null);
+                if (key != null)
+                    out.writeUTF(key);
+            }
+            out.writeUTF(value.type);
+            out.writeInt(value.data.length);
+            out.write(value.data);
+            size++;
+            return true;
+        }
+
+        final byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+
+}
@@ -27,30 +27,43 @@ import ch.njol.skript.SkriptAPIException;
 import ch.njol.skript.SkriptConfig;
 import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.classes.ConfigurationSerializer;
+import ch.njol.skript.classes.Serializer;
 import ch.njol.skript.config.Config;
 import ch.njol.skript.config.Node;
 import ch.njol.skript.config.SectionNode;
 import ch.njol.skript.lang.Variable;
+import ch.njol.skript.log.SkriptLogger;
 import ch.njol.skript.registrations.Classes;
 import ch.njol.skript.registrations.Converters;
+import ch.njol.skript.util.FileUtils;
+import ch.njol.skript.util.Task;
+import ch.njol.skript.util.Timespan;
 import ch.njol.skript.variables.DatabaseStorage.Type;
 import ch.njol.skript.variables.SerializedVariable.Value;
 import ch.njol.util.Kleenean;
 import ch.njol.util.NonNullPair;
 import ch.njol.util.SynchronizedReference;
 import ch.njol.yggdrasil.Yggdrasil;
-import org.bukkit.Bukkit;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.configuration.serialization.ConfigurationSerialization;
 import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -64,22 +77,25 @@ public final class Variables {
     public static final short YGGDRASIL_VERSION = 1;
     public static final Yggdrasil yggdrasil = new Yggdrasil(YGGDRASIL_VERSION);
     static final List<VariablesStorage> storages = new ArrayList<>();
+    /**
+     * Finds the storage of a variable, rebuilt whenever a storage is added
+     */
+    private static volatile StorageRouter<VariablesStorage> router = new StorageRouter<>(Collections.emptyList(), Collections.emptyList());
     /**
      * Stores loaded variables while variable storage's are loaded.
      * <p>
      * Access must be synchronized.
      */
     static final SynchronizedReference<Map<String, NonNullPair<Object, VariablesStorage>>> tempVars = new SynchronizedReference<>(new HashMap<>(300));
-    static final BlockingQueue<SerializedVariable> queue = new LinkedBlockingQueue<>();
-    static final BlockingQueue<SerializedVariable> saveQueue = queue;
     static final ReadWriteLock variablesLock = new ReentrantReadWriteLock(true);
     private static final String configurationSerializablePrefix = "ConfigurationSerializable_";
     @SuppressWarnings("null")
     private static final Pattern variableNameSplitPattern = Pattern.compile(Pattern.quote(Variable.SEPARATOR));
+    private static final VariableMetrics metrics = new VariableMetrics();
     /**
      * must be locked with {@link #variablesLock}.
      */
-    private static final VariablesMap variables = new VariablesMap();
+    private static final VariablesMap variables = new VariablesMap(metrics);
     /**
      * Not accessed concurrently
      */
@@ -90,23 +106,32 @@ public final class Variables {
     private static final Queue<VariableChange> changeQueue = new ConcurrentLinkedQueue<>();
     private static final int MAX_CONFLICT_WARNINGS = 10;
     static volatile boolean closed;
-    private static final Thread saveThread = Skript.newThread(() -> {
-        while (!closed) {
-            try {
-                final SerializedVariable v = queue.take();
-                for (final VariablesStorage s : storages) {
-                    if (s.accept(v.name)) {
-                        s.save(v);
-                        break;
-                    }
-                }
-            } catch (final InterruptedException ignored) {
-                Thread.currentThread().interrupt();
-                break;
-            }
-        }
-    }, "Skript variable save thread");
+    /**
+     * Changes made before the storages are loaded, which are saved once it is known which storage they belong to.
+     * Also used as the lock for {@link #storagesLoaded}.
+     */
+    private static final Queue<VariableChange> unsavedChanges = new ArrayDeque<>();
+    private static volatile boolean storagesLoaded;
     private static int loadConflicts;
+    /**
+     * Set while or after the variables are loaded in the background, see {@link #loadInBackground(Callable)}.
+     */
+    @Nullable
+    private static volatile Future<Boolean> loading;
+    /**
+     * The thread that loads the variables in the background, see {@link #loadInBackground(Callable)}.
+     */
+    @Nullable
+    private static volatile Thread loaderThread;
+    /**
+     * Tasks that the {@link #loaderThread} hands to the main thread, which runs them while it {@link #awaitLoad() waits} for the variables.
+     */
+    private static final BlockingQueue<Runnable> loaderTasks = new LinkedBlockingQueue<>();
+    @Nullable
+    private static volatile VariablePager pager;
+    private static final VariableExpiry expiry = new VariableExpiry();
+    @Nullable
+    private static volatile Task statsDumpTask;
 
     static {
         yggdrasil.registerSingleClass(Kleenean.class, "Kleenean");
@@ -144,6 +169,99 @@ public final class Variables {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Loads the variables on a new thread, e.g. while scripts are parsed. Anything that needs the variables
+     * (including triggers) must call {@link #awaitLoad()} first.
+     * <p>
+     * The loader thread {@link SkriptLogger#startOwnLogContext() uses its own log handlers}. Values that must be deserialized
+     * on the main thread are deserialized, and the loaded variables are stored, when the main thread calls {@link #awaitLoad()}.
+     *
+     * @param loader Calls {@link #load()}, may start log handlers.
+     * @return The result of the loader
+     */
+    public static final Future<Boolean> loadInBackground(final Callable<Boolean> loader) {
+        final FutureTask<Boolean> task = new FutureTask<>(() -> {
+            SkriptLogger.startOwnLogContext();
+            try {
+                return loader.call();
+            } finally {
+                SkriptLogger.stopOwnLogContext();
+                loaderThread = null;
+            }
+        });
+        loading = task;
+        final Thread t = Skript.newThread(task, "Skript variable loader thread");
+        loaderThread = t;
+        t.start();
+        return task;
+    }
+
+    /**
+     * Waits until the variables are loaded if they are {@link #loadInBackground(Callable) loaded in the background},
+     * running the tasks the loader thread {@link #callSync(Callable) hands to the main thread} in the meantime.
+     * Returns immediately otherwise.
+     * <p>
+     * Must be called on Bukkit's main thread.
+     *
+     * @return Whatever the variables were loaded successfully. Errors are already logged by the loader.
+     */
+    public static final boolean awaitLoad() {
+        final Future<Boolean> f = loading;
+        if (f == null)
+            return true;
+        boolean interrupted = false;
+        try {
+            while (!f.isDone()) {
+                try {
+                    final Runnable r = loaderTasks.poll(50, TimeUnit.MILLISECONDS);
+                    if (r != null)
+                        r.run();
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            return f.get();
+        } catch (final InterruptedException | ExecutionException e) {
+            return false;
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return Whatever the current thread is the thread that {@link #loadInBackground(Callable) loads the variables in the background}
+     */
+    static final boolean isLoaderThread() {
+        return Thread.currentThread() == loaderThread;
+    }
+
+    /**
+     * Calls a method on Bukkit's main thread like {@link Task#callSync(Callable)}.
+     * <p>
+     * The server doesn't run scheduled tasks before it is started, so if this is called by the thread that
+     * {@link #loadInBackground(Callable) loads the variables in the background}, the method is called when the main thread
+     * {@link #awaitLoad() waits} for the variables instead, with the log handlers of the loader thread.
+     *
+     * @param c The method
+     * @return What the method returned or null if it threw an error
+     */
+    @Nullable
+    static final <T> T callSync(final Callable<T> c) {
+        if (!isLoaderThread())
+            return Task.callSync(c);
+        final FutureTask<T> task = new FutureTask<>(SkriptLogger.withLogContext(c));
+        loaderTasks.add(task);
+        try {
+            return task.get();
+        } catch (final ExecutionException e) {
+            Skript.exception(e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
     public static final boolean load() {
         try {
             assert variables.treeMap.isEmpty();
@@ -225,7 +343,7 @@ public final class Variables {
                             Skript.info("Loading database '" + node.getKey() + "'...");
 
                         if (s.load(n))
-                            storages.add(s);
+                            addStorage(s);
                         else
                             successful = false;
 
@@ -251,15 +369,28 @@ public final class Variables {
                 }
             } finally {
                 // make sure to put the loaded variables into the variables map
-                final int n = onStoragesLoaded();
+                final Integer stored = isLoaderThread() ? callSync(Variables::onStoragesLoaded) : Integer.valueOf(onStoragesLoaded());
+                final int n = stored == null ? 0 : stored;
                 if (n != 0) {
                     Skript.warning(n + " variables were possibly discarded due to not belonging to any database (SQL databases keep such variables and will continue to generate this warning, while CSV discards them).");
                 }
 
                 loadingLoggerThread.interrupt();
 
-                saveThread.start();
+                final int lazy = LazyValue.getCreated();
+                if (lazy != 0 && Skript.logHigh())
+                    Skript.info(lazy + " loaded variables were kept serialized and will be deserialized when they are used");
+
+                synchronized (unsavedChanges) {
+                    storagesLoaded = true;
+                    VariableChange change;
+                    while ((change = unsavedChanges.poll()) != null)
+                        saveVariableChange(change.name, change.value);
+                }
             }
+            startPager();
+            expiry.start();
+            startStatsDump();
             return true;
         } catch (final Throwable tw) {
             Skript.error("Cannot load variables: " + tw.getLocalizedMessage());
@@ -268,6 +399,109 @@ public final class Variables {
         }
     }
 
+    private static final void addStorage(final VariablesStorage s) {
+        storages.add(s);
+        final List<String> patterns = new ArrayList<>(storages.size());
+        for (final VariablesStorage storage : storages)
+            patterns.add(storage.variablePattern);
+        router = new StorageRouter<>(storages, patterns);
+    }
+
+    /**
+     * @param name The name of a variable
+     * @return The storage the variable is saved in, i.e. the first storage whose pattern matches the name
+     */
+    @Nullable
+    static final VariablesStorage getStorage(final String name) {
+        return router.route(name);
+    }
+
+    private static final void startPager() {
+        final int budget = SkriptConfig.variablesHeapBudget.value();
+        if (budget <= 0)
+            return;
+        final VariablePager p;
+        try {
+            p = new VariablePager(variables, budget, Skript.getInstance().getDataFolder());
+        } catch (final IOException e) {
+            Skript.exception(e, "Cannot create the segment file for paged variables, all variables will be kept in memory");
+            return;
+        }
+        variablesLock.writeLock().lock();
+        try {
+            variables.pager = p;
+        } finally {
+            variablesLock.writeLock().unlock();
+        }
+        pager = p;
+        p.start();
+    }
+
+    /**
+     * @return The pager of the global variables, or null if the <tt>variables heap budget</tt> option is not set
+     */
+    @Nullable
+    public static final VariablePager getPager() {
+        return pager;
+    }
+
+    /**
+     * @return The statistics of the global variables
+     */
+    public static final VariableMetrics getMetrics() {
+        return metrics;
+    }
+
+    private static final void startStatsDump() {
+        final Timespan interval = SkriptConfig.variableStatsDumpInterval.value();
+        if (interval.getTicks_i() <= 0)
+            return;
+        final File file = new File(Skript.getInstance().getDataFolder(), "variable-stats.txt");
+        statsDumpTask = new Task(Skript.getInstance(), interval.getTicks_i(), interval.getTicks_i(), true) {
+            @Override
+            public void run() {
+                final File temp = new File(file.getPath() + ".temp");
+                try {
+                    Files.write(temp.toPath(), metrics.report(-1), StandardCharsets.UTF_8);
+                    FileUtils.move(temp, file, true);
+                } catch (final IOException e) {
+                    Skript.error("Cannot write the variable statistics to " + file.getName() + ": " + e.getLocalizedMessage());
+                }
+            }
+        };
+    }
+
+    /**
+     * @return The expiry times of global variables, see {@link VariableExpiry#set(String, long)}
+     */
+    public static final VariableExpiry getVariableExpiry() {
+        return expiry;
+    }
+
+    /**
+     * Deletes expired variables. All variables of the batch are deleted while holding the lock once, so their deletions
+     * are usually saved together.
+     *
+     * @return The number of deleted variables
+     */
+    static final int expire(final VariableExpiry expiry, final List<VariableExpiry.Entry> due) {
+        int n = 0;
+        variablesLock.writeLock().lock();
+        try {
+            processChangeQueue();
+            for (final VariableExpiry.Entry entry : due) {
+                if (!expiry.expire(entry))
+                    continue; // Changed or cancelled in the meantime
+                variables.setVariable(entry.name, null);
+                saveVariableChange(entry.name, null);
+                n++;
+            }
+        } finally {
+            variablesLock.writeLock().unlock();
+        }
+        return n;
+    }
+
     @SuppressWarnings("null")
     public static final String[] splitVariableName(final String name) {
         return splitVariableName0(name);
@@ -301,6 +535,9 @@ public final class Variables {
      * Returns the internal value of the requested variable.
      * <p>
      * <b>Do not modify the returned value!</b>
+     * <p>
+     * The values in the map of a list variable may not be deserialized yet if variables are loaded lazily,
+     * and sublists may be paged out, use {@link #getValue(Object)} to get their actual values.
      *
      * @param name
      * @return an Object for a normal Variable or a Map<String, Object> for a list variable, or null if the variable is not set.
@@ -313,6 +550,7 @@ public final class Variables {
                 return null;
             return map.getVariable(name);
         }
+        metrics.read(name);
         // Prevent race conditions from returning variables with incorrect values
         if (!changeQueue.isEmpty()) {
             for (final VariableChange change : changeQueue) {
@@ -320,12 +558,81 @@ public final class Variables {
                     return change.value;
             }
         }
+        final Object value;
         variablesLock.readLock().lock();
         try {
-            return variables.getVariable(name);
+            value = variables.getVariable(name);
         } finally {
             variablesLock.readLock().unlock();
         }
+        return value instanceof LazyValue ? ((LazyValue) value).get() : value;
+    }
+
+    /**
+     * @param value A value of the map of a list variable, see {@link #getVariable(String, Event, boolean)}
+     * @return The actual value, deserialized if it was loaded lazily and not used yet, or the map of a paged sublist.
+     * Null if it can't be deserialized.
+     */
+    @Nullable
+    public static final Object getValue(@Nullable final Object value) {
+        if (value instanceof LazyValue)
+            return ((LazyValue) value).get();
+        if (value instanceof PagedSubtree)
+            return ((PagedSubtree) value).get();
+        return value;
+    }
+
+    /**
+     * Deserializes a value loaded by a storage, or keeps it serialized until it is used if the
+     * <tt>lazy variable loading</tt> option is enabled and the value can be deserialized on any thread.
+     * <p>
+     * Values that must be deserialized on the main thread are kept serialized if they are
+     * {@link #loadInBackground(Callable) loaded in the background}, and deserialized on the main thread once all storages are loaded.
+     *
+     * @param type  The type of the value
+     * @param value The serialized value
+     * @return The value to pass to {@link #variableLoaded(String, Object, VariablesStorage)}, or null if it can't be deserialized
+     */
+    @Nullable
+    static final Object deserialize(final ClassInfo<?> type, final byte[] value) {
+        final Serializer<?> s = type.getSerializer();
+        if (s != null && (s.mustSyncDeserialization() ? isLoaderThread() : SkriptConfig.lazyVariableLoading.value()))
+            return new LazyValue(type, value);
+        return Classes.deserialize(type, value);
+    }
+
+    /**
+     * Same as {@link #deserialize(ClassInfo, byte[])}, but also deserializes values saved with {@link CompactCodecs}.
+     * Compact values are never loaded lazily, as they are cheap to deserialize, but are deferred to the main thread like other values.
+     *
+     * @param type The saved type of the value
+     */
+    @Nullable
+    static final Object deserialize(final String type, final byte[] value) {
+        if (CompactCodecs.isCompact(type)) {
+            if (isLoaderThread()) {
+                final ClassInfo<?> ci = CompactCodecs.getClassInfo(type);
+                final Serializer<?> s;
+                if (ci != null && (s = ci.getSerializer()) != null && s.mustSyncDeserialization())
+                    return new LazyValue(type, ci, value);
+            }
+            return CompactCodecs.deserialize(type, value);
+        }
+        final ClassInfo<?> ci = Classes.getClassInfoNoError(type);
+        if (ci == null)
+            return null;
+        return deserialize(ci, value);
+    }
+
+    /**
+     * @param type The saved type of a value, see {@link SerializedVariable.Value#type}
+     * @return The class info of the value, or null if the type is unknown
+     */
+    @Nullable
+    static final ClassInfo<?> getClassInfo(final String type) {
+        if (CompactCodecs.isCompact(type))
+            return CompactCodecs.getClassInfo(type);
+        return Classes.getClassInfoNoError(type);
     }
 
     /**
@@ -383,16 +690,16 @@ public final class Variables {
     }
 
     static final void setVariable(final String name, @Nullable final Object value) {
+        metrics.written(name, value == null);
         final boolean gotLock = variablesLock.writeLock().tryLock();
         if (gotLock) {
             try {
+                processChangeQueue(); // Process all previously queued writes first, they are older than this one
                 variables.setVariable(name, value);
                 saveVariableChange(name, value);
-                processChangeQueue(); // Process all previously queued writes
             } finally {
                 variablesLock.writeLock().unlock();
             }
-            saveVariableChange(name, value);
         } else { // Can't block here, queue the change
             queueVariableChange(name, value);
         }
@@ -401,7 +708,8 @@ public final class Variables {
     /**
      * Sets a variable and moves it to the appropriate database if the config was changed. Must only be used while variables are loaded when Skript is starting.
      * <p>
-     * Must be called on Bukkit's main thread.
+     * Must be called on Bukkit's main thread once all storages are loaded. While they are loaded, it may also be called by the thread
+     * that {@link #loadInBackground(Callable) loads them in the background}, which only stores the variable until they are all loaded.
      * <p>
      * This method directly invokes {@link VariablesStorage#save(String, String, byte[])}, i.e. you should not be holding any database locks or such when calling this!
      *
@@ -412,8 +720,6 @@ public final class Variables {
      */
     @SuppressWarnings({"unused", "null"})
     static final boolean variableLoaded(final String name, @Nullable final Object value, final VariablesStorage source) {
-        assert Bukkit.isPrimaryThread(); // required by serialization
-
         synchronized (tempVars) {
             final Map<String, NonNullPair<Object, VariablesStorage>> tvs = tempVars.get();
             if (tvs != null) {
@@ -433,25 +739,48 @@ public final class Variables {
             }
         }
 
+        if (name.startsWith(VariableExpiry.PREFIX)) {
+            expiry.loaded(name.substring(VariableExpiry.PREFIX.length()), getValue(value));
+        } else {
+            variablesLock.writeLock().lock();
+            try {
+                variables.setVariable(name, value);
+            } finally {
+                variablesLock.writeLock().unlock();
+            }
+        }
+
+        final VariablesStorage s = getStorage(name);
+        if (s == null)
+            return false;
+        if (s != source) {
+            final Value v = serialize(value);
+            s.save(name, v != null ? v.type : null, v != null ? v.data : null);
+            if (value != null)
+                source.save(name, null, null);
+        }
+        return true;
+    }
+
+    /**
+     * Applies a batch of {@link #variableLoaded(String, Object, VariablesStorage) loaded variables}, e.g. variables changed by
+     * another server, holding the write lock once for the whole batch instead of once per variable.
+     * <p>
+     * Must be called on Bukkit's main thread.
+     *
+     * @param names  The names of the variables
+     * @param values The values of the variables, null elements delete the variable
+     * @param source The storage the variables were loaded from
+     */
+    static final void variablesLoaded(final List<String> names, final List<Object> values, final VariablesStorage source) {
+        assert names.size() == values.size();
         variablesLock.writeLock().lock();
         try {
-            variables.setVariable(name, value);
+            for (int i = 0; i < names.size(); i++)
+                variableLoaded(names.get(i), values.get(i), source);
         } finally {
             variablesLock.writeLock().unlock();
         }
-
-        for (final VariablesStorage s : storages) {
-            if (s.accept(name)) {
-                if (s != source) {
-                    final Value v = serialize(value);
-                    s.save(name, v != null ? v.type : null, v != null ? v.data : null);
-                    if (value != null)
-                        source.save(name, null, null);
-                }
-                return true;
-            }
-        }
-        return false;
     }
 
     /**
@@ -470,6 +799,12 @@ public final class Variables {
             final Map<String, NonNullPair<Object, VariablesStorage>> tvs = tempVars.get();
             tempVars.set(null);
             assert tvs != null;
+            // Values loaded in the background that must be deserialized on the main thread, failed ones are kept serialized
+            for (final NonNullPair<Object, VariablesStorage> v : tvs.values()) {
+                final Object value = v.getFirst();
+                if (value instanceof LazyValue && ((LazyValue) value).mustSync())
+                    ((LazyValue) value).get();
+            }
             variablesLock.writeLock().lock();
             try {
                 int n = 0;
@@ -481,7 +816,7 @@ public final class Variables {
                 for (final VariablesStorage s : storages)
                     s.allLoaded();
 
-                Skript.debug("Variables set. Queue size is " + queue.size());
+                Skript.debug("Variables set. Queue size is " + changeQueue.size());
 
                 return n;
             } finally {
@@ -497,14 +832,43 @@ public final class Variables {
 
     @Nullable
     public static final SerializedVariable.Value serialize(@Nullable final Object value) {
+        if (value == null)
+            return null;
+        if (value instanceof LazyValue)
+            return ((LazyValue) value).serialize();
+        if (SkriptConfig.compactVariableEncoding.value()) {
+            final SerializedVariable.Value compact = CompactCodecs.serialize(value);
+            if (compact != null)
+                return compact;
+        }
         return Classes.serialize(value);
     }
 
-    private static final void saveVariableChange(final String name, @Nullable final Object value) {
-        queue.add(serialize(name, value));
+    /**
+     * Queues the change to be serialized and saved by the storage the variable belongs to. Never blocks.
+     */
+    static final void saveVariableChange(final String name, @Nullable final Object value) {
+        if (!storagesLoaded) {
+            synchronized (unsavedChanges) {
+                if (!storagesLoaded) {
+                    unsavedChanges.add(new VariableChange(name, value));
+                    return;
+                }
+            }
+        }
+        final VariablesStorage s = getStorage(name);
+        if (s != null)
+            s.changed(name, value);
     }
 
     public static final void close() {
+        expiry.close();
+        final Task t = statsDumpTask;
+        if (t != null) {
+            t.cancel();
+            statsDumpTask = null;
+        }
+
         variablesLock.writeLock().lock();
         try { // Ensure that all changes are to save soon
             processChangeQueue();
@@ -512,26 +876,36 @@ public final class Variables {
             variablesLock.writeLock().unlock();
         }
 
-        while (!queue.isEmpty()) {
-            try {
-                Thread.sleep(10L);
-            } catch (final InterruptedException ignored) {
-                closed = true;
-                saveThread.interrupt();
-
-                Thread.currentThread().interrupt();
-                return; // Assume all variables are saved
+        for (final VariablesStorage s : storages) {
+            while (!s.writeBuffer.isEmpty()) {
+                try {
+                    Thread.sleep(10L);
+                } catch (final InterruptedException ignored) {
+                    closed = true;
+
+                    Thread.currentThread().interrupt();
+                    return; // Assume all variables are saved
+                }
             }
         }
+
+        final int lazy = LazyValue.getCreated();
+        if (lazy != 0 && Skript.logHigh())
+            Skript.info(LazyValue.getDeserialized() + " of " + lazy + " lazily loaded variables were used");
+
+        final VariablePager p = pager;
+        if (p != null) {
+            p.close();
+            pager = null;
+        }
     }
 
+    /**
+     * @return The number of global variables, doesn't take the lock of the variables
+     */
     public static final int numVariables() {
-        variablesLock.readLock().lock();
-        try {
-            return variables.hashMap.size();
-        } finally {
-            variablesLock.readLock().unlock();
-        }
+        final VariablePager p = pager;
+        return (int) metrics.getResidentVariables() + (p != null ? (int) p.getPagedVariables() : 0);
     }
 
     /**
@@ -0,0 +1,250 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.util.FileUtils;
+import ch.njol.skript.util.PropertyManager;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Periodic backups of the file of a {@link VariablesStorage}, created with {@link VariablesStorage#backupTask}.
+ * <p>
+ * Backups are streamed from a {@link VariablesStorage#backup(OutputStream) snapshot} of the file into the backups folder,
+ * gzip compressed if enabled with the <tt>compress backups</tt> option of the database. They are written to a
+ * temporary file first, so an incomplete backup never looks like a valid one. After each backup only the newest
+ * <tt>backups to keep</tt> backups of the file are kept, older ones are deleted.
+ * <p>
+ * Backups are never created on the server thread, and block saving variables only as long as the storage needs to
+ * take its snapshot.
+ */
+public final class VariablesBackup {
+
+    private static final String COMPRESSED_EXTENSION = ".gz";
+    private static final String TEMP_EXTENSION = ".part";
+    /**
+     * Put between the name of the file and the date in the names of automatic backups, e.g. <tt>variables_auto_2020-01-01_00-00-00.csv</tt>
+     */
+    private static final String AUTO_MARKER = "_auto_";
+
+    private final VariablesStorage storage;
+    private final File file;
+    private final boolean compress;
+    /**
+     * How many backups to keep, 0 to keep all
+     */
+    private final int keep;
+
+    private final String prefix;
+    private final String suffix;
+    private final Pattern backupPattern;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile int backups;
+    private volatile long lastDurationNanos;
+    private volatile long lastSize;
+    private volatile long lastOriginalSize;
+    private volatile int lastDeleted;
+
+    VariablesBackup(final VariablesStorage storage, final File file, final boolean compress, final int keep) {
+        this.storage = storage;
+        this.file = file;
+        this.compress = compress;
+        this.keep = keep;
+
+        final String name = file.getName();
+        final int c = name.lastIndexOf('.');
+        // Marked, so the backups FileUtils#backup creates, e.g. of a file that failed to load, are never rotated
+        prefix = (c == -1 ? name : name.substring(0, c)) + AUTO_MARKER;
+        suffix = (c == -1 ? "" : name.substring(c)) + (compress ? COMPRESSED_EXTENSION : "");
+        backupPattern = Pattern.compile(Pattern.quote(prefix) + "\\d{4}-\\d{2}-\\d{2}_\\d{2}-\\d{2}-\\d{2}" + Pattern.quote(suffix));
+    }
+
+    static final File getBackupsFolder() {
+        return new File(Skript.getInstance().getDataFolder(), "backups");
+    }
+
+    /**
+     * Creates a backup and deletes old backups. Does nothing if a backup of the file is already running.
+     *
+     * @return Whatever a backup was created
+     */
+    final boolean run() {
+        if (PropertyManager.getBoolean("skript.disableBackupsCompletely"))
+            return false;
+        if (!running.compareAndSet(false, true))
+            return false;
+        try {
+            final long start = System.nanoTime();
+            final File backup = backup();
+            final long took = System.nanoTime() - start;
+            final int deleted = rotate();
+
+            backups++;
+            lastDurationNanos = took;
+            lastSize = backup.length();
+            lastDeleted = deleted;
+
+            if (Skript.logNormal())
+                Skript.info("Created a backup of " + file.getName() + " as " + backup.getName() + " in " + took / 1_000_000L + " ms (" + formatSize(lastOriginalSize) + (compress ? " compressed to " + formatSize(lastSize) : "") + ')' + (deleted > 0 ? ", deleted " + deleted + " old backup" + (deleted == 1 ? "" : "s") : ""));
+            return true;
+        } catch (final IOException e) {
+            Skript.error("Automatic variables backup failed: " + e.getLocalizedMessage());
+            return false;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private final File backup() throws IOException {
+        final File folder = getBackupsFolder();
+        if (!folder.exists() && !folder.mkdirs())
+            throw new IOException("Cannot create backups folder");
+        final File backup = new File(folder, prefix + FileUtils.getBackupSuffix() + suffix);
+        if (backup.exists())
+            throw new IOException("Backup file " + backup.getName() + " does already exist");
+        final File temp = new File(folder, backup.getName() + TEMP_EXTENSION);
+
+        final CountingOutputStream counter;
+        try (final OutputStream out = compress ? new FastGZIPOutputStream(new FileOutputStream(temp)) : new BufferedOutputStream(new FileOutputStream(temp), 1 << 16)) {
+            counter = new CountingOutputStream(out);
+            storage.backup(counter);
+        } catch (final IOException | RuntimeException e) {
+            if (!temp.delete() && temp.exists())
+                temp.deleteOnExit();
+            throw e;
+        }
+        lastOriginalSize = counter.count;
+        return FileUtils.move(temp, backup, false);
+    }
+
+    /**
+     * Deletes the oldest automatic backups of the file until at most {@link #keep} are left. Other backups of the file, e.g. the ones
+     * created when it failed to load, and automatic backups that were created with other settings, e.g. uncompressed ones,
+     * are not counted and never deleted.
+     *
+     * @return The number of deleted backups
+     */
+    final int rotate() {
+        return rotate(getBackupsFolder());
+    }
+
+    /**
+     * Same as {@link #rotate()}, but with the backups in the given folder.
+     */
+    final int rotate(final File folder) {
+        if (keep <= 0)
+            return 0;
+        final File[] files = folder.listFiles((dir, name) -> backupPattern.matcher(name).matches());
+        if (files == null || files.length <= keep)
+            return 0;
+        // The date format sorts chronologically
+        Arrays.sort(files, (a, b) -> a.getName().compareTo(b.getName()));
+        int deleted = 0;
+        for (int i = 0; i < files.length - keep; i++) {
+            if (files[i].delete())
+                deleted++;
+            else
+                Skript.warning("Could not delete the old backup " + files[i].getName());
+        }
+        return deleted;
+    }
+
+    static final String formatSize(final long bytes) {
+        if (bytes < 1024L)
+            return bytes + " B";
+        final int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        return String.format(Locale.ENGLISH, "%.1f %siB", bytes / (double) (1L << unit * 10), "KMGTPE".charAt(unit - 1));
+    }
+
+    /**
+     * @return The number of backups created since the storage was loaded
+     */
+    public final int getBackups() {
+        return backups;
+    }
+
+    public final long getLastDurationNanos() {
+        return lastDurationNanos;
+    }
+
+    /**
+     * @return The size of the last backup file in bytes
+     */
+    public final long getLastSize() {
+        return lastSize;
+    }
+
+    /**
+     * @return The size of the backed up data of the last backup, before compression
+     */
+    public final long getLastOriginalSize() {
+        return lastOriginalSize;
+    }
+
+    /**
+     * @return The number of old backups deleted after the last backup
+     */
+    public final int getLastDeleted() {
+        return lastDeleted;
+    }
+
+    /**
+     * Variables files are mostly hex, so fast compression is nearly as small as the default level
+     */
+    private static final class FastGZIPOutputStream extends GZIPOutputStream {
+        FastGZIPOutputStream(final OutputStream out) throws IOException {
+            super(out, 1 << 16);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+}
@@ -70,6 +70,38 @@ final class VariablesMap {
 
     final HashMap<String, Object> hashMap = new HashMap<>();
     final TreeMap<String, Object> treeMap = new TreeMap<>();
+    /**
+     * The pager of the global variables, null for local variables or if paging is disabled
+     */
+    @Nullable
+    VariablePager pager;
+    /**
+     * How many {@link PagedSubtree}s are in the tree map, their variables are not in the hash map
+     */
+    int pagedSubtrees;
+    /**
+     * The metrics of the global variables, null for local variables
+     */
+    @Nullable
+    private final VariableMetrics metrics;
+
+    VariablesMap() {
+        this(null);
+    }
+
+    VariablesMap(@Nullable final VariableMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private void putInHashMap(final String name, final Object value) {
+        if (hashMap.put(name, value) == null && metrics != null)
+            metrics.added(name);
+    }
+
+    private void removeFromHashMap(final String name) {
+        if (hashMap.remove(name) != null && metrics != null)
+            metrics.removed(name);
+    }
 
     /**
      * Returns the internal value of the requested variable.
@@ -82,8 +114,14 @@ final class VariablesMap {
     @SuppressWarnings("unchecked")
     @Nullable
     Object getVariable(final String name) {
+        final VariablePager pager = this.pager;
+        if (pager != null)
+            pager.touch(name);
         if (!(!name.isEmpty() && name.charAt(name.length() - 1) == '*')) {
-            return hashMap.get(name);
+            final Object v = hashMap.get(name);
+            if (v != null || pagedSubtrees == 0)
+                return v;
+            return getPagedVariable(name);
         }
         final String[] split = Variables.splitVariableName0(name);
         Map<String, Object> current = treeMap;
@@ -93,9 +131,11 @@ final class VariablesMap {
                 assert i == split.length - 1;
                 return current;
             }
-            final Object o = current.get(n);
+            Object o = current.get(n);
             if (o == null)
                 return null;
+            if (o instanceof PagedSubtree)
+                o = ((PagedSubtree) o).get();
             if (o instanceof Map) {
                 current = (Map<String, Object>) o;
                 assert i != split.length - 1;
@@ -106,6 +146,27 @@ final class VariablesMap {
         return null;
     }
 
+    /**
+     * Gets a variable that is not in the hash map because it may be in a paged subtree.
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private Object getPagedVariable(final String name) {
+        final String[] split = Variables.splitVariableName0(name);
+        Map<String, Object> current = treeMap;
+        for (int i = 0; i < split.length; i++) {
+            Object o = current.get(split[i]);
+            if (o instanceof PagedSubtree)
+                o = ((PagedSubtree) o).get();
+            if (i == split.length - 1)
+                return o instanceof Map ? ((Map<String, Object>) o).get(null) : o;
+            if (!(o instanceof Map))
+                return null;
+            current = (Map<String, Object>) o;
+        }
+        return null;
+    }
+
     /**
      * Sets a variable.
      *
@@ -114,13 +175,18 @@ final class VariablesMap {
      */
     @SuppressWarnings("unchecked")
     void setVariable(final String name, @Nullable final Object value) {
+        final String[] split = Variables.splitVariableName0(name);
+        final VariablePager pager = this.pager;
+        if (pager != null && split.length > 1)
+            pager.touch(split[0], split[1]);
+        if (pagedSubtrees != 0)
+            reinstate(split);
         if (!(!name.isEmpty() && name.charAt(name.length() - 1) == '*')) {
             if (value == null)
-                hashMap.remove(name);
+                removeFromHashMap(name);
             else
-                hashMap.put(name, value);
+                putInHashMap(name, value);
         }
-        final String[] split = Variables.splitVariableName0(name);
         Map<String, Object> parent = treeMap;
         for (int i = 0; i < split.length; i++) {
             final String n = split[i];
@@ -181,12 +247,75 @@ final class VariablesMap {
         for (final Entry<String, Object> e : current.entrySet()) {
             if (e.getKey() == null)
                 continue;
-            hashMap.remove(parent + Variable.SEPARATOR + e.getKey());
+            removeFromHashMap(parent + Variable.SEPARATOR + e.getKey());
             final Object val = e.getValue();
             if (val instanceof TreeMap) {
                 deleteFromHashMap(parent + Variable.SEPARATOR + e.getKey(), (TreeMap<String, Object>) val);
+            } else if (val instanceof PagedSubtree) {
+                pagedSubtrees--;
+                ((PagedSubtree) val).discard();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addToHashMap(final String name, final TreeMap<String, Object> current) {
+        for (final Entry<String, Object> e : current.entrySet()) {
+            final Object val = e.getValue();
+            if (e.getKey() == null) {
+                putInHashMap(name, val);
+                continue;
             }
+            final String n = name + Variable.SEPARATOR + e.getKey();
+            if (val instanceof TreeMap)
+                addToHashMap(n, (TreeMap<String, Object>) val);
+            else
+                putInHashMap(n, val);
         }
     }
 
+    /**
+     * Puts the paged subtrees on the path of a variable back into the maps, so the variable can be changed.
+     */
+    @SuppressWarnings("unchecked")
+    private void reinstate(final String[] split) {
+        Map<String, Object> current = treeMap;
+        for (int i = 0; i < split.length; i++) {
+            Object o = current.get(split[i]);
+            if (o instanceof PagedSubtree) {
+                final PagedSubtree p = (PagedSubtree) o;
+                final TreeMap<String, Object> tree = p.get();
+                current.put(split[i], tree);
+                addToHashMap(StringUtils.join(split, Variable.SEPARATOR, 0, i + 1), tree);
+                pagedSubtrees--;
+                p.discard();
+                o = tree;
+            }
+            if (!(o instanceof TreeMap))
+                return;
+            current = (TreeMap<String, Object>) o;
+        }
+    }
+
+    /**
+     * Replaces a list subtree with a paged subtree and removes its variables from the hash map.
+     *
+     * @param list    The name of the list containing the subtree
+     * @param key     The key of the subtree in the list
+     * @param subtree The subtree as it was written to the page
+     * @return Whatever the subtree was replaced, false if it was replaced or deleted since it was written
+     */
+    @SuppressWarnings("unchecked")
+    boolean page(final String list, final String key, final TreeMap<String, Object> subtree, final PagedSubtree paged) {
+        final Object l = treeMap.get(list);
+        if (!(l instanceof TreeMap) || ((TreeMap<String, Object>) l).get(key) != subtree)
+            return false;
+        ((TreeMap<String, Object>) l).put(key, paged);
+        final String name = list + Variable.SEPARATOR + key;
+        removeFromHashMap(name);
+        deleteFromHashMap(name, subtree);
+        pagedSubtrees++;
+        return true;
+    }
+
 }
@@ -35,10 +35,10 @@ import org.eclipse.jdt.annotation.Nullable;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 // FIXME ! large databases (>25 MB) cause the server to be unresponsive instead of loading slowly
@@ -63,9 +63,8 @@ import java.util.regex.PatternSyntaxException;
  */
 public abstract class VariablesStorage implements Closeable {
 
-    private static final int QUEUE_SIZE = 1000, FIRST_WARNING = 300;
+    private static final int FIRST_WARNING = 1000;
     private static final int WARNING_INTERVAL = 10;
-    private static final int ERROR_INTERVAL = 10;
     @Nullable
     public static VariablesStorage instance;
     protected final String databaseName;
@@ -73,7 +72,7 @@ public abstract class VariablesStorage implements Closeable {
      * Must be locked after {@link Variables#getReadLock()} (if that lock is used at all)
      */
     protected final byte[] connectionLock = EmptyArrays.EMPTY_BYTE_ARRAY;
-    final LinkedBlockingQueue<SerializedVariable> changesQueue = new LinkedBlockingQueue<>(QUEUE_SIZE);
+    final WriteBehindBuffer writeBuffer = new WriteBehindBuffer();
     // created in the constructor, started in load()
     private final Thread writeThread;
     protected volatile boolean closed;
@@ -81,13 +80,20 @@ public abstract class VariablesStorage implements Closeable {
     protected File file;
     @Nullable
     protected Task backupTask;
+    @Nullable
+    private VariablesBackup backup;
+    private boolean compressBackups;
+    /**
+     * 0 to keep all backups
+     */
+    private int backupsToKeep;
     /**
-     * null for '.*' or '.+'
+     * The pattern of the variables stored here, null for '.*'
      */
     @Nullable
-    private Matcher variablePatternMatcher;
-    private long lastWarning = Long.MIN_VALUE;
-    private long lastError = Long.MIN_VALUE;
+    String variablePattern;
+    private StorageRouter.Route route = StorageRouter.compile(0, null);
+    private volatile long lastWarning = Long.MIN_VALUE;
 
     protected VariablesStorage(final String name) {
         instance = this;
@@ -96,12 +102,7 @@ public abstract class VariablesStorage implements Closeable {
         writeThread = Skript.newThread(() -> {
             while (!closed) {
                 try {
-                    final SerializedVariable var = changesQueue.take();
-                    final Value d = var.value;
-                    if (d != null)
-                        save(var.name, d.type, d.data);
-                    else
-                        save(var.name, null, null);
+                    writeBuffer.flush(this::save);
                 } catch (final InterruptedException ignored) {
                     Thread.currentThread().interrupt();
                     break; // Server probably shutting down.
@@ -140,9 +141,8 @@ public abstract class VariablesStorage implements Closeable {
         if (pattern == null)
             return false;
         try {
-            final Pattern variablePattern = ".*".equals(pattern) || ".+".equals(pattern) ? null : PatternCache.get(pattern);
-            if (variablePattern != null)
-                variablePatternMatcher = variablePattern.matcher("");
+            route = StorageRouter.compile(0, pattern);
+            variablePattern = ".*".equals(pattern) ? null : pattern;
         } catch (final PatternSyntaxException e) {
             Skript.error("Invalid pattern '" + pattern + "': " + e.getLocalizedMessage());
             return false;
@@ -181,6 +181,17 @@ public abstract class VariablesStorage implements Closeable {
                 return false;
             }
 
+            // Optional, older configs don't have these
+            if (n.getValue("compress backups") != null) {
+                final Boolean compress = getValue(n, "compress backups", Boolean.class);
+                if (compress != null)
+                    compressBackups = compress;
+            }
+            if (n.getValue("backups to keep") != null) {
+                final Integer keep = getValue(n, "backups to keep", Integer.class);
+                if (keep != null)
+                    backupsToKeep = Math.max(0, keep);
+            }
             if (!"0".equals(getValue(n, "backup interval"))) {
                 final Timespan backupInterval = getValue(n, "backup interval", Timespan.class);
                 if (backupInterval != null && TimeUnit.MILLISECONDS.toSeconds(backupInterval.getMilliSeconds()) >= 1L)
@@ -230,49 +241,76 @@ public abstract class VariablesStorage implements Closeable {
         final File file = this.file;
         if (file == null || t.getTicks_i() == 0)
             return;
+        final VariablesBackup backup = new VariablesBackup(this, file, compressBackups, backupsToKeep);
+        this.backup = backup;
         backupTask = new Task(Skript.getInstance(), t.getTicks_i(), t.getTicks_i(), true) {
             @Override
             public void run() {
-                synchronized (connectionLock) {
-                    disconnect();
-                    try {
-                        FileUtils.backup(file);
-                    } catch (final IOException e) {
-                        Skript.error("Automatic variables backup failed: " + e.getLocalizedMessage());
-                    } finally {
-                        connect();
-                    }
-                }
+                backup.run();
             }
         };
     }
 
-    @SuppressWarnings("null")
+    /**
+     * @return The automatic backups of this storage, or null if automatic backups are disabled
+     */
+    @Nullable
+    public final VariablesBackup getBackup() {
+        return backup;
+    }
+
+    /**
+     * Writes a consistent copy of the file of this storage for a backup. Called from the backup task, never on the
+     * server thread.
+     * <p>
+     * The default implementation disconnects for the whole copy. Storages that can take a snapshot of their file
+     * faster should override this, so saving variables is not blocked while the backup is written.
+     *
+     * @param out The stream to write the copy to, must not be closed
+     */
+    protected void backup(final OutputStream out) throws IOException {
+        final File file = this.file;
+        if (file == null)
+            throw new IOException("No file to backup");
+        synchronized (connectionLock) {
+            disconnect();
+            try {
+                Files.copy(file.toPath(), out);
+            } finally {
+                connect();
+            }
+        }
+    }
+
+    /**
+     * @return Whatever the variable matches the pattern of this storage. Use {@link Variables#getStorage(String)} to find
+     * the storage a variable is actually saved in.
+     */
     boolean accept(@Nullable final String var) {
-        if (var == null)
-            return false;
-        return variablePatternMatcher == null || variablePatternMatcher.reset(var).matches();
+        return var != null && route.matches(var);
     }
 
     /**
+     * Queues a changed variable to be serialized and saved by the write thread. Never blocks.
+     * <p>
      * May be called from a different thread than Bukkit's main thread.
+     *
+     * @param name  The name of the variable
+     * @param value The new value, or null if the variable was deleted
      */
-    final void save(final SerializedVariable var) {
-        if (changesQueue.size() > FIRST_WARNING && lastWarning < System.currentTimeMillis() - WARNING_INTERVAL * 1000) {
-            Skript.warning("Cannot write variables to the database '" + databaseName + "' at sufficient speed; server performance may suffer and many variables will be lost if the server crashes. (this warning will be repeated at most once every " + WARNING_INTERVAL + " seconds)");
+    final void changed(final String name, @Nullable final Object value) {
+        writeBuffer.add(name, value);
+        if (writeBuffer.getPendingVariables() > FIRST_WARNING && lastWarning < System.currentTimeMillis() - WARNING_INTERVAL * 1000) {
             lastWarning = System.currentTimeMillis();
+            Skript.warning("Cannot write variables to the database '" + databaseName + "' at sufficient speed; " + writeBuffer.getPendingVariables() + " changed variables are waiting to be saved and will be lost if the server crashes. (this warning will be repeated at most once every " + WARNING_INTERVAL + " seconds)");
         }
-        if (!changesQueue.offer(var)) {
-            if (lastError < System.currentTimeMillis() - ERROR_INTERVAL * 1000) {
-                Skript.error("Skript cannot save any variables to the database '" + databaseName + "'. The server will hang and may crash if no more variables can be saved.");
-                lastError = System.currentTimeMillis();
-            }
-            try {
-                changesQueue.put(var);
-            } catch (final InterruptedException ignored) {
-                Thread.currentThread().interrupt();
-            }
-        }
+    }
+
+    /**
+     * @return The buffer of changed variables that are not yet saved, e.g. to get its metrics
+     */
+    public final WriteBehindBuffer getWriteBuffer() {
+        return writeBuffer;
     }
 
     /**
@@ -281,7 +319,7 @@ public abstract class VariablesStorage implements Closeable {
      */
     @Override
     public void close() {
-        while (!changesQueue.isEmpty()) {
+        while (!writeBuffer.isEmpty()) {
             try {
                 Thread.sleep(10L);
             } catch (final InterruptedException ignored) {
@@ -298,7 +336,23 @@ public abstract class VariablesStorage implements Closeable {
      * Clears the queue of unsaved variables. Only used if all variables are saved immediately after calling this method.
      */
     protected final void clearChangesQueue() {
-        changesQueue.clear();
+        writeBuffer.clear();
+    }
+
+    /**
+     * Saves a batch of changed variables, called from the {@link #writeThread}. The default implementation calls
+     * {@link #save(String, String, byte[])} for each variable, storages can override this to write a batch at once.
+     *
+     * @param batch The changed variables, deleted variables have a null {@link SerializedVariable#value value}
+     */
+    protected void save(final List<SerializedVariable> batch) {
+        for (final SerializedVariable var : batch) {
+            final Value d = var.value;
+            if (d != null)
+                save(var.name, d.type, d.data);
+            else
+                save(var.name, null, null);
+        }
     }
 
     /**
@@ -0,0 +1,246 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.variables.SerializedVariable.Value;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Changed variables of a {@link VariablesStorage} that have not yet been saved.
+ * <p>
+ * Only the latest value of each variable is kept, so a variable that changes many times before it is saved is only
+ * saved once. Adding a change never blocks.
+ * <p>
+ * Immutable values like numbers and texts are serialized by the thread that {@link #flush(Consumer) flushes} the buffer,
+ * i.e. the write thread of the storage. All other values, e.g. items and locations, can still be changed by scripts after they
+ * are set, so they are serialized when the change is added, saving the value the variable had at that time.
+ */
+public final class WriteBehindBuffer {
+
+    /**
+     * The maximum number of variables saved in one batch
+     */
+    static final int MAX_BATCH_SIZE = 500;
+
+    /**
+     * Stands for a deleted variable, as the map can't contain null
+     */
+    private static final Object DELETED = new Object();
+
+    /**
+     * The latest value of every changed variable
+     */
+    private final ConcurrentHashMap<String, Object> values = new ConcurrentHashMap<>();
+    /**
+     * The names of the changed variables in the order they were first changed in
+     */
+    private final LinkedBlockingQueue<String> order = new LinkedBlockingQueue<>();
+    /**
+     * Changed variables that are not yet saved, including the batch that is currently saved
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final LongAdder changes = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final LongAdder savedVariables = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private volatile long lastFlushNanos;
+    private final LatencyHistogram flushLatency = new LatencyHistogram();
+
+    /**
+     * Adds a change, replacing any earlier change of the same variable that has not yet been saved.
+     *
+     * @param name  The name of the variable
+     * @param value The new value, or null if the variable was deleted
+     */
+    final void add(final String name, @Nullable final Object value) {
+        changes.increment();
+        final Object queued = value == null ? DELETED : isImmutable(value) ? value : serialize(name, value);
+        if (values.put(name, queued) != null) {
+            coalesced.increment();
+            return;
+        }
+        pending.incrementAndGet();
+        order.add(name);
+    }
+
+    /**
+     * @return Whatever the value can't be changed after it was set, so it can be serialized later
+     */
+    private static final boolean isImmutable(final Object value) {
+        final Class<?> c = value.getClass();
+        return c == String.class || c == Long.class || c == Double.class || c == Boolean.class
+                || c == Integer.class || c == Float.class || c == Short.class || c == Byte.class;
+    }
+
+    private static final SerializedVariable serialize(final String name, @Nullable final Object value) {
+        final long start = System.nanoTime();
+        final SerializedVariable var = Variables.serialize(name, value);
+        final Value v = var.value;
+        if (v != null) {
+            final VariableMetrics metrics = Variables.getMetrics();
+            metrics.serialized(v.type, System.nanoTime() - start, v.data.length);
+            metrics.sampled(name, v.data.length);
+        }
+        return var;
+    }
+
+    /**
+     * Waits for changes and saves the next batch of them.
+     *
+     * @param saver Saves a batch of serialized variables
+     * @throws InterruptedException If interrupted while waiting for changes
+     */
+    final void flush(final Consumer<List<SerializedVariable>> saver) throws InterruptedException {
+        final List<String> names = new ArrayList<>();
+        names.add(order.take());
+        order.drainTo(names, MAX_BATCH_SIZE - 1);
+
+        final long start = System.nanoTime();
+        final List<SerializedVariable> batch = new ArrayList<>(names.size());
+        long bytes = 0;
+        try {
+            for (final String name : names) {
+                final Object value = values.remove(name);
+                if (value == null) // Cleared
+                    continue;
+                try {
+                    final SerializedVariable var = value instanceof SerializedVariable ? (SerializedVariable) value : serialize(name, value == DELETED ? null : value);
+                    final Value v = var.value;
+                    if (v != null)
+                        bytes += v.data.length;
+                    batch.add(var);
+                } catch (final Throwable tw) {
+                    Skript.exception(tw, "Cannot serialize the variable {" + name + "}");
+                }
+            }
+            pendingBytes.addAndGet(bytes);
+            saver.accept(batch);
+        } finally {
+            pendingBytes.addAndGet(-bytes);
+            pending.addAndGet(-names.size());
+        }
+
+        final long took = System.nanoTime() - start;
+        savedVariables.add(batch.size());
+        savedBytes.add(bytes);
+        flushes.increment();
+        flushNanos.add(took);
+        lastFlushNanos = took;
+        flushLatency.record(took);
+    }
+
+    /**
+     * Discards all changes that have not yet been saved.
+     */
+    final void clear() {
+        String name;
+        while ((name = order.poll()) != null) {
+            values.remove(name);
+            pending.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return Whatever all changes have been saved
+     */
+    public final boolean isEmpty() {
+        return pending.get() == 0;
+    }
+
+    /**
+     * @return The number of changed variables that are not yet saved
+     */
+    public final int getPendingVariables() {
+        return pending.get();
+    }
+
+    /**
+     * @return The size of the serialized values that are currently being saved
+     */
+    public final long getPendingBytes() {
+        return pendingBytes.get();
+    }
+
+    /**
+     * @return The number of changes added to this buffer
+     */
+    public final long getChanges() {
+        return changes.sum();
+    }
+
+    /**
+     * @return The number of changes that replaced an unsaved change of the same variable, i.e. that were never saved
+     */
+    public final long getCoalescedChanges() {
+        return coalesced.sum();
+    }
+
+    public final long getSavedVariables() {
+        return savedVariables.sum();
+    }
+
+    public final long getSavedBytes() {
+        return savedBytes.sum();
+    }
+
+    public final long getFlushes() {
+        return flushes.sum();
+    }
+
+    /**
+     * @return The average time it took to serialize and save a batch, in nanoseconds
+     */
+    public final long getAverageFlushNanos() {
+        final long n = flushes.sum();
+        return n == 0 ? 0 : flushNanos.sum() / n;
+    }
+
+    /**
+     * @return The time it took to serialize and save the last batch, in nanoseconds
+     */
+    public final long getLastFlushNanos() {
+        return lastFlushNanos;
+    }
+
+    /**
+     * @return The times it took to serialize and save the batches
+     */
+    public final LatencyHistogram getFlushLatency() {
+        return flushLatency;
+    }
+
+}
@@ -0,0 +1,192 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.util;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.lang.reflect.Array;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The source of random numbers used by Skript, e.g. by random expressions, chance conditions and random items.
+ * <p>
+ * Backed by {@link ThreadLocalRandom}, so threads never contend on a shared seed like they do on a shared {@link Random}.
+ * For reproducible results, e.g. in tests, a {@link #setSeed(long) seed} can be set, after which every thread
+ * gets its own {@link Random} with that seed.
+ */
+public final class Randoms {
+
+    @Nullable
+    private static volatile Seeded seeded;
+
+    private Randoms() {
+        throw new UnsupportedOperationException("Static class");
+    }
+
+    /**
+     * @return The random of the current thread. Must not be shared with other threads.
+     */
+    public static final Random current() {
+        final Seeded s = seeded;
+        return s == null ? ThreadLocalRandom.current() : s.randoms.get();
+    }
+
+    /**
+     * Makes all random numbers deterministic: Every thread starts a new sequence with the given seed.
+     *
+     * @param seed The seed
+     */
+    public static final void setSeed(final long seed) {
+        seeded = new Seeded(seed);
+    }
+
+    /**
+     * Switches back from a {@link #setSeed(long) seed} to non-deterministic random numbers.
+     */
+    public static final void clearSeed() {
+        seeded = null;
+    }
+
+    public static final boolean isSeeded() {
+        return seeded != null;
+    }
+
+    /**
+     * @param bound The upper bound (exclusive), must be positive
+     * @return A random integer between 0 (inclusive) and <tt>bound</tt> (exclusive)
+     */
+    public static final int nextInt(final int bound) {
+        return current().nextInt(bound);
+    }
+
+    /**
+     * @param origin The lower bound (inclusive)
+     * @param bound  The upper bound (exclusive), must be greater than <tt>origin</tt>
+     * @return A random integer between <tt>origin</tt> (inclusive) and <tt>bound</tt> (exclusive)
+     */
+    public static final int nextInt(final int origin, final int bound) {
+        if (bound <= origin)
+            throw new IllegalArgumentException("bound (" + bound + ") must be > origin (" + origin + ')');
+        final Random r = current();
+        if (r instanceof ThreadLocalRandom)
+            return ((ThreadLocalRandom) r).nextInt(origin, bound);
+        final int n = bound - origin;
+        if (n > 0)
+            return origin + r.nextInt(n);
+        int i; // Range does not fit into an int
+        do {
+            i = r.nextInt();
+        } while (i < origin || i >= bound);
+        return i;
+    }
+
+    public static final long nextLong() {
+        return current().nextLong();
+    }
+
+    /**
+     * @return A random double between 0 (inclusive) and 1 (exclusive)
+     */
+    public static final double nextDouble() {
+        return current().nextDouble();
+    }
+
+    /**
+     * @param chance The chance, between 0 and 1
+     * @return <tt>true</tt> with the given chance
+     */
+    public static final boolean chance(final double chance) {
+        return nextDouble() < chance;
+    }
+
+    /**
+     * Chooses <tt>k</tt> distinct random indices out of <tt>[0, n)</tt>, without creating and shuffling an array of all
+     * <tt>n</tt> indices if <tt>k</tt> is small.
+     *
+     * @param n The number of indices to choose from
+     * @param k The number of indices to choose, at most <tt>n</tt>
+     * @return <tt>k</tt> distinct indices in random order
+     */
+    public static final int[] sampleIndices(final int n, final int k) {
+        if (k < 0 || k > n)
+            throw new IllegalArgumentException("Can't choose " + k + " out of " + n);
+        final Random r = current();
+        final int[] sample = new int[k];
+        if (k > n / 4) {
+            // Partial Fisher-Yates shuffle of all indices
+            final int[] all = new int[n];
+            for (int i = 0; i < n; i++)
+                all[i] = i;
+            for (int i = 0; i < k; i++) {
+                final int j = i + r.nextInt(n - i);
+                sample[i] = all[j];
+                all[j] = all[i];
+            }
+            return sample;
+        }
+        // Floyd's algorithm, only remembers the chosen indices
+        final BitSet chosen = new BitSet(n);
+        for (int i = 0, j = n - k; j < n; i++, j++) {
+            final int t = r.nextInt(j + 1);
+            final int index = chosen.get(t) ? j : t;
+            chosen.set(index);
+            sample[i] = index;
+        }
+        // Floyd's algorithm chooses uniformly, but the order is not random
+        for (int i = k - 1; i > 0; i--) {
+            final int j = r.nextInt(i + 1);
+            final int t = sample[i];
+            sample[i] = sample[j];
+            sample[j] = t;
+        }
+        return sample;
+    }
+
+    /**
+     * Chooses <tt>k</tt> distinct random elements out of the given array, or all of them in random order
+     * if the array has less than <tt>k</tt> elements.
+     *
+     * @param os The array to choose from, will not be modified
+     * @param k  The number of elements to choose
+     * @return A new array of the same component type with the chosen elements in random order
+     */
+    @SuppressWarnings("unchecked")
+    public static final <T> T[] sample(final T[] os, final int k) {
+        final int[] indices = sampleIndices(os.length, Math.max(0, Math.min(k, os.length)));
+        final T[] r = (T[]) Array.newInstance(os.getClass().getComponentType(), indices.length);
+        for (int i = 0; i < indices.length; i++)
+            r[i] = os[indices[i]];
+        return r;
+    }
+
+    private static final class Seeded {
+        final ThreadLocal<Random> randoms;
+
+        Seeded(final long seed) {
+            randoms = ThreadLocal.withInitial(() -> new Random(seed));
+        }
+    }
+
+}
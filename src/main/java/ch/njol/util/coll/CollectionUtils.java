@@ -24,6 +24,7 @@ package ch.njol.util.coll;
 
 import ch.njol.skript.util.EmptyArrays;
 import ch.njol.util.Pair;
+import ch.njol.util.Randoms;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 import org.jetbrains.annotations.Contract;
@@ -38,8 +39,6 @@ import java.util.Map.Entry;
  */
 public final class CollectionUtils {
 
-    private static final Random random = new Random();
-
     private CollectionUtils() {
         throw new UnsupportedOperationException();
     }
@@ -261,21 +260,21 @@ public final class CollectionUtils {
     public static final <T> T getRandom(@Nullable final T[] os) {
         if (os == null || os.length == 0)
             return null;
-        return os[random.nextInt(os.length)];
+        return os[Randoms.nextInt(os.length)];
     }
 
     @Nullable
     public static final <T> T getRandom(@Nullable final T[] os, final int start) {
         if (os == null || os.length == 0)
             return null;
-        return os[random.nextInt(os.length - start) + start];
+        return os[Randoms.nextInt(os.length - start) + start];
     }
 
     @Nullable
     public static final <T> T getRandom(@Nullable final List<T> os) {
         if (os == null || os.isEmpty())
             return null;
-        return os.get(random.nextInt(os.size()));
+        return os.get(Randoms.nextInt(os.size()));
     }
 
     /**
@@ -368,7 +367,7 @@ public final class CollectionUtils {
         for (int i = 0; i < length; i++)
             r[i] = start + i;
         for (int i = length - 1; i > 0; i--) {
-            final int j = random.nextInt(i + 1);
+            final int j = Randoms.nextInt(i + 1);
             final int b = r[i];
             r[i] = r[j];
             r[j] = b;
@@ -391,7 +390,7 @@ public final class CollectionUtils {
         for (byte i = 0; i < length; i++)
             r[i] = (byte) (start + i);
         for (int i = length - 1; i > 0; i--) {
-            final int j = random.nextInt(i + 1);
+            final int j = Randoms.nextInt(i + 1);
             final byte b = r[i];
             r[i] = r[j];
             r[j] = b;
@@ -0,0 +1,140 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript;
+
+import ch.njol.skript.lang.Literal;
+import ch.njol.skript.lang.SkriptEvent;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.Trigger;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Dispatches asynchronous chat-like events from many threads while triggers are reloaded.
+ */
+@SuppressWarnings("static-method")
+final class SkriptEventHandlerTest {
+
+    private static final int THREADS = 8;
+    private static final int EVENTS_PER_THREAD = 200_000;
+    private static final int TRIGGERS = 10;
+
+    @SuppressWarnings("unchecked")
+    private static final Class<? extends Event>[] events = new Class[]{AsyncChatEvent.class};
+
+    @Test
+    void testAsyncDispatch() throws InterruptedException {
+        final LongAdder checks = new LongAdder();
+        final List<Trigger> triggers = new ArrayList<>();
+        for (int i = 0; i < TRIGGERS; i++)
+            triggers.add(new Trigger(null, "chat " + i, new CountingEvent(checks), Collections.emptyList()));
+        for (final Trigger t : triggers)
+            SkriptEventHandler.addTrigger(events, t);
+        SkriptEventHandler.publish();
+
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    for (int j = 0; j < EVENTS_PER_THREAD; j++)
+                        SkriptEventHandler.check(new AsyncChatEvent());
+                } catch (final Throwable t) {
+                    error.compareAndSet(null, t);
+                }
+            }, "Async chat " + i);
+        }
+
+        for (final Thread t : threads)
+            t.start();
+        // Reload while dispatching
+        for (int i = 0; i < 100; i++) {
+            SkriptEventHandler.removeAllTriggers();
+            for (final Trigger t : triggers)
+                SkriptEventHandler.addTrigger(events, t);
+            SkriptEventHandler.publish();
+        }
+        for (final Thread t : threads)
+            t.join();
+
+        assertNull(error.get());
+
+        final long before = checks.sum();
+        SkriptEventHandler.check(new AsyncChatEvent());
+        assertEquals(TRIGGERS, checks.sum() - before);
+        SkriptEventHandler.removeAllTriggers();
+    }
+
+    private static final class AsyncChatEvent extends Event {
+        private static final HandlerList handlers = new HandlerList();
+
+        AsyncChatEvent() {
+            super(true);
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+    }
+
+    private static final class CountingEvent extends SkriptEvent {
+        private final LongAdder checks;
+
+        CountingEvent(final LongAdder checks) {
+            this.checks = checks;
+        }
+
+        @Override
+        public boolean init(final Literal<?>[] args, final int matchedPattern, final ParseResult parseResult) {
+            return true;
+        }
+
+        @Override
+        public boolean check(final Event e) {
+            checks.increment();
+            return false;
+        }
+
+        @Override
+        public String toString(@Nullable final Event e, final boolean debug) {
+            return "counting event";
+        }
+    }
+
+}
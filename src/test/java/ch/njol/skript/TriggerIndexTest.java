@@ -0,0 +1,120 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript;
+
+import ch.njol.skript.lang.Literal;
+import ch.njol.skript.lang.SkriptEvent;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.Trigger;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+@SuppressWarnings("static-method")
+final class TriggerIndexTest {
+
+    private static final Trigger trigger(@Nullable final Object... keys) {
+        return new Trigger(null, "test", new KeyedEvent(keys), Collections.emptyList());
+    }
+
+    @Test
+    void testCandidates() {
+        final List<Trigger> triggers = new ArrayList<>();
+        triggers.add(trigger(1, 2)); // 0
+        triggers.add(trigger((Object[]) null)); // 1: unfiltered
+        triggers.add(trigger(2)); // 2
+        triggers.add(trigger()); // 3: never applies to keyed events
+        triggers.add(trigger(3, 1)); // 4
+        final TriggerIndex index = new TriggerIndex(triggers);
+
+        assertArrayEquals(new int[]{0, 1, 4}, index.getCandidates(new KeyedBukkitEvent(1)));
+        assertArrayEquals(new int[]{0, 1, 2}, index.getCandidates(new KeyedBukkitEvent(2)));
+        assertArrayEquals(new int[]{1}, index.getCandidates(new KeyedBukkitEvent(5)));
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, index.getCandidates(new KeyedBukkitEvent(null)));
+    }
+
+    private static final class KeyedBukkitEvent extends Event {
+        private static final HandlerList handlers = new HandlerList();
+
+        @Nullable
+        final Object key;
+
+        KeyedBukkitEvent(@Nullable final Object key) {
+            this.key = key;
+        }
+
+        public static HandlerList getHandlerList() {
+            return handlers;
+        }
+
+        @Override
+        public HandlerList getHandlers() {
+            return handlers;
+        }
+    }
+
+    private static final class KeyedEvent extends SkriptEvent {
+        @Nullable
+        private final Object[] keys;
+
+        KeyedEvent(@Nullable final Object[] keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public boolean init(final Literal<?>[] args, final int matchedPattern, final ParseResult parseResult) {
+            return true;
+        }
+
+        @Override
+        public boolean check(final Event e) {
+            return keys == null || Arrays.asList(keys).contains(((KeyedBukkitEvent) e).key);
+        }
+
+        @Override
+        @Nullable
+        public Object[] getFilterKeys() {
+            return keys;
+        }
+
+        @Override
+        @Nullable
+        public Object getFilterKey(final Event e) {
+            return ((KeyedBukkitEvent) e).key;
+        }
+
+        @Override
+        public String toString(@Nullable final Event e, final boolean debug) {
+            return "keyed event";
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.aliases;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("static-method")
+final class ItemTypeTest {
+
+    private static final boolean isOfAny(final ItemType t, final int id, final short data) {
+        for (final ItemData d : t.getTypes()) {
+            if (d.isOfType(id, data))
+                return true;
+        }
+        return false;
+    }
+
+    @Test
+    void testIsOfType() {
+        final ItemType t = new ItemType();
+        t.add(new ItemData(1)); // any data
+        t.add(new ItemData(35, (short) 3, (short) 7)); // packed range
+        t.add(new ItemData(35, (short) 14));
+        t.add(new ItemData(276, (short) 20, (short) 1000)); // durability
+        for (int id = 100; id < 105; id++) // enough item datas to use a matcher
+            t.add(new ItemData(id, (short) 2));
+        for (int id = 0; id < 300; id++) {
+            for (short data = 0; data < 1100; data += (short) (data < 20 ? 1 : 37))
+                assertEquals(isOfAny(t, id, data), t.isOfType(id, data), id + ":" + data);
+        }
+
+        assertFalse(t.isOfType(2, (short) 0));
+        t.add(new ItemData(2, (short) 0));
+        assertTrue(t.isOfType(2, (short) 0)); // modified() discards the matcher
+
+        final ItemType any = new ItemType();
+        any.add(new ItemData(-1, (short) 4, (short) 4));
+        assertTrue(any.isOfType(123, (short) 4));
+        assertFalse(any.isOfType(123, (short) 5));
+    }
+
+    @Test
+    void testIsSupertypeOf() {
+        final ItemType wool = new ItemType();
+        wool.add(new ItemData(35, (short) 0, (short) 7));
+        wool.add(new ItemData(35, (short) 8, (short) 15));
+
+        assertTrue(wool.isSupertypeOf(new ItemType(35, (short) 9)));
+        assertFalse(wool.isSupertypeOf(new ItemType(36, (short) 9)));
+        assertFalse(wool.isSupertypeOf(new ItemType(new ItemData(35, (short) 5, (short) 10)))); // not covered by a single item data
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+
+package ch.njol.skript.events;
+
+import ch.njol.skript.lang.Trigger;
+import ch.njol.skript.lang.TriggerItem;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that 'on walk on' triggers are called once per block walked on, using a mocked world whose ground is made of stone.
+ */
+@SuppressWarnings({"static-method", "deprecation"})
+final class EvtMoveOnTest {
+
+    private static final int STONE = 1, DIRT = 3, GROUND = 63;
+    private static final int BLOCKS = 10_000, STEPS_PER_BLOCK = 10;
+
+    @AfterEach
+    void clear() {
+        EvtMoveOn.itemTypeTriggers.clear();
+        EvtMoveOn.updateItemTypeTriggerIds();
+    }
+
+    private static final World mockWorld() {
+        return mockWorld(new int[]{STONE});
+    }
+
+    /**
+     * @param ground The id of the ground blocks, can be changed while the world is used
+     */
+    private static final World mockWorld(final int[] ground) {
+        final Block block = mock(Block.class);
+        expect(block.getData()).andReturn((byte) 0).anyTimes();
+        replay(block);
+
+        final World world = mock(World.class);
+        expect(world.getBlockTypeIdAt(anyInt(), anyInt(), anyInt())).andAnswer(() -> (int) getCurrentArguments()[1] == GROUND ? ground[0] : 0).anyTimes();
+        expect(world.getBlockAt(anyInt(), anyInt(), anyInt())).andReturn(block).anyTimes();
+        replay(world);
+        return world;
+    }
+
+    private static final Trigger countingTrigger(final int[] count) {
+        final TriggerItem counter = new TriggerItem() {
+            @Override
+            protected boolean run(final Event e) {
+                count[0]++;
+                return true;
+            }
+
+            @Override
+            public String toString(@Nullable final Event e, final boolean debug) {
+                return "count";
+            }
+        };
+        final List<TriggerItem> items = new ArrayList<>();
+        items.add(counter);
+        return new Trigger(null, "walk on stone", new EvtMoveOn(), items);
+    }
+
+    @Test
+    void testWalkOnStone() throws EventException {
+        final int[] stone = new int[1], dirt = new int[1];
+        EvtMoveOn.itemTypeTriggers.put(EvtMoveOn.pack(STONE, 0), new ArrayList<>(Collections.singletonList(countingTrigger(stone))));
+        EvtMoveOn.itemTypeTriggers.put(EvtMoveOn.pack(DIRT, 0), new ArrayList<>(Collections.singletonList(countingTrigger(dirt))));
+        EvtMoveOn.updateItemTypeTriggerIds();
+
+        final World world = mockWorld();
+        final Player player = mock(Player.class);
+        replay(player);
+
+        Location from = new Location(world, 0.5, GROUND + 1, 0.5);
+        for (int i = 1; i <= BLOCKS * STEPS_PER_BLOCK; i++) {
+            final Location to = new Location(world, 0.5 + (double) i / STEPS_PER_BLOCK, GROUND + 1, 0.5);
+            EvtMoveOn.executor.execute(null, new PlayerMoveEvent(player, from, to));
+            from = to;
+        }
+
+        assertEquals(BLOCKS, stone[0]); // Only called when moving onto another block
+        assertEquals(0, dirt[0]);
+    }
+
+    @Test
+    void testBlockChangesUnderPlayer() throws EventException {
+        final int[] stone = new int[1];
+        EvtMoveOn.itemTypeTriggers.put(EvtMoveOn.pack(STONE, 0), new ArrayList<>(Collections.singletonList(countingTrigger(stone))));
+        EvtMoveOn.updateItemTypeTriggerIds();
+
+        final int[] ground = {DIRT};
+        final World world = mockWorld(ground);
+        final Player player = mock(Player.class);
+        replay(player);
+
+        final Location location = new Location(world, 0.5, GROUND + 1, 0.5);
+        for (int i = 0; i < STEPS_PER_BLOCK; i++)
+            turnHead(player, location);
+        assertEquals(0, stone[0]);
+
+        ground[0] = STONE; // Replaced while standing on it
+        for (int i = 0; i < STEPS_PER_BLOCK; i++)
+            turnHead(player, location);
+        assertEquals(1, stone[0]);
+
+        ground[0] = DIRT;
+        turnHead(player, location);
+        ground[0] = STONE;
+        turnHead(player, location);
+        assertEquals(2, stone[0]);
+    }
+
+    private static final void turnHead(final Player player, final Location location) throws EventException {
+        EvtMoveOn.executor.execute(null, new PlayerMoveEvent(player, location, location.clone()));
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.log;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that only the best parse error is kept, and that failed parse attempts don't create errors that are discarded anyway.
+ */
+@SuppressWarnings("static-method")
+final class ParseLogHandlerTest {
+
+    private static final int ATTEMPTS = 1_000_000;
+
+    @Test
+    void testBestError() {
+        final RetainingLogHandler outer = SkriptLogger.startRetainingLog();
+        try {
+            final ParseLogHandler log = SkriptLogger.startParseLogHandler();
+            try {
+                log.error("semantic", ErrorQuality.SEMANTIC_ERROR);
+                log.error(() -> "not an expression", ErrorQuality.NOT_AN_EXPRESSION);
+                SkriptLogger.error(ErrorQuality.SEMANTIC_ERROR, () -> fail("Worse errors must not be created"));
+                log.printError(() -> fail("Worse errors must not be created"), ErrorQuality.SEMANTIC_ERROR);
+            } finally {
+                log.stop();
+            }
+            assertEquals("not an expression", outer.getFirstError().getMessage());
+            outer.printedErrorOrLog = true;
+        } finally {
+            outer.stop();
+        }
+    }
+
+    @Test
+    void testAllocation() {
+        final long eager = allocated(() -> {
+            final ParseLogHandler log = SkriptLogger.startParseLogHandler();
+            try {
+                SkriptLogger.log(new LogEntry(SkriptLogger.SEVERE, ErrorQuality.SEMANTIC_ERROR, "first error"));
+                for (int i = 0; i < ATTEMPTS; i++) {
+                    log.clear();
+                    SkriptLogger.log(new LogEntry(SkriptLogger.SEVERE, ErrorQuality.SEMANTIC_ERROR, "attempt " + i + " is not an expression"));
+                }
+            } finally {
+                log.printedErrorOrLog = true;
+                log.stop();
+            }
+        });
+        final long deferred = allocated(() -> {
+            final ParseLogHandler log = SkriptLogger.startParseLogHandler();
+            try {
+                SkriptLogger.log(new LogEntry(SkriptLogger.SEVERE, ErrorQuality.SEMANTIC_ERROR, "first error"));
+                for (int i = 0; i < ATTEMPTS; i++) {
+                    log.clear();
+                    final int attempt = i;
+                    SkriptLogger.error(ErrorQuality.SEMANTIC_ERROR, () -> "attempt " + attempt + " is not an expression");
+                }
+            } finally {
+                log.printedErrorOrLog = true;
+                log.stop();
+            }
+        });
+        assumeTrue(eager >= 0, "The allocated bytes can't be measured on this JVM");
+        assertTrue(deferred < eager, "Deferred errors allocated " + deferred + " bytes, eager errors " + eager + " bytes");
+    }
+
+    /**
+     * @return The bytes allocated by the current thread while running the task, or -1 if that can't be measured
+     */
+    private static final long allocated(final Runnable task) {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            task.run();
+            return -1;
+        }
+        final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long id = Thread.currentThread().getId();
+        task.run(); // Warm up
+        final long before = bean.getThreadAllocatedBytes(id);
+        task.run();
+        return bean.getThreadAllocatedBytes(id) - before;
+    }
+
+}
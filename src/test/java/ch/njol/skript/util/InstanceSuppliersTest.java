@@ -0,0 +1,58 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+package ch.njol.skript.util;
+
+import ch.njol.skript.Skript.InstanceSupplier;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Checks the generated instance suppliers.
+ */
+@SuppressWarnings("static-method")
+final class InstanceSuppliersTest {
+
+    @Test
+    void testCreate() throws ReflectiveOperationException {
+        final InstanceSupplier<Element> supplier = InstanceSuppliers.create(Element.class);
+        final Element a = supplier.newInstance(), b = supplier.newInstance();
+        assertSame(Element.class, a.getClass());
+        assertNotSame(a, b);
+        assertEquals(1, a.value); // The constructor was called
+
+        // Not public, uses reflection
+        assertSame(Hidden.class, InstanceSuppliers.create(Hidden.class).newInstance().getClass());
+    }
+
+    public static final class Element {
+        final int value = 1;
+    }
+
+    static final class Hidden {
+        public Hidden() {
+        }
+    }
+
+}
@@ -28,8 +28,10 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.UnknownHostException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 
 /**
@@ -64,4 +66,34 @@ final class UtilsTest {
 
     }
 
+    @Test
+    @SuppressWarnings({"null", "static-method"})
+    void testReplaceChatStylesConcurrently() throws InterruptedException {
+        final String plain = "Hello world, nothing to replace here";
+        assertSame(plain, Utils.replaceChatStyles(plain));
+        assertEquals("ab", Utils.replaceChatStyles("<<none>>a<<none>><<none>>b<<none>>"));
+
+        final int threads = 4, iterations = 100_000;
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final Thread[] ts = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            final String message = "message " + i + "<<none>> of thread " + i;
+            final String expected = "message " + i + " of thread " + i;
+            ts[i] = new Thread(() -> {
+                try {
+                    for (int j = 0; j < iterations; j++)
+                        assertEquals(expected, Utils.replaceChatStyles(message));
+                } catch (final Throwable t) {
+                    error.compareAndSet(null, t);
+                }
+            });
+        }
+        for (final Thread t : ts)
+            t.start();
+        for (final Thread t : ts)
+            t.join();
+
+        assertNull(error.get());
+    }
+
 }
@@ -0,0 +1,254 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import ch.njol.skript.classes.ClassInfo;
+import ch.njol.skript.classes.Serializer;
+import ch.njol.skript.registrations.Classes;
+import ch.njol.yggdrasil.Fields;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two servers sharing a SQLite database file.
+ */
+final class ChangeFeedTest {
+
+    private static final String TABLE = "variables21";
+    private static final int VARIABLES = 10_000;
+
+    @TempDir
+    File folder;
+
+    @BeforeAll
+    static void registerLong() {
+        if (Classes.getExactClassInfo(Long.class) != null)
+            return;
+        Classes.registerClass(new ClassInfo<>(Long.class, "long").serializer(new Serializer<Long>() {
+            @Override
+            public Fields serialize(final Long n) {
+                throw new IllegalStateException(); // never serialized with Yggdrasil, see CompactCodecs
+            }
+
+            @Override
+            public void deserialize(final Long o, final Fields f) {
+                assert false;
+            }
+
+            @Override
+            public boolean mustSyncDeserialization() {
+                return false;
+            }
+
+            @Override
+            protected boolean canBeInstantiated() {
+                return false;
+            }
+        }));
+    }
+
+    private final Connection connect() throws SQLException {
+        final Connection con = DriverManager.getConnection("jdbc:sqlite:" + new File(folder, "variables.db").getAbsolutePath());
+        con.setAutoCommit(false);
+        try (final Statement s = con.createStatement()) {
+            s.executeUpdate(DatabaseStorage.Type.SQLITE.createQuery);
+        }
+        con.commit();
+        return con;
+    }
+
+    private static final ChangeFeed feed(final Connection con, final String guid, final boolean tombstones) throws SQLException {
+        final ChangeFeed feed = new ChangeFeed(TABLE, guid, tombstones);
+        feed.install(con);
+        feed.prepare(con);
+        return feed;
+    }
+
+    /**
+     * Fetches and ends the transaction, as SQLite doesn't let the other connections commit while it is open
+     */
+    private static final List<ChangeFeed.Row> fetch(final ChangeFeed feed, final Connection con) throws SQLException {
+        final List<ChangeFeed.Row> rows = feed.fetch();
+        con.commit();
+        return rows;
+    }
+
+    private static final byte[] compactLong(final long l) {
+        return CompactCodecs.writeVarLong(CompactCodecs.zigZag(l));
+    }
+
+    @Test
+    void testTwoServers() throws SQLException {
+        try (final Connection a = connect(); final Connection b = connect()) {
+            final ChangeFeed feedA = feed(a, "a", true), feedB = feed(b, "b", true);
+
+            // One commit with more rows than fit in a page, all with the same version
+            for (int i = 0; i < VARIABLES; i++)
+                feedA.write("var::" + i, "number", new byte[]{(byte) i});
+            feedA.write("var::0", "number", new byte[]{42}); // replaces the earlier write
+            assertEquals(VARIABLES, feedA.getPending());
+            final long version = feedA.commit(a);
+            assertEquals(0, feedA.getPending());
+            assertEquals(-1, feedA.commit(a));
+
+            final List<ChangeFeed.Row> fetched = new ArrayList<>();
+            List<ChangeFeed.Row> page;
+            do {
+                page = fetch(feedB, b);
+                assertTrue(page.size() <= ChangeFeed.FETCH_SIZE);
+                fetched.addAll(page);
+            } while (page.size() == ChangeFeed.FETCH_SIZE);
+
+            assertEquals(VARIABLES, fetched.size());
+            for (final ChangeFeed.Row row : fetched) {
+                assertEquals(version, row.version);
+                if ("var::0".equals(row.name))
+                    assertArrayEquals(new byte[]{42}, row.value);
+            }
+            assertEquals(version, feedB.getCursor());
+            assertTrue(fetch(feedB, b).isEmpty());
+            assertTrue(fetch(feedA, a).isEmpty()); // own changes are not fetched
+
+            // Deletions are seen as tombstones, with a higher version
+            feedB.write("var::1", null, null);
+            final long deleted = feedB.commit(b);
+            assertTrue(deleted > version);
+            feedA.seen(version);
+            final List<ChangeFeed.Row> tombstones = fetch(feedA, a);
+            assertEquals(1, tombstones.size());
+            assertEquals("var::1", tombstones.get(0).name);
+            assertNull(tombstones.get(0).value);
+
+            assertEquals(0, feedA.deleteTombstones(deleted));
+            assertEquals(1, feedA.deleteTombstones(deleted + 1));
+            a.commit();
+
+            feedA.closeQueries();
+            feedB.closeQueries();
+        }
+    }
+
+    @Test
+    void testFailedCommit() throws SQLException {
+        try (final Connection a = connect(); final Connection b = connect()) {
+            final ChangeFeed feedA = feed(a, "a", true), feedB = feed(b, "b", true);
+
+            feedA.write("var::1", "number", new byte[]{1});
+            feedA.write("var::2", "number", new byte[]{2});
+            feedA.closeQueries(); // e.g. lost the connection
+            assertThrows(SQLException.class, () -> feedA.commit(a));
+            assertEquals(2, feedA.getPending());
+            assertTrue(fetch(feedB, b).isEmpty());
+
+            // Written by the next commit, together with newer changes
+            feedA.prepare(a);
+            feedA.write("var::2", "number", new byte[]{3});
+            final long version = feedA.commit(a);
+            assertEquals(0, feedA.getPending());
+            final List<ChangeFeed.Row> rows = fetch(feedB, b);
+            assertEquals(2, rows.size());
+            assertEquals("var::1", rows.get(0).name);
+            assertEquals("var::2", rows.get(1).name);
+            assertArrayEquals(new byte[]{3}, rows.get(1).value);
+            assertEquals(version, rows.get(1).version);
+
+            feedA.closeQueries();
+            feedB.closeQueries();
+        }
+    }
+
+    @Test
+    void testFull() {
+        final ChangeFeed feed = new ChangeFeed(TABLE, "a", true);
+        for (int i = 0; i < ChangeFeed.MAX_PENDING - 1; i++)
+            feed.write("var::" + i, "number", new byte[]{(byte) i});
+        assertFalse(feed.isFull());
+        feed.write("var::0", null, null); // replaces the earlier write
+        assertFalse(feed.isFull());
+        feed.write("var::" + (ChangeFeed.MAX_PENDING - 1), "number", new byte[]{1});
+        assertTrue(feed.isFull());
+
+        // Rows that can't be committed can be written to a file instead
+        final StringWriter out = new StringWriter();
+        try (final PrintWriter pw = new PrintWriter(out)) {
+            feed.dump(pw);
+        }
+        final String[] lines = out.toString().split("\r?\n");
+        assertEquals(ChangeFeed.MAX_PENDING, lines.length);
+        assertEquals("var::1, number, 01", lines[0]);
+        assertTrue(lines[lines.length - 2].startsWith("var::0, null,"));
+    }
+
+    @Test
+    void testApplyChanges() throws SQLException {
+        try (final Connection a = connect(); final Connection b = connect(); final Connection c = connect()) {
+            final ChangeFeed feedA = feed(a, "a", true), feedB = feed(b, "b", true), feedC = feed(c, "c", false);
+            final DatabaseStorage storage = new DatabaseStorage("test", DatabaseStorage.Type.SQLITE);
+            final List<String> names = new ArrayList<>();
+            final List<Object> values = new ArrayList<>();
+
+            feedA.write("kept", "~long", compactLong(5));
+            feedA.write("deleted", "~long", compactLong(-7));
+            feedA.commit(a);
+            feedA.write("deleted", null, null);
+            feedA.commit(a);
+
+            storage.applyChanges(fetch(feedB, b), task -> {
+                try {
+                    task.call();
+                } catch (final Exception e) {
+                    fail(e);
+                }
+            }, (n, v) -> {
+                names.addAll(n);
+                values.addAll(v);
+            });
+            assertEquals(Arrays.asList("kept", "deleted"), names);
+            assertEquals(Arrays.asList(5L, null), values);
+
+            // Without tombstones the rows of deleted variables are gone, so other servers don't see the deletion
+            feedC.write("kept", null, null);
+            feedC.commit(c);
+            assertTrue(fetch(feedB, b).isEmpty());
+
+            feedA.closeQueries();
+            feedB.closeQueries();
+            feedC.closeQueries();
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import ch.njol.yggdrasil.Yggdrasil;
+import ch.njol.yggdrasil.YggdrasilOutputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the compact encodings round trip a sample of typical variable values and are smaller than Yggdrasil's.
+ */
+@SuppressWarnings("static-method")
+final class CompactCodecsTest {
+
+    private static final int VALUES = 10_000;
+
+    /**
+     * The magic number, version and tag written by Yggdrasil, which are not saved
+     */
+    private static final int YGGDRASIL_HEADER = 7;
+
+    @Test
+    void testVarLong() throws StreamCorruptedException {
+        for (final long v : new long[]{0, 1, -1, 63, -64, 64, 127, 128, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            final byte[] d = CompactCodecs.writeVarLong(CompactCodecs.zigZag(v));
+            assertEquals(v, CompactCodecs.unZigZag(CompactCodecs.readVarLong(d)));
+        }
+        assertEquals(1, CompactCodecs.writeVarLong(CompactCodecs.zigZag(-64)).length);
+        assertEquals(2, CompactCodecs.writeVarLong(CompactCodecs.zigZag(64)).length);
+        assertEquals(10, CompactCodecs.writeVarLong(CompactCodecs.zigZag(Long.MIN_VALUE)).length);
+        assertThrows(StreamCorruptedException.class, () -> CompactCodecs.readVarLong(new byte[]{(byte) 0x80}));
+        assertThrows(StreamCorruptedException.class, () -> CompactCodecs.readVarLong(new byte[0]));
+    }
+
+    @Test
+    void testTypes() {
+        assertTrue(CompactCodecs.isCompact("~long"));
+        assertFalse(CompactCodecs.isCompact("long"));
+        assertNotNull(CompactCodecs.get("~location"));
+        assertNull(CompactCodecs.get("~itemtype"));
+        assertNull(CompactCodecs.deserialize("~boolean", new byte[2]));
+        assertNull(CompactCodecs.deserialize("~unknown", new byte[1]));
+    }
+
+    private static final List<Object> sample() {
+        final Random random = new Random(42);
+        final List<Object> values = new ArrayList<>(VALUES);
+        for (int i = 0; i < VALUES; i++) {
+            final int kind = random.nextInt(20);
+            if (kind < 8) // counters, balances, levels
+                values.add((long) random.nextInt(kind < 6 ? 1000 : 10_000_000));
+            else if (kind < 12)
+                values.add(Math.round(random.nextDouble() * 100_000) / 100.);
+            else if (kind < 14)
+                values.add(random.nextBoolean());
+            else if (kind < 19) // names, ranks, messages
+                values.add("Player" + random.nextInt(100_000));
+            else
+                values.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static final byte[] encode(final Object o) {
+        final CompactCodecs.Codec<Object> codec = (CompactCodecs.Codec<Object>) CompactCodecs.get(CompactCodecs.PREFIX + codeName(o));
+        assertNotNull(codec);
+        final byte[] d = codec.encode(o);
+        assertNotNull(d);
+        return d;
+    }
+
+    private static final String codeName(final Object o) {
+        return o instanceof Long ? "long" : o instanceof Double ? "double" : o instanceof Boolean ? "boolean" : o instanceof String ? "string" : "uuid";
+    }
+
+    @Test
+    void testSample() throws IOException {
+        final List<Object> values = sample();
+        final Yggdrasil yggdrasil = new Yggdrasil();
+
+        // UUIDs need a registered class to be serialized by Yggdrasil, compare the others only
+        long compactSize = 0, yggdrasilSize = 0;
+        for (final Object o : values) {
+            final byte[] d = encode(o);
+            if (!(o instanceof UUID))
+                compactSize += d.length;
+            assertEquals(o, CompactCodecs.deserialize(CompactCodecs.PREFIX + codeName(o), d));
+        }
+
+        for (final Object o : values) {
+            if (o instanceof UUID)
+                continue;
+            final ByteArrayOutputStream bout = new ByteArrayOutputStream(4096); // same as Classes.serialize
+            try (final YggdrasilOutputStream out = yggdrasil.newOutputStream(bout)) {
+                out.writeObject(o);
+                out.flush();
+            }
+            yggdrasilSize += bout.size() - YGGDRASIL_HEADER;
+        }
+
+        assertTrue(compactSize < yggdrasilSize, compactSize + " >= " + yggdrasilSize);
+    }
+
+}
@@ -26,12 +26,19 @@ import ch.njol.skript.Skript;
 import org.eclipse.jdt.annotation.Nullable;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.function.Function;
 
 import static kotlin.test.AssertionsKt.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -88,4 +95,37 @@ final class FlatFileStorageTest {
         }
     }
 
+    /**
+     * Writes and reads back a variables.csv file with names that have to be quoted.
+     */
+    @SuppressWarnings("static-method")
+    @Test
+    void testStreaming() throws IOException {
+        final int lines = 10_000;
+        final byte[] value = new byte[32];
+        for (int i = 0; i < value.length; i++)
+            value[i] = (byte) (i * 37);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(lines * 100);
+        try (final PrintWriter pw = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            pw.println("# version: 2.2");
+            for (int i = 0; i < lines; i++)
+                CSVCodec.write(pw, "player::" + i + "::balance, \"quoted\"", "object", value);
+        }
+
+        int read = 0;
+        try (final CSVCodec.Reader r = new CSVCodec.Reader(new ByteArrayInputStream(out.toByteArray()))) {
+            while (r.nextLine()) {
+                if (r.isEmpty() || r.firstByte() == '#')
+                    continue;
+                assertEquals(3, r.split());
+                assertEquals("player::" + read + "::balance, \"quoted\"", r.field(0));
+                assertEquals("object", r.field(1));
+                assertArrayEquals(value, r.hex(2));
+                read++;
+            }
+        }
+        assertEquals(lines, read);
+    }
+
 }
@@ -0,0 +1,51 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("static-method")
+final class LatencyHistogramTest {
+
+    @Test
+    void testPercentiles() {
+        final LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.getPercentileNanos(50));
+        for (int i = 1; i <= 1000; i++)
+            h.record(i * 1000L); // 1 µs to 1 ms
+        assertEquals(1000, h.getCount());
+        assertEquals(1_000_000L, h.getMaxNanos());
+        assertEquals(500_500L, h.getAverageNanos());
+        // Upper bounds, at most twice the actual percentiles
+        for (final int p : new int[]{1, 50, 90, 99}) {
+            final long actual = p * 10_000L;
+            final long bound = h.getPercentileNanos(p);
+            assertTrue(actual <= bound && bound <= 2 * actual, p + ": " + bound);
+        }
+        assertEquals(1_000_000L, h.getPercentileNanos(100));
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SuppressWarnings("static-method")
+final class StorageRouterTest {
+
+    private static final List<String> STORAGES = Arrays.asList("mysql", "sqlite", "kills", "temp", "csv");
+    private static final List<String> PATTERNS = Arrays.asList("synced_.*", "(?i)db_.*", "kills::.*", "(?!(?i)temp_).*", ".*");
+
+    private static final String[] NAMES = {"synced_money::", "db_homes::", "DB_warps::", "kills::", "temp_cooldown::", "money::", "home::", "warp", "synced", "Kills::", "temp::"};
+
+    @Test
+    void testRouting() {
+        final StorageRouter<String> router = new StorageRouter<>(STORAGES, PATTERNS);
+        assertEquals("mysql", router.route("synced_money::123"));
+        assertEquals("sqlite", router.route("DB_homes::Steve"));
+        assertEquals("kills", router.route("kills::Steve"));
+        assertEquals("csv", router.route("temp_cooldown::Steve"));
+        assertEquals("temp", router.route("money::Steve"));
+        assertNull(router.route("money\nwith a line break")); // . does not match line terminators
+        assertNull(new StorageRouter<>(Arrays.asList("a"), Arrays.asList("a.*")).route("b"));
+
+        // Same results as the regular expressions, also for patterns that need a regular expression
+        final List<String> patterns = new ArrayList<>(PATTERNS);
+        patterns.add(2, "[a-z]+_\\d+::.*");
+        final List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < patterns.size(); i++)
+            indices.add(i);
+        final StorageRouter<Integer> regexRouter = new StorageRouter<>(indices, patterns);
+        final Random random = new Random(42L);
+        for (int i = 0; i < 100_000; i++) {
+            final String name = randomName(random);
+            Integer expected = null;
+            for (int j = 0; j < patterns.size(); j++) {
+                if (Pattern.compile(patterns.get(j)).matcher(name).matches()) {
+                    expected = j;
+                    break;
+                }
+            }
+            assertEquals(expected, regexRouter.route(name), name);
+        }
+    }
+
+    private static final String randomName(final Random random) {
+        final StringBuilder b = new StringBuilder(NAMES[random.nextInt(NAMES.length)]);
+        if (random.nextInt(10) == 0)
+            b.append('_').append(random.nextInt(100)).append("::");
+        b.append(Long.toHexString(random.nextLong()));
+        if (random.nextInt(1000) == 0)
+            b.append('\n');
+        return b.toString();
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import ch.njol.skript.variables.SerializedVariable.Value;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ch.njol.skript.variables.VariableExpiry.TICK_MILLIS;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the timing wheel with {@link VariableExpiry#advance(long)} instead of the sweeper thread.
+ */
+final class VariableExpiryTest {
+
+    /**
+     * Ticks per rotation of the wheel
+     */
+    private static final long ROTATION = 512;
+
+    private VariableExpiry expiry;
+    private long start;
+
+    @BeforeEach
+    void setUp() {
+        expiry = new VariableExpiry();
+        start = System.currentTimeMillis() / TICK_MILLIS + 10;
+        assertTrue(expiry.advance(start).isEmpty());
+    }
+
+    private static void assertDue(final List<VariableExpiry.Entry> due, final String... names) {
+        assertEquals(names.length, due.size());
+        for (int i = 0; i < names.length; i++)
+            assertEquals(names[i], due.get(i).name);
+    }
+
+    @Test
+    void testExpiry() {
+        expiry.set("a", (start + 10) * TICK_MILLIS + TICK_MILLIS / 2);
+        expiry.set("b", (start + 10) * TICK_MILLIS);
+        expiry.set("c", (start + 11) * TICK_MILLIS);
+        assertEquals(3, expiry.getExpiring());
+        assertDue(expiry.advance(start + 9));
+        final List<VariableExpiry.Entry> due = expiry.advance(start + 10);
+        assertDue(due, "a", "b");
+        assertEquals((start + 10) * TICK_MILLIS + TICK_MILLIS / 2, due.get(0).deadline);
+
+        // Still expiring until the variables are deleted
+        assertEquals((start + 10) * TICK_MILLIS, expiry.get("b"));
+        assertTrue(expiry.expire(due.get(0)));
+        assertTrue(expiry.expire(due.get(1)));
+        assertEquals(-1L, expiry.get("b"));
+        assertEquals(1, expiry.getExpiring());
+
+        assertDue(expiry.advance(start + 20), "c");
+    }
+
+    @Test
+    void testPast() {
+        expiry.set("a", 0L);
+        assertDue(expiry.advance(start + 1), "a");
+    }
+
+    @Test
+    void testClockJump() {
+        expiry.set("a", (start + 5) * TICK_MILLIS);
+        expiry.set("b", (start + ROTATION + 100) * TICK_MILLIS);
+        // Visits every slot only once, and keeps entries of later rounds
+        assertDue(expiry.advance(start + 3 * ROTATION), "a", "b");
+    }
+
+    @Test
+    void testLongerThanRotation() {
+        final long tick = start + 2 * ROTATION + 3;
+        expiry.set("a", tick * TICK_MILLIS);
+        assertDue(expiry.advance(start + 3)); // The same slot, but a later round
+        assertDue(expiry.advance(start + ROTATION + 3));
+        assertDue(expiry.advance(tick - 1));
+        assertEquals(tick * TICK_MILLIS, expiry.get("a"));
+        assertDue(expiry.advance(tick), "a");
+        assertDue(expiry.advance(tick + ROTATION));
+    }
+
+    @Test
+    void testReset() {
+        expiry.set("later", (start + 5) * TICK_MILLIS);
+        expiry.set("later", (start + 8) * TICK_MILLIS);
+        expiry.set("earlier", (start + 2 * ROTATION) * TICK_MILLIS);
+        expiry.set("earlier", (start + 6) * TICK_MILLIS);
+        assertEquals(2, expiry.getExpiring());
+
+        assertDue(expiry.advance(start + 5));
+        assertDue(expiry.advance(start + 6), "earlier");
+        final List<VariableExpiry.Entry> due = expiry.advance(start + 8);
+        assertDue(due, "later");
+        assertEquals((start + 8) * TICK_MILLIS, due.get(0).deadline);
+
+        // Changed after it was due, so it's not deleted
+        expiry.set("later", (start + 20) * TICK_MILLIS);
+        assertFalse(expiry.expire(due.get(0)));
+        assertEquals((start + 20) * TICK_MILLIS, expiry.get("later"));
+
+        assertDue(expiry.advance(start + 3 * ROTATION), "later");
+    }
+
+    @Test
+    void testCancel() {
+        expiry.set("a", (start + 5) * TICK_MILLIS);
+        assertTrue(expiry.cancel("a"));
+        assertFalse(expiry.cancel("a"));
+        assertEquals(-1L, expiry.get("a"));
+        assertEquals(0, expiry.getExpiring());
+        assertDue(expiry.advance(start + 5));
+
+        expiry.set("a", (start + 10) * TICK_MILLIS);
+        final List<VariableExpiry.Entry> due = expiry.advance(start + 10);
+        assertDue(due, "a");
+        expiry.cancel("a");
+        assertFalse(expiry.expire(due.get(0)));
+    }
+
+    @Test
+    void testSaveExpiries() throws IOException {
+        final Map<String, Long> deadlines = new HashMap<>();
+        deadlines.put("cooldown::abc", (start + 5) * TICK_MILLIS);
+        deadlines.put("saved elsewhere", (start + 6) * TICK_MILLIS);
+        deadlines.put("ban::\"quoted\", name", (start + 2 * ROTATION) * TICK_MILLIS);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final PrintWriter pw = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            FlatFileStorage.saveExpiries(pw, deadlines, name -> !name.endsWith("elsewhere"),
+                    o -> new Value("~long", CompactCodecs.writeVarLong(CompactCodecs.zigZag((Long) o))));
+        }
+
+        // Loaded like FlatFileStorage loads them
+        final VariableExpiry loaded = new VariableExpiry();
+        assertTrue(loaded.advance(start).isEmpty());
+        try (final CSVCodec.Reader r = new CSVCodec.Reader(new ByteArrayInputStream(out.toByteArray()))) {
+            while (r.nextLine()) {
+                assertEquals(3, r.split());
+                final String name = r.field(0);
+                assertTrue(name.startsWith(VariableExpiry.PREFIX), name);
+                loaded.loaded(name.substring(VariableExpiry.PREFIX.length()), CompactCodecs.deserialize(r.field(1), r.hex(2)));
+            }
+        }
+        deadlines.remove("saved elsewhere");
+        assertEquals(deadlines, loaded.getDeadlines());
+
+        assertDue(loaded.advance(start + 5), "cooldown::abc");
+        assertDue(loaded.advance(start + 2 * ROTATION), "ban::\"quoted\", name");
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class VariableMetricsTest {
+
+    /**
+     * @return The line of the prefix in the report, without its estimated size
+     */
+    private static String line(final VariableMetrics metrics, final String prefix) {
+        final String start = "  " + (VariableMetrics.OTHER.equals(prefix) ? prefix : '{' + prefix + '}') + ": ";
+        final List<String> report = metrics.report(-1);
+        for (final String line : report) {
+            if (line.startsWith(start))
+                return line.substring(start.length()).replaceFirst("~[^,]*, ", "");
+        }
+        return fail(prefix + " is not in " + report);
+    }
+
+    @SuppressWarnings("static-method")
+    @Test
+    void testPrefixes() {
+        final VariableMetrics metrics = new VariableMetrics();
+        metrics.added("homes::player::1");
+        metrics.added("homes::player::2");
+        metrics.read("homes::player::1");
+        metrics.read("homes::*");
+        metrics.written("homes::player::2", true);
+        metrics.removed("homes::player::2");
+        metrics.written("homes", false);
+        assertEquals("1 variables, 2 reads, 1 writes, 1 deletes", line(metrics, "homes"));
+        assertEquals(2, metrics.getReads());
+        assertEquals(2, metrics.getWrites());
+        assertEquals(1, metrics.getResidentVariables());
+    }
+
+    @SuppressWarnings("static-method")
+    @Test
+    void testMaxPrefixes() {
+        final VariableMetrics metrics = new VariableMetrics();
+        for (int i = 0; i < 500; i++) {
+            metrics.read("single " + i);
+            metrics.read("uuid" + i + "::home");
+        }
+        assertEquals("0 variables, 1 reads, 0 writes, 0 deletes", line(metrics, "single 499"));
+        assertEquals("0 variables, 1 reads, 0 writes, 0 deletes", line(metrics, "uuid499"));
+
+        // Further prefixes are counted together, with or without a separator
+        metrics.read("single 500");
+        metrics.read("uuid500::home");
+        metrics.read("single 500");
+        metrics.read("uuid0::home");
+        metrics.read("single 0");
+        assertEquals("0 variables, 3 reads, 0 writes, 0 deletes", line(metrics, VariableMetrics.OTHER));
+        assertEquals("0 variables, 2 reads, 0 writes, 0 deletes", line(metrics, "uuid0"));
+        assertEquals("0 variables, 2 reads, 0 writes, 0 deletes", line(metrics, "single 0"));
+        assertEquals(1001, metrics.report(-1).stream().filter(l -> l.startsWith("  {") || l.startsWith("  " + VariableMetrics.OTHER)).count());
+    }
+
+}
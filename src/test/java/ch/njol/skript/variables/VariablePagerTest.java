@@ -0,0 +1,207 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.classes.ClassInfo;
+import ch.njol.skript.classes.Serializer;
+import ch.njol.skript.registrations.Classes;
+import ch.njol.yggdrasil.Fields;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pages out the subtrees of a list with {@link Long} values, which are written with their compact encoding.
+ */
+final class VariablePagerTest {
+
+    private static final int SUBTREES = 100, BUDGET = 20;
+
+    @TempDir
+    File folder;
+
+    private VariablesMap variables;
+    private VariablePager pager;
+
+    @BeforeAll
+    static void registerLong() {
+        if (Classes.getExactClassInfo(StringBuilder.class) == null)
+            Classes.registerClass(new ClassInfo<>(StringBuilder.class, "stringbuilder")); // Can't be saved
+        if (Classes.getExactClassInfo(Long.class) != null)
+            return;
+        Classes.registerClass(new ClassInfo<>(Long.class, "long").serializer(new Serializer<Long>() {
+            @Override
+            public Fields serialize(final Long n) {
+                throw new IllegalStateException(); // never serialized with Yggdrasil, see CompactCodecs
+            }
+
+            @Override
+            public void deserialize(final Long o, final Fields f) {
+                assert false;
+            }
+
+            @Override
+            public boolean mustSyncDeserialization() {
+                return false;
+            }
+
+            @Override
+            protected boolean canBeInstantiated() {
+                return false;
+            }
+        }));
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        variables = new VariablesMap(null);
+        pager = new VariablePager(variables, BUDGET, folder);
+        variables.pager = pager;
+        for (long i = 0; i < SUBTREES; i++) {
+            variables.setVariable("data::" + i + "::a", i);
+            variables.setVariable("data::" + i + "::b", -i);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pager.close();
+    }
+
+    /**
+     * Sweeps twice, as setting the variables marked all subtrees as used.
+     */
+    private void pageOut() throws IOException {
+        pager.sweep();
+        assertEquals(0, pager.getPagedSubtrees());
+        pager.sweep();
+    }
+
+    private boolean isPaged(final long i) {
+        return !variables.hashMap.containsKey("data::" + i + "::a");
+    }
+
+    private void assertValues(final long i) {
+        assertEquals(i, variables.getVariable("data::" + i + "::a"));
+        assertEquals(-i, variables.getVariable("data::" + i + "::b"));
+    }
+
+    @Test
+    void testPageOut() throws IOException {
+        pageOut();
+        assertTrue(variables.hashMap.size() <= BUDGET);
+        assertTrue(pager.getPagedSubtrees() > 0);
+        assertEquals(2L * SUBTREES - variables.hashMap.size(), pager.getPagedVariables());
+        assertEquals(pager.getSegmentBytes(), pager.getLiveBytes());
+        assertEquals(0, pager.getFaults());
+        for (long i = 0; i < SUBTREES; i++)
+            assertValues(i);
+    }
+
+    @Test
+    void testUnpageable() throws IOException {
+        final int unpageable = 10;
+        for (long i = 0; i < unpageable; i++)
+            variables.setVariable("data::" + i + "::c", new StringBuilder());
+        pageOut();
+        for (long i = 0; i < SUBTREES; i++)
+            assertEquals(i >= unpageable, isPaged(i), "data::" + i);
+        assertEquals(3 * unpageable, variables.hashMap.size());
+    }
+
+    @Test
+    void testFault() throws IOException {
+        pageOut();
+        long paged = 0;
+        while (!isPaged(paged))
+            paged++;
+        assertValues(paged);
+        assertEquals(1, pager.getFaults());
+        assertEquals(2, pager.getResidentPagedVariables());
+        assertValues(paged); // Still in memory
+        assertEquals(1, pager.getFaults());
+        assertFalse(variables.hashMap.containsKey("data::" + paged + "::a")); // Only read, not put back
+    }
+
+    @Test
+    void testChangeInPagedSubtree() throws IOException {
+        pageOut();
+        final int subtrees = pager.getPagedSubtrees();
+        long paged = 0;
+        while (!isPaged(paged))
+            paged++;
+        variables.setVariable("data::" + paged + "::a", null);
+        assertNull(variables.getVariable("data::" + paged + "::a"));
+        assertEquals(-paged, variables.getVariable("data::" + paged + "::b"));
+        assertEquals(-paged, variables.hashMap.get("data::" + paged + "::b")); // Put back into the map
+        assertEquals(subtrees - 1, pager.getPagedSubtrees());
+        assertEquals(2L * SUBTREES - variables.hashMap.size() - 1, pager.getPagedVariables());
+
+        do
+            paged++;
+        while (!isPaged(paged));
+        variables.setVariable("data::" + paged + "::*", null);
+        assertNull(variables.getVariable("data::" + paged + "::a"));
+        assertNull(variables.getVariable("data::" + paged + "::b"));
+        assertNull(variables.getVariable("data::" + paged + "::*"));
+        assertEquals(subtrees - 2, pager.getPagedSubtrees());
+
+        variables.setVariable("data::*", null);
+        assertEquals(0, pager.getPagedSubtrees());
+        assertEquals(0, pager.getPagedVariables());
+        assertEquals(0, pager.getLiveBytes());
+        assertTrue(variables.hashMap.isEmpty());
+    }
+
+    @Test
+    void testCompaction() throws IOException, ReflectiveOperationException {
+        pageOut();
+        for (long i = 0; i < SUBTREES; i += 2)
+            variables.setVariable("data::" + i + "::a", i + 1); // Puts the paged ones back into the map
+        assertTrue(pager.getSegmentBytes() > pager.getLiveBytes());
+
+        try {
+            Skript.invoke(VariablePager.class.getDeclaredMethod("compact"), (Function<Method, Method>) Skript::setAccessible).invoke(pager);
+        } catch (final InvocationTargetException e) {
+            throw (IOException) e.getCause();
+        }
+        assertEquals(pager.getSegmentBytes(), pager.getLiveBytes());
+        assertArrayEquals(new String[]{"variables-1.paged"}, folder.list());
+        for (long i = 0; i < SUBTREES; i++) {
+            assertEquals(i % 2 == 0 ? i + 1 : i, variables.getVariable("data::" + i + "::a"));
+            assertEquals(-i, variables.getVariable("data::" + i + "::b"));
+        }
+    }
+
+}
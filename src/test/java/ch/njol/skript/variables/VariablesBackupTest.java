@@ -0,0 +1,90 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class VariablesBackupTest {
+
+    @TempDir
+    File folder;
+
+    private void create(final String... names) throws IOException {
+        for (final String name : names)
+            assertTrue(new File(folder, name).createNewFile(), name);
+    }
+
+    private String[] backups() {
+        final String[] names = folder.list();
+        assertNotNull(names);
+        Arrays.sort(names);
+        return names;
+    }
+
+    @SuppressWarnings("null")
+    @Test
+    void testRotate() throws IOException {
+        create("variables_auto_2020-01-02_00-00-00.csv", "variables_auto_2020-01-01_12-00-00.csv", "variables_auto_2019-12-31_23-59-59.csv",
+                "variables_auto_2019-01-01_00-00-00.csv.gz", "variables_auto_2019-01-01_00-00-00.csv.gz.part", "variables.csv", "other_auto_2019-01-01_00-00-00.csv",
+                "variables_2018-01-01_00-00-00.csv");
+
+        final VariablesBackup backup = new VariablesBackup(null, new File("variables.csv"), false, 2);
+        assertEquals(1, backup.rotate(folder));
+        // Only the oldest uncompressed automatic backup of the file is deleted, not the backup created by FileUtils.backup
+        assertArrayEquals(new String[]{"other_auto_2019-01-01_00-00-00.csv", "variables.csv", "variables_2018-01-01_00-00-00.csv", "variables_auto_2019-01-01_00-00-00.csv.gz",
+                "variables_auto_2019-01-01_00-00-00.csv.gz.part", "variables_auto_2020-01-01_12-00-00.csv", "variables_auto_2020-01-02_00-00-00.csv"}, backups());
+        assertEquals(0, backup.rotate(folder));
+
+        assertEquals(0, new VariablesBackup(null, new File("variables.csv"), true, 1).rotate(folder));
+        create("variables_auto_2019-06-01_00-00-00.csv.gz");
+        assertEquals(1, new VariablesBackup(null, new File("variables.csv"), true, 1).rotate(folder));
+        assertFalse(new File(folder, "variables_auto_2019-01-01_00-00-00.csv.gz").exists());
+        assertTrue(new File(folder, "variables_auto_2019-01-01_00-00-00.csv.gz.part").exists());
+
+        assertEquals(0, new VariablesBackup(null, new File("variables.csv"), false, 0).rotate(folder)); // Keeps all
+        assertEquals(7, backups().length);
+        assertEquals(1, new VariablesBackup(null, new File("variables.csv"), false, 1).rotate(folder));
+        assertTrue(new File(folder, "variables_2018-01-01_00-00-00.csv").exists());
+    }
+
+    @SuppressWarnings("static-method")
+    @Test
+    void testFormatSize() {
+        assertEquals("0 B", VariablesBackup.formatSize(0));
+        assertEquals("1023 B", VariablesBackup.formatSize(1023));
+        assertEquals("1.0 KiB", VariablesBackup.formatSize(1024));
+        assertEquals("1.5 KiB", VariablesBackup.formatSize(1536));
+        assertEquals("1024.0 KiB", VariablesBackup.formatSize((1L << 20) - 1));
+        assertEquals("1.0 MiB", VariablesBackup.formatSize(1L << 20));
+        assertEquals("2.5 GiB", VariablesBackup.formatSize(5L << 29));
+        assertEquals("8.0 EiB", VariablesBackup.formatSize(Long.MAX_VALUE));
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.skript.variables;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Uses deleted variables only, as they don't need any registered classes to be serialized.
+ */
+@SuppressWarnings("static-method")
+final class WriteBehindBufferTest {
+
+    private static final int CHANGES = 1_000_000;
+    private static final int NAMES = 1000;
+
+    @Test
+    void testCoalescing() throws InterruptedException {
+        final WriteBehindBuffer buffer = new WriteBehindBuffer();
+        buffer.add("a", null);
+        buffer.add("b", null);
+        buffer.add("a", null);
+        assertEquals(2, buffer.getPendingVariables());
+        assertEquals(1, buffer.getCoalescedChanges());
+
+        final List<String> saved = new ArrayList<>();
+        buffer.flush(batch -> batch.forEach(var -> saved.add(var.name)));
+        assertEquals(2, saved.size());
+        assertEquals("a", saved.get(0));
+        assertEquals("b", saved.get(1));
+        assertTrue(buffer.isEmpty());
+
+        buffer.add("c", null);
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void testWriteBehind() throws InterruptedException {
+        final WriteBehindBuffer buffer = new WriteBehindBuffer();
+        final Thread writer = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted())
+                    buffer.flush(batch -> {
+                        // A slow storage
+                        final long end = System.nanoTime() + 10_000L * batch.size();
+                        while (System.nanoTime() < end) {
+                            // Busy wait
+                        }
+                    });
+            } catch (final InterruptedException ignored) {
+                // Done
+            }
+        }, "Write behind test writer");
+        writer.start();
+
+        for (int i = 0; i < CHANGES; i++)
+            buffer.add("var::" + i % NAMES, null);
+
+        while (!buffer.isEmpty())
+            Thread.sleep(1L);
+        writer.interrupt();
+        writer.join();
+
+        assertEquals(CHANGES, buffer.getChanges());
+        assertEquals(CHANGES, buffer.getCoalescedChanges() + buffer.getSavedVariables());
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ *
+ *     This file is part of Skript.
+ *
+ *    Skript is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Skript is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Skript. If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ *   Copyright 2011-2019 Peter Güttinger and contributors
+ *
+ */
+
+package ch.njol.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("static-method")
+final class RandomsTest {
+
+    @Test
+    void testSeed() {
+        try {
+            Randoms.setSeed(42L);
+            final int[] a = Randoms.sampleIndices(1000, 10);
+            final double d = Randoms.nextDouble();
+            Randoms.setSeed(42L);
+            assertArrayEquals(a, Randoms.sampleIndices(1000, 10));
+            assertEquals(d, Randoms.nextDouble());
+        } finally {
+            Randoms.clearSeed();
+        }
+        assertFalse(Randoms.isSeeded());
+    }
+
+    @Test
+    void testSample() {
+        for (final int k : new int[]{0, 1, 5, 100, 999, 1000}) {
+            final int[] sample = Randoms.sampleIndices(1000, k);
+            assertEquals(k, sample.length);
+            final Set<Integer> distinct = new HashSet<>();
+            for (final int i : sample) {
+                assertTrue(i >= 0 && i < 1000);
+                assertTrue(distinct.add(i));
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> Randoms.sampleIndices(5, 6));
+
+        final String[] os = {"a", "b", "c"};
+        assertEquals(3, Randoms.sample(os, 10).length);
+        assertEquals(String.class, Randoms.sample(os, 2).getClass().getComponentType());
+
+        // Every index should be chosen about equally often
+        final int[] counts = new int[20];
+        for (int i = 0; i < 100_000; i++)
+            for (final int j : Randoms.sampleIndices(20, 2))
+                counts[j]++;
+        for (final int c : counts)
+            assertTrue(Math.abs(c - 10_000) < 1_000, "" + c);
+    }
+
+}